@@ -0,0 +1,49 @@
+package ru.fsapp.bench;
+
+import ru.fsapp.testutil.SyntheticTreeGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Generates benchmark trees of different shapes in a temporary folder.
+ *
+ * @author Ahmed
+ * @version 1.1
+ * @since 2026-10-19
+ */
+final class BenchTrees {
+
+    private BenchTrees() {
+    }
+
+    /**
+     * Creates tree of the given shape.
+     *
+     * @param shape "wide" (one flat folder), "deep" (long chain of folders)
+     *              or "balanced" (uniform fan-out)
+     * @param root empty root folder
+     * @return counts of created elements
+     */
+    static SyntheticTreeGenerator.Summary create(String shape, Path root) throws IOException {
+        SyntheticTreeGenerator generator = new SyntheticTreeGenerator().seed(31).fileSizes(0, 1024 * 1024);
+        switch (shape) {
+            case "wide":
+                generator.depth(0).filesPerDirectory(0).hugeDirectoryEntries(20_000);
+                break;
+            case "deep":
+                generator.depth(60).fanOut(1).filesPerDirectory(20);
+                break;
+            case "balanced":
+                generator.depth(4).fanOut(6).filesPerDirectory(10);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+        return generator.generate(root);
+    }
+
+    static void delete(Path root) throws IOException {
+        SyntheticTreeGenerator.delete(root);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.fsapp.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.fsapp.model.FileNode;
+import ru.fsapp.util.FormatUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one {@link FileNode} and of {@link FormatUtils} formatting.
+ * Run with {@code -prof gc}: {@code gc.alloc.rate.norm} of the node
+ * benchmarks is the allocation per node in bytes.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NodeBenchmark {
+
+    private Path dir;
+    private File file;
+    private long size = 123_456_789L;
+    private long millis = System.currentTimeMillis();
+    private FileTime fileTime = FileTime.fromMillis(millis);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("fsapp-bench-node");
+        file = Files.write(dir.resolve("file.dat"), new byte[512]).toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(file.toPath());
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public FileNode fileNodeFromDisk() {
+        return new FileNode(file);
+    }
+
+    @Benchmark
+    public FileNode fileNodeFromAttributes() {
+        return new FileNode(file, false, size, "owner");
+    }
+
+    @Benchmark
+    public String formatSize() {
+        return FormatUtils.formatSize(size);
+    }
+
+    @Benchmark
+    public String formatDateMillis() {
+        return FormatUtils.formatDate(millis);
+    }
+
+    @Benchmark
+    public String formatDateFileTime() {
+        return FormatUtils.formatDate(fileTime);
+    }
+}
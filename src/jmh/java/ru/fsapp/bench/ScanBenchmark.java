@@ -0,0 +1,104 @@
+package ru.fsapp.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.fsapp.model.FileNode;
+import ru.fsapp.service.FileSystemService;
+import ru.fsapp.service.ScanOptions;
+import ru.fsapp.util.DirectoryStats;
+import ru.fsapp.util.FormatUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scan throughput in entries per second on trees of different shapes,
+ * and the {@link FormatUtils} walks over the same trees.
+ * The {@code entries} counter of the report is the scan rate.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScanBenchmark {
+
+    @Param({"wide", "deep", "balanced"})
+    public String shape;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private Path root;
+    private long entries;
+    private ScanOptions options;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("fsapp-bench-" + shape);
+        entries = BenchTrees.create(shape, root).entries();
+        options = new ScanOptions();
+        options.setParallelism(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchTrees.delete(root);
+    }
+
+    /**
+     * Number of scanned entries, reported as a rate.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Entries {
+        public long entries;
+    }
+
+    @Benchmark
+    public FileNode buildTree(Entries counter) {
+        FileNode node = FileSystemService.buildTree(root.toString(), options);
+        counter.entries += entries;
+        return node;
+    }
+
+    @Benchmark
+    public long formatUtilsStats(Entries counter) {
+        counter.entries += entries;
+        return FormatUtils.countFiles(root) + FormatUtils.countDirectories(root)
+                + FormatUtils.calculateTotalSize(root);
+    }
+
+    @Benchmark
+    public long directoryStats(Entries counter) {
+        counter.entries += entries;
+        DirectoryStats stats = FormatUtils.directoryStats(root);
+        return stats.getFiles() + stats.getDirectories() + stats.getTotalSize();
+    }
+
+    @Benchmark
+    public long directoryStatsParallel(Entries counter) {
+        counter.entries += entries;
+        DirectoryStats stats = FormatUtils.directoryStats(root, 4);
+        return stats.getFiles() + stats.getDirectories() + stats.getTotalSize();
+    }
+}
@@ -1,11 +1,15 @@
 package ru.fsapp;
 
+import ru.fsapp.cli.HeadlessAnalyzer;
 import ru.fsapp.ui.MainFrame;
 import javax.swing.SwingUtilities;
+import java.util.Arrays;
 
 /**
  * Main application for file system analysis.
  * Entry point to the application with graphical interface.
+ * With {@code --headless} as first argument runs batch analysis
+ * without loading any AWT classes.
  *
  * @author Student
  * @version 1.0
@@ -14,6 +18,13 @@ import javax.swing.SwingUtilities;
 public class FileSystemAnalyzerApp {
 
     public static void main(String[] args) {
+        if (args.length > 0 && "--headless".equals(args[0])) {
+            System.exit(HeadlessAnalyzer.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        startGui();
+    }
+
+    private static void startGui() {
         SwingUtilities.invokeLater(() -> {
             MainFrame frame = new MainFrame();
             frame.setVisible(true);
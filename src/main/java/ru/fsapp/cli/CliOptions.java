@@ -0,0 +1,303 @@
+package ru.fsapp.cli;
+
+import ru.fsapp.export.ExportFormat;
+import ru.fsapp.service.ChecksumAlgorithm;
+import ru.fsapp.service.IoThrottle;
+import ru.fsapp.service.ScanOptions;
+
+import java.nio.file.Paths;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Command line options of the headless mode.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class CliOptions {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -jar FileSystemAnalyzer.jar --headless [options] [root]",
+            "",
+            "Options:",
+            "  --root <path>          folder to analyze (or the last argument)",
+            "  --depth <n>            maximum folder depth, root has depth 0 (default "
+                    + ScanOptions.DEFAULT_MAX_DEPTH + ")",
+            "  --parallelism <n>      number of scan threads (default 1)",
+            "  --exclude <glob>       skip matching names, or relative paths if the glob has a slash, repeatable",
+            "  --exclude-regex <re>   skip relative paths matching the regular expression, repeatable",
+            "  --ignore-file <name>   read exclude patterns from files with this name, e.g. .fsignore",
+            "  --one-file-system, -x  do not descend into other mounted file systems",
+            "  --include-virtual      also scan pseudo file systems like proc and sysfs",
+            "  --max-stats <n>        limit file system calls per second (default no limit)",
+            "  --max-bytes <n>        limit read bytes per second (default no limit)",
+            "  --memory-budget <n>    keep about n bytes of the tree in memory, write finished folders to a temporary file",
+            "  --top <n>              number of largest folders and files in the report (default 10)",
+            "  --content-types        add file count and size by content type, read from file headers",
+            "  --compressibility      add estimated compressed size, from deflated samples of each file",
+            "  --manifest <file>      write checksums of all files, e.g. tree.sha256",
+            "  --checksum <name>      sha256 or xxh64 (fast, not for tamper detection) (default sha256)",
+            "  --checksum-cache <f>   checksums of unchanged files are taken from this file (default "
+                    + "~/.fsapp/checksums.cache)",
+            "  --verify <file>        check files under root against a manifest and exit",
+            "  --serve <port>         keep the tree in memory and answer queries on 127.0.0.1 (e.g. "
+                    + QueryServer.DEFAULT_PORT + ")",
+            "  --format <name>        text, json, ndjson, csv or snapshot (binary, compact) (default text)",
+            "  --output <file>        write report to file instead of standard output",
+            "  --verbose              log scan progress to standard error",
+            "  --help                 print this help");
+
+    private String root;
+    private String output;
+    private ExportFormat format;
+    private int top = 10;
+    private boolean contentTypes;
+    private boolean compressibility;
+    private String manifest;
+    private String verify;
+    private int servePort = -1;
+    private long memoryBudget;
+    private ChecksumAlgorithm checksum = ChecksumAlgorithm.SHA256;
+    private String checksumCache = Paths.get(System.getProperty("user.home"), ".fsapp", "checksums.cache").toString();
+    private boolean verbose;
+    private boolean help;
+    private final ScanOptions scanOptions = new ScanOptions();
+
+    /**
+     * Parses command line arguments.
+     *
+     * @param args arguments
+     * @return parsed options
+     * @throws IllegalArgumentException if arguments are invalid
+     */
+    public static CliOptions parse(String[] args) {
+        CliOptions options = new CliOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--root":
+                    options.root = value(args, ++i, arg);
+                    break;
+                case "--depth":
+                    options.scanOptions.setMaxDepth(intValue(args, ++i, arg));
+                    break;
+                case "--parallelism":
+                    options.scanOptions.setParallelism(intValue(args, ++i, arg));
+                    break;
+                case "--exclude":
+                    options.scanOptions.addExclude(value(args, ++i, arg));
+                    break;
+                case "--exclude-regex":
+                    try {
+                        options.scanOptions.addExcludeRegex(value(args, ++i, arg));
+                    } catch (PatternSyntaxException e) {
+                        throw new IllegalArgumentException("Invalid regular expression for " + arg
+                                + ": " + e.getDescription());
+                    }
+                    break;
+                case "--ignore-file":
+                    options.scanOptions.setIgnoreFileName(value(args, ++i, arg));
+                    break;
+                case "--one-file-system":
+                case "-x":
+                    options.scanOptions.setOneFileSystem(true);
+                    break;
+                case "--include-virtual":
+                    options.scanOptions.setSkipVirtualFileSystems(false);
+                    break;
+                case "--max-stats":
+                    options.throttle().setStatsPerSecond(longValue(args, ++i, arg));
+                    break;
+                case "--max-bytes":
+                    options.throttle().setBytesPerSecond(longValue(args, ++i, arg));
+                    break;
+                case "--top":
+                    options.top = intValue(args, ++i, arg);
+                    if (options.top < 0) {
+                        throw new IllegalArgumentException("Negative value for " + arg + ": " + options.top);
+                    }
+                    break;
+                case "--content-types":
+                    options.contentTypes = true;
+                    break;
+                case "--compressibility":
+                    options.compressibility = true;
+                    break;
+                case "--manifest":
+                    options.manifest = value(args, ++i, arg);
+                    break;
+                case "--checksum":
+                    options.checksum = ChecksumAlgorithm.parse(value(args, ++i, arg));
+                    break;
+                case "--checksum-cache":
+                    options.checksumCache = value(args, ++i, arg);
+                    break;
+                case "--verify":
+                    options.verify = value(args, ++i, arg);
+                    break;
+                case "--memory-budget":
+                    options.memoryBudget = longValue(args, ++i, arg);
+                    break;
+                case "--serve":
+                    options.servePort = intValue(args, ++i, arg);
+                    if (options.servePort < 0 || options.servePort > 65535) {
+                        throw new IllegalArgumentException("Invalid port: " + options.servePort);
+                    }
+                    break;
+                case "--format":
+                    String format = value(args, ++i, arg);
+                    options.format = "text".equalsIgnoreCase(format) ? null : ExportFormat.parse(format);
+                    break;
+                case "--output":
+                    options.output = value(args, ++i, arg);
+                    break;
+                case "--verbose":
+                    options.verbose = true;
+                    break;
+                case "--help":
+                case "-h":
+                    options.help = true;
+                    break;
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    if (options.root != null) {
+                        throw new IllegalArgumentException("Root is already set: " + options.root);
+                    }
+                    options.root = arg;
+            }
+        }
+        if (options.root == null && !options.help) {
+            throw new IllegalArgumentException("Root folder is not specified");
+        }
+        if (options.memoryBudget > 0 && (options.contentTypes || options.compressibility
+                || options.manifest != null || options.servePort >= 0 || options.format != null)) {
+            // These walk the tree in memory and would miss written folders
+            throw new IllegalArgumentException("--memory-budget works only with the text report");
+        }
+        return options;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private static long longValue(String[] args, int index, String option) {
+        String value = value(args, index, option);
+        try {
+            long number = Long.parseLong(value);
+            if (number < 0) {
+                throw new IllegalArgumentException("Negative value for " + option + ": " + value);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+
+    /**
+     * Limits go to the shared throttle, so they stay adjustable through JMX.
+     */
+    private IoThrottle throttle() {
+        return IoThrottle.getShared();
+    }
+
+    private static int intValue(String[] args, int index, String option) {
+        String value = value(args, index, option);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+
+    public String getRoot() {
+        return root;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns export format.
+     *
+     * @return format, or null for the text report
+     */
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public boolean isContentTypes() {
+        return contentTypes;
+    }
+
+    public boolean isCompressibility() {
+        return compressibility;
+    }
+
+    /**
+     * Returns file for the checksum manifest.
+     *
+     * @return manifest file, or null if no manifest is written
+     */
+    public String getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Returns manifest to verify.
+     *
+     * @return manifest file, or null if not in verify mode
+     */
+    public String getVerify() {
+        return verify;
+    }
+
+    /**
+     * Returns heap budget of the scanned tree.
+     *
+     * @return bytes, 0 for no limit
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Returns port of the query server.
+     *
+     * @return port, 0 for any free port, -1 if no server is started
+     */
+    public int getServePort() {
+        return servePort;
+    }
+
+    public ChecksumAlgorithm getChecksum() {
+        return checksum;
+    }
+
+    public String getChecksumCache() {
+        return checksumCache;
+    }
+
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    public boolean isHelp() {
+        return help;
+    }
+
+    public ScanOptions getScanOptions() {
+        return scanOptions;
+    }
+}
@@ -0,0 +1,288 @@
+package ru.fsapp.cli;
+
+import org.apache.log4j.ConsoleAppender;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import ru.fsapp.export.TreeExporter;
+import ru.fsapp.model.FileNode;
+import ru.fsapp.service.CancellationToken;
+import ru.fsapp.service.ChecksumCache;
+import ru.fsapp.service.ChecksumManifest;
+import ru.fsapp.service.CompressibilityEstimator;
+import ru.fsapp.service.ContentTypeDetector;
+import ru.fsapp.service.FileSystemService;
+import ru.fsapp.service.OperationResult;
+import ru.fsapp.service.SpillStore;
+import ru.fsapp.util.FormatUtils;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Headless entry point for batch analysis without graphical interface.
+ * Does not touch AWT or Swing, so it works over SSH and in cron jobs.
+ * Logging is redirected to standard error, the report goes to standard
+ * output or to a file.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class HeadlessAnalyzer {
+
+    /**
+     * Exit code for successful run.
+     */
+    public static final int EXIT_OK = 0;
+
+    /**
+     * Exit code for failed analysis.
+     */
+    public static final int EXIT_ERROR = 1;
+
+    /**
+     * Exit code for invalid arguments.
+     */
+    public static final int EXIT_USAGE = 2;
+
+    /** Hashing and sampling are I/O bound, more threads than scan threads keep the disk busy. */
+    private static final int DEFAULT_HASH_THREADS = 4;
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs headless analysis.
+     *
+     * @param args command line arguments
+     * @return process exit code
+     */
+    public static int run(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        // Skip log4j.properties: no log file and no bean introspection on startup
+        System.setProperty("log4j.defaultInitOverride", "true");
+        // Short runs do not need JMX, -Dfsapp.jmx=true enables it
+        if (System.getProperty("fsapp.jmx") == null) {
+            System.setProperty("fsapp.jmx", "false");
+        }
+
+        CliOptions options;
+        try {
+            options = CliOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(CliOptions.USAGE);
+            return EXIT_USAGE;
+        }
+        if (options.isHelp()) {
+            System.out.println(CliOptions.USAGE);
+            return EXIT_OK;
+        }
+
+        configureLogging(options.isVerbose());
+        Logger logger = Logger.getLogger(HeadlessAnalyzer.class);
+
+        if (options.getVerify() != null) {
+            return verify(options, logger);
+        }
+        if (options.getServePort() >= 0) {
+            return serve(options, logger);
+        }
+        if (options.getFormat() != null) {
+            return export(options, logger);
+        }
+
+        try (PrintWriter out = openOutput(options.getOutput());
+             SpillStore spill = options.getMemoryBudget() > 0 ? new SpillStore(null, options.getMemoryBudget()) : null) {
+            options.getScanOptions().setSpillStore(spill);
+            long start = System.nanoTime();
+            FileNode root = FileSystemService.buildTree(options.getRoot(), options.getScanOptions());
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+            new TextReport(options.getTop(), spill).write(root, elapsed, out);
+            if (options.isContentTypes()) {
+                TextReport.writeContentTypes(
+                        ContentTypeDetector.getShared().breakdown(root, new CancellationToken()), out);
+            }
+            if (options.isCompressibility()) {
+                CompressibilityEstimator estimator = new CompressibilityEstimator(
+                        Math.max(DEFAULT_HASH_THREADS, options.getScanOptions().getParallelism()));
+                TextReport.writeCompressibility(root, estimator.estimate(root, new CancellationToken()),
+                        options.getTop(), out);
+            }
+            if (options.getManifest() != null && !writeManifest(root, options, out)) {
+                return EXIT_ERROR;
+            }
+            if (out.checkError()) {
+                System.err.println("Error: failed to write report");
+                return EXIT_ERROR;
+            }
+            return EXIT_OK;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Error: interrupted");
+            return EXIT_ERROR;
+        } catch (IllegalArgumentException | IOException e) {
+            logger.error("Headless analysis failed", e);
+            System.err.println("Error: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    /**
+     * Streams scan results in export format. A sequential scan writes
+     * nodes while reading the disk and does not keep the tree in memory.
+     */
+    private static int export(CliOptions options, Logger logger) {
+        try (TreeExporter exporter = options.getFormat().create(openChannel(options.getOutput()))) {
+            exporter.begin();
+            if (options.getScanOptions().getParallelism() > 1) {
+                FileNode root = FileSystemService.buildTree(options.getRoot(), options.getScanOptions());
+                FileSystemService.walkTree(root, exporter);
+            } else {
+                FileSystemService.streamTree(options.getRoot(), options.getScanOptions(), exporter);
+            }
+            exporter.end();
+            return EXIT_OK;
+        } catch (IllegalArgumentException | IOException e) {
+            logger.error("Export failed", e);
+            System.err.println("Error: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    /**
+     * Writes checksum manifest of a scanned tree and saves the checksum cache.
+     *
+     * @return true if every file was hashed
+     */
+    private static boolean writeManifest(FileNode root, CliOptions options, PrintWriter report)
+            throws IOException, InterruptedException {
+        ChecksumCache cache = ChecksumCache.load(Paths.get(options.getChecksumCache()));
+        ChecksumManifest manifest = new ChecksumManifest(options.getChecksum(),
+                Math.max(DEFAULT_HASH_THREADS, options.getScanOptions().getParallelism()), cache);
+        OperationResult result;
+        try (Writer out = Files.newBufferedWriter(Paths.get(options.getManifest()), StandardCharsets.UTF_8)) {
+            result = manifest.write(root, out, new CancellationToken());
+        }
+        cache.save();
+
+        report.println();
+        report.println("Manifest:    " + options.getManifest() + " (" + result.getCompleted() + " files, "
+                + manifest.getHashedFiles() + " hashed, " + FormatUtils.formatSize(result.getBytes()) + " read)");
+        printFailures(report, result);
+        report.flush();
+        return result.isSuccessful();
+    }
+
+    private static int verify(CliOptions options, Logger logger) {
+        try (PrintWriter out = openOutput(options.getOutput())) {
+            OperationResult result = ChecksumManifest.verify(Paths.get(options.getVerify()),
+                    Paths.get(options.getRoot()), Math.max(DEFAULT_HASH_THREADS,
+                            options.getScanOptions().getParallelism()), new CancellationToken());
+            out.println("Verified:    " + result.getCompleted() + " of " + result.getTotal() + " files, "
+                    + FormatUtils.formatSize(result.getBytes()) + " read");
+            printFailures(out, result);
+            out.flush();
+            return result.isSuccessful() ? EXIT_OK : EXIT_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Error: interrupted");
+            return EXIT_ERROR;
+        } catch (IOException e) {
+            logger.error("Verification failed", e);
+            System.err.println("Error: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    /**
+     * Runs the query server until the process is stopped.
+     */
+    private static int serve(CliOptions options, Logger logger) {
+        QueryServer server = new QueryServer(options.getRoot(), options.getScanOptions(),
+                Math.max(DEFAULT_HASH_THREADS, options.getScanOptions().getParallelism()));
+        CountDownLatch stopped = new CountDownLatch(1);
+        try {
+            server.start(options.getServePort());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                stopped.countDown();
+            }));
+            System.err.println("Serving " + server.getIndex().size() + " elements of " + options.getRoot()
+                    + " on http://127.0.0.1:" + server.getPort() + "/");
+            stopped.await();
+            return EXIT_OK;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.close();
+            return EXIT_OK;
+        } catch (IllegalArgumentException | IOException e) {
+            logger.error("Query server failed", e);
+            System.err.println("Error: " + e.getMessage());
+            server.close();
+            return EXIT_ERROR;
+        }
+    }
+
+    private static void printFailures(PrintWriter out, OperationResult result) {
+        if (result.getFailures().isEmpty()) {
+            return;
+        }
+        out.println("Failed:      " + result.getFailures().size());
+        for (Map.Entry<Path, IOException> failure : result.getFailures().entrySet()) {
+            out.println("  " + failure.getKey() + ": " + failure.getValue());
+        }
+    }
+
+    private static WritableByteChannel openChannel(String output) throws IOException {
+        if (output == null) {
+            return Channels.newChannel(System.out);
+        }
+        return FileChannel.open(Paths.get(output), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    private static PrintWriter openOutput(String output) throws IOException {
+        Writer writer = output == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+        return new PrintWriter(writer) {
+            @Override
+            public void close() {
+                if (output == null) {
+                    flush();
+                } else {
+                    super.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Keeps standard output clean for the report: all logging
+     * goes to standard error.
+     */
+    private static void configureLogging(boolean verbose) {
+        Logger root = Logger.getRootLogger();
+        ConsoleAppender stderr = new ConsoleAppender(
+                new PatternLayout("%d{yyyy-MM-dd HH:mm:ss} [%-5p] %c{1} - %m%n"), ConsoleAppender.SYSTEM_ERR);
+        stderr.setThreshold(verbose ? Level.INFO : Level.WARN);
+        root.addAppender(stderr);
+        root.setLevel(verbose ? Level.INFO : Level.WARN);
+    }
+}
@@ -0,0 +1,315 @@
+package ru.fsapp.cli;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.log4j.Logger;
+import ru.fsapp.export.ChannelTextWriter;
+import ru.fsapp.model.FileNode;
+import ru.fsapp.service.FileSystemService;
+import ru.fsapp.service.ScanCache;
+import ru.fsapp.service.ScanOptions;
+import ru.fsapp.service.TreeIndex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loopback HTTP server answering queries about a scanned tree, so other
+ * tools on the same machine do not have to scan again.
+ *
+ * The tree and its {@link TreeIndex} stay in memory. Requests are answered
+ * with JSON by a fixed pool of threads, each writing into its own reusable
+ * buffer. A rescan builds a new tree, reusing unchanged folders through the
+ * {@link ScanCache}, and replaces the index at once; requests in progress
+ * finish on the old one. The server only listens on the loopback address.
+ *
+ * <pre>
+ * GET  /totals?path=a/b                  size, disk size and counts of an element
+ * GET  /children?path=a/b&amp;limit=100      children in name order
+ * GET  /top?path=a&amp;kind=files&amp;limit=10  largest files or folders (kind=folders)
+ * GET  /search?q=name&amp;path=a&amp;limit=100  elements whose name contains the text
+ * POST /rescan                           scan the root again
+ * </pre>
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class QueryServer implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(QueryServer.class);
+
+    /**
+     * Default port.
+     */
+    public static final int DEFAULT_PORT = 7071;
+
+    private static final int DEFAULT_LIMIT = 100;
+
+    private static final ThreadLocal<Response> RESPONSES = ThreadLocal.withInitial(Response::new);
+
+    private final String root;
+    private final ScanOptions options;
+    private final int threads;
+    private volatile TreeIndex index;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Creates server.
+     *
+     * @param root folder to scan
+     * @param options scan options, also used by rescans
+     * @param threads number of request threads
+     */
+    public QueryServer(String root, ScanOptions options, int threads) {
+        this.root = root;
+        this.options = options;
+        this.threads = Math.max(1, threads);
+        if (options.getCache() == null) {
+            options.setCache(ScanCache.getShared());
+        }
+    }
+
+    /**
+     * Scans the root and starts listening.
+     *
+     * @param port port on the loopback address, 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public void start(int port) throws IOException {
+        rescan();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 64);
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "fsapp-query-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        logger.info("Query server listening on " + server.getAddress() + " for " + root);
+    }
+
+    /**
+     * Returns bound port.
+     *
+     * @return port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns index of the last scan.
+     *
+     * @return index
+     */
+    public TreeIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Scans the root again and replaces the index.
+     *
+     * @return new index
+     */
+    public synchronized TreeIndex rescan() {
+        long start = System.nanoTime();
+        FileNode tree = FileSystemService.buildTree(root, options);
+        index = TreeIndex.build(tree);
+        logger.info("Indexed " + index.size() + " elements in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return index;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Response response = RESPONSES.get();
+        response.reset();
+        int status;
+        try {
+            status = answer(exchange, response);
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            response.error(e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Query failed: " + exchange.getRequestURI(), e);
+            status = 500;
+            response.error("Internal error");
+        }
+        byte[] body = response.finish();
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private int answer(HttpExchange exchange, Response response) throws IOException {
+        String endpoint = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        if ("/rescan".equals(endpoint)) {
+            if (!"POST".equals(method)) {
+                response.error("Use POST");
+                return 405;
+            }
+            TreeIndex rescanned = rescan();
+            response.object(rescanned, 0);
+            return 200;
+        }
+        if (!"GET".equals(method)) {
+            response.error("Use GET");
+            return 405;
+        }
+
+        TreeIndex current = index;
+        String path = query.getOrDefault("path", "");
+        int id = current.find(path);
+        if (id < 0) {
+            response.error("No such path: " + path);
+            return 404;
+        }
+        int limit = intParam(query, "limit", DEFAULT_LIMIT);
+        switch (endpoint) {
+            case "/totals":
+                response.object(current, id);
+                return 200;
+            case "/children":
+                int[] children = current.getChildren(id);
+                response.list(current, children, Math.min(limit, children.length));
+                return 200;
+            case "/top":
+                String kind = query.getOrDefault("kind", "files");
+                if (!"files".equals(kind) && !"folders".equals(kind)) {
+                    throw new IllegalArgumentException("kind must be files or folders: " + kind);
+                }
+                int[] largest = current.getLargest(id, "folders".equals(kind), limit);
+                response.list(current, largest, largest.length);
+                return 200;
+            case "/search":
+                String text = query.get("q");
+                if (text == null || text.isEmpty()) {
+                    throw new IllegalArgumentException("Missing q");
+                }
+                int[] found = current.search(id, text, limit);
+                response.list(current, found, found.length);
+                return 200;
+            default:
+                response.error("Unknown query: " + endpoint);
+                return 404;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new IllegalArgumentException("Negative " + name + ": " + value);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    /**
+     * Reusable response buffer of a request thread.
+     */
+    private static class Response {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        private final ChannelTextWriter out = new ChannelTextWriter(Channels.newChannel(bytes));
+
+        void reset() throws IOException {
+            // Drops text of a response that failed half way
+            out.flush();
+            bytes.reset();
+        }
+
+        void error(String message) throws IOException {
+            reset();
+            out.write("{\"error\":");
+            out.writeJsonString(message);
+            out.write('}');
+        }
+
+        void object(TreeIndex index, int id) throws IOException {
+            FileNode node = index.getNode(id);
+            out.write("{\"path\":");
+            out.writeJsonString(index.getRelativePath(id));
+            out.write(",\"name\":");
+            out.writeJsonString(node.getName());
+            out.write(",\"type\":");
+            out.write(node.isDirectory() ? "\"dir\"" : "\"file\"");
+            out.write(",\"size\":");
+            out.writeLong(node.isDirectory() ? node.getTotalSize() : node.getSize());
+            out.write(",\"allocated\":");
+            out.writeLong(node.getTotalAllocated());
+            out.write(",\"modified\":");
+            out.writeLong(node.getLastModified());
+            if (node.isDirectory()) {
+                out.write(",\"unique\":");
+                out.writeLong(node.getUniqueSize());
+                out.write(",\"files\":");
+                out.writeLong(index.getFileCount(id));
+                out.write(",\"folders\":");
+                out.writeLong(index.getFolderCount(id));
+            }
+            out.write('}');
+        }
+
+        void list(TreeIndex index, int[] ids, int count) throws IOException {
+            out.write('[');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                object(index, ids[i]);
+            }
+            out.write(']');
+        }
+
+        byte[] finish() throws IOException {
+            out.flush();
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ru.fsapp.cli;
+
+import ru.fsapp.model.FileNode;
+import ru.fsapp.service.CompressibilityEstimator;
+import ru.fsapp.service.SpillStore;
+import ru.fsapp.util.FormatUtils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Plain text report of a scanned tree: totals and the largest folders and files.
+ * Folder sizes are summed in one pass over the tree, the largest elements
+ * are kept in bounded heaps, so the report needs no extra memory per node.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class TextReport {
+
+    private final int top;
+    private final SpillStore spill;
+    private final PriorityQueue<Entry> largestFolders;
+    private final PriorityQueue<Entry> largestFiles;
+    private long files;
+    private long folders;
+    private long totalSize;
+
+    /**
+     * Creates report.
+     *
+     * @param top number of largest folders and files to list
+     */
+    public TextReport(int top) {
+        this(top, null);
+    }
+
+    /**
+     * Creates report of a tree with subtrees written to disk. Written
+     * folders are read back one at a time and dropped again after counting.
+     *
+     * @param top number of largest folders and files to list
+     * @param spill store of the scan, or null
+     */
+    public TextReport(int top, SpillStore spill) {
+        this.top = top;
+        this.spill = spill;
+        this.largestFolders = new PriorityQueue<>(Comparator.comparingLong(e -> e.size));
+        this.largestFiles = new PriorityQueue<>(Comparator.comparingLong(e -> e.size));
+    }
+
+    /**
+     * Writes report of the tree.
+     *
+     * @param root root node
+     * @param elapsedMillis scan time in milliseconds
+     * @param out target writer
+     * @throws IOException if a written subtree cannot be read
+     */
+    public void write(FileNode root, long elapsedMillis, PrintWriter out) throws IOException {
+        long rootSize = collect(root, true);
+
+        out.println("Root:        " + root.getPath().toAbsolutePath());
+        out.println("Files:       " + files);
+        out.println("Folders:     " + folders);
+        out.println("Total size:  " + FormatUtils.formatSize(rootSize) + " (" + rootSize + " bytes)");
+        out.println("Allocated:   " + FormatUtils.formatSize(root.getTotalAllocated())
+                + " (" + root.getTotalAllocated() + " bytes)");
+        out.println("Unique:      " + FormatUtils.formatSize(root.getUniqueSize())
+                + " (" + root.getUniqueSize() + " bytes, hard links counted once)");
+        out.println("Scan time:   " + elapsedMillis + " ms");
+        printTop(out, "Largest folders:", largestFolders);
+        printTop(out, "Largest files:", largestFiles);
+        out.flush();
+    }
+
+    /**
+     * Writes file count and size by content type.
+     *
+     * @param types map from type to {@code {files, bytes}} in output order
+     * @param out target writer
+     */
+    public static void writeContentTypes(Map<String, long[]> types, PrintWriter out) {
+        if (types.isEmpty()) {
+            return;
+        }
+        out.println();
+        out.println("Content types:");
+        for (Map.Entry<String, long[]> entry : types.entrySet()) {
+            out.printf("  %12s  %8d  %s%n", FormatUtils.formatSize(entry.getValue()[1]),
+                    entry.getValue()[0], entry.getKey());
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes estimated compressed size of the tree and the folders that would save most.
+     *
+     * @param root root node
+     * @param estimate compressibility estimate of the tree
+     * @param top number of folders to list
+     * @param out target writer
+     */
+    public static void writeCompressibility(FileNode root, CompressibilityEstimator.Estimate estimate,
+                                            int top, PrintWriter out) {
+        out.println();
+        out.printf("Compressed:  %s of %s (ratio %.2f, %s sampled)%n",
+                FormatUtils.formatSize(estimate.getCompressedSize(root)), FormatUtils.formatSize(estimate.getSize(root)),
+                estimate.getRatio(root), FormatUtils.formatSize(estimate.getSampledBytes()));
+        List<FileNode> folders = estimate.getTopSavings(top + 1);
+        folders.remove(root);
+        if (!folders.isEmpty()) {
+            out.println();
+            out.println("Largest savings:");
+            for (FileNode folder : folders.subList(0, Math.min(top, folders.size()))) {
+                out.printf("  %12s  %.2f  %s%n", FormatUtils.formatSize(estimate.getSavings(folder)),
+                        estimate.getRatio(folder), folder.getPath().toAbsolutePath());
+            }
+        }
+        out.flush();
+    }
+
+    private long collect(FileNode node, boolean root) throws IOException {
+        if (!node.isDirectory()) {
+            files++;
+            totalSize += node.getSize();
+            offer(largestFiles, node, node.getSize());
+            return node.getSize();
+        }
+        if (!root) {
+            folders++;
+        }
+        long size = 0;
+        boolean loaded = spill != null && spill.load(node);
+        for (FileNode child : node.getChildren()) {
+            size += collect(child, false);
+        }
+        if (loaded) {
+            spill.release(node);
+        }
+        if (!root) {
+            offer(largestFolders, node, size);
+        }
+        return size;
+    }
+
+    private void offer(PriorityQueue<Entry> heap, FileNode node, long size) {
+        if (top <= 0) {
+            return;
+        }
+        if (heap.size() < top) {
+            heap.add(new Entry(node, size));
+        } else if (heap.peek().size < size) {
+            heap.poll();
+            heap.add(new Entry(node, size));
+        }
+    }
+
+    private static void printTop(PrintWriter out, String title, PriorityQueue<Entry> heap) {
+        if (heap.isEmpty()) {
+            return;
+        }
+        List<Entry> entries = new ArrayList<>(heap);
+        entries.sort((a, b) -> Long.compare(b.size, a.size));
+        out.println();
+        out.println(title);
+        for (Entry entry : entries) {
+            out.printf("  %12s  %s%n", FormatUtils.formatSize(entry.size), entry.node.getPath().toAbsolutePath());
+        }
+    }
+
+    private static class Entry {
+        private final FileNode node;
+        private final long size;
+
+        Entry(FileNode node, long size) {
+            this.node = node;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package ru.fsapp.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered UTF-8 text writer on top of a byte channel.
+ *
+ * Characters are copied into one reusable char buffer and encoded
+ * by one reusable encoder into a direct byte buffer, which is written
+ * to the channel when full. Numbers are written digit by digit, so
+ * writing a node does not create intermediate strings.
+ * Not thread-safe.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class ChannelTextWriter implements Closeable {
+
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+    private static final int BYTE_BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BYTE_BUFFER_SIZE);
+    private final char[] digits = new char[20];
+
+    /**
+     * Creates writer.
+     *
+     * @param channel target channel
+     */
+    public ChannelTextWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Writes one character.
+     *
+     * @param c character
+     * @throws IOException if writing to the channel fails
+     */
+    public void write(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put(c);
+    }
+
+    /**
+     * Writes string.
+     *
+     * @param s string
+     * @throws IOException if writing to the channel fails
+     */
+    public void write(String s) throws IOException {
+        write(s, 0, s.length());
+    }
+
+    /**
+     * Writes part of a string.
+     *
+     * @param s string
+     * @param start index of the first character
+     * @param end index after the last character
+     * @throws IOException if writing to the channel fails
+     */
+    public void write(String s, int start, int end) throws IOException {
+        int offset = start;
+        while (offset < end) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            int count = Math.min(chars.remaining(), end - offset);
+            int position = chars.position();
+            s.getChars(offset, offset + count, chars.array(), chars.arrayOffset() + position);
+            chars.position(position + count);
+            offset += count;
+        }
+    }
+
+    /**
+     * Writes decimal number.
+     *
+     * @param value number
+     * @throws IOException if writing to the channel fails
+     */
+    public void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            write('-');
+            value = -value;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = position; i < digits.length; i++) {
+            write(digits[i]);
+        }
+    }
+
+    /**
+     * Writes string as JSON string literal with quotes and escapes.
+     *
+     * @param s string
+     * @throws IOException if writing to the channel fails
+     */
+    public void writeJsonString(String s) throws IOException {
+        write('"');
+        int start = 0;
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            write(s, start, i);
+            start = i + 1;
+            write('\\');
+            switch (c) {
+                case '"':
+                case '\\':
+                    write(c);
+                    break;
+                case '\n':
+                    write('n');
+                    break;
+                case '\r':
+                    write('r');
+                    break;
+                case '\t':
+                    write('t');
+                    break;
+                default:
+                    write('u');
+                    write('0');
+                    write('0');
+                    write(Character.forDigit(c >> 4, 16));
+                    write(Character.forDigit(c & 0xF, 16));
+            }
+        }
+        write(s, start, length);
+        write('"');
+    }
+
+    /**
+     * Writes string as CSV field, quoted only when needed.
+     *
+     * @param s string
+     * @throws IOException if writing to the channel fails
+     */
+    public void writeCsvField(String s) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            write(s);
+            return;
+        }
+        write('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == '"') {
+                write(s, start, i + 1);
+                start = i;
+            }
+        }
+        write(s, start, s.length());
+        write('"');
+    }
+
+    /**
+     * Writes raw bytes after the text written so far, for binary formats.
+     *
+     * @param data bytes
+     * @param offset start in the array
+     * @param length number of bytes
+     * @throws IOException if writing to the channel fails
+     */
+    public void writeBytes(byte[] data, int offset, int length) throws IOException {
+        encode(false);
+        while (length > 0) {
+            if (!bytes.hasRemaining()) {
+                drainBytes();
+            }
+            int n = Math.min(length, bytes.remaining());
+            bytes.put(data, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Writes buffered text to the channel.
+     *
+     * @throws IOException if writing to the channel fails
+     */
+    public void flush() throws IOException {
+        encode(false);
+        drainBytes();
+    }
+
+    /**
+     * Flushes remaining text and closes the channel.
+     *
+     * @throws IOException if writing to the channel fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            encode(true);
+            while (encoder.flush(bytes) == CoderResult.OVERFLOW) {
+                drainBytes();
+            }
+            drainBytes();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drainBytes();
+            } else {
+                break;
+            }
+        }
+        chars.compact();
+    }
+
+    private void drainBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,65 @@
+package ru.fsapp.export;
+
+import ru.fsapp.model.FileNode;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Exports tree as CSV table with a header row, one row per node.
+ * A folder comes after its content, with the totals of its subtree
+ * in the size and allocated columns.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class CsvExporter extends TreeExporter {
+
+    /**
+     * Creates exporter.
+     *
+     * @param channel target channel
+     */
+    public CsvExporter(WritableByteChannel channel) {
+        super(channel);
+    }
+
+    @Override
+    public void begin() throws IOException {
+        out.write("path,name,type,depth,size,allocated,links,owner\n");
+    }
+
+    @Override
+    public void enterDirectory(FileNode dir, int depth) {
+    }
+
+    @Override
+    public void visitFile(FileNode file, int depth) throws IOException {
+        writeRow(file, depth);
+    }
+
+    @Override
+    public void exitDirectory(FileNode dir, int depth) throws IOException {
+        writeRow(dir, depth);
+    }
+
+    private void writeRow(FileNode node, int depth) throws IOException {
+        out.writeCsvField(node.getFile().getPath());
+        out.write(',');
+        out.writeCsvField(node.getName());
+        out.write(',');
+        out.write(typeOf(node));
+        out.write(',');
+        out.writeLong(depth);
+        out.write(',');
+        out.writeLong(node.getTotalSize());
+        out.write(',');
+        out.writeLong(node.getTotalAllocated());
+        out.write(',');
+        out.writeLong(node.getLinkCount());
+        out.write(',');
+        out.writeCsvField(node.getOwner());
+        out.write('\n');
+    }
+}
@@ -0,0 +1,52 @@
+package ru.fsapp.export;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Supported export formats.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public enum ExportFormat {
+    JSON,
+    NDJSON,
+    CSV,
+    SNAPSHOT;
+
+    /**
+     * Creates exporter of this format.
+     *
+     * @param channel target channel
+     * @return new exporter
+     */
+    public TreeExporter create(WritableByteChannel channel) {
+        switch (this) {
+            case JSON:
+                return new JsonExporter(channel);
+            case NDJSON:
+                return new NdjsonExporter(channel);
+            case SNAPSHOT:
+                return new SnapshotWriter(channel);
+            default:
+                return new CsvExporter(channel);
+        }
+    }
+
+    /**
+     * Finds format by name, ignoring case.
+     *
+     * @param name format name
+     * @return format
+     * @throws IllegalArgumentException if format is unknown
+     */
+    public static ExportFormat parse(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown format: " + name);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.fsapp.export;
+
+import ru.fsapp.model.FileNode;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Exports tree as one nested JSON document.
+ * Folders contain a {@code children} array with their elements,
+ * followed by {@code size} and {@code allocated} of the whole subtree.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class JsonExporter extends TreeExporter {
+
+    private boolean[] firstChild = new boolean[64];
+
+    /**
+     * Creates exporter.
+     *
+     * @param channel target channel
+     */
+    public JsonExporter(WritableByteChannel channel) {
+        super(channel);
+    }
+
+    @Override
+    public void enterDirectory(FileNode dir, int depth) throws IOException {
+        separator(depth);
+        writeFields(dir);
+        out.write(",\"children\":[");
+        if (depth + 1 >= firstChild.length) {
+            firstChild = Arrays.copyOf(firstChild, firstChild.length * 2);
+        }
+        firstChild[depth + 1] = true;
+    }
+
+    @Override
+    public void visitFile(FileNode file, int depth) throws IOException {
+        separator(depth);
+        writeFields(file);
+        out.write('}');
+    }
+
+    @Override
+    public void exitDirectory(FileNode dir, int depth) throws IOException {
+        out.write(']');
+        writeSizes(dir);
+        out.write('}');
+    }
+
+    @Override
+    public void end() throws IOException {
+        out.write('\n');
+        super.end();
+    }
+
+    private void separator(int depth) throws IOException {
+        if (depth == 0) {
+            return;
+        }
+        if (depth >= firstChild.length) {
+            firstChild = Arrays.copyOf(firstChild, depth * 2);
+        }
+        if (!firstChild[depth]) {
+            out.write(',');
+        }
+        firstChild[depth] = false;
+    }
+
+    private void writeFields(FileNode node) throws IOException {
+        out.write("{\"name\":");
+        out.writeJsonString(node.getName());
+        out.write(",\"path\":");
+        out.writeJsonString(node.getFile().getPath());
+        out.write(",\"type\":\"");
+        out.write(typeOf(node));
+        out.write("\",\"links\":");
+        out.writeLong(node.getLinkCount());
+        out.write(",\"owner\":");
+        out.writeJsonString(node.getOwner());
+        if (!node.isDirectory()) {
+            writeSizes(node);
+        }
+    }
+
+    private void writeSizes(FileNode node) throws IOException {
+        out.write(",\"size\":");
+        out.writeLong(node.getTotalSize());
+        out.write(",\"allocated\":");
+        out.writeLong(node.getTotalAllocated());
+    }
+}
@@ -0,0 +1,61 @@
+package ru.fsapp.export;
+
+import ru.fsapp.model.FileNode;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Exports tree as newline delimited JSON: one flat object per node.
+ * A folder comes after its content, with the totals of its subtree
+ * in {@code size} and {@code allocated}.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class NdjsonExporter extends TreeExporter {
+
+    /**
+     * Creates exporter.
+     *
+     * @param channel target channel
+     */
+    public NdjsonExporter(WritableByteChannel channel) {
+        super(channel);
+    }
+
+    @Override
+    public void enterDirectory(FileNode dir, int depth) {
+    }
+
+    @Override
+    public void visitFile(FileNode file, int depth) throws IOException {
+        writeLine(file, depth);
+    }
+
+    @Override
+    public void exitDirectory(FileNode dir, int depth) throws IOException {
+        writeLine(dir, depth);
+    }
+
+    private void writeLine(FileNode node, int depth) throws IOException {
+        out.write("{\"path\":");
+        out.writeJsonString(node.getFile().getPath());
+        out.write(",\"name\":");
+        out.writeJsonString(node.getName());
+        out.write(",\"type\":\"");
+        out.write(typeOf(node));
+        out.write("\",\"depth\":");
+        out.writeLong(depth);
+        out.write(",\"size\":");
+        out.writeLong(node.getTotalSize());
+        out.write(",\"allocated\":");
+        out.writeLong(node.getTotalAllocated());
+        out.write(",\"links\":");
+        out.writeLong(node.getLinkCount());
+        out.write(",\"owner\":");
+        out.writeJsonString(node.getOwner());
+        out.write("}\n");
+    }
+}
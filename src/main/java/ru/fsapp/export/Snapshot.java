@@ -0,0 +1,238 @@
+package ru.fsapp.export;
+
+import ru.fsapp.model.FileNode;
+import ru.fsapp.util.FrontCodedNames;
+import ru.fsapp.util.VarInts;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Tree read from a snapshot written by {@link SnapshotWriter}.
+ *
+ * The snapshot stays in its compact form: names of every folder are kept
+ * front coded, attributes in primitive arrays. Nodes are only created by
+ * {@link #toTree()} or for the subtree returned by {@link #find(String)},
+ * which looks up one name per level by binary search.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class Snapshot {
+
+    private final String rootPath;
+    private final Folder top;
+    private final long entries;
+
+    private Snapshot(String rootPath, Folder top, long entries) {
+        this.rootPath = rootPath;
+        this.top = top;
+        this.entries = entries;
+    }
+
+    /**
+     * Reads snapshot file.
+     *
+     * @param file snapshot file
+     * @return snapshot
+     * @throws IOException if reading fails or the file is not a snapshot
+     */
+    public static Snapshot read(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads snapshot from a stream.
+     *
+     * @param in source stream
+     * @return snapshot
+     * @throws IOException if reading fails or the data is not a snapshot
+     */
+    public static Snapshot read(InputStream in) throws IOException {
+        byte[] magic = VarInts.readBytes(in, SnapshotWriter.MAGIC.length);
+        if (!Arrays.equals(magic, SnapshotWriter.MAGIC)) {
+            throw new IOException("Not a snapshot");
+        }
+        int version = in.read();
+        if (version != SnapshotWriter.VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+
+        List<String> owners = new ArrayList<>();
+        Deque<Folder> done = new ArrayDeque<>();
+        long entries = 1;
+        while (true) {
+            int tag = in.read();
+            if (tag == SnapshotWriter.FOLDER) {
+                FrontCodedNames names = FrontCodedNames.readFrom(in);
+                Folder folder = new Folder(names);
+                for (int i = 0; i < names.size(); i++) {
+                    folder.read(i, in, owners);
+                }
+                entries += names.size();
+                // Records of the subfolders came before, the last one on top
+                int[] positions = new int[VarInts.readInt(in)];
+                for (int i = 0; i < positions.length; i++) {
+                    positions[i] = VarInts.readInt(in);
+                }
+                for (int i = positions.length - 1; i >= 0; i--) {
+                    if (done.isEmpty() || positions[i] >= names.size()) {
+                        throw new IOException("Malformed folder record");
+                    }
+                    folder.folders[positions[i]] = done.pop();
+                }
+                done.push(folder);
+            } else if (tag == SnapshotWriter.END) {
+                String rootPath = readString(in);
+                Folder top = new Folder(FrontCodedNames.ofSorted(
+                        Collections.singletonList(new File(rootPath).getName()), 1));
+                top.read(0, in, owners);
+                if (done.size() != 1) {
+                    throw new IOException("Malformed snapshot: " + done.size() + " root folders");
+                }
+                top.folders[0] = done.pop();
+                return new Snapshot(rootPath, top, entries);
+            } else if (tag < 0) {
+                throw new IOException("Truncated snapshot");
+            } else {
+                throw new IOException("Unknown record: " + tag);
+            }
+        }
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        return new String(VarInts.readBytes(in, VarInts.readInt(in)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns path of the scanned root folder.
+     *
+     * @return root path
+     */
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    /**
+     * Returns number of files and folders, including the root.
+     *
+     * @return number of entries
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * Creates the whole tree with totals.
+     *
+     * @return root node
+     */
+    public FileNode toTree() {
+        FileNode root = top.toNode(new File(rootPath), 0);
+        root.updateTotals();
+        return root;
+    }
+
+    /**
+     * Finds element by path relative to the root and creates its subtree.
+     *
+     * @param relativePath path with {@code /} or the platform separator, empty for the root
+     * @return node with totals, or null if there is no such element
+     */
+    public FileNode find(String relativePath) {
+        Folder folder = top;
+        int index = 0;
+        File file = new File(rootPath);
+        for (String name : relativePath.replace(File.separatorChar, '/').split("/")) {
+            if (name.isEmpty()) {
+                continue;
+            }
+            folder = folder.folders[index];
+            if (folder == null) {
+                return null;
+            }
+            index = folder.names.indexOf(name);
+            if (index < 0) {
+                return null;
+            }
+            file = new File(file, name);
+        }
+        FileNode node = folder.toNode(file, index);
+        node.updateTotals();
+        return node;
+    }
+
+    /**
+     * Children of one folder in name order.
+     */
+    private static class Folder {
+        private final FrontCodedNames names;
+        private final byte[] flags;
+        private final long[] sizes;
+        private final long[] allocated;
+        private final long[] modified;
+        private final int[] links;
+        private final String[] owners;
+        private final Folder[] folders;
+
+        Folder(FrontCodedNames names) {
+            int size = names.size();
+            this.names = names;
+            this.flags = new byte[size];
+            this.sizes = new long[size];
+            this.allocated = new long[size];
+            this.modified = new long[size];
+            this.links = new int[size];
+            this.owners = new String[size];
+            this.folders = new Folder[size];
+        }
+
+        void read(int i, InputStream in, List<String> ownerTable) throws IOException {
+            int flag = in.read();
+            if (flag < 0) {
+                throw new IOException("Truncated snapshot");
+            }
+            flags[i] = (byte) flag;
+            sizes[i] = VarInts.read(in);
+            allocated[i] = VarInts.read(in);
+            modified[i] = VarInts.read(in);
+            links[i] = VarInts.readInt(in);
+            int owner = VarInts.readInt(in);
+            if (owner == ownerTable.size()) {
+                ownerTable.add(readString(in));
+            } else if (owner > ownerTable.size()) {
+                throw new IOException("Unknown owner: " + owner);
+            }
+            owners[i] = ownerTable.get(owner);
+        }
+
+        FileNode toNode(File file, int i) {
+            FileNode node = new FileNode(file, (flags[i] & SnapshotWriter.FLAG_DIRECTORY) != 0,
+                    sizes[i], owners[i], modified[i], allocated[i], links[i]);
+            if ((flags[i] & SnapshotWriter.FLAG_DUPLICATE_LINK) != 0) {
+                node.markDuplicateLink();
+            }
+            Folder folder = folders[i];
+            if (folder != null) {
+                for (int j = 0; j < folder.names.size(); j++) {
+                    node.addChild(folder.toNode(new File(file, folder.names.get(j)), j));
+                }
+            }
+            return node;
+        }
+    }
+}
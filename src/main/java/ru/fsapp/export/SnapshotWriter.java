@@ -0,0 +1,159 @@
+package ru.fsapp.export;
+
+import ru.fsapp.model.FileNode;
+import ru.fsapp.util.FrontCodedNames;
+import ru.fsapp.util.IndexSorter;
+import ru.fsapp.util.VarInts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes tree as a compact binary snapshot, read back by {@link Snapshot}.
+ *
+ * Every folder becomes one record written when the folder is left, so a
+ * streaming scan keeps only the children of the open folders. A record holds
+ * the sorted child names as {@link FrontCodedNames}, the attributes of the
+ * children in the same order and the positions of the subfolders whose records
+ * came before it. Numbers are variable length, owners are written once and then
+ * referred to by number. The last record describes the root.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class SnapshotWriter extends TreeExporter {
+
+    static final byte[] MAGIC = {'F', 'S', 'N', 'P'};
+    static final int VERSION = 1;
+    static final int FOLDER = 'D';
+    static final int END = 'E';
+    static final int FLAG_DIRECTORY = 1;
+    static final int FLAG_DUPLICATE_LINK = 2;
+
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private final Map<String, Integer> owners = new HashMap<>();
+
+    /**
+     * Creates writer.
+     *
+     * @param channel target channel
+     */
+    public SnapshotWriter(WritableByteChannel channel) {
+        super(channel);
+    }
+
+    @Override
+    public void begin() throws IOException {
+        out.writeBytes(MAGIC, 0, MAGIC.length);
+        record.reset();
+        record.write(VERSION);
+        flushRecord();
+    }
+
+    @Override
+    public void enterDirectory(FileNode dir, int depth) {
+        Frame parent = frames.peek();
+        if (parent != null) {
+            parent.folders.add(parent.children.size());
+            parent.children.add(dir);
+        }
+        frames.push(new Frame());
+    }
+
+    @Override
+    public void visitFile(FileNode file, int depth) {
+        frames.peek().children.add(file);
+    }
+
+    @Override
+    public void exitDirectory(FileNode dir, int depth) throws IOException {
+        writeFolder(frames.pop());
+        if (frames.isEmpty()) {
+            record.write(END);
+            writeString(dir.getFile().getPath());
+            writeAttributes(dir);
+            flushRecord();
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        if (!frames.isEmpty()) {
+            throw new IOException("Snapshot ended inside a folder");
+        }
+        super.end();
+    }
+
+    private void writeFolder(Frame frame) throws IOException {
+        List<FileNode> children = frame.children;
+        int[] order = IndexSorter.identity(children.size());
+        IndexSorter.sort(order, (a, b) -> children.get(a).getName().compareTo(children.get(b).getName()));
+        int[] rank = new int[order.length];
+        List<String> names = new ArrayList<>(order.length);
+        for (int i = 0; i < order.length; i++) {
+            rank[order[i]] = i;
+            names.add(children.get(order[i]).getName());
+        }
+
+        record.write(FOLDER);
+        FrontCodedNames.ofSorted(names, FrontCodedNames.DEFAULT_BLOCK_SIZE).writeTo(record);
+        for (int index : order) {
+            writeAttributes(children.get(index));
+        }
+        // Subfolder records came in visit order, the reader needs their sorted positions
+        VarInts.write(record, frame.folders.size());
+        for (int position : frame.folders) {
+            VarInts.write(record, rank[position]);
+        }
+        flushRecord();
+    }
+
+    private void writeAttributes(FileNode node) throws IOException {
+        int flags = (node.isDirectory() ? FLAG_DIRECTORY : 0) | (node.isDuplicateLink() ? FLAG_DUPLICATE_LINK : 0);
+        record.write(flags);
+        VarInts.write(record, Math.max(0, node.getSize()));
+        VarInts.write(record, Math.max(0, node.getAllocatedSize()));
+        VarInts.write(record, Math.max(0, node.getLastModified()));
+        VarInts.write(record, Math.max(0, node.getLinkCount()));
+
+        String owner = node.getOwner() != null ? node.getOwner() : "";
+        Integer id = owners.get(owner);
+        if (id != null) {
+            VarInts.write(record, id);
+        } else {
+            // A new owner is defined by its first use
+            VarInts.write(record, owners.size());
+            writeString(owner);
+            owners.put(owner, owners.size());
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        VarInts.write(record, bytes.length);
+        record.write(bytes);
+    }
+
+    private void flushRecord() throws IOException {
+        out.writeBytes(record.toByteArray(), 0, record.size());
+        record.reset();
+    }
+
+    /**
+     * Children of an open folder.
+     */
+    private static class Frame {
+        private final List<FileNode> children = new ArrayList<>();
+        private final List<Integer> folders = new ArrayList<>();
+    }
+}
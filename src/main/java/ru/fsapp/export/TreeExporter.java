@@ -0,0 +1,66 @@
+package ru.fsapp.export;
+
+import ru.fsapp.model.FileNode;
+import ru.fsapp.service.TreeVisitor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Base class of streaming exporters.
+ * An exporter is a {@link TreeVisitor}: nodes are written as they are
+ * visited, either during a streaming scan or from an existing tree.
+ * For folders, size and allocated size are the totals of the subtree,
+ * so they are written when the folder is left.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public abstract class TreeExporter implements TreeVisitor, Closeable {
+
+    protected final ChannelTextWriter out;
+
+    /**
+     * Creates exporter.
+     *
+     * @param channel target channel
+     */
+    protected TreeExporter(WritableByteChannel channel) {
+        this.out = new ChannelTextWriter(channel);
+    }
+
+    /**
+     * Writes document header. Called once before the first node.
+     *
+     * @throws IOException if writing fails
+     */
+    public void begin() throws IOException {
+    }
+
+    /**
+     * Writes document footer and flushes the output.
+     * Called once after the last node.
+     *
+     * @throws IOException if writing fails
+     */
+    public void end() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Returns type name of the node used in all formats.
+     *
+     * @param node node
+     * @return "directory" or "file"
+     */
+    protected static String typeOf(FileNode node) {
+        return node.isDirectory() ? "directory" : "file";
+    }
+}
@@ -1,12 +1,19 @@
 package ru.fsapp.model;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.UserPrincipal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents node of file system (file or folder).
@@ -21,32 +28,250 @@ public class FileNode {
     private final File file;
     private final Path path;
     private final List<FileNode> children;
+    private FileNode parent;
     private long size;
     private String owner;
     private boolean isDirectory;
     private String name;
+    private long lastModified;
+
+    // Disk usage: own allocation, hard link identity and folder totals
+    private long allocatedSize;
+    private long device;
+    private long inode;
+    private int linkCount = 1;
+    private boolean duplicateLink;
+    private long totalSize;
+    private long totalAllocated;
+    private long totalUnique;
+    private boolean totalsKnown;
+    private boolean listed = true;
+
+    /** Block size used when the file system does not report one. */
+    public static final long DEFAULT_BLOCK_SIZE = 4096;
+
+    private static final boolean POSIX =
+            FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    private static final boolean UNIX =
+            FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+    private static final boolean UNIX_BLOCKS = UNIX && supportsBlocks();
+    private static final String UNIX_ATTRIBUTES =
+            "unix:isDirectory,size,lastModifiedTime,owner,dev,ino,nlink" + (UNIX_BLOCKS ? ",blocks" : "");
+    private static final Map<Long, Long> BLOCK_SIZES = new ConcurrentHashMap<>();
+    private static final LinkOption[] FOLLOW_LINKS = new LinkOption[0];
+    private static final LinkOption[] NOFOLLOW_LINKS = {LinkOption.NOFOLLOW_LINKS};
 
     /**
-     * Creates file node.
+     * Creates file node. A symbolic link is followed, the node describes its target.
      *
      * @param file file represented by this node
      */
     public FileNode(File file) {
+        this(file, true);
+    }
+
+    /**
+     * Creates file node.
+     *
+     * A symbolic link that is not followed is an element of its own, with
+     * the size of the link and not a folder, as du counts it: files reached
+     * through links are not counted twice and linked folders are not
+     * scanned again.
+     *
+     * @param file file represented by this node
+     * @param followLinks true to read the attributes of the target of a symbolic link
+     */
+    public FileNode(File file, boolean followLinks) {
         this.file = file;
         this.path = file.toPath();
         this.children = new ArrayList<>();
         this.name = file.getName();
-        this.isDirectory = file.isDirectory();
-        this.size = file.length();
 
-        // Get file owner
+        // One attribute read gives type, size, time and (on POSIX) owner
+        LinkOption[] links = followLinks ? FOLLOW_LINKS : NOFOLLOW_LINKS;
+        try {
+            if (UNIX) {
+                readUnixAttributes(links);
+                return;
+            }
+            BasicFileAttributes attrs;
+            if (POSIX) {
+                PosixFileAttributes posix = Files.readAttributes(this.path, PosixFileAttributes.class, links);
+                this.owner = posix.owner().getName();
+                attrs = posix;
+            } else {
+                attrs = Files.readAttributes(this.path, BasicFileAttributes.class, links);
+                this.owner = readOwner(this.path);
+            }
+            this.isDirectory = attrs.isDirectory();
+            this.size = attrs.size();
+            this.lastModified = attrs.lastModifiedTime().toMillis();
+            this.allocatedSize = roundToBlock(size, DEFAULT_BLOCK_SIZE);
+        } catch (Exception e) {
+            this.isDirectory = file.isDirectory();
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+            this.owner = readOwner(this.path);
+            this.allocatedSize = roundToBlock(size, DEFAULT_BLOCK_SIZE);
+        }
+    }
+
+    /**
+     * Reads attributes of the unix view in one call: besides the basic ones
+     * it gives device, inode and link count for hard link accounting.
+     * Allocated size comes from the block count when the JDK reports it,
+     * otherwise the size is rounded up to the block size of the file store.
+     */
+    private void readUnixAttributes(LinkOption[] links) throws IOException {
+        Map<String, Object> attrs = Files.readAttributes(this.path, UNIX_ATTRIBUTES, links);
+        this.isDirectory = (Boolean) attrs.get("isDirectory");
+        this.size = (Long) attrs.get("size");
+        this.lastModified = ((FileTime) attrs.get("lastModifiedTime")).toMillis();
+        this.owner = ((UserPrincipal) attrs.get("owner")).getName();
+        this.linkCount = (Integer) attrs.get("nlink");
+        this.device = (Long) attrs.get("dev");
+        this.inode = (Long) attrs.get("ino");
+        Object blocks = attrs.get("blocks");
+        this.allocatedSize = blocks != null
+                ? ((Number) blocks).longValue() * 512
+                : roundToBlock(size, blockSize(path, device));
+    }
+
+    private static boolean supportsBlocks() {
+        try {
+            Files.readAttributes(FileSystems.getDefault().getPath("."), "unix:blocks");
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static long blockSize(Path path, long device) {
+        return BLOCK_SIZES.computeIfAbsent(device, key -> {
+            try {
+                long blockSize = Files.getFileStore(path).getBlockSize();
+                return blockSize > 0 ? blockSize : DEFAULT_BLOCK_SIZE;
+            } catch (Exception e) {
+                return DEFAULT_BLOCK_SIZE;
+            }
+        });
+    }
+
+    private static long roundToBlock(long size, long blockSize) {
+        return (size + blockSize - 1) / blockSize * blockSize;
+    }
+
+    private static String readOwner(Path path) {
         try {
-            this.owner = Files.getOwner(this.path).getName();
+            return Files.getOwner(path).getName();
         } catch (Exception e) {
-            this.owner = "unknown";
+            return "unknown";
         }
     }
 
+    /**
+     * Creates file node from already known attributes without reading the disk.
+     *
+     * @param file file represented by this node
+     * @param isDirectory true if the file is a folder
+     * @param size size in bytes
+     * @param owner file owner
+     */
+    public FileNode(File file, boolean isDirectory, long size, String owner) {
+        this(file, isDirectory, size, owner, 0L);
+    }
+
+    /**
+     * Creates file node from already known attributes without reading the disk.
+     *
+     * @param file file represented by this node
+     * @param isDirectory true if the file is a folder
+     * @param size size in bytes
+     * @param owner file owner
+     * @param lastModified modification time in milliseconds since 1970
+     */
+    public FileNode(File file, boolean isDirectory, long size, String owner, long lastModified) {
+        this.file = file;
+        this.path = file.toPath();
+        this.children = new ArrayList<>();
+        this.name = file.getName();
+        this.isDirectory = isDirectory;
+        this.size = size;
+        this.owner = owner;
+        this.lastModified = lastModified;
+        this.allocatedSize = roundToBlock(size, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates file node with known disk usage without reading the disk,
+     * for example from a snapshot.
+     *
+     * @param file file represented by this node
+     * @param isDirectory true if the file is a folder
+     * @param size size in bytes
+     * @param owner file owner
+     * @param lastModified modification time in milliseconds since 1970
+     * @param allocatedSize allocated size in bytes
+     * @param linkCount number of hard links
+     */
+    public FileNode(File file, boolean isDirectory, long size, String owner, long lastModified,
+                    long allocatedSize, int linkCount) {
+        this(file, isDirectory, size, owner, lastModified);
+        this.allocatedSize = allocatedSize;
+        this.linkCount = linkCount;
+    }
+
+    /**
+     * Creates copy of a node with the attributes read from disk,
+     * without children, parent, hard link mark and totals.
+     *
+     * @param other node to copy
+     */
+    public FileNode(FileNode other) {
+        this.file = other.file;
+        this.path = other.path;
+        this.children = new ArrayList<>();
+        this.name = other.name;
+        this.isDirectory = other.isDirectory;
+        this.size = other.size;
+        this.owner = other.owner;
+        this.lastModified = other.lastModified;
+        this.allocatedSize = other.allocatedSize;
+        this.device = other.device;
+        this.inode = other.inode;
+        this.linkCount = other.linkCount;
+    }
+
+    /**
+     * Creates copy of a node at another location, for example after the file
+     * was moved. Keeps all attributes, the hard link mark, the totals and the
+     * listed state; children and parent are not copied.
+     *
+     * @param other node to copy
+     * @param file new location of the file
+     */
+    public FileNode(FileNode other, File file) {
+        this(file, other.isDirectory, other.size, other.owner, other.lastModified, other.allocatedSize,
+                other.linkCount);
+        this.device = other.device;
+        this.inode = other.inode;
+        this.duplicateLink = other.duplicateLink;
+        this.totalSize = other.totalSize;
+        this.totalAllocated = other.totalAllocated;
+        this.totalUnique = other.totalUnique;
+        this.totalsKnown = other.totalsKnown;
+        this.listed = other.listed;
+    }
+
+    /**
+     * Sets file owner, for example after the owner of a copy was changed.
+     *
+     * @param owner file owner
+     */
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
     /**
      * Adds child node.
      *
@@ -54,10 +279,43 @@ public class FileNode {
      */
     public void addChild(FileNode child) {
         if (child != null) {
+            child.parent = this;
             this.children.add(child);
         }
     }
 
+    /**
+     * Removes all children and releases their list, for example after the
+     * subtree was written to disk.
+     */
+    public void clearChildren() {
+        children.clear();
+        ((ArrayList<FileNode>) children).trimToSize();
+    }
+
+    /**
+     * Removes child node and detaches it from this node.
+     *
+     * @param child child node
+     * @return true if the node was a child of this node
+     */
+    public boolean removeChild(FileNode child) {
+        if (child != null && this.children.remove(child)) {
+            child.parent = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns parent node.
+     *
+     * @return parent node or null for the root of a tree
+     */
+    public FileNode getParent() {
+        return parent;
+    }
+
     /**
      * Returns file object.
      *
@@ -112,6 +370,197 @@ public class FileNode {
         return name;
     }
 
+    /**
+     * Returns modification time.
+     *
+     * @return milliseconds since 1970, 0 if unknown
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns file extension in lower case.
+     *
+     * @return extension without dot, empty string if there is none
+     */
+    public String getExtension() {
+        if (isDirectory) {
+            return "";
+        }
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && dot < name.length() - 1 ? name.substring(dot + 1).toLowerCase() : "";
+    }
+
+    /**
+     * Returns space allocated on disk for this file or folder entry itself.
+     *
+     * @return allocated size in bytes
+     */
+    public long getAllocatedSize() {
+        return allocatedSize;
+    }
+
+    /**
+     * Returns number of hard links to the file.
+     *
+     * @return link count, 1 if unknown
+     */
+    public int getLinkCount() {
+        return linkCount;
+    }
+
+    /**
+     * Returns device of the file.
+     *
+     * @return device id, 0 if unknown
+     */
+    public long getDevice() {
+        return device;
+    }
+
+    /**
+     * Returns inode of the file.
+     *
+     * @return inode number, 0 if unknown
+     */
+    public long getInode() {
+        return inode;
+    }
+
+    /**
+     * Checks if another hard link to the same file was already counted in this scan.
+     *
+     * @return true if the data of this file is counted elsewhere
+     */
+    public boolean isDuplicateLink() {
+        return duplicateLink;
+    }
+
+    /**
+     * Marks file as another hard link to an already counted file.
+     */
+    public void markDuplicateLink() {
+        this.duplicateLink = true;
+    }
+
+    /**
+     * Returns apparent size: file size or sum of file sizes of a folder.
+     *
+     * @return size in bytes
+     * @see #updateTotals()
+     */
+    public long getTotalSize() {
+        return isDirectory ? totalSize : size;
+    }
+
+    /**
+     * Returns allocated size, for a folder including all its elements.
+     * Every hard link is counted.
+     *
+     * @return size in bytes
+     * @see #updateTotals()
+     */
+    public long getTotalAllocated() {
+        return isDirectory ? totalAllocated : allocatedSize;
+    }
+
+    /**
+     * Returns allocated size counting data of hard linked files only once.
+     *
+     * @return size in bytes
+     * @see #updateTotals()
+     */
+    public long getUniqueSize() {
+        if (isDirectory) {
+            return totalUnique;
+        }
+        return duplicateLink ? 0 : allocatedSize;
+    }
+
+    /**
+     * Recalculates folder totals of this subtree.
+     * Must be called after the tree was built or changed.
+     * Folders that are not listed keep the totals set by {@link #setTotals}.
+     */
+    public void updateTotals() {
+        if (!isDirectory || !listed) {
+            return;
+        }
+        for (FileNode child : children) {
+            child.updateTotals();
+        }
+        sumChildren();
+    }
+
+    /**
+     * Recalculates totals of this folder from the totals of its children,
+     * without descending further. While some children are still unknown,
+     * totals set earlier by {@link #setTotals} are kept.
+     */
+    public void sumChildren() {
+        if (!isDirectory || !listed) {
+            return;
+        }
+        long apparent = 0;
+        long allocated = allocatedSize;
+        long unique = allocatedSize;
+        boolean known = true;
+        for (FileNode child : children) {
+            known &= child.isTotalsKnown();
+            apparent += child.getTotalSize();
+            allocated += child.getTotalAllocated();
+            unique += child.getUniqueSize();
+        }
+        if (known || !totalsKnown) {
+            this.totalSize = apparent;
+            this.totalAllocated = allocated;
+            this.totalUnique = unique;
+            this.totalsKnown = known;
+        }
+    }
+
+    /**
+     * Sets folder totals measured without keeping the subtree.
+     *
+     * @param apparent sum of file sizes
+     * @param allocated allocated size including all elements
+     * @param unique allocated size with hard links counted once
+     */
+    public void setTotals(long apparent, long allocated, long unique) {
+        this.totalSize = apparent;
+        this.totalAllocated = allocated;
+        this.totalUnique = unique;
+        this.totalsKnown = true;
+    }
+
+    /**
+     * Checks if totals cover the whole subtree.
+     *
+     * @return true for files and for folders with complete totals
+     */
+    public boolean isTotalsKnown() {
+        return !isDirectory || totalsKnown;
+    }
+
+    /**
+     * Checks if children of the folder were read.
+     *
+     * @return false for folders of a lazy scan that were not listed yet
+     */
+    public boolean isListed() {
+        return listed;
+    }
+
+    /**
+     * Marks if children of the folder were read.
+     *
+     * @param listed true if the children are in the tree
+     */
+    public void setListed(boolean listed) {
+        this.listed = listed;
+    }
+
     /**
      * Returns file owner.
      *
@@ -0,0 +1,122 @@
+package ru.fsapp.service;
+
+import ru.fsapp.model.FileNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Common statistics as scan aggregators, the single pass counterparts
+ * of the walking methods of {@link ru.fsapp.util.FormatUtils}.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public final class Aggregators {
+
+    /** Index of the file count in the result of {@link #totals()}. */
+    public static final int FILES = 0;
+
+    /** Index of the folder count in the result of {@link #totals()}. */
+    public static final int DIRECTORIES = 1;
+
+    /** Index of the sum of file sizes in the result of {@link #totals()}. */
+    public static final int SIZE = 2;
+
+    private Aggregators() {
+    }
+
+    /**
+     * Counts files and folders and sums file sizes.
+     *
+     * @return aggregator with a result of {@link #FILES}, {@link #DIRECTORIES} and {@link #SIZE}
+     */
+    public static ResultAggregator<long[]> totals() {
+        return new ResultAggregator<long[]>() {
+            @Override
+            public long[] createState() {
+                return new long[3];
+            }
+
+            @Override
+            public void accept(long[] state, FileNode node) {
+                if (node.isDirectory()) {
+                    state[DIRECTORIES]++;
+                } else {
+                    state[FILES]++;
+                    state[SIZE] += node.getSize();
+                }
+            }
+
+            @Override
+            public void merge(long[] target, long[] source) {
+                for (int i = 0; i < target.length; i++) {
+                    target[i] += source[i];
+                }
+            }
+        };
+    }
+
+    /**
+     * Counts files and sums their sizes per extension.
+     *
+     * @return aggregator with a result of extension in lower case, empty for none,
+     *         to an array of count and size
+     */
+    public static ResultAggregator<Map<String, long[]>> byExtension() {
+        return new ResultAggregator<Map<String, long[]>>() {
+            @Override
+            public Map<String, long[]> createState() {
+                return new HashMap<>();
+            }
+
+            @Override
+            public void accept(Map<String, long[]> state, FileNode node) {
+                if (!node.isDirectory()) {
+                    long[] stats = state.computeIfAbsent(node.getExtension(), key -> new long[2]);
+                    stats[0]++;
+                    stats[1] += node.getSize();
+                }
+            }
+
+            @Override
+            public void merge(Map<String, long[]> target, Map<String, long[]> source) {
+                for (Map.Entry<String, long[]> entry : source.entrySet()) {
+                    long[] stats = target.computeIfAbsent(entry.getKey(), key -> new long[2]);
+                    stats[0] += entry.getValue()[0];
+                    stats[1] += entry.getValue()[1];
+                }
+            }
+        };
+    }
+
+    /**
+     * Collects files of at least the given size.
+     *
+     * @param minSize minimum size in bytes
+     * @return aggregator with a result of file nodes in no particular order
+     */
+    public static ResultAggregator<List<FileNode>> filesAtLeast(long minSize) {
+        return new ResultAggregator<List<FileNode>>() {
+            @Override
+            public List<FileNode> createState() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public void accept(List<FileNode> state, FileNode node) {
+                if (!node.isDirectory() && node.getSize() >= minSize) {
+                    state.add(node);
+                }
+            }
+
+            @Override
+            public void merge(List<FileNode> target, List<FileNode> source) {
+                target.addAll(source);
+            }
+        };
+    }
+}
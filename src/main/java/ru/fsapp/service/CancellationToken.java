@@ -0,0 +1,31 @@
+package ru.fsapp.service;
+
+/**
+ * Flag used to cancel long running file operations.
+ * Operations check the token between elements, so an element
+ * that is already being processed is always completed.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    /**
+     * Requests cancellation of the operation.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks if cancellation was requested.
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,118 @@
+package ru.fsapp.service;
+
+import ru.fsapp.util.XxHash64;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Checksums of a manifest.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public enum ChecksumAlgorithm {
+    /** SHA-256, for audits that must detect deliberate changes. */
+    SHA256(32),
+    /** xxHash64, many times faster, detects corruption but not tampering. */
+    XXH64(8);
+
+    private final int length;
+
+    ChecksumAlgorithm(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Returns length of a checksum.
+     *
+     * @return number of bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Creates a new hash of this algorithm.
+     *
+     * @return digester
+     */
+    Digester newDigester() {
+        switch (this) {
+            case SHA256:
+                try {
+                    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                    return new Digester() {
+                        @Override
+                        public void update(ByteBuffer data) {
+                            digest.update(data);
+                        }
+
+                        @Override
+                        public byte[] digest() {
+                            return digest.digest();
+                        }
+                    };
+                } catch (NoSuchAlgorithmException e) {
+                    // Every Java platform has SHA-256
+                    throw new IllegalStateException(e);
+                }
+            default:
+                XxHash64 hash = new XxHash64();
+                return new Digester() {
+                    @Override
+                    public void update(ByteBuffer data) {
+                        hash.update(data);
+                    }
+
+                    @Override
+                    public byte[] digest() {
+                        // Big endian, as printed by xxhsum
+                        return ByteBuffer.allocate(8).putLong(hash.getValue()).array();
+                    }
+                };
+        }
+    }
+
+    /**
+     * Finds algorithm by name, ignoring case and dashes.
+     *
+     * @param name algorithm name, e.g. {@code sha256} or {@code xxh64}
+     * @return algorithm
+     * @throws IllegalArgumentException if algorithm is unknown
+     */
+    public static ChecksumAlgorithm parse(String name) {
+        for (ChecksumAlgorithm algorithm : values()) {
+            if (algorithm.name().equalsIgnoreCase(name.replace("-", ""))) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown checksum: " + name);
+    }
+
+    /**
+     * Finds algorithm by length of a checksum in hex.
+     *
+     * @param hexLength number of hex digits
+     * @return algorithm, or null if no algorithm has such length
+     */
+    static ChecksumAlgorithm forHexLength(int hexLength) {
+        for (ChecksumAlgorithm algorithm : values()) {
+            if (algorithm.length * 2 == hexLength) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hash being computed.
+     */
+    interface Digester {
+        void update(ByteBuffer data);
+
+        byte[] digest();
+    }
+}
@@ -0,0 +1,228 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checksums of files kept between runs.
+ *
+ * An entry is found by device and inode of the file, or by its path when
+ * they are unknown, and is valid while size and modification time of the
+ * file are unchanged, so a renamed or hard linked file is not hashed again.
+ * The cache is saved to a binary file: written to a temporary file and
+ * moved over the old one, so an interrupted save keeps the previous cache.
+ * An unreadable cache file is logged and ignored.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class ChecksumCache {
+
+    private static final Logger logger = Logger.getLogger(ChecksumCache.class);
+
+    private static final int MAGIC = 0x4653434B;
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates empty cache that is not saved.
+     */
+    public ChecksumCache() {
+        this.file = null;
+    }
+
+    private ChecksumCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads cache from a file.
+     *
+     * @param file cache file, which may not exist yet
+     * @return cache saved to the same file
+     */
+    public static ChecksumCache load(Path file) {
+        ChecksumCache cache = new ChecksumCache(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a checksum cache");
+            }
+            ChecksumAlgorithm[] algorithms = ChecksumAlgorithm.values();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int algorithm = in.readUnsignedByte();
+                if (algorithm >= algorithms.length) {
+                    throw new IOException("Unknown checksum: " + algorithm);
+                }
+                long device = in.readLong();
+                long inode = in.readLong();
+                String path = inode == 0 ? in.readUTF() : null;
+                long size = in.readLong();
+                long modified = in.readLong();
+                byte[] checksum = new byte[algorithms[algorithm].getLength()];
+                in.readFully(checksum);
+                cache.entries.put(new Key(algorithms[algorithm], device, inode, path),
+                        new Entry(size, modified, checksum));
+            }
+            logger.info("Loaded " + count + " checksums from " + file);
+        } catch (NoSuchFileException e) {
+            // First run
+        } catch (EOFException e) {
+            logger.warn("Checksum cache is truncated, ignored: " + file);
+            cache.entries.clear();
+        } catch (IOException e) {
+            logger.warn("Failed to read checksum cache, ignored: " + file + " (" + e + ")");
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * Returns checksum of a file if the file is unchanged since it was hashed.
+     *
+     * @param node scanned file
+     * @param algorithm checksum algorithm
+     * @return checksum, or null if not cached or changed
+     */
+    byte[] get(FileNode node, ChecksumAlgorithm algorithm) {
+        Entry entry = entries.get(key(node, algorithm));
+        if (entry == null || entry.size != node.getSize() || entry.modified != node.getLastModified()) {
+            return null;
+        }
+        return entry.checksum;
+    }
+
+    /**
+     * Stores checksum of a file.
+     *
+     * @param node scanned file
+     * @param algorithm checksum algorithm
+     * @param checksum checksum of the file contents
+     */
+    void put(FileNode node, ChecksumAlgorithm algorithm, byte[] checksum) {
+        entries.put(key(node, algorithm), new Entry(node.getSize(), node.getLastModified(), checksum));
+    }
+
+    private static Key key(FileNode node, ChecksumAlgorithm algorithm) {
+        return node.getInode() != 0
+                ? new Key(algorithm, node.getDevice(), node.getInode(), null)
+                : new Key(algorithm, 0, 0, node.getPath().toAbsolutePath().normalize().toString());
+    }
+
+    /**
+     * Saves cache to the file it was loaded from; does nothing for a cache without file.
+     *
+     * @throws IOException if writing fails
+     */
+    public void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            // Entries added while saving are written next time
+            Map<Key, Entry> snapshot = new HashMap<>(entries);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<Key, Entry> e : snapshot.entrySet()) {
+                Key key = e.getKey();
+                Entry entry = e.getValue();
+                out.writeByte(key.algorithm.ordinal());
+                out.writeLong(key.device);
+                out.writeLong(key.inode);
+                if (key.inode == 0) {
+                    out.writeUTF(key.path);
+                }
+                out.writeLong(entry.size);
+                out.writeLong(entry.modified);
+                out.write(entry.checksum);
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Returns number of cached checksums.
+     *
+     * @return entry count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * File identity and algorithm.
+     */
+    private static final class Key {
+        private final ChecksumAlgorithm algorithm;
+        private final long device;
+        private final long inode;
+        private final String path;
+
+        Key(ChecksumAlgorithm algorithm, long device, long inode, String path) {
+            this.algorithm = algorithm;
+            this.device = device;
+            this.inode = inode;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return algorithm == other.algorithm && device == other.device && inode == other.inode
+                    && Objects.equals(path, other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(algorithm, device, inode, path);
+        }
+    }
+
+    /**
+     * Checksum and the attributes it was computed for.
+     */
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final byte[] checksum;
+
+        Entry(long size, long modified, byte[] checksum) {
+            this.size = size;
+            this.modified = modified;
+            this.checksum = Arrays.copyOf(checksum, checksum.length);
+        }
+    }
+}
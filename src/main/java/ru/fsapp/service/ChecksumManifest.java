@@ -0,0 +1,349 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+import ru.fsapp.util.IndexSorter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checksum manifest of a scanned tree, in the format of {@code sha256sum}
+ * and {@code xxhsum}: one line per file with the checksum in hex, two spaces
+ * and the path relative to the root. Names with a backslash or a line break
+ * are escaped and the line starts with a backslash, like in coreutils.
+ *
+ * Files are hashed in batches by a pool of threads. Files of at least
+ * {@link #MAP_THRESHOLD} bytes are mapped in chunks, smaller ones are read
+ * into a direct buffer of each thread. Lines are written in path order as
+ * soon as their batch is done, with a bounded number of batches in flight,
+ * so the manifest streams without keeping checksums in memory.
+ * Unchanged files take their checksum from a {@link ChecksumCache}.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class ChecksumManifest {
+
+    private static final Logger logger = Logger.getLogger(ChecksumManifest.class);
+
+    /**
+     * Files of this size and larger are mapped instead of read.
+     */
+    public static final long MAP_THRESHOLD = 1024 * 1024;
+
+    private static final long MAP_CHUNK = 64L * 1024 * 1024;
+    private static final int READ_BUFFER = 256 * 1024;
+    private static final int BATCH_SIZE = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER));
+
+    private final ChecksumAlgorithm algorithm;
+    private final int parallelism;
+    private final ChecksumCache cache;
+    private final IoThrottle throttle = IoThrottle.getShared();
+    private final AtomicLong hashedFiles = new AtomicLong();
+
+    /**
+     * Creates manifest generator.
+     *
+     * @param algorithm checksum algorithm
+     * @param parallelism number of hashing threads
+     * @param cache checksums of earlier runs, updated with new ones
+     */
+    public ChecksumManifest(ChecksumAlgorithm algorithm, int parallelism, ChecksumCache cache) {
+        this.algorithm = algorithm;
+        this.parallelism = Math.max(1, parallelism);
+        this.cache = cache;
+    }
+
+    /**
+     * Writes manifest of all files of a tree. Files that cannot be read are
+     * logged, left out of the manifest and reported as failures.
+     *
+     * @param root scanned tree
+     * @param out target writer
+     * @param token cancellation token, checked between batches
+     * @return result: files written, bytes hashed (without cached files), failures
+     * @throws IOException if writing the manifest fails
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public OperationResult write(FileNode root, Writer out, CancellationToken token)
+            throws IOException, InterruptedException {
+        List<FileNode> files = new ArrayList<>();
+        collectFiles(root, files);
+        String[] paths = new String[files.size()];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = relativePath(root, files.get(i));
+        }
+        int[] order = IndexSorter.identity(paths.length);
+        IndexSorter.sort(order, (a, b) -> paths[a].compareTo(paths[b]));
+        OperationResult result = new OperationResult();
+        result.addTotal(files.size());
+        long hashedBefore = hashedFiles.get();
+
+        int[] next = {0};
+        run(() -> {
+            if (next[0] >= order.length) {
+                return null;
+            }
+            int from = next[0];
+            int to = Math.min(order.length, from + BATCH_SIZE);
+            next[0] = to;
+            return () -> {
+                String[] lines = new String[to - from];
+                for (int i = 0; i < lines.length; i++) {
+                    FileNode file = files.get(order[from + i]);
+                    byte[] checksum = cache.get(file, algorithm);
+                    if (checksum == null) {
+                        try {
+                            checksum = hash(file.getPath(), result);
+                        } catch (IOException e) {
+                            result.addFailure(file.getPath(), e);
+                            logger.warn("Failed to hash: " + file.getPath() + " (" + e + ")");
+                            continue;
+                        }
+                        cache.put(file, algorithm, checksum);
+                    }
+                    lines[i] = line(checksum, paths[order[from + i]]);
+                }
+                return lines;
+            };
+        }, lines -> {
+            for (String line : lines) {
+                if (line != null) {
+                    out.write(line);
+                    result.markCompleted();
+                }
+            }
+        }, token);
+        out.flush();
+
+        result.setCancelled(token.isCancelled());
+        logger.info("Manifest of " + files.size() + " files: " + (hashedFiles.get() - hashedBefore)
+                + " hashed, others cached; " + result);
+        return result;
+    }
+
+    /**
+     * Verifies files against a manifest, reading every file again so that
+     * silent corruption is found. The algorithm is taken from the length
+     * of the checksums.
+     *
+     * @param manifest manifest file
+     * @param root folder the paths are relative to
+     * @param parallelism number of hashing threads
+     * @param token cancellation token, checked between batches
+     * @return result: files checked, bytes read and a failure per missing, unreadable or changed file
+     * @throws IOException if the manifest cannot be read or is malformed
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static OperationResult verify(Path manifest, Path root, int parallelism, CancellationToken token)
+            throws IOException, InterruptedException {
+        OperationResult result = new OperationResult();
+        ChecksumManifest verifier = new ChecksumManifest(ChecksumAlgorithm.SHA256, parallelism, new ChecksumCache());
+        try (BufferedReader in = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            long[] lineNumber = {0};
+            verifier.run(() -> {
+                List<String[]> batch = new ArrayList<>(BATCH_SIZE);
+                String line;
+                while (batch.size() < BATCH_SIZE && (line = in.readLine()) != null) {
+                    lineNumber[0]++;
+                    if (!line.isEmpty()) {
+                        batch.add(parseLine(line, lineNumber[0]));
+                    }
+                }
+                if (batch.isEmpty()) {
+                    return null;
+                }
+                result.addTotal(batch.size());
+                return () -> {
+                    for (String[] entry : batch) {
+                        Path file = root.resolve(entry[1]);
+                        try {
+                            ChecksumAlgorithm algorithm = ChecksumAlgorithm.forHexLength(entry[0].length());
+                            String actual = toHex(verifier.hash(file, algorithm, result));
+                            if (!actual.equals(entry[0])) {
+                                throw new IOException("Checksum mismatch: expected " + entry[0] + ", actual " + actual);
+                            }
+                            result.markCompleted();
+                        } catch (IOException e) {
+                            result.addFailure(file, e);
+                        }
+                    }
+                    return null;
+                };
+            }, ignored -> { }, token);
+        }
+        result.setCancelled(token.isCancelled());
+        logger.info("Verified " + manifest + ": " + result);
+        return result;
+    }
+
+    /**
+     * Runs batches on a thread pool and passes their results to the sink in
+     * the order of the batches; at most two batches per thread are in flight.
+     */
+    private <R> void run(BatchSource<R> source, BatchSink<R> sink, CancellationToken token)
+            throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("fsapp-hash"));
+        Deque<Future<R>> inFlight = new ArrayDeque<>();
+        try {
+            boolean more = true;
+            while (!token.isCancelled() && (more || !inFlight.isEmpty())) {
+                while (more && inFlight.size() < parallelism * 2) {
+                    Callable<R> batch = source.next();
+                    if (batch == null) {
+                        more = false;
+                    } else {
+                        inFlight.add(executor.submit(batch));
+                    }
+                }
+                if (!inFlight.isEmpty()) {
+                    sink.accept(inFlight.poll().get());
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Hashing worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private byte[] hash(Path file, OperationResult result) throws IOException {
+        return hash(file, algorithm, result);
+    }
+
+    private byte[] hash(Path file, ChecksumAlgorithm algorithm, OperationResult result) throws IOException {
+        ChecksumAlgorithm.Digester digester = algorithm.newDigester();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                long position = 0;
+                while (position < size) {
+                    long chunk = Math.min(throttle.chunkSize(MAP_CHUNK), size - position);
+                    throttle.acquireBytes(chunk, null);
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, chunk);
+                    try {
+                        digester.update(mapped);
+                    } catch (InternalError e) {
+                        // A mapped page that is gone, the file was truncated
+                        throw new IOException("File changed while hashing", e);
+                    }
+                    position += chunk;
+                }
+                result.addBytes(size);
+            } else {
+                ByteBuffer buffer = BUFFERS.get();
+                buffer.clear();
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    throttle.acquireBytes(buffer.remaining(), null);
+                    result.addBytes(buffer.remaining());
+                    digester.update(buffer);
+                    buffer.clear();
+                }
+            }
+        }
+        hashedFiles.incrementAndGet();
+        return digester.digest();
+    }
+
+    private static void collectFiles(FileNode node, List<FileNode> files) {
+        for (FileNode child : node.getChildren()) {
+            if (child.isDirectory()) {
+                collectFiles(child, files);
+            } else {
+                files.add(child);
+            }
+        }
+    }
+
+    private static String relativePath(FileNode root, FileNode file) {
+        // Only a separator is replaced, a backslash is a valid name character on Unix
+        return root.getPath().relativize(file.getPath()).toString().replace(File.separatorChar, '/');
+    }
+
+    private static String line(byte[] checksum, String path) {
+        if (path.indexOf('\\') < 0 && path.indexOf('\n') < 0) {
+            return toHex(checksum) + "  " + path + "\n";
+        }
+        return "\\" + toHex(checksum) + "  " + path.replace("\\", "\\\\").replace("\n", "\\n") + "\n";
+    }
+
+    private static String[] parseLine(String line, long number) throws IOException {
+        boolean escaped = line.startsWith("\\");
+        int separator = line.indexOf("  ");
+        String checksum = line.substring(escaped ? 1 : 0, Math.max(escaped ? 1 : 0, separator));
+        if (separator < 0 || ChecksumAlgorithm.forHexLength(checksum.length()) == null) {
+            throw new IOException("Malformed manifest line " + number);
+        }
+        String path = line.substring(separator + 2);
+        if (escaped) {
+            StringBuilder sb = new StringBuilder(path.length());
+            for (int i = 0; i < path.length(); i++) {
+                char c = path.charAt(i);
+                if (c == '\\' && i + 1 < path.length()) {
+                    c = path.charAt(++i) == 'n' ? '\n' : path.charAt(i);
+                }
+                sb.append(c);
+            }
+            path = sb.toString();
+        }
+        return new String[]{checksum.toLowerCase(), path};
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns number of files read and hashed, without cached ones.
+     *
+     * @return hashed file count
+     */
+    public long getHashedFiles() {
+        return hashedFiles.get();
+    }
+
+    /**
+     * Creates the next batch on the calling thread.
+     */
+    private interface BatchSource<R> {
+        Callable<R> next() throws IOException;
+    }
+
+    /**
+     * Receives batch results in order on the calling thread.
+     */
+    private interface BatchSink<R> {
+        void accept(R result) throws IOException;
+    }
+}
@@ -0,0 +1,330 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Estimates how much files and folders would shrink under compression.
+ *
+ * Each file is sampled in blocks of {@link #BLOCK_SIZE} bytes spread evenly
+ * over the file: small files are read whole, larger ones get enough blocks
+ * for the sample fraction, but at least one and at most the per-file limit.
+ * Every block is deflated on its own, like a compressing file system
+ * compresses extents, and the compressed size of a file is its size times
+ * the ratio of its samples. Files that cannot be read count as not
+ * compressible. Estimates are summed per folder after all files are done.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class CompressibilityEstimator {
+
+    private static final Logger logger = Logger.getLogger(CompressibilityEstimator.class);
+
+    /**
+     * Size of one sampled block.
+     */
+    public static final int BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Default share of file bytes to read.
+     */
+    public static final double DEFAULT_SAMPLE_FRACTION = 0.01;
+
+    /**
+     * Default maximum number of blocks read from one file.
+     */
+    public static final int DEFAULT_MAX_BLOCKS = 8;
+
+    private static final int FILES_PER_TASK = 64;
+
+    private final int parallelism;
+    private final double sampleFraction;
+    private final int maxBlocks;
+    private final int level;
+    private final IoThrottle throttle = IoThrottle.getShared();
+
+    /**
+     * Creates estimator with default sampling and fast compression.
+     *
+     * @param parallelism number of threads reading and compressing samples
+     */
+    public CompressibilityEstimator(int parallelism) {
+        this(parallelism, DEFAULT_SAMPLE_FRACTION, DEFAULT_MAX_BLOCKS, Deflater.BEST_SPEED);
+    }
+
+    /**
+     * Creates estimator.
+     *
+     * @param parallelism number of threads reading and compressing samples
+     * @param sampleFraction share of file bytes to read, between 0 and 1
+     * @param maxBlocks maximum number of blocks read from one file
+     * @param level deflate level, 1 (fast) to 9 (best)
+     */
+    public CompressibilityEstimator(int parallelism, double sampleFraction, int maxBlocks, int level) {
+        if (sampleFraction <= 0 || sampleFraction > 1) {
+            throw new IllegalArgumentException("Sample fraction must be in (0, 1]: " + sampleFraction);
+        }
+        this.parallelism = Math.max(1, parallelism);
+        this.sampleFraction = sampleFraction;
+        this.maxBlocks = Math.max(1, maxBlocks);
+        this.level = level;
+    }
+
+    /**
+     * Estimates compressed sizes of all files and folders of a tree.
+     * Extra hard links of a file are not counted, like in the unique size.
+     *
+     * @param root scanned tree
+     * @param token cancellation token, checked between files
+     * @return estimate; after cancellation files not yet sampled count as not compressible
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public Estimate estimate(FileNode root, CancellationToken token) throws InterruptedException {
+        List<FileNode> files = new ArrayList<>();
+        collectFiles(root, files);
+        long[] compressed = new long[files.size()];
+        for (int i = 0; i < compressed.length; i++) {
+            compressed[i] = files.get(i).getSize();
+        }
+        AtomicLong sampled = new AtomicLong();
+        AtomicInteger next = new AtomicInteger();
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("fsapp-compress"));
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                futures.add(executor.submit(() -> {
+                    Worker worker = new Worker();
+                    try {
+                        int from;
+                        while (!token.isCancelled() && (from = next.getAndAdd(FILES_PER_TASK)) < files.size()) {
+                            for (int j = from; j < Math.min(files.size(), from + FILES_PER_TASK); j++) {
+                                compressed[j] = estimateFile(files.get(j), worker, sampled);
+                            }
+                        }
+                    } finally {
+                        worker.end();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Compression worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<FileNode, Integer> index = new IdentityHashMap<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            index.put(files.get(i), i);
+        }
+        Estimate estimate = new Estimate(sampled.get());
+        estimate.sum(root, index, compressed);
+        logger.info("Compressibility of " + files.size() + " files: " + estimate.getSampledBytes()
+                + " bytes sampled in " + (System.nanoTime() - start) / 1_000_000 + " ms, ratio "
+                + String.format("%.2f", estimate.getRatio(root)));
+        return estimate;
+    }
+
+    /**
+     * Returns estimated compressed size of one file, its size if it cannot be read.
+     */
+    private long estimateFile(FileNode file, Worker worker, AtomicLong sampled) {
+        long size = file.getSize();
+        if (size == 0) {
+            return 0;
+        }
+        long blocks = Math.min(maxBlocks, Math.max(1, (long) Math.ceil(size * sampleFraction / BLOCK_SIZE)));
+        blocks = Math.min(blocks, (size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        long read = 0;
+        long packed = 0;
+        try (FileChannel channel = FileChannel.open(file.getPath(), StandardOpenOption.READ)) {
+            // Blocks spread from the start to the end of the file
+            long span = Math.max(0, size - BLOCK_SIZE);
+            for (long i = 0; i < blocks; i++) {
+                long position = blocks == 1 ? 0 : span * i / (blocks - 1);
+                ByteBuffer block = worker.read(channel, position);
+                if (!block.hasRemaining()) {
+                    break;
+                }
+                throttle.acquireBytes(block.remaining(), null);
+                read += block.remaining();
+                packed += worker.deflate(block, level);
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to sample: " + file.getPath() + " (" + e + ")");
+            return size;
+        }
+        sampled.addAndGet(read);
+        if (read == 0) {
+            return size;
+        }
+        // Deflate can grow data that does not compress, the file would be stored as is
+        return Math.min(size, (long) Math.ceil((double) size * packed / read));
+    }
+
+    private static void collectFiles(FileNode node, List<FileNode> files) {
+        for (FileNode child : node.getChildren()) {
+            if (child.isDirectory()) {
+                collectFiles(child, files);
+            } else if (!child.isDuplicateLink()) {
+                files.add(child);
+            }
+        }
+    }
+
+    /**
+     * Buffers and compressor of one thread.
+     */
+    private static class Worker {
+        private final ByteBuffer input = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        private final ByteBuffer output = ByteBuffer.allocateDirect(BLOCK_SIZE + BLOCK_SIZE / 8 + 64);
+        private final Deflater deflater = new Deflater();
+
+        ByteBuffer read(FileChannel channel, long position) throws IOException {
+            input.clear();
+            while (input.hasRemaining()) {
+                int n = channel.read(input, position + input.position());
+                if (n < 0) {
+                    break;
+                }
+            }
+            input.flip();
+            return input;
+        }
+
+        long deflate(ByteBuffer block, int level) {
+            deflater.reset();
+            deflater.setLevel(level);
+            deflater.setInput(block);
+            deflater.finish();
+            long packed = 0;
+            while (!deflater.finished()) {
+                output.clear();
+                packed += deflater.deflate(output);
+            }
+            return packed;
+        }
+
+        void end() {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Estimated compressed sizes of the folders and files of a tree.
+     */
+    public static class Estimate {
+        private final Map<FileNode, long[]> sizes = new IdentityHashMap<>();
+        private final long sampledBytes;
+
+        Estimate(long sampledBytes) {
+            this.sampledBytes = sampledBytes;
+        }
+
+        long[] sum(FileNode node, Map<FileNode, Integer> index, long[] compressed) {
+            long[] total = new long[2];
+            if (!node.isDirectory()) {
+                Integer i = index.get(node);
+                if (i != null) {
+                    total[0] = node.getSize();
+                    total[1] = compressed[i];
+                }
+                return total;
+            }
+            for (FileNode child : node.getChildren()) {
+                long[] childTotal = sum(child, index, compressed);
+                total[0] += childTotal[0];
+                total[1] += childTotal[1];
+            }
+            sizes.put(node, total);
+            return total;
+        }
+
+        /**
+         * Returns size of the data of a folder, hard links counted once.
+         *
+         * @param dir folder of the estimated tree
+         * @return size in bytes, 0 for a folder not in the tree
+         */
+        public long getSize(FileNode dir) {
+            long[] size = sizes.get(dir);
+            return size != null ? size[0] : 0;
+        }
+
+        /**
+         * Returns estimated compressed size of a folder.
+         *
+         * @param dir folder of the estimated tree
+         * @return size in bytes, 0 for a folder not in the tree
+         */
+        public long getCompressedSize(FileNode dir) {
+            long[] size = sizes.get(dir);
+            return size != null ? size[1] : 0;
+        }
+
+        /**
+         * Returns estimated bytes saved by compressing a folder.
+         *
+         * @param dir folder of the estimated tree
+         * @return saved bytes
+         */
+        public long getSavings(FileNode dir) {
+            return getSize(dir) - getCompressedSize(dir);
+        }
+
+        /**
+         * Returns compressed size relative to the size of a folder.
+         *
+         * @param dir folder of the estimated tree
+         * @return ratio from 0 to 1, 1 for an empty folder
+         */
+        public double getRatio(FileNode dir) {
+            long size = getSize(dir);
+            return size > 0 ? (double) getCompressedSize(dir) / size : 1;
+        }
+
+        /**
+         * Returns folders that would save most.
+         *
+         * @param limit maximum number of folders
+         * @return folders, largest savings first
+         */
+        public List<FileNode> getTopSavings(int limit) {
+            List<FileNode> dirs = new ArrayList<>(sizes.keySet());
+            dirs.sort((a, b) -> Long.compare(getSavings(b), getSavings(a)));
+            return dirs.subList(0, Math.min(Math.max(0, limit), dirs.size()));
+        }
+
+        /**
+         * Returns number of bytes read for the estimate.
+         *
+         * @return sampled bytes
+         */
+        public long getSampledBytes() {
+            return sampledBytes;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detects file content types by magic numbers in the first bytes of a file.
+ *
+ * Only {@link #HEADER_SIZE} bytes of a file are read, into direct buffers
+ * taken from a fixed pool: the pool size is the number of reads in flight,
+ * whichever threads call {@link #detect}. Reads go through the
+ * {@link IoThrottle}. Results are cached by device and inode (the path
+ * when they are unknown) together with size and modification time, so a
+ * repeated breakdown reads only new and changed files, and hard links
+ * are read once.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class ContentTypeDetector {
+
+    private static final Logger logger = Logger.getLogger(ContentTypeDetector.class);
+
+    /**
+     * Number of bytes read from the start of a file.
+     */
+    public static final int HEADER_SIZE = 4096;
+
+    /**
+     * Default number of concurrent reads.
+     */
+    public static final int DEFAULT_CONCURRENCY = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Default limit of cached results, {@code fsapp.types.entries}.
+     */
+    public static final int DEFAULT_MAX_CACHED = Integer.getInteger("fsapp.types.entries", 1_000_000);
+
+    /** Type of empty files. */
+    public static final String EMPTY = "empty";
+    /** Type of files without known signature that look like text. */
+    public static final String TEXT = "text";
+    /** Type of files without known signature. */
+    public static final String BINARY = "binary";
+    /** Type of files that could not be read. */
+    public static final String UNREADABLE = "unreadable";
+
+    private static final int FILES_PER_TASK = 256;
+
+    private static final Signature[] SIGNATURES = {
+            new Signature("png", 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A),
+            new Signature("jpeg", 0, 0xFF, 0xD8, 0xFF),
+            new Signature("gif", 0, 'G', 'I', 'F', '8'),
+            new Signature("tiff", 0, 'I', 'I', 0x2A, 0x00),
+            new Signature("tiff", 0, 'M', 'M', 0x00, 0x2A),
+            new Signature("pdf", 0, '%', 'P', 'D', 'F', '-'),
+            new Signature("postscript", 0, '%', '!', 'P', 'S'),
+            new Signature("zip", 0, 'P', 'K', 0x03, 0x04),
+            new Signature("zip", 0, 'P', 'K', 0x05, 0x06),
+            new Signature("gzip", 0, 0x1F, 0x8B),
+            new Signature("bzip2", 0, 'B', 'Z', 'h'),
+            new Signature("xz", 0, 0xFD, '7', 'z', 'X', 'Z', 0x00),
+            new Signature("zstd", 0, 0x28, 0xB5, 0x2F, 0xFD),
+            new Signature("7z", 0, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C),
+            new Signature("rar", 0, 'R', 'a', 'r', '!', 0x1A, 0x07),
+            new Signature("tar", 257, 'u', 's', 't', 'a', 'r'),
+            new Signature("elf", 0, 0x7F, 'E', 'L', 'F'),
+            new Signature("pe", 0, 'M', 'Z'),
+            new Signature("mach-o", 0, 0xCF, 0xFA, 0xED, 0xFE),
+            new Signature("mach-o", 0, 0xCE, 0xFA, 0xED, 0xFE),
+            new Signature("java-class", 0, 0xCA, 0xFE, 0xBA, 0xBE),
+            new Signature("jmod", 0, 'J', 'M', 0x01, 0x00),
+            new Signature("jimage", 0, 0xDA, 0xDA, 0xFE, 0xCA),
+            new Signature("wasm", 0, 0x00, 'a', 's', 'm'),
+            new Signature("sqlite", 0, 'S', 'Q', 'L', 'i', 't', 'e', ' ', 'f', 'o', 'r', 'm', 'a', 't', ' ', '3', 0x00),
+            new Signature("parquet", 0, 'P', 'A', 'R', '1'),
+            new Signature("ogg", 0, 'O', 'g', 'g', 'S'),
+            new Signature("flac", 0, 'f', 'L', 'a', 'C'),
+            new Signature("mp3", 0, 'I', 'D', '3'),
+            new Signature("mp4", 4, 'f', 't', 'y', 'p'),
+            new Signature("matroska", 0, 0x1A, 0x45, 0xDF, 0xA3),
+            new Signature("webp", 8, 'W', 'E', 'B', 'P'),
+            new Signature("wav", 8, 'W', 'A', 'V', 'E'),
+            new Signature("avi", 8, 'A', 'V', 'I', ' '),
+            new Signature("text", 0, 0xEF, 0xBB, 0xBF),
+            new Signature("text", 0, 0xFF, 0xFE),
+            new Signature("text", 0, 0xFE, 0xFF),
+    };
+
+    private static final ContentTypeDetector SHARED = new ContentTypeDetector(DEFAULT_CONCURRENCY, DEFAULT_MAX_CACHED);
+
+    private final int concurrency;
+    private final BlockingQueue<ByteBuffer> buffers;
+    private final Map<Object, CachedType> cache;
+    private final IoThrottle throttle = IoThrottle.getShared();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Creates detector.
+     *
+     * @param concurrency maximum number of concurrent reads
+     * @param maxCached maximum number of cached results
+     */
+    public ContentTypeDetector(int concurrency, int maxCached) {
+        this.concurrency = Math.max(1, concurrency);
+        this.buffers = new ArrayBlockingQueue<>(this.concurrency);
+        for (int i = 0; i < this.concurrency; i++) {
+            buffers.add(ByteBuffer.allocateDirect(HEADER_SIZE));
+        }
+        this.cache = new LinkedHashMap<Object, CachedType>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CachedType> eldest) {
+                return size() > maxCached;
+            }
+        };
+    }
+
+    /**
+     * Returns detector shared by the application, so its cache lives across scans.
+     *
+     * @return shared detector
+     */
+    public static ContentTypeDetector getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Detects type of a scanned file, using the cached result if the file is unchanged.
+     *
+     * @param file file node
+     * @return content type, e.g. {@code png}, {@link #TEXT} or {@link #BINARY}
+     * @throws InterruptedException if interrupted while waiting for a buffer
+     */
+    public String detect(FileNode file) throws InterruptedException {
+        if (file.getSize() == 0) {
+            return EMPTY;
+        }
+        Object key = file.getInode() != 0
+                ? Arrays.asList(file.getDevice(), file.getInode())
+                : file.getPath().toAbsolutePath().normalize();
+        synchronized (cache) {
+            CachedType entry = cache.get(key);
+            if (entry != null && entry.size == file.getSize() && entry.modified == file.getLastModified()) {
+                hits.incrementAndGet();
+                return entry.type;
+            }
+        }
+        String type = detect(file.getPath());
+        if (!UNREADABLE.equals(type)) {
+            synchronized (cache) {
+                cache.put(key, new CachedType(file.getSize(), file.getLastModified(), type));
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Reads the header of a file and detects its type, without the cache.
+     *
+     * @param file file path
+     * @return content type, {@link #UNREADABLE} if the file cannot be read
+     * @throws InterruptedException if interrupted while waiting for a buffer
+     */
+    public String detect(Path file) throws InterruptedException {
+        ByteBuffer buffer = buffers.take();
+        try {
+            buffer.clear();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Short reads happen on pipes and network file systems
+                }
+            }
+            reads.incrementAndGet();
+            throttle.acquireBytes(buffer.position(), null);
+            buffer.flip();
+            return classify(buffer);
+        } catch (IOException e) {
+            logger.debug("Failed to read header: " + file + " (" + e + ")");
+            return UNREADABLE;
+        } finally {
+            buffers.add(buffer);
+        }
+    }
+
+    /**
+     * Detects type of the first bytes of a file.
+     *
+     * @param header bytes from the start of the file, between position and limit
+     * @return content type
+     */
+    static String classify(ByteBuffer header) {
+        if (!header.hasRemaining()) {
+            return EMPTY;
+        }
+        for (Signature signature : SIGNATURES) {
+            if (signature.matches(header)) {
+                return signature.type;
+            }
+        }
+        return looksLikeText(header) ? TEXT : BINARY;
+    }
+
+    /**
+     * No zero bytes and few control characters: ASCII, UTF-8 and single byte
+     * encodings pass, UTF-16 without byte order mark does not.
+     */
+    private static boolean looksLikeText(ByteBuffer header) {
+        int control = 0;
+        for (int i = header.position(); i < header.limit(); i++) {
+            int b = header.get(i) & 0xFF;
+            if (b == 0) {
+                return false;
+            }
+            if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                control++;
+            }
+        }
+        return control * 20 <= header.remaining();
+    }
+
+    /**
+     * Counts files and their sizes by content type. Files are read by a pool
+     * of {@code concurrency} threads; each thread counts into its own map
+     * and the maps are merged at the end. Extra hard links of a file are
+     * not counted, like in the unique size.
+     *
+     * @param root scanned tree
+     * @param token cancellation token, checked between files
+     * @return map from type to {@code {files, bytes}}, largest types first
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public Map<String, long[]> breakdown(FileNode root, CancellationToken token) throws InterruptedException {
+        List<FileNode> files = new ArrayList<>();
+        collectFiles(root, files);
+        long readsBefore = reads.get();
+        long start = System.nanoTime();
+
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, new NamedThreadFactory("fsapp-types"));
+        List<Future<Map<String, long[]>>> futures = new ArrayList<>();
+        Map<String, long[]> result = new HashMap<>();
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(executor.submit(() -> {
+                    Map<String, long[]> partial = new HashMap<>();
+                    int from;
+                    while (!token.isCancelled() && (from = next.getAndAdd(FILES_PER_TASK)) < files.size()) {
+                        for (int j = from; j < Math.min(files.size(), from + FILES_PER_TASK); j++) {
+                            FileNode file = files.get(j);
+                            long[] counts = partial.computeIfAbsent(detect(file), k -> new long[2]);
+                            counts[0]++;
+                            counts[1] += file.getSize();
+                        }
+                    }
+                    return partial;
+                }));
+            }
+            for (Future<Map<String, long[]>> future : futures) {
+                for (Map.Entry<String, long[]> entry : future.get().entrySet()) {
+                    long[] counts = result.computeIfAbsent(entry.getKey(), k -> new long[2]);
+                    counts[0] += entry.getValue()[0];
+                    counts[1] += entry.getValue()[1];
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Content type worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.info("Content types of " + files.size() + " files: " + (reads.get() - readsBefore)
+                + " read, others cached, in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(result.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+        Map<String, long[]> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    private static void collectFiles(FileNode node, List<FileNode> files) {
+        for (FileNode child : node.getChildren()) {
+            if (child.isDirectory()) {
+                collectFiles(child, files);
+            } else if (!child.isDuplicateLink()) {
+                files.add(child);
+            }
+        }
+    }
+
+    /**
+     * Returns number of headers read from disk.
+     *
+     * @return read count
+     */
+    public long getReads() {
+        return reads.get();
+    }
+
+    /**
+     * Returns number of results taken from the cache.
+     *
+     * @return cache hits
+     */
+    public long getCacheHits() {
+        return hits.get();
+    }
+
+    /**
+     * Forgets all cached results.
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Magic number at a fixed offset.
+     */
+    private static class Signature {
+        private final String type;
+        private final int offset;
+        private final byte[] bytes;
+
+        Signature(String type, int offset, int... bytes) {
+            this.type = type;
+            this.offset = offset;
+            this.bytes = new byte[bytes.length];
+            for (int i = 0; i < bytes.length; i++) {
+                this.bytes[i] = (byte) bytes[i];
+            }
+        }
+
+        boolean matches(ByteBuffer header) {
+            int start = header.position() + offset;
+            if (header.limit() - start < bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (header.get(start + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Cached type of one file.
+     */
+    private static class CachedType {
+        private final long size;
+        private final long modified;
+        private final String type;
+
+        CachedType(long size, long modified, String type) {
+            this.size = size;
+            this.modified = modified;
+            this.type = type;
+        }
+    }
+}
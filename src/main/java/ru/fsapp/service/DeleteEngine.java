@@ -0,0 +1,283 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Engine for deleting files and folders.
+ *
+ * Files are deleted in batches on a bounded worker pool.
+ * Folders are deleted afterwards level by level, deepest first,
+ * so every folder is removed only after its content (post-order).
+ * Folders that still contain a failed element are skipped.
+ * Progress, per-path failures and cancellation are supported.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class DeleteEngine {
+
+    private static final Logger logger = Logger.getLogger(DeleteEngine.class);
+
+    /**
+     * Default number of worker threads.
+     */
+    public static final int DEFAULT_PARALLELISM =
+            Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    private static final int BATCH_SIZE = 256;
+
+    private final int parallelism;
+
+    /**
+     * Creates engine with default parallelism.
+     */
+    public DeleteEngine() {
+        this(DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Creates engine.
+     *
+     * @param parallelism maximum number of concurrent deletions
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public DeleteEngine(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Deletes nodes from disk and prunes deleted elements from the tree.
+     * Nodes that were removed completely are detached from their parents,
+     * partially deleted folders keep only the remaining children.
+     *
+     * @param nodes nodes to delete
+     * @param listener progress listener
+     * @param token cancellation token
+     * @return result of the operation
+     */
+    public OperationResult deleteNodes(List<FileNode> nodes, ProgressListener listener,
+                                       CancellationToken token) {
+        List<FileNode> roots = withoutNested(nodes);
+        List<Path> paths = new ArrayList<>(roots.size());
+        for (FileNode node : roots) {
+            paths.add(node.getPath());
+        }
+
+        OperationResult result = delete(paths, listener, token);
+        for (FileNode node : roots) {
+            prune(node);
+        }
+        return result;
+    }
+
+    /**
+     * Deletes files and folders recursively.
+     *
+     * @param paths paths to delete
+     * @param listener progress listener
+     * @param token cancellation token
+     * @return result of the operation
+     */
+    public OperationResult delete(List<Path> paths, ProgressListener listener, CancellationToken token) {
+        OperationResult result = new OperationResult();
+        Set<Path> blocked = ConcurrentHashMap.newKeySet();
+        Plan plan = new Plan();
+
+        for (Path path : paths) {
+            plan.collect(path, result, blocked);
+        }
+        result.addTotal(plan.size());
+        logger.info("Deleting " + paths.size() + " element(s): " + plan.files.size() + " files, "
+                + (plan.size() - plan.files.size()) + " folders");
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                new NamedThreadFactory("fsapp-delete"));
+        try {
+            runBatches(executor, plan.files, result, blocked, listener, token);
+            for (int depth = plan.foldersByDepth.size() - 1; depth >= 0; depth--) {
+                runBatches(executor, plan.foldersByDepth.get(depth), result, blocked, listener, token);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        result.setCancelled(token.isCancelled());
+        logger.info("Delete finished: " + result);
+        return result;
+    }
+
+    private void runBatches(ExecutorService executor, List<Path> paths, OperationResult result,
+                            Set<Path> blocked, ProgressListener listener, CancellationToken token) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < paths.size(); from += BATCH_SIZE) {
+            List<Path> batch = paths.subList(from, Math.min(paths.size(), from + BATCH_SIZE));
+            futures.add(executor.submit(() -> deleteBatch(batch, result, blocked, listener, token)));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                token.cancel();
+                return;
+            } catch (ExecutionException e) {
+                logger.error("Delete worker failed", e.getCause());
+            }
+        }
+    }
+
+    private static void deleteBatch(List<Path> batch, OperationResult result, Set<Path> blocked,
+                                    ProgressListener listener, CancellationToken token) {
+        for (Path path : batch) {
+            if (token.isCancelled()) {
+                return;
+            }
+            if (blocked.contains(path)) {
+                continue;
+            }
+            try {
+                Files.delete(path);
+            } catch (NoSuchFileException e) {
+                // Already gone, nothing to do
+            } catch (IOException e) {
+                result.addFailure(path, e);
+                block(path, blocked);
+                logger.warn("Failed to delete: " + path + " (" + e + ")");
+                continue;
+            }
+            listener.onProgress(result.markCompleted(), result.getTotal(), path);
+        }
+    }
+
+    /**
+     * Marks all parents of a failed path, their deletion would fail anyway.
+     */
+    private static void block(Path path, Set<Path> blocked) {
+        Path parent = path.getParent();
+        while (parent != null && blocked.add(parent)) {
+            parent = parent.getParent();
+        }
+    }
+
+    /**
+     * Removes nodes that no longer exist on disk.
+     */
+    private static void prune(FileNode node) {
+        if (Files.notExists(node.getPath(), LinkOption.NOFOLLOW_LINKS)) {
+            FileNode parent = node.getParent();
+            if (parent != null) {
+                parent.removeChild(node);
+            }
+            return;
+        }
+        if (node.isDirectory()) {
+            for (FileNode child : new ArrayList<>(node.getChildren())) {
+                prune(child);
+            }
+        }
+    }
+
+    /**
+     * Drops nodes whose ancestor is also in the list.
+     *
+     * @param nodes selected nodes
+     * @return nodes without the nested ones and without repeats
+     */
+    static List<FileNode> withoutNested(List<FileNode> nodes) {
+        List<FileNode> roots = new ArrayList<>();
+        for (FileNode node : nodes) {
+            boolean nested = false;
+            for (FileNode other : nodes) {
+                if (other != node && node.getPath().startsWith(other.getPath())) {
+                    nested = true;
+                    break;
+                }
+            }
+            if (!nested && !roots.contains(node)) {
+                roots.add(node);
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * Paths to delete: files in any order, folders grouped by depth.
+     */
+    private static class Plan {
+        private final List<Path> files = new ArrayList<>();
+        private final List<List<Path>> foldersByDepth = new ArrayList<>();
+        private long folders;
+
+        void collect(Path root, OperationResult result, Set<Path> blocked) {
+            try {
+                Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                    private int depth;
+
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        depth++;
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        files.add(file);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        result.addFailure(file, exc);
+                        block(file, blocked);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                        depth--;
+                        if (exc != null) {
+                            result.addFailure(dir, exc);
+                            blocked.add(dir);
+                            block(dir, blocked);
+                        }
+                        while (foldersByDepth.size() <= depth) {
+                            foldersByDepth.add(new ArrayList<>());
+                        }
+                        foldersByDepth.get(depth).add(dir);
+                        folders++;
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                result.addFailure(root, e);
+            }
+        }
+
+        long size() {
+            return files.size() + folders;
+        }
+    }
+}
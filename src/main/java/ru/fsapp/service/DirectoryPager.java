@@ -0,0 +1,109 @@
+package ru.fsapp.service;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Lists a folder in pages of a fixed size.
+ *
+ * Unlike {@link File#listFiles()}, which builds one array of the whole
+ * folder, the entries are streamed from a {@link DirectoryStream}, so a
+ * folder with millions of elements never needs more than one page of
+ * names in memory at a time. The order of entries is the order of the
+ * file system.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class DirectoryPager implements Closeable {
+
+    /**
+     * Default number of entries in a page.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+
+    private final DirectoryStream<Path> stream;
+    private final Iterator<Path> iterator;
+    private final int pageSize;
+    private long count;
+
+    /**
+     * Opens folder for listing.
+     *
+     * @param dir folder to list
+     * @param pageSize maximum number of entries in a page
+     * @throws IOException if the folder cannot be opened, for example
+     *         {@link java.nio.file.AccessDeniedException}
+     */
+    public DirectoryPager(Path dir, int pageSize) throws IOException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.pageSize = pageSize;
+        this.stream = Files.newDirectoryStream(dir);
+        this.iterator = stream.iterator();
+    }
+
+    /**
+     * Reads the next page.
+     *
+     * @return entries of the page, or null after the last page
+     * @throws IOException if reading the folder fails; earlier pages stay valid
+     */
+    public File[] next() throws IOException {
+        try {
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            File[] page = new File[pageSize];
+            int size = 0;
+            while (size < pageSize && iterator.hasNext()) {
+                page[size++] = iterator.next().toFile();
+            }
+            count += size;
+            if (size < pageSize) {
+                File[] last = new File[size];
+                System.arraycopy(page, 0, last, 0, size);
+                return last;
+            }
+            return page;
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Checks if there are more entries after the pages read so far.
+     *
+     * @return true if {@link #next()} returns another page
+     * @throws IOException if reading the folder fails
+     */
+    public boolean hasNext() throws IOException {
+        try {
+            return iterator.hasNext();
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns number of entries read so far.
+     *
+     * @return entry count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
@@ -0,0 +1,178 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled exclusion rules of a scan.
+ *
+ * Patterns without a slash are matched against the file name: plain names
+ * go to a hash set, globs are compiled into matchers. Patterns with a slash
+ * and {@code regex:} patterns are matched against the path relative to the
+ * folder the rules belong to. Rules read from an ignore file are chained
+ * to the rules of the parent folder.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+final class ExclusionRules {
+
+    private static final Logger logger = Logger.getLogger(ExclusionRules.class);
+
+    static final ExclusionRules NONE = new ExclusionRules(null, null);
+
+    private static final String REGEX_PREFIX = "regex:";
+    private static final String GLOB_CHARS = "*?[]{}\\";
+
+    private final ExclusionRules parent;
+    private final Path base;
+    private final Set<String> names = new HashSet<>();
+    private final List<PathMatcher> nameMatchers = new ArrayList<>();
+    private final List<PathMatcher> pathMatchers = new ArrayList<>();
+    private final List<Pattern> pathPatterns = new ArrayList<>();
+
+    private ExclusionRules(ExclusionRules parent, Path base) {
+        this.parent = parent;
+        this.base = base;
+    }
+
+    /**
+     * Compiles rules of the scan options.
+     *
+     * @param base scan root, relative patterns are matched against it
+     * @param globs glob patterns
+     * @param regexes regular expressions
+     * @return compiled rules
+     */
+    static ExclusionRules compile(Path base, List<String> globs, List<String> regexes) {
+        if (globs.isEmpty() && regexes.isEmpty()) {
+            return NONE;
+        }
+        ExclusionRules rules = new ExclusionRules(null, base);
+        for (String glob : globs) {
+            rules.addGlob(glob);
+        }
+        for (String regex : regexes) {
+            rules.pathPatterns.add(Pattern.compile(regex));
+        }
+        return rules;
+    }
+
+    /**
+     * Reads ignore file of a folder: one pattern per line, {@code #} starts a comment,
+     * {@code regex:} marks a regular expression, a leading slash anchors a glob to the folder.
+     *
+     * @param dir folder containing the ignore file
+     * @param ignoreFile ignore file
+     * @return rules of the folder, chained to these rules
+     * @throws IOException if the file cannot be read
+     */
+    ExclusionRules withIgnoreFile(Path dir, Path ignoreFile) throws IOException {
+        ExclusionRules rules = new ExclusionRules(this == NONE ? null : this, dir);
+        for (String line : Files.readAllLines(ignoreFile, StandardCharsets.UTF_8)) {
+            String pattern = line.trim();
+            if (pattern.isEmpty() || pattern.startsWith("#")) {
+                continue;
+            }
+            if (pattern.startsWith("!")) {
+                logger.debug("Negated pattern is not supported: " + pattern + " in " + ignoreFile);
+                continue;
+            }
+            if (pattern.startsWith(REGEX_PREFIX)) {
+                rules.pathPatterns.add(Pattern.compile(pattern.substring(REGEX_PREFIX.length())));
+            } else {
+                rules.addGlob(pattern);
+            }
+        }
+        return rules;
+    }
+
+    private void addGlob(String glob) {
+        String pattern = glob;
+        while (pattern.endsWith("/") && pattern.length() > 1) {
+            pattern = pattern.substring(0, pattern.length() - 1);
+        }
+        if (pattern.startsWith("/")) {
+            pattern = pattern.substring(1);
+            pathMatchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        } else if (pattern.indexOf('/') >= 0) {
+            pathMatchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        } else if (isLiteral(pattern)) {
+            names.add(pattern);
+        } else {
+            nameMatchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        }
+    }
+
+    private static boolean isLiteral(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (GLOB_CHARS.indexOf(pattern.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a listed entry must be skipped. Uses only the path, no attributes are read.
+     *
+     * @param path path of the entry
+     * @param name file name of the entry
+     * @return true if the entry is excluded
+     */
+    boolean isExcluded(Path path, String name) {
+        for (ExclusionRules rules = this; rules != null; rules = rules.parent) {
+            if (rules.matches(path, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(Path path, String name) {
+        if (names.contains(name)) {
+            return true;
+        }
+        if (!nameMatchers.isEmpty()) {
+            Path fileName = path.getFileName();
+            for (PathMatcher matcher : nameMatchers) {
+                if (matcher.matches(fileName)) {
+                    return true;
+                }
+            }
+        }
+        if (pathMatchers.isEmpty() && pathPatterns.isEmpty()) {
+            return false;
+        }
+        if (base == null || !path.startsWith(base)) {
+            return false;
+        }
+        Path relative = base.relativize(path);
+        for (PathMatcher matcher : pathMatchers) {
+            if (matcher.matches(relative)) {
+                return true;
+            }
+        }
+        if (!pathPatterns.isEmpty()) {
+            String text = relative.toString().replace('\\', '/');
+            for (Pattern pattern : pathPatterns) {
+                if (pattern.matcher(text).matches()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
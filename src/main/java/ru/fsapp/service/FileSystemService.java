@@ -3,8 +3,18 @@ package ru.fsapp.service;
 import org.apache.log4j.Logger;
 import ru.fsapp.model.FileNode;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Service for analyzing and managing file system.
@@ -12,12 +22,11 @@ import java.util.List;
  * deleting and creating files with full error handling.
  *
  * @author Ahmed
- * @version 1.0
+ * @version 1.1
  * @since 2025-12-05
  */
 public class FileSystemService {
     private static final Logger logger = Logger.getLogger(FileSystemService.class);
-    private static final int MAX_DEPTH = 100;
 
     /**
      * Builds file tree from starting path.
@@ -27,6 +36,21 @@ public class FileSystemService {
      * @throws IllegalArgumentException if path does not exist
      */
     public static FileNode buildTree(String rootPath) {
+        return buildTree(rootPath, new ScanOptions());
+    }
+
+    /**
+     * Builds file tree from starting path with scan options.
+     * With parallelism above 1 folders are listed on a fork-join pool.
+     * With a spill store finished subtrees may be written to disk; see {@link SpillStore}.
+     * Aggregators of the options receive their results before the method returns.
+     *
+     * @param rootPath path to root folder
+     * @param options scan options
+     * @return root node of tree
+     * @throws IllegalArgumentException if path does not exist
+     */
+    public static FileNode buildTree(String rootPath, ScanOptions options) {
         logger.info("========== START ANALYSIS ==========");
         logger.info("Analysis path: " + rootPath);
 
@@ -41,56 +65,441 @@ public class FileSystemService {
             throw new IllegalArgumentException("Path is not a folder: " + rootPath);
         }
 
-        logger.debug("Creating root node");
         FileNode rootNode = new FileNode(rootFile);
-        buildTreeRecursive(rootNode, 0);
+        ScanContext context = new ScanContext(options, rootNode);
+        ScanTelemetry.scanStarted(context.getMetrics(), rootPath);
+        try {
+            if (options.getParallelism() > 1) {
+                ForkJoinPool pool = new ForkJoinPool(options.getParallelism());
+                try {
+                    pool.invoke(new ScanTask(rootNode, 0, context));
+                } finally {
+                    pool.shutdown();
+                }
+            } else {
+                buildTreeRecursive(rootNode, 0, context);
+            }
+        } finally {
+            ScanTelemetry.scanFinished(context.getMetrics());
+        }
+        rootNode.updateTotals();
+        context.finishAggregators();
+        if (options.getCache() != null && options.getSpillStore() == null) {
+            options.getCache().put(rootNode, context);
+        }
+        if (options.getSpillStore() != null) {
+            logger.info("Spilled " + options.getSpillStore().getSpilledFolders() + " folders, "
+                    + options.getSpillStore().getFileSize() + " bytes");
+        }
+        logger.info("Sizes: apparent " + rootNode.getTotalSize() + ", allocated " + rootNode.getTotalAllocated()
+                + ", unique " + rootNode.getUniqueSize() + " bytes");
 
         logger.info("Analysis completed successfully");
         logger.info("========== END ANALYSIS ==========");
         return rootNode;
     }
 
+    /**
+     * Builds only the first levels of the tree. Folders below them are added
+     * to the tree, but not listed; see {@link FileNode#isListed()}.
+     *
+     * @param rootPath path to root folder
+     * @param options scan options, parallelism is ignored
+     * @param levels number of listed levels, 1 lists only the root
+     * @return root node of tree
+     * @throws IllegalArgumentException if path is not a folder or levels is not positive
+     * @see LazyScanner
+     */
+    public static FileNode buildShallowTree(String rootPath, ScanOptions options, int levels) {
+        if (levels < 1) {
+            throw new IllegalArgumentException("Levels must be positive: " + levels);
+        }
+        File rootFile = new File(rootPath);
+        if (!rootFile.isDirectory()) {
+            logger.error("Is not a folder: " + rootPath);
+            throw new IllegalArgumentException("Path is not a folder: " + rootPath);
+        }
+        FileNode rootNode = new FileNode(rootFile);
+        shallowRecursive(rootNode, 0, levels, new ScanContext(options, rootNode));
+        rootNode.updateTotals();
+        return rootNode;
+    }
+
+    private static void shallowRecursive(FileNode dir, int depth, int levels, ScanContext context) {
+        for (FileNode folder : scanDirectory(dir, depth, context)) {
+            if (depth + 1 < levels) {
+                shallowRecursive(folder, depth + 1, levels, context);
+            } else {
+                folder.setListed(false);
+            }
+        }
+        context.leaveFolder(dir);
+    }
+
+    /**
+     * Lists a folder of a shallow tree. Its subfolders are added as not listed.
+     *
+     * @param dir folder node
+     * @param options scan options
+     */
+    public static void listChildren(FileNode dir, ScanOptions options) {
+        if (dir.isListed()) {
+            return;
+        }
+        dir.setListed(true);
+        for (FileNode folder : scanDirectory(dir, 0, new ScanContext(options, dir))) {
+            folder.setListed(false);
+        }
+        dir.sumChildren();
+    }
+
+    /**
+     * Measures the whole subtree of a folder without keeping it in memory
+     * and sets the totals of the folder node.
+     *
+     * @param dir folder node
+     * @param options scan options, parallelism is ignored
+     * @param token cancellation token
+     * @throws java.util.concurrent.CancellationException if the token was cancelled
+     */
+    public static void measure(FileNode dir, ScanOptions options, CancellationToken token) {
+        long[] totals = new long[3];
+        TreeVisitor visitor = new TreeVisitor() {
+            @Override
+            public void enterDirectory(FileNode node, int depth) {
+                if (token.isCancelled()) {
+                    throw new CancellationException();
+                }
+                totals[1] += node.getAllocatedSize();
+                totals[2] += node.getAllocatedSize();
+            }
+
+            @Override
+            public void visitFile(FileNode node, int depth) {
+                totals[0] += node.getSize();
+                totals[1] += node.getAllocatedSize();
+                totals[2] += node.getUniqueSize();
+            }
+
+            @Override
+            public void exitDirectory(FileNode node, int depth) {
+            }
+        };
+        // Fresh root node: streaming releases children of the folders it leaves
+        FileNode root = new FileNode(dir.getFile());
+        try {
+            streamRecursive(root, 0, new ScanContext(options, root), visitor);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dir.setTotals(totals[0], totals[1], totals[2]);
+    }
+
+    /**
+     * Scans folder and passes every node to the visitor as soon as it is read.
+     * Children of a folder are released after the folder is left, so memory
+     * stays proportional to the depth of the tree, not to its size.
+     * Totals of a folder are known when it is left.
+     *
+     * @param rootPath path to root folder
+     * @param options scan options, parallelism is ignored
+     * @param visitor node visitor
+     * @throws IOException if visitor fails
+     * @throws IllegalArgumentException if path does not exist
+     */
+    public static void streamTree(String rootPath, ScanOptions options, TreeVisitor visitor) throws IOException {
+        logger.info("Streaming scan: " + rootPath);
+        File rootFile = new File(rootPath);
+        if (!rootFile.isDirectory()) {
+            logger.error("Is not a folder: " + rootPath);
+            throw new IllegalArgumentException("Path is not a folder: " + rootPath);
+        }
+        FileNode rootNode = new FileNode(rootFile);
+        ScanContext context = new ScanContext(options, rootNode);
+        ScanTelemetry.scanStarted(context.getMetrics(), rootPath);
+        try {
+            streamRecursive(rootNode, 0, context, visitor);
+            context.finishAggregators();
+        } finally {
+            ScanTelemetry.scanFinished(context.getMetrics());
+        }
+    }
+
+    private static void streamRecursive(FileNode dir, int depth, ScanContext context,
+                                        TreeVisitor visitor) throws IOException {
+        visitor.enterDirectory(dir, depth);
+        // Folders to descend into come in the same order as the children
+        List<FileNode> folders = scanDirectory(dir, depth, context);
+        int next = 0;
+        for (FileNode child : dir.getChildren()) {
+            if (next < folders.size() && folders.get(next) == child) {
+                next++;
+                streamRecursive(child, depth + 1, context, visitor);
+            } else if (child.isDirectory()) {
+                visitor.enterDirectory(child, depth + 1);
+                visitor.exitDirectory(child, depth + 1);
+            } else {
+                visitor.visitFile(child, depth + 1);
+            }
+        }
+        // Subfolders already have their totals, the children are dropped below
+        dir.sumChildren();
+        visitor.exitDirectory(dir, depth);
+        context.leaveFolder(dir);
+        dir.getChildren().clear();
+    }
+
+    /**
+     * Passes every node of an existing tree to the visitor.
+     *
+     * @param root root node
+     * @param visitor node visitor
+     * @throws IOException if visitor fails
+     */
+    public static void walkTree(FileNode root, TreeVisitor visitor) throws IOException {
+        walkRecursive(root, 0, visitor);
+    }
+
+    private static void walkRecursive(FileNode node, int depth, TreeVisitor visitor) throws IOException {
+        if (!node.isDirectory()) {
+            visitor.visitFile(node, depth);
+            return;
+        }
+        visitor.enterDirectory(node, depth);
+        for (FileNode child : node.getChildren()) {
+            walkRecursive(child, depth + 1, visitor);
+        }
+        visitor.exitDirectory(node, depth);
+    }
+
     /**
      * Recursively builds file tree.
      *
      * @param parentNode parent node
      * @param depth current depth
+     * @param context scan state
      */
-    private static void buildTreeRecursive(FileNode parentNode, int depth) {
-        if (depth > MAX_DEPTH) {
-            logger.warn("Maximum depth reached: " + MAX_DEPTH);
-            return;
+    private static void buildTreeRecursive(FileNode parentNode, int depth, ScanContext context) {
+        for (FileNode childNode : scanDirectory(parentNode, depth, context)) {
+            buildTreeRecursive(childNode, depth + 1, context);
+        }
+        context.leaveFolder(parentNode);
+        context.folderDone(parentNode);
+    }
+
+    /**
+     * Lists one folder and adds its elements to the node.
+     * This is the hot path of every scan: nothing is logged per element,
+     * timings and errors go to the scan metrics instead.
+     * Exclusion rules are checked on the listed names before any attributes
+     * are read, so an excluded subtree costs nothing. A folder that did not
+     * change since it was cached is not listed; see {@link ScanCache}.
+     *
+     * @param parentNode folder node
+     * @param depth depth of the folder
+     * @param context scan state
+     * @return child folders that must be scanned next
+     */
+    static List<FileNode> scanDirectory(FileNode parentNode, int depth, ScanContext context) {
+        ScanOptions options = context.getOptions();
+        ScanMetrics metrics = context.getMetrics();
+        if (depth > options.getMaxDepth()) {
+            metrics.recordError("MaxDepthReached");
+            return Collections.emptyList();
+        }
+
+        FileNode cached = context.takeCached(parentNode);
+        if (cached != null && context.isReusable(parentNode, cached)) {
+            return graftDirectory(parentNode, cached, context);
         }
 
         File parentFile = parentNode.getFile();
-        logger.debug("Reading folder: " + parentFile.getAbsolutePath());
+        IoThrottle throttle = context.getThrottle();
+        throttle.acquireStat(metrics);
+        long start = System.nanoTime();
+        List<FileNode> folders = new ArrayList<>();
+        // Huge folders are streamed page by page instead of one array of all names
+        try (DirectoryPager pager = new DirectoryPager(parentNode.getPath(), DirectoryPager.DEFAULT_PAGE_SIZE)) {
+            File[] page = pager.next();
+            long listNanos = System.nanoTime() - start;
+            context.markListed(parentNode);
 
-        File[] files = parentFile.listFiles();
+            // The ignore file of a folder larger than a page is looked up by name
+            File[] ruleFiles = pager.hasNext() ? ignoreFile(parentFile, options) : page;
+            ExclusionRules rules = context.rulesFor(parentNode, ruleFiles != null ? ruleFiles : new File[0]);
+            // A modified folder is listed again, but its unchanged subfolders can still be reused
+            Map<String, FileNode> cachedFolders = cached != null ? cachedFolders(cached) : null;
+            try {
+                while (page != null) {
+                    for (File file : page) {
+                        if (isExcluded(rules, file, metrics)) {
+                            continue;
+                        }
+                        FileNode childNode = readChild(parentNode, file, context, folders);
+                        if (cachedFolders != null && childNode != null && childNode.isDirectory()) {
+                            context.putCached(childNode, cachedFolders.get(file.getName()));
+                        }
+                    }
+                    long pageStart = System.nanoTime();
+                    page = pager.next();
+                    listNanos += System.nanoTime() - pageStart;
+                }
+            } finally {
+                metrics.recordListing(parentNode.getPath(), (int) Math.min(Integer.MAX_VALUE, pager.getCount()),
+                        listNanos);
+            }
+        } catch (IOException e) {
+            // Elements read before a failure stay in the tree
+            metrics.recordError(e instanceof AccessDeniedException ? "AccessDenied" : e.getClass().getSimpleName());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Cannot list: " + parentFile.getAbsolutePath() + " (" + e + ")");
+            }
+        }
+        return folders;
+    }
 
-        if (files == null) {
-            logger.warn("No access to: " + parentFile.getAbsolutePath());
-            return;
+    private static File[] ignoreFile(File dir, ScanOptions options) {
+        if (options.getIgnoreFileName() == null) {
+            return new File[0];
         }
+        File file = new File(dir, options.getIgnoreFileName());
+        return file.isFile() ? new File[]{file} : new File[0];
+    }
 
-        logger.debug("Found elements: " + files.length);
+    /**
+     * Copies the elements of an unchanged folder from its cached node.
+     * Files are taken as they are; subfolders are read again, because
+     * only their own modification time tells if they changed.
+     */
+    private static List<FileNode> graftDirectory(FileNode parentNode, FileNode cached, ScanContext context) {
+        ScanMetrics metrics = context.getMetrics();
+        FileNode[] cachedChildren = cached.getChildren().toArray(new FileNode[0]);
+        context.markListed(parentNode);
+        if (context.getOptions().getIgnoreFileName() != null) {
+            File[] files = new File[cachedChildren.length];
+            for (int i = 0; i < files.length; i++) {
+                files[i] = cachedChildren[i].getFile();
+            }
+            context.rulesFor(parentNode, files);
+        }
 
-        for (File file : files) {
-            try {
-                FileNode childNode = new FileNode(file);
+        List<FileNode> folders = new ArrayList<>();
+        int reused = 0;
+        for (FileNode cachedChild : cachedChildren) {
+            if (cachedChild.isDirectory()) {
+                FileNode childNode = readChild(parentNode, cachedChild.getFile(), context, folders);
+                if (childNode != null && childNode.isDirectory()) {
+                    context.putCached(childNode, cachedChild);
+                }
+            } else {
+                FileNode childNode = new FileNode(cachedChild);
+                context.checkHardLink(childNode);
                 parentNode.addChild(childNode);
+                context.aggregate(childNode);
+                reused++;
+            }
+        }
+        metrics.recordReused(reused);
+        return folders;
+    }
 
-                if (file.isDirectory()) {
-                    logger.debug("  [D] " + file.getName());
-                    if (file.canRead()) {
-                        buildTreeRecursive(childNode, depth + 1);
-                    }
+    private static boolean isExcluded(ExclusionRules rules, File file, ScanMetrics metrics) {
+        try {
+            if (rules.isExcluded(file.toPath(), file.getName())) {
+                metrics.recordExcluded();
+                return true;
+            }
+            return false;
+        } catch (Exception exception) {
+            // For example a name that is not valid in the platform encoding
+            metrics.recordError(exception.getClass().getSimpleName());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Error processing: " + file.getAbsolutePath(), exception);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads one element of a folder and adds it to the folder node.
+     *
+     * @return node of the element, or null if it could not be read
+     */
+    private static FileNode readChild(FileNode parentNode, File file, ScanContext context, List<FileNode> folders) {
+        ScanMetrics metrics = context.getMetrics();
+        try {
+            context.getThrottle().acquireStat(metrics);
+            long statStart = System.nanoTime();
+            // Links are not followed, so their targets are not counted twice
+            FileNode childNode = new FileNode(file, false);
+            boolean readable = childNode.isDirectory() && file.canRead();
+            metrics.recordEntry(childNode.isDirectory(), System.nanoTime() - statStart);
+            context.checkHardLink(childNode);
+            parentNode.addChild(childNode);
+            context.aggregate(childNode);
+
+            if (readable) {
+                if (context.isDescendable(parentNode, childNode)) {
+                    folders.add(childNode);
                 } else {
-                    logger.debug("  [F] " + file.getName() + " (" + file.length() + " bytes)");
+                    metrics.recordMountSkipped();
                 }
-            } catch (Exception exception) {
-                logger.warn("Error processing: " + file.getAbsolutePath(), exception);
+            }
+            return childNode;
+        } catch (Exception exception) {
+            metrics.recordError(exception.getClass().getSimpleName());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Error processing: " + file.getAbsolutePath(), exception);
+            }
+            return null;
+        }
+    }
+
+    private static Map<String, FileNode> cachedFolders(FileNode cached) {
+        Map<String, FileNode> folders = new HashMap<>();
+        for (FileNode child : cached.getChildren().toArray(new FileNode[0])) {
+            if (child.isDirectory()) {
+                folders.put(child.getName(), child);
             }
         }
+        return folders;
+    }
+
+    /**
+     * Fork-join task scanning a folder and its subfolders.
+     */
+    private static class ScanTask extends RecursiveAction {
+        private final FileNode node;
+        private final int depth;
+        private final ScanContext context;
+
+        ScanTask(FileNode node, int depth, ScanContext context) {
+            this.node = node;
+            this.depth = depth;
+            this.context = context;
+        }
+
+        @Override
+        protected void compute() {
+            List<FileNode> folders = scanDirectory(node, depth, context);
+            List<ScanTask> tasks = new ArrayList<>(folders.size());
+            for (FileNode folder : folders) {
+                tasks.add(new ScanTask(folder, depth + 1, context));
+            }
+            invokeAll(tasks);
+            context.leaveFolder(node);
+            context.folderDone(node);
+        }
+    }
+
+    /**
+     * Returns throttle shared by scans and file operations. Its rates
+     * can be changed while a scan is running.
+     *
+     * @return shared throttle
+     */
+    public static IoThrottle getThrottle() {
+        return IoThrottle.getShared();
     }
 
     /**
@@ -108,35 +517,55 @@ public class FileSystemService {
             return false;
         }
 
-        return deleteRecursive(file);
+        OperationResult result = new DeleteEngine().delete(Collections.singletonList(file.toPath()),
+                ProgressListener.NONE, new CancellationToken());
+        return result.isSuccessful();
     }
 
     /**
-     * Recursively deletes files.
+     * Deletes nodes in parallel and prunes them from the tree.
      *
-     * @param file file to delete
-     * @return true if successful
+     * @param nodes nodes to delete
+     * @param listener progress listener
+     * @param token cancellation token
+     * @return result of the operation
+     * @see DeleteEngine
      */
-    private static boolean deleteRecursive(File file) {
-        if (file.isDirectory()) {
-            File[] children = file.listFiles();
-            if (children != null) {
-                for (File child : children) {
-                    if (!deleteRecursive(child)) {
-                        logger.error("Failed to delete: " + child.getAbsolutePath());
-                        return false;
-                    }
-                }
-            }
-        }
+    public static OperationResult deleteNodes(List<FileNode> nodes, ProgressListener listener,
+                                              CancellationToken token) {
+        return new DeleteEngine().deleteNodes(nodes, listener, token);
+    }
 
-        boolean deleted = file.delete();
-        if (deleted) {
-            logger.info("Deleted: " + file.getAbsolutePath());
-        } else {
-            logger.error("Failed to delete: " + file.getAbsolutePath());
-        }
-        return deleted;
+    /**
+     * Copies nodes into target folder in parallel.
+     *
+     * @param nodes nodes to copy
+     * @param targetDir target folder
+     * @param targetNode node of the target folder in the tree, or null
+     * @param listener progress listener
+     * @param token cancellation token
+     * @return result of the operation
+     * @see TransferEngine
+     */
+    public static OperationResult copyNodes(List<FileNode> nodes, Path targetDir, FileNode targetNode,
+                                            ProgressListener listener, CancellationToken token) {
+        return new TransferEngine().copyNodes(nodes, targetDir, targetNode, listener, token);
+    }
+
+    /**
+     * Moves nodes into target folder.
+     *
+     * @param nodes nodes to move
+     * @param targetDir target folder
+     * @param targetNode node of the target folder in the tree, or null
+     * @param listener progress listener
+     * @param token cancellation token
+     * @return result of the operation
+     * @see TransferEngine
+     */
+    public static OperationResult moveNodes(List<FileNode> nodes, Path targetDir, FileNode targetNode,
+                                            ProgressListener listener, CancellationToken token) {
+        return new TransferEngine().moveNodes(nodes, targetDir, targetNode, listener, token);
     }
 
     /**
@@ -173,7 +602,20 @@ public class FileSystemService {
      * @return list of files
      */
     public static List<File> listFiles(String folderPath) {
-        logger.debug("Listing: " + folderPath);
+        return listFiles(folderPath, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets one page of the files in a folder. The folder is streamed, so
+     * only the requested page is kept in memory even for a huge folder.
+     *
+     * @param folderPath path to folder
+     * @param offset number of entries to skip
+     * @param limit maximum number of entries
+     * @return list of files in the order of the file system
+     */
+    public static List<File> listFiles(String folderPath, long offset, int limit) {
+        logger.debug("Listing: " + folderPath + " from " + offset);
 
         List<File> fileList = new ArrayList<>();
         File folder = new File(folderPath);
@@ -183,11 +625,18 @@ public class FileSystemService {
             return fileList;
         }
 
-        File[] files = folder.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                fileList.add(file);
+        try (DirectoryPager pager = new DirectoryPager(folder.toPath(), DirectoryPager.DEFAULT_PAGE_SIZE)) {
+            long skipped = 0;
+            File[] page;
+            while (fileList.size() < limit && (page = pager.next()) != null) {
+                int from = (int) Math.max(0, Math.min(page.length, offset - skipped));
+                skipped += from;
+                for (int i = from; i < page.length && fileList.size() < limit; i++) {
+                    fileList.add(page[i]);
+                }
             }
+        } catch (IOException e) {
+            logger.warn("Cannot list: " + folderPath + " (" + e + ")");
         }
 
         return fileList;
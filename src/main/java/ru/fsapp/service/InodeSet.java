@@ -0,0 +1,79 @@
+package ru.fsapp.service;
+
+/**
+ * Set of (device, inode) pairs seen during one scan.
+ * Open addressing over a plain long array, two slots per entry,
+ * so a million hard links cost about 32 MB instead of a HashSet of keys.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+final class InodeSet {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] table;
+    private boolean[] used;
+    private int size;
+
+    InodeSet() {
+        this.table = new long[INITIAL_CAPACITY * 2];
+        this.used = new boolean[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds pair to the set.
+     *
+     * @param device device id
+     * @param inode inode number
+     * @return true if the pair was not in the set
+     */
+    synchronized boolean add(long device, long inode) {
+        if (size * 2 >= used.length) {
+            resize();
+        }
+        if (!insert(table, used, device, inode)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private static boolean insert(long[] table, boolean[] used, long device, long inode) {
+        int mask = used.length - 1;
+        int slot = hash(device, inode) & mask;
+        while (used[slot]) {
+            if (table[slot * 2] == device && table[slot * 2 + 1] == inode) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        table[slot * 2] = device;
+        table[slot * 2 + 1] = inode;
+        return true;
+    }
+
+    private void resize() {
+        long[] newTable = new long[table.length * 2];
+        boolean[] newUsed = new boolean[used.length * 2];
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) {
+                insert(newTable, newUsed, table[i * 2], table[i * 2 + 1]);
+            }
+        }
+        table = newTable;
+        used = newUsed;
+    }
+
+    private static int hash(long device, long inode) {
+        long h = inode * 0x9E3779B97F4A7C15L + device;
+        h ^= h >>> 31;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,193 @@
+package ru.fsapp.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Rate limit of file system calls and of read bytes.
+ *
+ * Two token buckets: one for metadata calls (listings and attribute reads),
+ * one for bytes of file content. A bucket holds at most one second of its
+ * rate, so short bursts pass and the long-term rate stays at the limit.
+ * A caller that finds the bucket empty takes the tokens on credit and
+ * sleeps until they are earned, so parallel callers queue up fairly.
+ * Rates can be changed at any time, for example through JMX as
+ * {@code ru.fsapp:type=IoThrottle}; 0 means no limit.
+ *
+ * System properties for the shared throttle:
+ * <ul>
+ *   <li>{@code fsapp.throttle.stats} - metadata calls per second</li>
+ *   <li>{@code fsapp.throttle.bytes} - bytes per second</li>
+ * </ul>
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class IoThrottle implements IoThrottleMXBean {
+
+    private static final IoThrottle SHARED = new IoThrottle(
+            Long.getLong("fsapp.throttle.stats", 0), Long.getLong("fsapp.throttle.bytes", 0));
+
+    private final Bucket stats = new Bucket();
+    private final Bucket bytes = new Bucket();
+    private final LongAdder waitNanos = new LongAdder();
+
+    /**
+     * Creates throttle.
+     *
+     * @param statsPerSecond metadata calls per second, 0 for no limit
+     * @param bytesPerSecond bytes per second, 0 for no limit
+     */
+    public IoThrottle(long statsPerSecond, long bytesPerSecond) {
+        setStatsPerSecond(statsPerSecond);
+        setBytesPerSecond(bytesPerSecond);
+    }
+
+    /**
+     * Returns throttle shared by all scans and file operations of the process.
+     *
+     * @return shared throttle
+     */
+    public static IoThrottle getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Waits for permission of one metadata call.
+     *
+     * @param metrics metrics receiving the waiting time, or null
+     */
+    public void acquireStat(ScanMetrics metrics) {
+        if (stats.rate > 0) {
+            waited(stats.acquire(1), metrics);
+        }
+    }
+
+    /**
+     * Waits for permission to read bytes.
+     *
+     * @param count number of bytes
+     * @param metrics metrics receiving the waiting time, or null
+     */
+    public void acquireBytes(long count, ScanMetrics metrics) {
+        if (bytes.rate > 0 && count > 0) {
+            waited(bytes.acquire(count), metrics);
+        }
+    }
+
+    /**
+     * Returns size of reads that keeps sleeps of a byte-limited reader short.
+     *
+     * @param preferred size used without limit
+     * @return read size in bytes
+     */
+    public long chunkSize(long preferred) {
+        long rate = bytes.rate;
+        return rate > 0 ? Math.max(64 * 1024, Math.min(preferred, rate / 4)) : preferred;
+    }
+
+    private void waited(long nanos, ScanMetrics metrics) {
+        if (nanos <= 0) {
+            return;
+        }
+        waitNanos.add(nanos);
+        if (metrics != null) {
+            metrics.recordThrottled(nanos);
+        }
+        long deadline = System.nanoTime() + nanos;
+        for (long left = nanos; left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(this, left);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public long getStatsPerSecond() {
+        return stats.rate;
+    }
+
+    @Override
+    public void setStatsPerSecond(long statsPerSecond) {
+        stats.setRate(statsPerSecond);
+    }
+
+    @Override
+    public long getBytesPerSecond() {
+        return bytes.rate;
+    }
+
+    @Override
+    public void setBytesPerSecond(long bytesPerSecond) {
+        bytes.setRate(bytesPerSecond);
+    }
+
+    @Override
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    @Override
+    public boolean isActive() {
+        return stats.rate > 0 || bytes.rate > 0;
+    }
+
+    @Override
+    public String toString() {
+        if (!isActive()) {
+            return "unlimited";
+        }
+        StringBuilder sb = new StringBuilder();
+        if (stats.rate > 0) {
+            sb.append(stats.rate).append(" stats/s");
+        }
+        if (bytes.rate > 0) {
+            sb.append(sb.length() > 0 ? ", " : "").append(bytes.rate).append(" bytes/s");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Token bucket holding up to one second of its rate.
+     */
+    private static class Bucket {
+        private volatile long rate;
+        private double tokens;
+        private long lastNanos = System.nanoTime();
+
+        synchronized void setRate(long rate) {
+            if (rate < 0) {
+                throw new IllegalArgumentException("Rate must not be negative: " + rate);
+            }
+            refill(System.nanoTime());
+            this.rate = rate;
+            this.tokens = Math.min(tokens, rate);
+        }
+
+        /**
+         * Takes tokens, possibly on credit.
+         *
+         * @return nanoseconds to wait until the tokens are earned
+         */
+        synchronized long acquire(long count) {
+            long rate = this.rate;
+            if (rate <= 0) {
+                return 0;
+            }
+            refill(System.nanoTime());
+            tokens -= count;
+            return tokens >= 0 ? 0 : (long) (-tokens * 1_000_000_000L / rate);
+        }
+
+        private void refill(long now) {
+            long rate = this.rate;
+            if (rate > 0) {
+                tokens = Math.min(rate, tokens + (now - lastNanos) * (double) rate / 1_000_000_000L);
+            }
+            lastNanos = now;
+        }
+    }
+}
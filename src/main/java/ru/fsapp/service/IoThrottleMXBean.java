@@ -0,0 +1,24 @@
+package ru.fsapp.service;
+
+/**
+ * JMX view of the I/O throttle, registered as {@code ru.fsapp:type=IoThrottle}.
+ * Rates can be changed while scans are running.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public interface IoThrottleMXBean {
+
+    long getStatsPerSecond();
+
+    void setStatsPerSecond(long statsPerSecond);
+
+    long getBytesPerSecond();
+
+    void setBytesPerSecond(long bytesPerSecond);
+
+    long getWaitMillis();
+
+    boolean isActive();
+}
@@ -0,0 +1,295 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lazy scan for browsing large roots.
+ *
+ * Only the first levels are listed up front, so the tree can be shown at once.
+ * Other folders are listed when they are expanded. Sizes of folders that are
+ * not listed are measured in the background, the most recently requested
+ * folder first, and summed up to the root as they arrive.
+ *
+ * All changes of the tree are made by the scanner threads under one lock;
+ * the listener is called from these threads after each change. While other
+ * code changes the tree, for example a file operation, the scanner is
+ * paused and resumed afterwards.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class LazyScanner implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(LazyScanner.class);
+
+    /**
+     * Default number of levels listed when the root is opened.
+     */
+    public static final int DEFAULT_LEVELS = 2;
+
+    /**
+     * Receives changes of the tree.
+     */
+    public interface Listener {
+
+        /**
+         * Called after children of a folder were added.
+         *
+         * @param dir listed folder
+         */
+        void listed(FileNode dir);
+
+        /**
+         * Called after totals of a folder and its parents were updated.
+         *
+         * @param dir measured folder
+         */
+        void measured(FileNode dir);
+    }
+
+    private final ScanOptions options;
+    private final int levels;
+    private final Listener listener;
+    private final ExecutorService listPool;
+    private final ThreadPoolExecutor measurePool;
+    private final Set<FileNode> listing = ConcurrentHashMap.newKeySet();
+    private final Set<FileNode> queued = ConcurrentHashMap.newKeySet();
+    private final Set<FileNode> started = ConcurrentHashMap.newKeySet();
+    private final Object treeLock = new Object();
+    private volatile CancellationToken token = new CancellationToken();
+    private volatile boolean paused;
+    private volatile boolean closed;
+
+    /**
+     * Creates scanner.
+     *
+     * @param options scan options, parallelism sets the number of measuring threads
+     * @param levels number of levels listed when the root is opened
+     * @param listener listener of tree changes
+     */
+    public LazyScanner(ScanOptions options, int levels, Listener listener) {
+        this.options = options;
+        this.levels = levels;
+        this.listener = listener;
+        this.listPool = Executors.newSingleThreadExecutor(new NamedThreadFactory("lazy-list"));
+        int threads = Math.max(2, options.getParallelism());
+        this.measurePool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LifoQueue(), new NamedThreadFactory("lazy-measure"));
+    }
+
+    /**
+     * Lists the first levels of the root and starts measuring the folders below.
+     *
+     * @param rootPath path to root folder
+     * @return root node
+     * @throws IllegalArgumentException if path is not a folder
+     */
+    public FileNode open(String rootPath) {
+        long start = System.nanoTime();
+        FileNode root = FileSystemService.buildShallowTree(rootPath, options, levels);
+        logger.info("Lazy scan opened " + rootPath + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        measureUnlisted(root);
+        return root;
+    }
+
+    /**
+     * Requests totals of all folders below the listed part of the tree whose
+     * totals are unknown. Deepest folders are requested last, so measuring
+     * starts near the root.
+     */
+    private void measureUnlisted(FileNode root) {
+        Deque<FileNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            FileNode node = stack.pop();
+            for (FileNode child : node.getChildren()) {
+                if (!child.isDirectory()) {
+                    continue;
+                }
+                if (child.isListed()) {
+                    stack.push(child);
+                } else {
+                    requestMeasure(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists a folder in the background if it is not listed yet.
+     * Subfolders are measured after that.
+     *
+     * @param dir folder node
+     */
+    public void expand(FileNode dir) {
+        if (dir.isListed() || paused || closed || !listing.add(dir)) {
+            return;
+        }
+        CancellationToken current = token;
+        listPool.execute(() -> {
+            try {
+                if (current.isCancelled()) {
+                    return;
+                }
+                // Listed into a copy, the tree is locked only to attach the children
+                FileNode listed = new FileNode(dir);
+                listed.setListed(false);
+                FileSystemService.listChildren(listed, options);
+                synchronized (treeLock) {
+                    if (current.isCancelled() || dir.isListed()) {
+                        return;
+                    }
+                    for (FileNode child : new ArrayList<>(listed.getChildren())) {
+                        dir.addChild(child);
+                    }
+                    dir.setListed(true);
+                    dir.sumChildren();
+                    sumParents(dir);
+                }
+                listener.listed(dir);
+                for (FileNode child : dir.getChildren()) {
+                    if (child.isDirectory() && !child.isListed()) {
+                        requestMeasure(child);
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Error listing " + dir.getPath() + ": " + e.getMessage());
+            } finally {
+                listing.remove(dir);
+            }
+        });
+    }
+
+    /**
+     * Requests totals of a folder that is not listed. The folder requested
+     * last is measured first, so visible folders do not wait for the whole queue;
+     * requesting a queued folder again moves it to the front.
+     *
+     * @param dir folder node
+     */
+    public void requestMeasure(FileNode dir) {
+        if (dir.isTotalsKnown() || paused || closed || started.contains(dir)) {
+            return;
+        }
+        CancellationToken current = token;
+        queued.add(dir);
+        measurePool.execute(() -> {
+            if (!started.add(dir)) {
+                // Measured by an earlier request of the same folder
+                return;
+            }
+            boolean done = false;
+            try {
+                if (current.isCancelled() || dir.isTotalsKnown()) {
+                    return;
+                }
+                FileNode measured = new FileNode(dir.getFile(), true, 0, dir.getOwner());
+                FileSystemService.measure(measured, options, current);
+                synchronized (treeLock) {
+                    if (current.isCancelled()) {
+                        return;
+                    }
+                    if (!dir.isTotalsKnown()) {
+                        dir.setTotals(measured.getTotalSize(), measured.getTotalAllocated(),
+                                measured.getUniqueSize());
+                    }
+                    sumParents(dir);
+                }
+                done = true;
+                listener.measured(dir);
+            } catch (CancellationException e) {
+                // Scanner was paused or closed
+            } catch (RuntimeException e) {
+                logger.warn("Error measuring " + dir.getPath() + ": " + e.getMessage());
+            } finally {
+                queued.remove(dir);
+                if (!done) {
+                    // Can be requested again after a pause
+                    started.remove(dir);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns number of folders waiting to be listed or measured.
+     *
+     * @return number of pending folders
+     */
+    public int getPending() {
+        return listing.size() + queued.size();
+    }
+
+    private static void sumParents(FileNode dir) {
+        for (FileNode parent = dir.getParent(); parent != null; parent = parent.getParent()) {
+            parent.sumChildren();
+        }
+    }
+
+    /**
+     * Stops listing and measuring until {@link #resume(FileNode)}, so that other
+     * code can change the tree. Pending work is dropped, running measurements
+     * are cancelled, and the call returns once no scanner thread changes the tree.
+     * Expansions and measure requests are ignored while paused.
+     */
+    public void pause() {
+        paused = true;
+        CancellationToken cancelled = token;
+        token = new CancellationToken();
+        cancelled.cancel();
+        measurePool.getQueue().clear();
+        queued.clear();
+        listing.clear();
+        synchronized (treeLock) {
+            // Changes started before the cancel are finished, later ones see it
+        }
+    }
+
+    /**
+     * Accepts expansions again and measures the folders whose totals are
+     * still unknown, including those cancelled by {@link #pause()}.
+     *
+     * @param root root of the tree, as changed while paused
+     */
+    public void resume(FileNode root) {
+        paused = false;
+        if (!closed) {
+            measureUnlisted(root);
+        }
+    }
+
+    /**
+     * Stops listing and measuring. Running measurements are cancelled.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        token.cancel();
+        listPool.shutdownNow();
+        measurePool.shutdownNow();
+    }
+
+    /**
+     * Work queue of the measuring pool: new tasks are taken first.
+     */
+    private static class LifoQueue extends LinkedBlockingDeque<Runnable> {
+        @Override
+        public boolean offer(Runnable runnable) {
+            return offerFirst(runnable);
+        }
+    }
+}
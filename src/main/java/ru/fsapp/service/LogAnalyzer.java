@@ -0,0 +1,346 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Line count, time range and growth rate of a log file.
+ *
+ * The file is mapped in chunks of {@link #CHUNK_SIZE} bytes that are
+ * counted by a pool of threads, eight bytes at a time, so the data never
+ * enters the Java heap and a log is read at close to disk speed. Timestamps
+ * are searched only in the first and last {@link #SAMPLE_SIZE} bytes:
+ * ISO ({@code 2026-10-19 12:00:00}, also with {@code T}), web server access
+ * logs ({@code 19/Oct/2026:12:00:00}) and syslog ({@code Oct 19 12:00:00},
+ * the year taken from the modification time of the file).
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class LogAnalyzer {
+
+    private static final Logger logger = Logger.getLogger(LogAnalyzer.class);
+
+    /**
+     * Size of a mapped chunk.
+     */
+    public static final int CHUNK_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Number of bytes searched for timestamps at each end of the file.
+     */
+    public static final int SAMPLE_SIZE = 64 * 1024;
+
+    /**
+     * Default number of counting threads.
+     */
+    public static final int DEFAULT_PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    /** Timestamps are looked for near the start of a line. */
+    private static final int TIMESTAMP_REGION = 64;
+
+    private static final Pattern ISO = Pattern.compile(
+            "(\\d{4})-(\\d{2})-(\\d{2})[T ](\\d{2}):(\\d{2}):(\\d{2})");
+    private static final Pattern ACCESS_LOG = Pattern.compile(
+            "(\\d{2})/([A-Z][a-z]{2})/(\\d{4}):(\\d{2}):(\\d{2}):(\\d{2})");
+    private static final Pattern SYSLOG = Pattern.compile(
+            "^([A-Z][a-z]{2}) +(\\d{1,2}) (\\d{2}):(\\d{2}):(\\d{2})");
+    private static final List<String> MONTHS = List.of(
+            "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec");
+
+    private final int parallelism;
+    private final int chunkSize;
+    private final IoThrottle throttle = IoThrottle.getShared();
+
+    /**
+     * Creates analyzer.
+     *
+     * @param parallelism number of threads counting lines
+     */
+    public LogAnalyzer(int parallelism) {
+        this(parallelism, CHUNK_SIZE);
+    }
+
+    LogAnalyzer(int parallelism, int chunkSize) {
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Checks if a file name looks like a log, including rotated logs like {@code app.log.1}.
+     *
+     * @param name file name
+     * @return true for log names
+     */
+    public static boolean isLogFile(String name) {
+        return name.toLowerCase(Locale.ROOT).matches(".*\\.log(\\.\\d+)?");
+    }
+
+    /**
+     * Analyzes a log file.
+     *
+     * @param file log file
+     * @return statistics
+     * @throws IOException if reading fails
+     * @throws InterruptedException if interrupted while waiting for the counting threads
+     */
+    public LogStats analyze(Path file) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long lines = countLines(channel, size);
+            LocalDateTime first = null;
+            LocalDateTime last = null;
+            if (size > 0) {
+                ByteBuffer lastByte = ByteBuffer.allocate(1);
+                channel.read(lastByte, size - 1);
+                if (lastByte.get(0) != '\n') {
+                    // Last line without line break
+                    lines++;
+                }
+                int year = LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(),
+                        ZoneId.systemDefault()).getYear();
+                List<String> head = sample(channel, 0, size);
+                List<String> tail = size > SAMPLE_SIZE ? sample(channel, size - SAMPLE_SIZE, size) : head;
+                for (int i = 0; i < head.size() && first == null; i++) {
+                    first = parseTimestamp(head.get(i), year);
+                }
+                for (int i = tail.size() - 1; i >= 0 && last == null; i--) {
+                    last = parseTimestamp(tail.get(i), year);
+                }
+                if (first != null && last != null && first.isAfter(last) && first.minusYears(1).isBefore(last)) {
+                    // Syslog without year that crosses a new year
+                    first = first.minusYears(1);
+                }
+            }
+            logger.debug("Analyzed log " + file + ": " + lines + " lines in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return new LogStats(size, lines, first, last);
+        }
+    }
+
+    private long countLines(FileChannel channel, long size) throws IOException, InterruptedException {
+        if (size <= chunkSize) {
+            return countChunk(channel, 0, size);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("fsapp-log"));
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (long position = 0; position < size; position += chunkSize) {
+                long from = position;
+                futures.add(executor.submit(() -> countChunk(channel, from, Math.min(chunkSize, size - from))));
+            }
+            long lines = 0;
+            for (Future<Long> future : futures) {
+                lines += future.get();
+            }
+            return lines;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Line counting failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long countChunk(FileChannel channel, long position, long length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        throttle.acquireBytes(length, null);
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        try {
+            return countNewlines(chunk);
+        } catch (InternalError e) {
+            // A mapped page that is gone, the log was truncated by rotation
+            throw new IOException("File changed while reading", e);
+        }
+    }
+
+    /**
+     * Counts line feeds between position and limit. Eight bytes are checked at
+     * once: after XOR with line feeds a matching byte is zero, and the high bit
+     * of {@code ~((v & 0x7F..) + 0x7F.. | v | 0x7F..)} is set exactly for zero bytes.
+     *
+     * @param buffer bytes to count, not consumed
+     * @return number of line feeds
+     */
+    static long countNewlines(ByteBuffer buffer) {
+        long count = 0;
+        int i = buffer.position();
+        int limit = buffer.limit();
+        for (; i + 8 <= limit; i += 8) {
+            long v = buffer.getLong(i) ^ NEWLINES;
+            long t = (v & LOW_BITS) + LOW_BITS;
+            count += Long.bitCount(~(t | v | LOW_BITS));
+        }
+        for (; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads up to {@link #SAMPLE_SIZE} bytes and splits them into lines;
+     * a line cut at the start of the sample is dropped.
+     */
+    private static List<String> sample(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SAMPLE_SIZE, size - position));
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            // Read until full
+        }
+        // Timestamps are ASCII, single byte decoding cannot fail on any data
+        String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.ISO_8859_1);
+        List<String> lines = new ArrayList<>(List.of(text.split("\r?\n")));
+        if (position > 0 && !lines.isEmpty()) {
+            lines.remove(0);
+        }
+        return lines;
+    }
+
+    /**
+     * Finds timestamp near the start of a line.
+     *
+     * @param line log line
+     * @param year year for syslog timestamps
+     * @return timestamp, or null if the line has none
+     */
+    static LocalDateTime parseTimestamp(String line, int year) {
+        String region = line.length() > TIMESTAMP_REGION ? line.substring(0, TIMESTAMP_REGION) : line;
+        try {
+            Matcher m = ISO.matcher(region);
+            if (m.find()) {
+                return LocalDateTime.of(number(m, 1), number(m, 2), number(m, 3),
+                        number(m, 4), number(m, 5), number(m, 6));
+            }
+            m = ACCESS_LOG.matcher(region);
+            if (m.find() && month(m.group(2)) > 0) {
+                return LocalDateTime.of(number(m, 3), month(m.group(2)), number(m, 1),
+                        number(m, 4), number(m, 5), number(m, 6));
+            }
+            m = SYSLOG.matcher(region);
+            if (m.find() && month(m.group(1)) > 0) {
+                return LocalDateTime.of(year, month(m.group(1)), number(m, 2),
+                        number(m, 3), number(m, 4), number(m, 5));
+            }
+        } catch (DateTimeException e) {
+            // Digits that look like a timestamp but are not a valid date
+        }
+        return null;
+    }
+
+    private static int number(Matcher m, int group) {
+        return Integer.parseInt(m.group(group));
+    }
+
+    private static int month(String name) {
+        return MONTHS.indexOf(name.toLowerCase(Locale.ROOT)) + 1;
+    }
+
+    /**
+     * Statistics of a log file.
+     */
+    public static class LogStats {
+        private final long size;
+        private final long lines;
+        private final LocalDateTime first;
+        private final LocalDateTime last;
+
+        LogStats(long size, long lines, LocalDateTime first, LocalDateTime last) {
+            this.size = size;
+            this.lines = lines;
+            this.first = first;
+            this.last = last;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        /**
+         * Returns timestamp of the first line that has one.
+         *
+         * @return timestamp, or null if none was found at the start of the file
+         */
+        public LocalDateTime getFirst() {
+            return first;
+        }
+
+        /**
+         * Returns timestamp of the last line that has one.
+         *
+         * @return timestamp, or null if none was found at the end of the file
+         */
+        public LocalDateTime getLast() {
+            return last;
+        }
+
+        /**
+         * Returns time covered by the log.
+         *
+         * @return duration, or null if timestamps are unknown
+         */
+        public Duration getSpan() {
+            return first != null && last != null ? Duration.between(first, last) : null;
+        }
+
+        /**
+         * Returns average growth of the log.
+         *
+         * @return bytes per day, or -1 if the time span is unknown or empty
+         */
+        public double getBytesPerDay() {
+            return perDay(size);
+        }
+
+        /**
+         * Returns average number of lines written.
+         *
+         * @return lines per day, or -1 if the time span is unknown or empty
+         */
+        public double getLinesPerDay() {
+            return perDay(lines);
+        }
+
+        private double perDay(long count) {
+            Duration span = getSpan();
+            if (span == null || span.toMillis() <= 0) {
+                return -1;
+            }
+            return count * (double) Duration.ofDays(1).toMillis() / span.toMillis();
+        }
+    }
+}
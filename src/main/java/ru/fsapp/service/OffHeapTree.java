@@ -0,0 +1,517 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scanned tree stored outside the Java heap.
+ *
+ * Every node is a fixed record of {@value #RECORD_SIZE} bytes addressed by its id,
+ * the root has id 0. Records, names and child id lists live in direct buffers,
+ * or in buffers mapped from scratch files, so the garbage collector sees a few
+ * hundred buffer objects instead of one object graph per file. The tree is
+ * filled by a streaming scan, which releases its nodes as soon as a folder is
+ * left; folder totals are summed at the same moment. Nodes are created again
+ * only on request, see {@link #toFileNode(int)}.
+ *
+ * Read methods may be called from any thread once the tree is built.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class OffHeapTree implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(OffHeapTree.class);
+
+    /** Size of one node record in bytes. */
+    public static final int RECORD_SIZE = 96;
+
+    private static final int RECORD_SHIFT = 16;
+    private static final int RECORDS_PER_CHUNK = 1 << RECORD_SHIFT;
+    private static final int DATA_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    // Record layout
+    private static final int PARENT = 0;
+    private static final int CHILD_COUNT = 4;
+    private static final int CHILDREN = 8;
+    private static final int NAME = 16;
+    private static final int NAME_LENGTH = 24;
+    private static final int FLAGS = 28;
+    private static final int OWNER = 32;
+    private static final int LINKS = 36;
+    private static final int SIZE = 40;
+    private static final int ALLOCATED = 48;
+    private static final int MODIFIED = 56;
+    private static final int TOTAL_SIZE = 64;
+    private static final int TOTAL_ALLOCATED = 72;
+    private static final int TOTAL_UNIQUE = 80;
+
+    private static final int FLAG_DIRECTORY = 1;
+    private static final int FLAG_DUPLICATE_LINK = 2;
+
+    private final String rootPath;
+    private final Arena records;
+    private final Arena names;
+    private final Arena children;
+    private final List<String> owners = new ArrayList<>();
+    private final Map<String, Integer> ownerIds = new HashMap<>();
+    private int size;
+
+    private OffHeapTree(String rootPath, Path scratchDir) throws IOException {
+        this.rootPath = rootPath;
+        this.records = new Arena(RECORDS_PER_CHUNK * RECORD_SIZE, scratchDir);
+        this.names = new Arena(DATA_CHUNK_SIZE, scratchDir);
+        this.children = new Arena(DATA_CHUNK_SIZE, scratchDir);
+    }
+
+    /**
+     * Scans folder into direct buffers.
+     *
+     * @param rootPath path to root folder
+     * @param options scan options, parallelism is ignored
+     * @return tree
+     * @throws IOException if buffers cannot be allocated
+     * @throws IllegalArgumentException if path is not a folder
+     */
+    public static OffHeapTree build(String rootPath, ScanOptions options) throws IOException {
+        return build(rootPath, options, null);
+    }
+
+    /**
+     * Scans folder into buffers mapped from scratch files. The files are
+     * deleted when the tree is closed, or at once where the system allows it.
+     *
+     * @param rootPath path to root folder
+     * @param options scan options, parallelism is ignored
+     * @param scratchDir folder for scratch files, or null for direct buffers
+     * @return tree
+     * @throws IOException if buffers cannot be allocated or mapped
+     * @throws IllegalArgumentException if path is not a folder
+     */
+    public static OffHeapTree build(String rootPath, ScanOptions options, Path scratchDir) throws IOException {
+        OffHeapTree tree = new OffHeapTree(rootPath, scratchDir);
+        try {
+            FileSystemService.streamTree(rootPath, options, tree.new Builder());
+        } catch (IOException | RuntimeException e) {
+            tree.close();
+            throw e;
+        }
+        logger.info("Off-heap tree of " + rootPath + ": " + tree.size + " nodes, "
+                + tree.getOffHeapBytes() + " bytes");
+        return tree;
+    }
+
+    /**
+     * Returns number of nodes.
+     *
+     * @return number of files and folders, including the root
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns id of the root node.
+     *
+     * @return 0
+     */
+    public int getRoot() {
+        return 0;
+    }
+
+    /**
+     * Returns id of the parent.
+     *
+     * @param id node id
+     * @return parent id, -1 for the root
+     */
+    public int getParent(int id) {
+        return record(id).getInt(offset(id) + PARENT);
+    }
+
+    /**
+     * Returns number of children.
+     *
+     * @param id node id
+     * @return number of children, 0 for files
+     */
+    public int getChildCount(int id) {
+        return record(id).getInt(offset(id) + CHILD_COUNT);
+    }
+
+    /**
+     * Returns id of a child in scan order.
+     *
+     * @param id folder id
+     * @param index child index
+     * @return child id
+     * @throws IndexOutOfBoundsException if there is no such child
+     */
+    public int getChild(int id, int index) {
+        int count = getChildCount(id);
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Child " + index + " of " + count);
+        }
+        long address = record(id).getLong(offset(id) + CHILDREN);
+        return children.buffer(address).getInt(Arena.offset(address) + 4 * index);
+    }
+
+    /**
+     * Returns file name.
+     *
+     * @param id node id
+     * @return name
+     */
+    public String getName(int id) {
+        ByteBuffer record = record(id);
+        long address = record.getLong(offset(id) + NAME);
+        byte[] bytes = new byte[record.getInt(offset(id) + NAME_LENGTH)];
+        ByteBuffer buffer = names.buffer(address).duplicate();
+        buffer.position(Arena.offset(address));
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns full path built from the names of the node and its parents.
+     *
+     * @param id node id
+     * @return path
+     */
+    public String getPath(int id) {
+        if (id == 0) {
+            return rootPath;
+        }
+        Deque<String> parts = new ArrayDeque<>();
+        for (int node = id; node != 0; node = getParent(node)) {
+            parts.push(getName(node));
+        }
+        File file = new File(rootPath);
+        for (String part : parts) {
+            file = new File(file, part);
+        }
+        return file.getPath();
+    }
+
+    public boolean isDirectory(int id) {
+        return (flags(id) & FLAG_DIRECTORY) != 0;
+    }
+
+    public boolean isDuplicateLink(int id) {
+        return (flags(id) & FLAG_DUPLICATE_LINK) != 0;
+    }
+
+    public long getSize(int id) {
+        return record(id).getLong(offset(id) + SIZE);
+    }
+
+    public long getAllocatedSize(int id) {
+        return record(id).getLong(offset(id) + ALLOCATED);
+    }
+
+    public long getLastModified(int id) {
+        return record(id).getLong(offset(id) + MODIFIED);
+    }
+
+    public int getLinkCount(int id) {
+        return record(id).getInt(offset(id) + LINKS);
+    }
+
+    public String getOwner(int id) {
+        return owners.get(record(id).getInt(offset(id) + OWNER));
+    }
+
+    /**
+     * Returns apparent size: file size or sum of file sizes of a folder.
+     *
+     * @param id node id
+     * @return size in bytes
+     */
+    public long getTotalSize(int id) {
+        return record(id).getLong(offset(id) + TOTAL_SIZE);
+    }
+
+    /**
+     * Returns allocated size including all elements of a folder.
+     *
+     * @param id node id
+     * @return size in bytes
+     */
+    public long getTotalAllocated(int id) {
+        return record(id).getLong(offset(id) + TOTAL_ALLOCATED);
+    }
+
+    /**
+     * Returns allocated size counting data of hard linked files only once.
+     *
+     * @param id node id
+     * @return size in bytes
+     */
+    public long getUniqueSize(int id) {
+        return record(id).getLong(offset(id) + TOTAL_UNIQUE);
+    }
+
+    /**
+     * Creates heap node of one element, without children. Folders get their totals.
+     *
+     * @param id node id
+     * @return new node
+     */
+    public FileNode toFileNode(int id) {
+        FileNode node = new FileNode(new File(getPath(id)), isDirectory(id), getSize(id), getOwner(id),
+                getLastModified(id), getAllocatedSize(id), getLinkCount(id));
+        if (isDuplicateLink(id)) {
+            node.markDuplicateLink();
+        }
+        if (node.isDirectory()) {
+            node.setTotals(getTotalSize(id), getTotalAllocated(id), getUniqueSize(id));
+        }
+        return node;
+    }
+
+    /**
+     * Returns memory taken outside the heap.
+     *
+     * @return allocated buffer bytes
+     */
+    public long getOffHeapBytes() {
+        return records.capacity() + names.capacity() + children.capacity();
+    }
+
+    /**
+     * Releases the buffers and deletes scratch files. Direct memory is
+     * returned when the buffers are collected.
+     */
+    @Override
+    public void close() {
+        size = 0;
+        records.close();
+        names.close();
+        children.close();
+    }
+
+    private ByteBuffer record(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Node " + id + " of " + size);
+        }
+        return records.chunk(id >>> RECORD_SHIFT);
+    }
+
+    private static int offset(int id) {
+        return (id & (RECORDS_PER_CHUNK - 1)) * RECORD_SIZE;
+    }
+
+    private int flags(int id) {
+        return record(id).getInt(offset(id) + FLAGS);
+    }
+
+    private int add(FileNode node, int parent) throws IOException {
+        int id = size;
+        if (id == Integer.MAX_VALUE) {
+            throw new IOException("Too many nodes");
+        }
+        if ((id & (RECORDS_PER_CHUNK - 1)) == 0) {
+            records.allocate(RECORDS_PER_CHUNK * RECORD_SIZE);
+        }
+        size++;
+        ByteBuffer record = record(id);
+        int base = offset(id);
+
+        byte[] name = node.getName().getBytes(StandardCharsets.UTF_8);
+        long nameAddress = names.allocate(name.length);
+        ByteBuffer nameBuffer = names.buffer(nameAddress).duplicate();
+        nameBuffer.position(Arena.offset(nameAddress));
+        nameBuffer.put(name);
+
+        String owner = node.getOwner() != null ? node.getOwner() : "";
+        Integer ownerId = ownerIds.get(owner);
+        if (ownerId == null) {
+            ownerId = owners.size();
+            owners.add(owner);
+            ownerIds.put(owner, ownerId);
+        }
+
+        record.putInt(base + PARENT, parent);
+        record.putInt(base + CHILD_COUNT, 0);
+        record.putLong(base + NAME, nameAddress);
+        record.putInt(base + NAME_LENGTH, name.length);
+        record.putInt(base + FLAGS, (node.isDirectory() ? FLAG_DIRECTORY : 0)
+                | (node.isDuplicateLink() ? FLAG_DUPLICATE_LINK : 0));
+        record.putInt(base + OWNER, ownerId);
+        record.putInt(base + LINKS, node.getLinkCount());
+        record.putLong(base + SIZE, node.getSize());
+        record.putLong(base + ALLOCATED, node.getAllocatedSize());
+        record.putLong(base + MODIFIED, node.getLastModified());
+        // Files have their totals at once, folders get them when they are left
+        record.putLong(base + TOTAL_SIZE, node.isDirectory() ? 0 : node.getSize());
+        record.putLong(base + TOTAL_ALLOCATED, node.getAllocatedSize());
+        record.putLong(base + TOTAL_UNIQUE, node.isDuplicateLink() ? 0 : node.getAllocatedSize());
+        return id;
+    }
+
+    private void finish(int id, int[] childIds, int count) throws IOException {
+        ByteBuffer record = record(id);
+        int base = offset(id);
+        long apparent = 0;
+        long allocated = record.getLong(base + ALLOCATED);
+        long unique = allocated;
+        if (count > 0) {
+            long address = children.allocate(4 * count);
+            ByteBuffer buffer = children.buffer(address);
+            int start = Arena.offset(address);
+            for (int i = 0; i < count; i++) {
+                int child = childIds[i];
+                buffer.putInt(start + 4 * i, child);
+                apparent += getTotalSize(child);
+                allocated += getTotalAllocated(child);
+                unique += getUniqueSize(child);
+            }
+            record.putLong(base + CHILDREN, address);
+        }
+        record.putInt(base + CHILD_COUNT, count);
+        record.putLong(base + TOTAL_SIZE, apparent);
+        record.putLong(base + TOTAL_ALLOCATED, allocated);
+        record.putLong(base + TOTAL_UNIQUE, unique);
+    }
+
+    /**
+     * Fills the tree from a streaming scan. Only ids of the children
+     * of the open folders are kept on the heap.
+     */
+    private class Builder implements TreeVisitor {
+        private final Deque<Frame> frames = new ArrayDeque<>();
+
+        @Override
+        public void enterDirectory(FileNode dir, int depth) throws IOException {
+            Frame parent = frames.peek();
+            int id = add(dir, parent != null ? parent.id : -1);
+            if (parent != null) {
+                parent.add(id);
+            }
+            frames.push(new Frame(id));
+        }
+
+        @Override
+        public void visitFile(FileNode file, int depth) throws IOException {
+            Frame parent = frames.peek();
+            parent.add(add(file, parent.id));
+        }
+
+        @Override
+        public void exitDirectory(FileNode dir, int depth) throws IOException {
+            Frame frame = frames.pop();
+            finish(frame.id, frame.children, frame.count);
+        }
+    }
+
+    /**
+     * Open folder with the ids of its children.
+     */
+    private static class Frame {
+        private final int id;
+        private int[] children = new int[16];
+        private int count;
+
+        Frame(int id) {
+            this.id = id;
+        }
+
+        void add(int child) {
+            if (count == children.length) {
+                children = Arrays.copyOf(children, count * 2);
+            }
+            children[count++] = child;
+        }
+    }
+
+    /**
+     * Growing list of buffers. An address holds the chunk number in the high
+     * and the offset in the low 32 bits; allocations never span two chunks.
+     */
+    private static class Arena {
+        private final int chunkSize;
+        private final Path scratchDir;
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private FileChannel channel;
+        private long mapped;
+        private int used;
+
+        Arena(int chunkSize, Path scratchDir) {
+            this.chunkSize = chunkSize;
+            this.scratchDir = scratchDir;
+        }
+
+        static int offset(long address) {
+            return (int) address;
+        }
+
+        ByteBuffer chunk(int index) {
+            return chunks.get(index);
+        }
+
+        ByteBuffer buffer(long address) {
+            return chunks.get((int) (address >>> 32));
+        }
+
+        long allocate(int length) throws IOException {
+            if (chunks.isEmpty() || used + length > chunks.get(chunks.size() - 1).capacity()) {
+                chunks.add(newChunk(Math.max(chunkSize, length)));
+                used = 0;
+            }
+            long address = ((long) (chunks.size() - 1) << 32) | used;
+            used += length;
+            return address;
+        }
+
+        private ByteBuffer newChunk(int capacity) throws IOException {
+            if (scratchDir == null) {
+                return ByteBuffer.allocateDirect(capacity);
+            }
+            if (channel == null) {
+                Path file = Files.createTempFile(scratchDir, "fsapp-", ".tree");
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE, mapped, capacity);
+            mapped += capacity;
+            return chunk;
+        }
+
+        long capacity() {
+            long capacity = 0;
+            for (ByteBuffer chunk : chunks) {
+                capacity += chunk.capacity();
+            }
+            return capacity;
+        }
+
+        void close() {
+            chunks.clear();
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.warn("Cannot close scratch file: " + e.getMessage());
+                }
+                channel = null;
+            }
+        }
+    }
+}
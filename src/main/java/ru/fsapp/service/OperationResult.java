@@ -0,0 +1,136 @@
+package ru.fsapp.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Result of a file operation (delete, copy, move).
+ * Collects number of processed elements, transferred bytes
+ * and failures per path. Safe to update from several threads.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class OperationResult {
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Map<Path, IOException> failures = new ConcurrentHashMap<>();
+    private volatile long total;
+    private volatile boolean cancelled;
+
+    /**
+     * Marks one element as processed.
+     *
+     * @return number of processed elements
+     */
+    long markCompleted() {
+        return completed.incrementAndGet();
+    }
+
+    /**
+     * Marks several elements as processed.
+     *
+     * @param count number of elements
+     */
+    void addCompleted(long count) {
+        completed.addAndGet(count);
+    }
+
+    /**
+     * Adds transferred bytes.
+     *
+     * @param count number of bytes
+     */
+    void addBytes(long count) {
+        bytes.addAndGet(count);
+    }
+
+    /**
+     * Records failure for path.
+     *
+     * @param path failed path
+     * @param error cause of the failure
+     */
+    void addFailure(Path path, IOException error) {
+        failures.put(path, error);
+    }
+
+    void addTotal(long count) {
+        total += count;
+    }
+
+    void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Returns number of processed elements.
+     *
+     * @return processed elements
+     */
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    /**
+     * Returns number of elements planned for the operation.
+     *
+     * @return total elements
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns number of transferred bytes.
+     *
+     * @return bytes
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Returns failures by path.
+     *
+     * @return unmodifiable map of failed paths
+     */
+    public Map<Path, IOException> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Checks if the operation was cancelled before completion.
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks if every element was processed without errors.
+     *
+     * @return true if successful
+     */
+    public boolean isSuccessful() {
+        return !cancelled && failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "OperationResult{" +
+                "completed=" + completed +
+                ", total=" + total +
+                ", bytes=" + bytes +
+                ", failures=" + failures.size() +
+                ", cancelled=" + cancelled +
+                '}';
+    }
+}
@@ -0,0 +1,30 @@
+package ru.fsapp.service;
+
+import java.nio.file.Path;
+
+/**
+ * Receives progress of long running file operations.
+ * Implementations may be called from several worker threads at once
+ * and must be thread-safe.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * Listener that ignores all progress events.
+     */
+    ProgressListener NONE = (completed, total, current) -> { };
+
+    /**
+     * Called after an element has been processed.
+     *
+     * @param completed number of processed elements
+     * @param total total number of elements in the operation
+     * @param current last processed path
+     */
+    void onProgress(long completed, long total, Path current);
+}
@@ -0,0 +1,28 @@
+package ru.fsapp.service;
+
+/**
+ * Aggregator that keeps the merged state of its last scan as the result.
+ *
+ * @param <S> type of the state and result
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public abstract class ResultAggregator<S> implements ScanAggregator<S> {
+
+    private volatile S result;
+
+    @Override
+    public void finish(S result) {
+        this.result = result;
+    }
+
+    /**
+     * Returns result of the last finished scan.
+     *
+     * @return merged state, or null if no scan has finished
+     */
+    public S getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.fsapp.service;
+
+import ru.fsapp.model.FileNode;
+
+/**
+ * Statistic computed during a scan, without another pass over the disk.
+ *
+ * Every scan thread has its own partial state, so {@link #accept} needs no
+ * locking. A folder is always listed by one thread, so its elements go into
+ * one state; when the scan ends the partial states are merged and passed
+ * to {@link #finish}. Any number of aggregators can run in one scan,
+ * see {@link ScanOptions#addAggregator}.
+ *
+ * @param <S> type of the partial state
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ * @see Aggregators
+ */
+public interface ScanAggregator<S> {
+
+    /**
+     * Creates empty partial state.
+     *
+     * @return new state
+     */
+    S createState();
+
+    /**
+     * Adds element found by the scan. Called for every file and folder
+     * below the root that is not excluded.
+     *
+     * @param state partial state of the calling thread
+     * @param node element with its attributes, children may not be known yet
+     */
+    void accept(S state, FileNode node);
+
+    /**
+     * Adds one partial state to another.
+     *
+     * @param target state receiving the values
+     * @param source state to add, not used afterwards
+     */
+    void merge(S target, S source);
+
+    /**
+     * Receives the merged state when the scan is complete.
+     *
+     * @param result merged state
+     */
+    void finish(S result);
+}
@@ -0,0 +1,263 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Process-wide cache of scanned trees.
+ *
+ * A finished scan puts its tree here. A later scan of the same root,
+ * of a parent or of a subfolder finds the cached counterpart of each folder
+ * and, if the modification time of the folder is unchanged, copies its
+ * files from the cache instead of listing the folder and reading every
+ * file; only subfolders are read again to check their own time.
+ * A folder time changes when elements are added, removed or renamed in it,
+ * not when a file is rewritten in place, so sizes of such files can be stale.
+ *
+ * The cache keeps the least recently used trees within a limit of nodes,
+ * by default {@code fsapp.cache.entries} (2 000 000) or a quarter of the heap.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class ScanCache {
+
+    private static final Logger logger = Logger.getLogger(ScanCache.class);
+
+    /** Approximate heap taken by one cached node. */
+    private static final long BYTES_PER_ENTRY = 512;
+
+    /**
+     * Default limit of cached nodes.
+     */
+    public static final long DEFAULT_MAX_ENTRIES = Math.min(Long.getLong("fsapp.cache.entries", 2_000_000),
+            Runtime.getRuntime().maxMemory() / 4 / BYTES_PER_ENTRY);
+
+    private static final ScanCache SHARED = new ScanCache(DEFAULT_MAX_ENTRIES);
+
+    private final long maxEntries;
+    private final LinkedHashMap<Path, Entry> trees = new LinkedHashMap<>(16, 0.75f, true);
+    private long entries;
+
+    /**
+     * Creates cache.
+     *
+     * @param maxEntries maximum number of cached nodes
+     */
+    public ScanCache(long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns cache shared by the application.
+     *
+     * @return shared cache
+     */
+    public static ScanCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Puts tree of a finished scan into the cache. Trees of subfolders are replaced by it.
+     *
+     * @param root root node of the scan
+     * @param context state of the scan
+     */
+    synchronized void put(FileNode root, ScanContext context) {
+        Path key = key(root.getPath());
+        long count = count(root);
+        if (count > maxEntries) {
+            logger.debug("Tree too large for cache: " + key + " (" + count + " nodes)");
+            return;
+        }
+        remove(key);
+        trees.put(key, new Entry(root, context.getOptions().cacheSignature(), count, context.getListedFolders()));
+        entries += count;
+
+        Iterator<Entry> eldest = trees.values().iterator();
+        while (entries > maxEntries && eldest.hasNext()) {
+            entries -= eldest.next().count;
+            eldest.remove();
+        }
+        logger.debug("Cached " + key + ": " + count + " nodes, " + trees.size() + " trees, " + entries + " nodes total");
+    }
+
+    /**
+     * Finds cached node of a folder, in its own tree or in the tree of a parent folder.
+     * A parent tree is not used if its rules could differ from a scan of the folder:
+     * with path patterns, which are relative to the root, or with an ignore file
+     * above the folder.
+     *
+     * @param dir folder
+     * @param options options of the new scan, cached trees of other options are not used
+     * @return cached node and the folders listed in its tree, or null
+     */
+    synchronized Match lookup(Path dir, ScanOptions options) {
+        Path key = key(dir);
+        String signature = options.cacheSignature();
+        for (Path base = key; base != null; base = base.getParent()) {
+            Entry entry = trees.get(base);
+            if (entry == null || !entry.signature.equals(signature)) {
+                continue;
+            }
+            if (!base.equals(key) && options.hasPathRules()) {
+                return null;
+            }
+            FileNode node = entry.root;
+            for (Path name : base.relativize(key)) {
+                if (name.toString().isEmpty()) {
+                    continue;
+                }
+                if (options.getIgnoreFileName() != null && child(node, options.getIgnoreFileName()) != null) {
+                    return null;
+                }
+                node = child(node, name.toString());
+                if (node == null) {
+                    return null;
+                }
+            }
+            return node.isDirectory() ? new Match(node, entry.listed) : null;
+        }
+        return null;
+    }
+
+    /**
+     * Returns cached trees of subfolders of a folder, for a scan of the folder.
+     *
+     * @param dir folder
+     * @param options options of the new scan
+     * @return matches by absolute path, empty if none can be used
+     */
+    synchronized Map<Path, Match> below(Path dir, ScanOptions options) {
+        if (trees.isEmpty() || options.hasPathRules()) {
+            return Collections.emptyMap();
+        }
+        Path key = key(dir);
+        String signature = options.cacheSignature();
+        Map<Path, Match> matches = new HashMap<>();
+        for (Map.Entry<Path, Entry> entry : trees.entrySet()) {
+            if (!entry.getKey().equals(key) && entry.getKey().startsWith(key)
+                    && entry.getValue().signature.equals(signature)) {
+                matches.put(entry.getKey(), new Match(entry.getValue().root, entry.getValue().listed));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns key of a path in the cache.
+     */
+    static Path key(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Removes cached trees of a folder and of its subfolders.
+     *
+     * @param path folder
+     */
+    public synchronized void invalidate(Path path) {
+        remove(key(path));
+    }
+
+    /**
+     * Removes all cached trees.
+     */
+    public synchronized void clear() {
+        trees.clear();
+        entries = 0;
+    }
+
+    /**
+     * Returns number of cached nodes.
+     *
+     * @return number of nodes
+     */
+    public synchronized long getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns number of cached trees.
+     *
+     * @return number of trees
+     */
+    public synchronized int getTrees() {
+        return trees.size();
+    }
+
+    private void remove(Path key) {
+        for (Iterator<Map.Entry<Path, Entry>> it = trees.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Entry> entry = it.next();
+            if (entry.getKey().startsWith(key)) {
+                entries -= entry.getValue().count;
+                it.remove();
+            }
+        }
+    }
+
+    private static FileNode child(FileNode node, String name) {
+        for (FileNode child : node.getChildren()) {
+            if (child.getName().equals(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static long count(FileNode root) {
+        long count = 0;
+        Deque<FileNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            FileNode node = stack.pop();
+            count++;
+            for (FileNode child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Cached tree.
+     */
+    private static class Entry {
+        private final FileNode root;
+        private final String signature;
+        private final long count;
+        private final Set<FileNode> listed;
+
+        Entry(FileNode root, String signature, long count, Set<FileNode> listed) {
+            this.root = root;
+            this.signature = signature;
+            this.count = count;
+            this.listed = listed;
+        }
+    }
+
+    /**
+     * Cached node of a folder with the folders that were listed in its tree.
+     * Folders below the depth limit or without access are in the tree, but not listed.
+     */
+    static class Match {
+        final FileNode node;
+        final Set<FileNode> listed;
+
+        Match(FileNode node, Set<FileNode> listed) {
+            this.node = node;
+            this.listed = listed;
+        }
+    }
+}
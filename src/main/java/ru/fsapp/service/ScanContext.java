@@ -0,0 +1,310 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * State shared by all folders of one scan.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+class ScanContext {
+
+    private static final Logger logger = Logger.getLogger(ScanContext.class);
+
+    /** File store types that hold no user data. */
+    private static final Set<String> VIRTUAL_TYPES = new HashSet<>(Arrays.asList(
+            "proc", "sysfs", "devtmpfs", "devpts", "cgroup", "cgroup2", "debugfs", "tracefs",
+            "securityfs", "pstore", "bpf", "mqueue", "hugetlbfs", "fusectl", "configfs",
+            "binfmt_misc", "autofs", "rpc_pipefs", "nsfs", "efivarfs"));
+
+    private final ScanOptions options;
+    private final ScanMetrics metrics;
+    private final IoThrottle throttle;
+    private final InodeSet hardLinks = new InodeSet();
+    private final ExclusionRules rules;
+    private final FileNode root;
+    private final FileStore rootStore;
+    private final Map<FileNode, ExclusionRules> folderRules = new ConcurrentHashMap<>();
+    private final Map<Long, Boolean> virtualDevices = new ConcurrentHashMap<>();
+
+    // Scan cache: cached counterparts of folders still to scan and the listed folders
+    private final Map<FileNode, FileNode> counterparts = new ConcurrentHashMap<>();
+    private final Map<Path, ScanCache.Match> nested;
+    private final List<Set<FileNode>> cachedListed = new CopyOnWriteArrayList<>();
+    private final Set<FileNode> listedFolders;
+
+    // Aggregators: one array of partial states per thread, merged when the scan is complete
+    private final List<ScanAggregator<Object>> aggregators;
+    private final ThreadLocal<Object[]> partialStates;
+    private final Queue<Object[]> allStates = new ConcurrentLinkedQueue<>();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ScanContext(ScanOptions options, FileNode root) {
+        this.options = options;
+        this.aggregators = (List) options.getAggregators();
+        this.partialStates = ThreadLocal.withInitial(() -> {
+            Object[] states = createStates();
+            allStates.add(states);
+            return states;
+        });
+        this.metrics = options.getMetrics() != null ? options.getMetrics() : new ScanMetrics();
+        this.throttle = options.getThrottle() != null ? options.getThrottle() : IoThrottle.getShared();
+        this.root = root;
+        this.rules = ExclusionRules.compile(root.getPath(), options.getExcludes(), options.getExcludeRegexes());
+        this.rootStore = options.isOneFileSystem() && root.getDevice() == 0 ? fileStore(root.getPath()) : null;
+
+        ScanCache cache = options.getCache();
+        this.listedFolders = cache != null ? ConcurrentHashMap.newKeySet() : null;
+        this.nested = cache != null ? cache.below(root.getPath(), options) : Collections.emptyMap();
+        ScanCache.Match match = cache != null ? cache.lookup(root.getPath(), options) : null;
+        if (match != null) {
+            cachedListed.add(match.listed);
+            counterparts.put(root, match.node);
+        }
+    }
+
+    ScanOptions getOptions() {
+        return options;
+    }
+
+    ScanMetrics getMetrics() {
+        return metrics;
+    }
+
+    IoThrottle getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * Returns cached node of a folder, from the tree of the root or of a parent,
+     * or from a cached tree of the folder itself when a parent is scanned.
+     * Cached trees of subfolders are only used where no ignore file applies
+     * that the scan of the subfolder did not see.
+     */
+    FileNode takeCached(FileNode dir) {
+        FileNode cached = counterparts.isEmpty() ? null : counterparts.remove(dir);
+        if (cached == null && !nested.isEmpty() && dir != root
+                && rulesFor(dir.getParent(), new File[0]) == rules) {
+            ScanCache.Match match = nested.get(ScanCache.key(dir.getPath()));
+            if (match != null) {
+                cachedListed.add(match.listed);
+                cached = match.node;
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Checks if a cached node can replace listing a folder:
+     * it was listed and the folder was not modified since.
+     */
+    boolean isReusable(FileNode dir, FileNode cached) {
+        if (!cached.isDirectory() || dir.getLastModified() == 0
+                || cached.getLastModified() != dir.getLastModified()) {
+            return false;
+        }
+        for (Set<FileNode> listed : cachedListed) {
+            if (listed.contains(cached)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remembers cached node of a folder, so its subfolders can be matched
+     * even if the folder itself changed.
+     */
+    void putCached(FileNode dir, FileNode cached) {
+        if (cached != null) {
+            counterparts.put(dir, cached);
+        }
+    }
+
+    /**
+     * Records that children of a folder were read completely.
+     */
+    void markListed(FileNode dir) {
+        if (listedFolders != null) {
+            listedFolders.add(dir);
+        }
+    }
+
+    Set<FileNode> getListedFolders() {
+        return listedFolders != null ? listedFolders : Collections.emptySet();
+    }
+
+    /**
+     * Passes an element to the aggregators, into the partial states of the calling thread.
+     */
+    void aggregate(FileNode node) {
+        if (aggregators.isEmpty()) {
+            return;
+        }
+        Object[] states = partialStates.get();
+        for (int i = 0; i < states.length; i++) {
+            aggregators.get(i).accept(states[i], node);
+        }
+    }
+
+    /**
+     * Merges the partial states of all threads and hands the results to the aggregators.
+     * Called once when the scan is complete.
+     */
+    void finishAggregators() {
+        if (aggregators.isEmpty()) {
+            return;
+        }
+        Object[] merged = createStates();
+        for (Object[] states : allStates) {
+            for (int i = 0; i < merged.length; i++) {
+                aggregators.get(i).merge(merged[i], states[i]);
+            }
+        }
+        allStates.clear();
+        for (int i = 0; i < merged.length; i++) {
+            aggregators.get(i).finish(merged[i]);
+        }
+    }
+
+    private Object[] createStates() {
+        Object[] states = new Object[aggregators.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = aggregators.get(i).createState();
+        }
+        return states;
+    }
+
+    /**
+     * Checks if the node is a hard link to a file already seen in this scan
+     * and marks it, so its data is counted once in the unique size.
+     */
+    void checkHardLink(FileNode node) {
+        if (!node.isDirectory() && node.getLinkCount() > 1
+                && !hardLinks.add(node.getDevice(), node.getInode())) {
+            node.markDuplicateLink();
+        }
+    }
+
+    /**
+     * Returns exclusion rules of a folder: the rules of the scan plus
+     * the ignore files of the folder and its parents.
+     * Reads the ignore file of the folder if it is among the listed files.
+     */
+    ExclusionRules rulesFor(FileNode dir, File[] files) {
+        ExclusionRules inherited = rules;
+        if (!folderRules.isEmpty()) {
+            for (FileNode node = dir; node != null; node = node.getParent()) {
+                ExclusionRules own = folderRules.get(node);
+                if (own != null) {
+                    inherited = own;
+                    break;
+                }
+                if (node == root) {
+                    break;
+                }
+            }
+        }
+
+        String ignoreFileName = options.getIgnoreFileName();
+        if (ignoreFileName == null) {
+            return inherited;
+        }
+        for (File file : files) {
+            if (ignoreFileName.equals(file.getName())) {
+                try {
+                    ExclusionRules own = inherited.withIgnoreFile(dir.getPath(), file.toPath());
+                    folderRules.put(dir, own);
+                    return own;
+                } catch (IOException | RuntimeException e) {
+                    metrics.recordError("IgnoreFile");
+                    logger.warn("Cannot read ignore file " + file + ": " + e.getMessage());
+                }
+                break;
+            }
+        }
+        return inherited;
+    }
+
+    /**
+     * Forgets ignore rules of a folder after its subtree was scanned.
+     */
+    void leaveFolder(FileNode dir) {
+        if (!folderRules.isEmpty()) {
+            folderRules.remove(dir);
+        }
+    }
+
+    /**
+     * Hands a folder whose subtree is complete to the spill store, if any.
+     * A folder that cannot be written stays in memory.
+     */
+    void folderDone(FileNode dir) {
+        SpillStore spill = options.getSpillStore();
+        if (spill == null) {
+            return;
+        }
+        try {
+            spill.folderDone(dir, root);
+        } catch (IOException e) {
+            metrics.recordError("Spill");
+            logger.warn("Cannot spill " + dir.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks if the scan must descend into a folder: it must be on the file system
+     * of its parent (or of the root with the one file system option), and not on
+     * a pseudo file system. Device ids from the scan are compared first,
+     * file stores are only looked up when a folder is on another device.
+     */
+    boolean isDescendable(FileNode parent, FileNode dir) {
+        long device = dir.getDevice();
+        if (device == 0) {
+            // No device ids on this platform
+            return rootStore == null || rootStore.equals(fileStore(dir.getPath()));
+        }
+        if (device == parent.getDevice()) {
+            return true;
+        }
+        if (options.isOneFileSystem() && device != root.getDevice()) {
+            return false;
+        }
+        if (options.isSkipVirtualFileSystems()) {
+            return !virtualDevices.computeIfAbsent(device, key -> isVirtual(dir.getPath()));
+        }
+        return true;
+    }
+
+    private static boolean isVirtual(Path path) {
+        FileStore store = fileStore(path);
+        return store != null && VIRTUAL_TYPES.contains(store.type());
+    }
+
+    private static FileStore fileStore(Path path) {
+        try {
+            return Files.getFileStore(path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package ru.fsapp.service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of file tree scans.
+ *
+ * Every scan records into its own instance, which forwards to the
+ * process-wide instance of {@link ScanTelemetry}. All recording methods
+ * are lock-free except for the rare slow listing that enters the
+ * bounded list of slowest folders.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class ScanMetrics implements ScanMetricsMXBean {
+
+    private static final int SLOW_SAMPLES = 16;
+
+    private final ScanMetrics parent;
+    private final LongAdder files = new LongAdder();
+    private final LongAdder directories = new LongAdder();
+    private final LongAdder listings = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder excluded = new LongAdder();
+    private final LongAdder mountsSkipped = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder throttledNanos = new LongAdder();
+    private final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+    private final LatencyHistogram listLatency = new LatencyHistogram();
+    private final LatencyHistogram statLatency = new LatencyHistogram();
+    private final PriorityQueue<SlowListing> slowest = new PriorityQueue<>();
+    private volatile long slowThresholdNanos;
+
+    /**
+     * Creates metrics forwarding to the process-wide metrics.
+     */
+    public ScanMetrics() {
+        this(ScanTelemetry.getTotal());
+    }
+
+    /**
+     * Creates metrics.
+     *
+     * @param parent metrics receiving the same records, or null
+     */
+    ScanMetrics(ScanMetrics parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Records listing of a folder.
+     *
+     * @param dir listed folder
+     * @param entries number of entries in the folder
+     * @param nanos listing time
+     */
+    public void recordListing(Path dir, int entries, long nanos) {
+        listings.increment();
+        listLatency.record(nanos);
+        if (nanos > slowThresholdNanos) {
+            recordSlow(dir, entries, nanos);
+        }
+        if (parent != null) {
+            parent.recordListing(dir, entries, nanos);
+        }
+    }
+
+    /**
+     * Records reading of attributes of one element.
+     *
+     * @param directory true if the element is a folder
+     * @param nanos time to read the attributes
+     */
+    public void recordEntry(boolean directory, long nanos) {
+        if (directory) {
+            directories.increment();
+        } else {
+            files.increment();
+        }
+        statLatency.record(nanos);
+        if (parent != null) {
+            parent.recordEntry(directory, nanos);
+        }
+    }
+
+    /**
+     * Records error by its type.
+     *
+     * @param type error type, for example exception class name
+     */
+    public void recordError(String type) {
+        errors.increment();
+        errorsByType.computeIfAbsent(type, key -> new LongAdder()).increment();
+        if (parent != null) {
+            parent.recordError(type);
+        }
+    }
+
+    /**
+     * Records element skipped by the exclusion rules.
+     */
+    public void recordExcluded() {
+        excluded.increment();
+        if (parent != null) {
+            parent.recordExcluded();
+        }
+    }
+
+    /**
+     * Records folder not descended into because it is on another file system.
+     */
+    public void recordMountSkipped() {
+        mountsSkipped.increment();
+        if (parent != null) {
+            parent.recordMountSkipped();
+        }
+    }
+
+    /**
+     * Records files copied from the scan cache instead of being read.
+     * They are counted as files too, without latency samples.
+     *
+     * @param count number of files
+     */
+    public void recordReused(long count) {
+        files.add(count);
+        reused.add(count);
+        if (parent != null) {
+            parent.recordReused(count);
+        }
+    }
+
+    /**
+     * Records time spent waiting for the I/O throttle.
+     *
+     * @param nanos waiting time
+     */
+    public void recordThrottled(long nanos) {
+        throttledNanos.add(nanos);
+        if (parent != null) {
+            parent.recordThrottled(nanos);
+        }
+    }
+
+    private synchronized void recordSlow(Path dir, int entries, long nanos) {
+        slowest.add(new SlowListing(dir.toString(), entries, nanos));
+        if (slowest.size() > SLOW_SAMPLES) {
+            slowest.poll();
+        }
+        if (slowest.size() == SLOW_SAMPLES) {
+            slowThresholdNanos = slowest.peek().nanos;
+        }
+    }
+
+    @Override
+    public long getEntries() {
+        return files.sum() + directories.sum();
+    }
+
+    @Override
+    public long getFiles() {
+        return files.sum();
+    }
+
+    @Override
+    public long getDirectories() {
+        return directories.sum();
+    }
+
+    @Override
+    public long getListings() {
+        return listings.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getExcluded() {
+        return excluded.sum();
+    }
+
+    @Override
+    public long getMountsSkipped() {
+        return mountsSkipped.sum();
+    }
+
+    @Override
+    public long getReused() {
+        return reused.sum();
+    }
+
+    @Override
+    public long getThrottledMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(throttledNanos.sum());
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByType() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : errorsByType.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return result;
+    }
+
+    @Override
+    public long getListLatencyP50Micros() {
+        return micros(listLatency.getPercentileNanos(50));
+    }
+
+    @Override
+    public long getListLatencyP99Micros() {
+        return micros(listLatency.getPercentileNanos(99));
+    }
+
+    @Override
+    public long getListLatencyMaxMicros() {
+        return micros(listLatency.getMaxNanos());
+    }
+
+    @Override
+    public long getStatLatencyP50Micros() {
+        return micros(statLatency.getPercentileNanos(50));
+    }
+
+    @Override
+    public long getStatLatencyP99Micros() {
+        return micros(statLatency.getPercentileNanos(99));
+    }
+
+    @Override
+    public long getStatLatencyMaxMicros() {
+        return micros(statLatency.getMaxNanos());
+    }
+
+    /**
+     * Returns histogram of folder listing times.
+     *
+     * @return listing latency histogram
+     */
+    public LatencyHistogram getListLatency() {
+        return listLatency;
+    }
+
+    /**
+     * Returns histogram of attribute reading times.
+     *
+     * @return stat latency histogram
+     */
+    public LatencyHistogram getStatLatency() {
+        return statLatency;
+    }
+
+    @Override
+    public synchronized List<String> getSlowestListings() {
+        List<SlowListing> samples = new ArrayList<>(slowest);
+        Collections.sort(samples, Collections.reverseOrder());
+        List<String> result = new ArrayList<>(samples.size());
+        for (SlowListing sample : samples) {
+            result.add(sample.toString());
+        }
+        return result;
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getEntries()).append(" entries (")
+                .append(getFiles()).append(" files, ")
+                .append(getDirectories()).append(" folders), ")
+                .append(getListings()).append(" listings, list p50/p99/max=")
+                .append(getListLatencyP50Micros()).append('/')
+                .append(getListLatencyP99Micros()).append('/')
+                .append(getListLatencyMaxMicros()).append(" us, stat p50/p99/max=")
+                .append(getStatLatencyP50Micros()).append('/')
+                .append(getStatLatencyP99Micros()).append('/')
+                .append(getStatLatencyMaxMicros()).append(" us, errors=")
+                .append(getErrors());
+        if (getErrors() > 0) {
+            sb.append(' ').append(getErrorsByType());
+        }
+        if (getExcluded() > 0 || getMountsSkipped() > 0) {
+            sb.append(", excluded=").append(getExcluded())
+                    .append(", mounts skipped=").append(getMountsSkipped());
+        }
+        if (getReused() > 0) {
+            sb.append(", reused=").append(getReused());
+        }
+        if (throttledNanos.sum() > 0) {
+            sb.append(", throttled=").append(getThrottledMillis()).append(" ms");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public synchronized void reset() {
+        files.reset();
+        directories.reset();
+        listings.reset();
+        errors.reset();
+        excluded.reset();
+        mountsSkipped.reset();
+        reused.reset();
+        throttledNanos.reset();
+        errorsByType.clear();
+        listLatency.reset();
+        statLatency.reset();
+        slowest.clear();
+        slowThresholdNanos = 0;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * Sample of a slow folder listing.
+     */
+    private static class SlowListing implements Comparable<SlowListing> {
+        private final String path;
+        private final int entries;
+        private final long nanos;
+
+        SlowListing(String path, int entries, long nanos) {
+            this.path = path;
+            this.entries = entries;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public int compareTo(SlowListing other) {
+            return Long.compare(nanos, other.nanos);
+        }
+
+        @Override
+        public String toString() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos) + " ms, " + entries + " entries: " + path;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.fsapp.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of scan telemetry, registered as {@code ru.fsapp:type=ScanMetrics}.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public interface ScanMetricsMXBean {
+
+    long getEntries();
+
+    long getFiles();
+
+    long getDirectories();
+
+    long getListings();
+
+    long getErrors();
+
+    long getExcluded();
+
+    long getMountsSkipped();
+
+    long getReused();
+
+    long getThrottledMillis();
+
+    Map<String, Long> getErrorsByType();
+
+    long getListLatencyP50Micros();
+
+    long getListLatencyP99Micros();
+
+    long getListLatencyMaxMicros();
+
+    long getStatLatencyP50Micros();
+
+    long getStatLatencyP99Micros();
+
+    long getStatLatencyMaxMicros();
+
+    List<String> getSlowestListings();
+
+    String getSummary();
+
+    void reset();
+}
@@ -0,0 +1,302 @@
+package ru.fsapp.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Options of a file tree scan.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class ScanOptions {
+
+    /**
+     * Default maximum depth of the scan.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 100;
+
+    /**
+     * Conventional name of ignore files.
+     */
+    public static final String DEFAULT_IGNORE_FILE = ".fsignore";
+
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int parallelism = 1;
+    private final List<String> excludes = new ArrayList<>();
+    private final List<String> excludeRegexes = new ArrayList<>();
+    private String ignoreFileName;
+    private boolean oneFileSystem;
+    private boolean skipVirtualFileSystems = true;
+    private ScanMetrics metrics;
+    private IoThrottle throttle;
+    private ScanCache cache;
+    private SpillStore spillStore;
+    private final List<ScanAggregator<?>> aggregators = new ArrayList<>();
+
+    /**
+     * Returns maximum depth. Folders deeper than this value are not listed,
+     * the root folder has depth 0.
+     *
+     * @return maximum depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Sets maximum depth.
+     *
+     * @param maxDepth maximum depth, not negative
+     * @throws IllegalArgumentException if depth is negative
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Returns number of threads listing folders.
+     *
+     * @return parallelism, 1 for sequential scan
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets number of threads listing folders.
+     *
+     * @param parallelism parallelism, 1 for sequential scan
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns metrics receiving records of the scan.
+     *
+     * @return metrics, or null if the scan creates its own
+     */
+    public ScanMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets metrics receiving records of the scan, for example to show
+     * progress of a running scan.
+     *
+     * @param metrics metrics, or null to create new ones per scan
+     */
+    public void setMetrics(ScanMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns throttle of metadata calls of the scan.
+     *
+     * @return throttle, or null to use {@link IoThrottle#getShared()}
+     */
+    public IoThrottle getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * Sets throttle of metadata calls of the scan.
+     *
+     * @param throttle throttle, or null to use the shared one
+     */
+    public void setThrottle(IoThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    /**
+     * Returns cache the scan reuses unchanged folders from and puts its result into.
+     *
+     * @return cache, or null if the scan does not use one
+     */
+    public ScanCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets cache of scan results, usually {@link ScanCache#getShared()}.
+     * Only complete trees are put into it; streaming and lazy scans only read from it.
+     *
+     * @param cache cache, or null to always read the whole tree
+     */
+    public void setCache(ScanCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns store that finished subtrees are written to when the tree
+     * grows over its memory budget.
+     *
+     * @return store, or null to keep the whole tree in memory
+     */
+    public SpillStore getSpillStore() {
+        return spillStore;
+    }
+
+    /**
+     * Sets store for subtrees of a tree larger than the memory budget.
+     * Only {@link FileSystemService#buildTree(String, ScanOptions)} writes to
+     * it; a tree with written subtrees is not put into the scan cache.
+     *
+     * @param spillStore store, or null to keep the whole tree in memory
+     */
+    public void setSpillStore(SpillStore spillStore) {
+        this.spillStore = spillStore;
+    }
+
+    /**
+     * Adds statistic computed during complete scans: {@code buildTree},
+     * {@code streamTree} and the scan scheduler.
+     *
+     * @param aggregator aggregator
+     */
+    public void addAggregator(ScanAggregator<?> aggregator) {
+        aggregators.add(aggregator);
+    }
+
+    /**
+     * Returns aggregators of the scan.
+     *
+     * @return unmodifiable list of aggregators
+     */
+    public List<ScanAggregator<?>> getAggregators() {
+        return Collections.unmodifiableList(aggregators);
+    }
+
+    /**
+     * Adds glob pattern to skip. A pattern without a slash is matched against file names,
+     * for example {@code node_modules} or {@code *.tmp}; a pattern with a slash is matched
+     * against the path relative to the scan root, for example {@code .git/objects}.
+     *
+     * @param glob glob pattern
+     */
+    public void addExclude(String glob) {
+        excludes.add(glob);
+    }
+
+    /**
+     * Returns exclude patterns.
+     *
+     * @return unmodifiable list of glob patterns
+     */
+    public List<String> getExcludes() {
+        return Collections.unmodifiableList(excludes);
+    }
+
+    /**
+     * Adds regular expression matched against the path relative to the scan root,
+     * with {@code /} as separator.
+     *
+     * @param regex regular expression
+     * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+     */
+    public void addExcludeRegex(String regex) {
+        Pattern.compile(regex);
+        excludeRegexes.add(regex);
+    }
+
+    /**
+     * Returns exclude regular expressions.
+     *
+     * @return unmodifiable list of regular expressions
+     */
+    public List<String> getExcludeRegexes() {
+        return Collections.unmodifiableList(excludeRegexes);
+    }
+
+    /**
+     * Returns name of ignore files.
+     *
+     * @return file name, or null if ignore files are not read
+     */
+    public String getIgnoreFileName() {
+        return ignoreFileName;
+    }
+
+    /**
+     * Sets name of ignore files, for example {@code .fsignore}. Patterns of such a file
+     * apply to the folder containing it and all its subfolders.
+     *
+     * @param ignoreFileName file name, or null to not read ignore files
+     */
+    public void setIgnoreFileName(String ignoreFileName) {
+        this.ignoreFileName = ignoreFileName;
+    }
+
+    /**
+     * Checks if the scan stays on the file system of the root folder.
+     *
+     * @return true if mount points are not descended into
+     */
+    public boolean isOneFileSystem() {
+        return oneFileSystem;
+    }
+
+    /**
+     * Sets if the scan stays on the file system of the root folder.
+     * Mount points are still listed, but not descended into.
+     *
+     * @param oneFileSystem true to stay on one file system
+     */
+    public void setOneFileSystem(boolean oneFileSystem) {
+        this.oneFileSystem = oneFileSystem;
+    }
+
+    /**
+     * Checks if pseudo file systems like {@code proc} and {@code sysfs} are skipped.
+     *
+     * @return true if they are skipped, the default
+     */
+    public boolean isSkipVirtualFileSystems() {
+        return skipVirtualFileSystems;
+    }
+
+    /**
+     * Sets if pseudo file systems like {@code proc} and {@code sysfs} are skipped.
+     *
+     * @param skipVirtualFileSystems true to skip them
+     */
+    public void setSkipVirtualFileSystems(boolean skipVirtualFileSystems) {
+        this.skipVirtualFileSystems = skipVirtualFileSystems;
+    }
+
+    /**
+     * Returns key of the options that change the content of a tree.
+     * Cached trees are only reused by scans with the same key.
+     */
+    String cacheSignature() {
+        return excludes + "|" + excludeRegexes + "|" + ignoreFileName + "|" + oneFileSystem
+                + "|" + skipVirtualFileSystems;
+    }
+
+    /**
+     * Checks if some rules match paths relative to the scan root,
+     * so the same folder can be scanned differently from another root.
+     */
+    boolean hasPathRules() {
+        if (!excludeRegexes.isEmpty()) {
+            return true;
+        }
+        for (String glob : excludes) {
+            if (glob.indexOf('/') >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
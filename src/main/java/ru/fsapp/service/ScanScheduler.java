@@ -0,0 +1,302 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Scheduler running several root scans on one shared pool.
+ *
+ * The unit of work is the listing of one folder. Pending folders are queued
+ * per scan, and free threads are given to the scans in round-robin order,
+ * so a scan with a huge tree or a slow mount cannot take all threads.
+ * Each scan has a limit of folders listed at the same time, and so has each
+ * device, so a hanging NFS mount blocks only its own share of threads.
+ * Folders are handed to the pool only when a thread is free, which keeps
+ * the order decided by the scheduler.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class ScanScheduler implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(ScanScheduler.class);
+
+    /**
+     * Default number of threads of the shared scheduler.
+     */
+    public static final int DEFAULT_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static ScanScheduler shared;
+
+    private final int threads;
+    private final int rootLimit;
+    private final int deviceLimit;
+    private final ExecutorService pool;
+    private final Deque<Job> jobs = new ArrayDeque<>();
+    private final Map<Long, Integer> runningByDevice = new HashMap<>();
+    private final Map<Long, Integer> deviceLimits = new HashMap<>();
+    private int running;
+    private boolean closed;
+
+    /**
+     * Creates scheduler.
+     *
+     * @param threads number of threads listing folders
+     * @param rootLimit maximum folders of one scan listed at the same time
+     * @param deviceLimit maximum folders of one device listed at the same time
+     * @throws IllegalArgumentException if a value is not positive
+     */
+    public ScanScheduler(int threads, int rootLimit, int deviceLimit) {
+        if (threads < 1 || rootLimit < 1 || deviceLimit < 1) {
+            throw new IllegalArgumentException("Limits must be positive: threads=" + threads
+                    + ", root=" + rootLimit + ", device=" + deviceLimit);
+        }
+        this.threads = threads;
+        this.rootLimit = rootLimit;
+        this.deviceLimit = deviceLimit;
+        this.pool = Executors.newFixedThreadPool(threads, new NamedThreadFactory("fsapp-scan"));
+    }
+
+    /**
+     * Returns scheduler shared by the application. Half of the threads
+     * can serve one scan or one device.
+     *
+     * @return shared scheduler
+     */
+    public static synchronized ScanScheduler getShared() {
+        if (shared == null) {
+            int half = Math.max(1, DEFAULT_THREADS / 2);
+            shared = new ScanScheduler(DEFAULT_THREADS, half, half);
+        }
+        return shared;
+    }
+
+    /**
+     * Sets limit for one device, for example a lower one for a network mount.
+     *
+     * @param device device id, see {@link FileNode#getDevice()}
+     * @param limit maximum folders listed at the same time
+     */
+    public synchronized void setDeviceLimit(long device, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        deviceLimits.put(device, limit);
+        dispatch();
+    }
+
+    /**
+     * Starts scan of a root. Parallelism of the options lowers the limit of
+     * this scan, maximum depth, exclusions and metrics are used as in
+     * {@link FileSystemService#buildTree(String, ScanOptions)}.
+     *
+     * @param rootPath path to root folder
+     * @param options scan options
+     * @return future of the root node; cancelling it stops the scan
+     * @throws IllegalArgumentException if path is not a folder
+     * @throws IllegalStateException if the scheduler is closed
+     */
+    public CompletableFuture<FileNode> submit(String rootPath, ScanOptions options) {
+        File rootFile = new File(rootPath);
+        if (!rootFile.isDirectory()) {
+            throw new IllegalArgumentException("Path is not a folder: " + rootPath);
+        }
+        FileNode root = new FileNode(rootFile);
+        int limit = options.getParallelism() > 1 ? Math.min(rootLimit, options.getParallelism()) : rootLimit;
+        Job job = new Job(rootPath, root, new ScanContext(options, root), limit);
+
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Scheduler is closed");
+            }
+            logger.info("Scheduled scan of " + rootPath + ", " + jobs.size() + " other scans running");
+            ScanTelemetry.scanStarted(job.context.getMetrics(), rootPath);
+            job.pending.add(new Unit(root, 0));
+            jobs.add(job);
+            dispatch();
+        }
+        return job.future;
+    }
+
+    /**
+     * Returns number of scans not finished yet.
+     *
+     * @return number of scans
+     */
+    public synchronized int getActiveScans() {
+        return jobs.size();
+    }
+
+    /**
+     * Hands pending folders to free threads, one folder per scan in turn.
+     * Must be called with the lock held.
+     */
+    private void dispatch() {
+        boolean progress = true;
+        while (running < threads && progress && !jobs.isEmpty()) {
+            progress = false;
+            int count = jobs.size();
+            for (int i = 0; i < count && running < threads; i++) {
+                Job job = jobs.poll();
+                if (job.future.isDone()) {
+                    finish(job);
+                    continue;
+                }
+                jobs.add(job);
+                Unit unit = nextUnit(job);
+                if (unit != null) {
+                    start(job, unit);
+                    progress = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the first pending folder of the scan whose device has a free slot.
+     */
+    private Unit nextUnit(Job job) {
+        if (job.running >= job.limit) {
+            return null;
+        }
+        for (Iterator<Unit> it = job.pending.iterator(); it.hasNext(); ) {
+            Unit unit = it.next();
+            long device = unit.dir.getDevice();
+            if (runningByDevice.getOrDefault(device, 0) < deviceLimits.getOrDefault(device, deviceLimit)) {
+                it.remove();
+                return unit;
+            }
+        }
+        return null;
+    }
+
+    private void start(Job job, Unit unit) {
+        long device = unit.dir.getDevice();
+        running++;
+        job.running++;
+        runningByDevice.merge(device, 1, Integer::sum);
+        pool.execute(() -> run(job, unit, device));
+    }
+
+    private void run(Job job, Unit unit, long device) {
+        List<FileNode> folders = null;
+        Throwable failure = null;
+        try {
+            if (!job.future.isDone()) {
+                folders = FileSystemService.scanDirectory(unit.dir, unit.depth, job.context);
+            }
+        } catch (Throwable e) {
+            failure = e;
+        }
+
+        synchronized (this) {
+            running--;
+            job.running--;
+            runningByDevice.merge(device, -1, Integer::sum);
+            if (failure != null) {
+                job.future.completeExceptionally(failure);
+            } else if (folders != null) {
+                // Deeper folders first keeps the queue of a scan short
+                for (int i = folders.size() - 1; i >= 0; i--) {
+                    job.pending.addFirst(new Unit(folders.get(i), unit.depth + 1));
+                }
+            }
+            if (job.pending.isEmpty() && job.running == 0 && !job.future.isDone()) {
+                jobs.remove(job);
+                complete(job);
+            } else if (job.future.isDone() && job.running == 0) {
+                jobs.remove(job);
+                finish(job);
+            }
+            if (!closed) {
+                dispatch();
+            }
+        }
+    }
+
+    private void complete(Job job) {
+        finish(job);
+        job.root.updateTotals();
+        job.context.finishAggregators();
+        ScanCache cache = job.context.getOptions().getCache();
+        if (cache != null) {
+            cache.put(job.root, job.context);
+        }
+        job.future.complete(job.root);
+    }
+
+    private void finish(Job job) {
+        job.pending.clear();
+        if (!job.finished) {
+            job.finished = true;
+            ScanTelemetry.scanFinished(job.context.getMetrics());
+        }
+    }
+
+    /**
+     * Cancels all scans and stops the threads.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            for (Job job : jobs) {
+                job.future.cancel(false);
+                finish(job);
+            }
+            jobs.clear();
+        }
+        pool.shutdownNow();
+    }
+
+    /**
+     * Folder waiting to be listed.
+     */
+    private static class Unit {
+        private final FileNode dir;
+        private final int depth;
+
+        Unit(FileNode dir, int depth) {
+            this.dir = dir;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * Scan of one root.
+     */
+    private static class Job {
+        private final String rootPath;
+        private final FileNode root;
+        private final ScanContext context;
+        private final int limit;
+        private final Deque<Unit> pending = new ArrayDeque<>();
+        private final CompletableFuture<FileNode> future = new CompletableFuture<>();
+        private int running;
+        private boolean finished;
+
+        Job(String rootPath, FileNode root, ScanContext context, int limit) {
+            this.rootPath = rootPath;
+            this.root = root;
+            this.context = context;
+            this.limit = limit;
+        }
+
+        @Override
+        public String toString() {
+            return rootPath;
+        }
+    }
+}
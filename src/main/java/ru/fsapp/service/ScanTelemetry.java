@@ -0,0 +1,138 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide scan telemetry.
+ *
+ * Holds cumulative {@link ScanMetrics} of all scans, registers them in JMX
+ * as {@code ru.fsapp:type=ScanMetrics} (and the shared {@link IoThrottle}
+ * as {@code ru.fsapp:type=IoThrottle}) and logs one summary line per running
+ * scan periodically. Per-entry events are never logged.
+ *
+ * System properties:
+ * <ul>
+ *   <li>{@code fsapp.jmx} - set to {@code false} to skip JMX registration</li>
+ *   <li>{@code fsapp.telemetry.period} - summary period in seconds, 0 disables it (default 10)</li>
+ * </ul>
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class ScanTelemetry {
+
+    private static final Logger logger = Logger.getLogger(ScanTelemetry.class);
+
+    private static final ScanMetrics TOTAL = new ScanMetrics(null);
+    private static final Map<ScanMetrics, ActiveScan> ACTIVE = new ConcurrentHashMap<>();
+
+    private static boolean registered;
+    private static ScheduledExecutorService reporter;
+    private static ScheduledFuture<?> reportTask;
+
+    private ScanTelemetry() {
+    }
+
+    /**
+     * Returns cumulative metrics of all scans of this process.
+     *
+     * @return total metrics
+     */
+    public static ScanMetrics getTotal() {
+        return TOTAL;
+    }
+
+    /**
+     * Registers running scan for periodic summaries.
+     *
+     * @param metrics metrics of the scan
+     * @param root root folder of the scan
+     */
+    public static synchronized void scanStarted(ScanMetrics metrics, String root) {
+        registerMBean();
+        ACTIVE.put(metrics, new ActiveScan(root));
+
+        long period = Long.getLong("fsapp.telemetry.period", 10);
+        if (period > 0 && reportTask == null) {
+            if (reporter == null) {
+                reporter = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("fsapp-telemetry"));
+            }
+            reportTask = reporter.scheduleAtFixedRate(ScanTelemetry::report, period, period, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Unregisters finished scan and logs its summary.
+     *
+     * @param metrics metrics of the scan
+     */
+    public static synchronized void scanFinished(ScanMetrics metrics) {
+        ActiveScan scan = ACTIVE.remove(metrics);
+        if (scan != null) {
+            long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scan.startNanos));
+            logger.info("Scan summary " + scan.root + ": " + metrics.getSummary() + ", "
+                    + millis + " ms, " + (metrics.getEntries() * 1000 / millis) + " entries/s");
+            if (logger.isDebugEnabled()) {
+                for (String slow : metrics.getSlowestListings()) {
+                    logger.debug("Slow listing: " + slow);
+                }
+            }
+        }
+        if (ACTIVE.isEmpty() && reportTask != null) {
+            reportTask.cancel(false);
+            reportTask = null;
+        }
+    }
+
+    private static void report() {
+        for (Map.Entry<ScanMetrics, ActiveScan> entry : ACTIVE.entrySet()) {
+            ScanMetrics metrics = entry.getKey();
+            ActiveScan scan = entry.getValue();
+            long now = System.nanoTime();
+            long entries = metrics.getEntries();
+            long rate = (entries - scan.lastEntries) * 1_000_000_000L / Math.max(1, now - scan.lastNanos);
+            scan.lastEntries = entries;
+            scan.lastNanos = now;
+            logger.info("Scan progress " + scan.root + ": " + metrics.getSummary() + ", " + rate + " entries/s");
+        }
+    }
+
+    private static void registerMBean() {
+        if (registered || "false".equals(System.getProperty("fsapp.jmx"))) {
+            return;
+        }
+        registered = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(TOTAL, new ObjectName("ru.fsapp:type=ScanMetrics"));
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(IoThrottle.getShared(), new ObjectName("ru.fsapp:type=IoThrottle"));
+        } catch (Exception e) {
+            logger.warn("Failed to register scan metrics in JMX", e);
+        }
+    }
+
+    /**
+     * State of a running scan used for rates in summaries.
+     */
+    private static class ActiveScan {
+        private final String root;
+        private final long startNanos = System.nanoTime();
+        private volatile long lastEntries;
+        private volatile long lastNanos = startNanos;
+
+        ActiveScan(String root) {
+            this.root = root;
+        }
+    }
+}
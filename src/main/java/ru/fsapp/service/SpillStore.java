@@ -0,0 +1,354 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scratch file for completed subtrees of a scan that does not fit in memory.
+ *
+ * While {@link FileSystemService#buildTree(String, ScanOptions)} runs with a
+ * store in its options, every finished folder counts its children against
+ * the memory budget. Once the estimate is over the budget, the folder just
+ * finished is written to the file and its children are dropped: the folder
+ * node stays in the tree as a handle, not listed and with the exact totals
+ * of its subtree, so sizes of the whole tree stay exact.
+ *
+ * The file holds one block per folder with the records of its children;
+ * blocks are written children first, so every folder record points at the
+ * block of its own children. {@link #load(FileNode)} reads one block and
+ * puts the children back, subfolders again as handles, and
+ * {@link #release(FileNode)} drops a loaded folder again without writing.
+ * Handles of earlier spills inside a spilled folder keep their blocks.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class SpillStore implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(SpillStore.class);
+
+    /**
+     * Estimated heap taken by one node with its file, path and name.
+     */
+    public static final int NODE_BYTES = 320;
+
+    private static final int FLAG_DIRECTORY = 1;
+    private static final int FLAG_DUPLICATE_LINK = 2;
+    private static final int FLAG_NO_OWNER = 4;
+    private static final int FLUSH_SIZE = 1024 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long memoryBudget;
+    private final AtomicLong liveNodes = new AtomicLong();
+    private final Map<FileNode, Long> handles = new IdentityHashMap<>();
+    private final Map<FileNode, Long> loaded = new IdentityHashMap<>();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(buffer);
+    private long end;
+    private long spilledFolders;
+
+    /**
+     * Creates store with an empty scratch file, deleted when the store is closed.
+     *
+     * @param dir folder for the scratch file, or null for the temporary folder
+     * @param memoryBudget heap in bytes the nodes of the tree may take,
+     *                     estimated with {@link #NODE_BYTES} per node
+     * @throws IOException if the file cannot be created
+     */
+    public SpillStore(Path dir, long memoryBudget) throws IOException {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + memoryBudget);
+        }
+        this.memoryBudget = memoryBudget;
+        this.file = dir != null ? Files.createTempFile(dir, "fsapp-spill", ".bin")
+                : Files.createTempFile("fsapp-spill", ".bin");
+        this.file.toFile().deleteOnExit();
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Counts the children of a finished folder and writes the folder to the
+     * file if the tree is over the budget. The root is never written.
+     *
+     * @param dir finished folder, its subtree is complete
+     * @param root root of the scan
+     * @throws IOException if writing fails; the folder then stays in memory
+     */
+    void folderDone(FileNode dir, FileNode root) throws IOException {
+        int children = dir.getChildren().size();
+        long live = liveNodes.addAndGet(children);
+        if (dir != root && children > 0 && live * NODE_BYTES > memoryBudget) {
+            spill(dir);
+        }
+    }
+
+    /**
+     * Writes subtree of a folder and replaces its children with a handle.
+     *
+     * @param dir folder with a complete subtree
+     * @throws IOException if writing fails; the folder then stays in memory
+     */
+    public synchronized void spill(FileNode dir) throws IOException {
+        if (!dir.isDirectory() || handles.containsKey(dir)) {
+            return;
+        }
+        dir.updateTotals();
+        long[] dropped = new long[1];
+        long block;
+        try {
+            block = writeBlock(dir, dropped);
+            flush();
+        } catch (IOException e) {
+            buffer.reset();
+            throw e;
+        }
+        forget(dir);
+        loaded.remove(dir);
+        // Totals of a handle are kept as they are, sums stop at folders that are not listed
+        dir.setTotals(dir.getTotalSize(), dir.getTotalAllocated(), dir.getUniqueSize());
+        dir.clearChildren();
+        dir.setListed(false);
+        handles.put(dir, block);
+        liveNodes.addAndGet(-dropped[0]);
+        spilledFolders++;
+        if (logger.isDebugEnabled()) {
+            logger.debug("Spilled " + dropped[0] + " nodes of " + dir.getPath() + ", file " + end + " bytes");
+        }
+    }
+
+    /**
+     * Writes blocks of the listed folders of a subtree, children first.
+     *
+     * @return position of the block of the folder
+     */
+    private long writeBlock(FileNode dir, long[] dropped) throws IOException {
+        List<FileNode> children = dir.getChildren();
+        long[] blocks = new long[children.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            FileNode child = children.get(i);
+            if (!child.isDirectory()) {
+                continue;
+            }
+            Long handle = handles.get(child);
+            if (handle != null) {
+                blocks[i] = handle;
+            } else if (child.isListed()) {
+                blocks[i] = writeBlock(child, dropped);
+            } else {
+                // Not listed and not spilled, for example a folder of a lazy scan
+                blocks[i] = -1;
+            }
+        }
+        dropped[0] += children.size();
+        long position = end + buffer.size();
+        out.writeInt(children.size());
+        for (int i = 0; i < blocks.length; i++) {
+            writeRecord(children.get(i), blocks[i]);
+            if (buffer.size() >= FLUSH_SIZE) {
+                flush();
+            }
+        }
+        return position;
+    }
+
+    private void writeRecord(FileNode node, long block) throws IOException {
+        int flags = (node.isDirectory() ? FLAG_DIRECTORY : 0)
+                | (node.isDuplicateLink() ? FLAG_DUPLICATE_LINK : 0)
+                | (node.getOwner() == null ? FLAG_NO_OWNER : 0);
+        out.writeUTF(node.getName());
+        out.writeByte(flags);
+        out.writeLong(node.getSize());
+        out.writeLong(node.getAllocatedSize());
+        out.writeLong(node.getLastModified());
+        out.writeInt(node.getLinkCount());
+        if (node.getOwner() != null) {
+            out.writeUTF(node.getOwner());
+        }
+        if (node.isDirectory()) {
+            out.writeLong(node.getTotalSize());
+            out.writeLong(node.getTotalAllocated());
+            out.writeLong(node.getUniqueSize());
+            out.writeLong(block);
+        }
+    }
+
+    private void flush() throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            end += channel.write(bytes, end);
+        }
+        buffer.reset();
+    }
+
+    /**
+     * Removes handles and loaded marks of the subtree below a folder.
+     */
+    private void forget(FileNode dir) {
+        for (FileNode child : dir.getChildren()) {
+            if (child.isDirectory()) {
+                handles.remove(child);
+                loaded.remove(child);
+                forget(child);
+            }
+        }
+    }
+
+    /**
+     * Checks if a folder is a handle whose children are in the file.
+     *
+     * @param dir folder node
+     * @return true if {@link #load(FileNode)} would read its children
+     */
+    public synchronized boolean isSpilled(FileNode dir) {
+        return handles.containsKey(dir);
+    }
+
+    /**
+     * Reads children of a handle back into the tree. Subfolders come back
+     * as handles with their totals.
+     *
+     * @param dir folder node
+     * @return true if children were read, false if the folder is not a handle
+     * @throws IOException if reading fails; the folder then stays a handle
+     */
+    public synchronized boolean load(FileNode dir) throws IOException {
+        Long block = handles.get(dir);
+        if (block == null) {
+            return false;
+        }
+        Map<String, String> owners = new HashMap<>();
+        File parent = dir.getFile();
+        channel.position(block);
+        // Not closed: closing the stream would close the channel
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        int count = in.readInt();
+        FileNode[] children = new FileNode[count];
+        long[] blocks = new long[count];
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            int flags = in.readByte();
+            long size = in.readLong();
+            long allocated = in.readLong();
+            long modified = in.readLong();
+            int links = in.readInt();
+            String owner = (flags & FLAG_NO_OWNER) != 0 ? null : owners.computeIfAbsent(in.readUTF(), o -> o);
+            FileNode child = new FileNode(new File(parent, name), (flags & FLAG_DIRECTORY) != 0, size, owner,
+                    modified, allocated, links);
+            if ((flags & FLAG_DUPLICATE_LINK) != 0) {
+                child.markDuplicateLink();
+            }
+            blocks[i] = -1;
+            if (child.isDirectory()) {
+                child.setTotals(in.readLong(), in.readLong(), in.readLong());
+                blocks[i] = in.readLong();
+            }
+            children[i] = child;
+        }
+        for (int i = 0; i < count; i++) {
+            dir.addChild(children[i]);
+            if (blocks[i] >= 0) {
+                children[i].setListed(false);
+                handles.put(children[i], blocks[i]);
+            }
+        }
+        handles.remove(dir);
+        loaded.put(dir, block);
+        dir.setListed(true);
+        liveNodes.addAndGet(count);
+        return true;
+    }
+
+    /**
+     * Drops children of a folder read by {@link #load(FileNode)}, with
+     * everything loaded below it, and makes it a handle again. The file is
+     * not written, so changes made to the loaded nodes are lost.
+     *
+     * @param dir loaded folder
+     * @return true if the folder was released, false if it was not loaded from the file
+     */
+    public synchronized boolean release(FileNode dir) {
+        Long block = loaded.remove(dir);
+        if (block == null) {
+            return false;
+        }
+        long dropped = countNodes(dir);
+        forget(dir);
+        dir.clearChildren();
+        dir.setListed(false);
+        handles.put(dir, block);
+        liveNodes.addAndGet(-dropped);
+        return true;
+    }
+
+    private static long countNodes(FileNode dir) {
+        long count = dir.getChildren().size();
+        for (FileNode child : dir.getChildren()) {
+            if (child.isDirectory()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns estimated number of nodes of finished folders in memory.
+     *
+     * @return node count
+     */
+    public long getLiveNodes() {
+        return liveNodes.get();
+    }
+
+    /**
+     * Returns number of folders written so far.
+     *
+     * @return folder count
+     */
+    public synchronized long getSpilledFolders() {
+        return spilledFolders;
+    }
+
+    /**
+     * Returns size of the scratch file.
+     *
+     * @return bytes written
+     */
+    public synchronized long getFileSize() {
+        return end;
+    }
+
+    /**
+     * Closes and deletes the scratch file. Handles cannot be loaded after that.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Cannot delete spill file " + file + ": " + e.getMessage());
+        }
+        handles.clear();
+        loaded.clear();
+    }
+}
@@ -0,0 +1,577 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import ru.fsapp.model.FileNode;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Engine for copying and moving files and folders.
+ *
+ * File data is copied with {@link FileChannel#transferTo}, so the kernel
+ * moves bytes without copying them through the Java heap. Small files are
+ * copied in batches on a bounded worker pool, large files get a task each.
+ * Copies keep permissions and times of the source, like
+ * {@link StandardCopyOption#COPY_ATTRIBUTES}; folders get theirs after
+ * their content is copied. Moves inside one file system are plain renames;
+ * other moves are a copy that also keeps owner and group, followed by
+ * deletion of the source.
+ *
+ * The tree is updated in place: new nodes are built from the attributes
+ * read while planning, renamed nodes are rebuilt at their new path with
+ * all attributes of the original and re-attached to the target node.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class TransferEngine {
+
+    private static final Logger logger = Logger.getLogger(TransferEngine.class);
+
+    /**
+     * Default number of worker threads.
+     */
+    public static final int DEFAULT_PARALLELISM = DeleteEngine.DEFAULT_PARALLELISM;
+
+    private static final int BATCH_SIZE = 64;
+    private static final long BATCH_BYTES = 8L * 1024 * 1024;
+    private static final long TRANSFER_CHUNK = 64L * 1024 * 1024;
+    private static final boolean POSIX =
+            FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+
+    private final int parallelism;
+    private IoThrottle throttle = IoThrottle.getShared();
+
+    /**
+     * Creates engine with default parallelism.
+     */
+    public TransferEngine() {
+        this(DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Creates engine.
+     *
+     * @param parallelism maximum number of concurrent file copies
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public TransferEngine(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets throttle limiting the rate of copied bytes.
+     *
+     * @param throttle throttle, the shared one by default
+     */
+    public void setThrottle(IoThrottle throttle) {
+        this.throttle = throttle != null ? throttle : IoThrottle.getShared();
+    }
+
+    /**
+     * Copies nodes into target folder.
+     *
+     * @param nodes nodes to copy
+     * @param targetDir target folder
+     * @param targetNode node of the target folder to attach copies to, or null
+     * @param listener progress listener
+     * @param token cancellation token
+     * @return result of the operation
+     */
+    public OperationResult copyNodes(List<FileNode> nodes, Path targetDir, FileNode targetNode,
+                                     ProgressListener listener, CancellationToken token) {
+        OperationResult result = new OperationResult();
+        List<FileNode> copies = copy(sourcePaths(nodes), targetDir, false, result, listener, token);
+        attach(copies, targetNode);
+        result.setCancelled(token.isCancelled());
+        logger.info("Copy finished: " + result);
+        return result;
+    }
+
+    /**
+     * Moves nodes into target folder.
+     * Moved nodes are detached from their old parents. A node selected
+     * together with one of its folders is moved with that folder.
+     * Existing elements in the target folder are never replaced.
+     *
+     * @param nodes nodes to move
+     * @param targetDir target folder
+     * @param targetNode node of the target folder to attach moved nodes to, or null
+     * @param listener progress listener
+     * @param token cancellation token
+     * @return result of the operation
+     */
+    public OperationResult moveNodes(List<FileNode> nodes, Path targetDir, FileNode targetNode,
+                                     ProgressListener listener, CancellationToken token) {
+        OperationResult result = new OperationResult();
+        List<FileNode> moved = new ArrayList<>();
+        List<FileNode> crossDevice = new ArrayList<>();
+        List<FileNode> roots = DeleteEngine.withoutNested(nodes);
+        long targetDevice = new FileNode(targetDir.toFile()).getDevice();
+
+        result.addTotal(roots.size());
+        for (FileNode node : roots) {
+            if (token.isCancelled()) {
+                break;
+            }
+            Path source = node.getPath();
+            Path target = targetDir.resolve(source.getFileName());
+            try {
+                checkTarget(source, target);
+                if (node.getDevice() != 0 && targetDevice != 0 && node.getDevice() != targetDevice) {
+                    crossDevice.add(node);
+                    continue;
+                }
+                // Without REPLACE_EXISTING the move itself refuses an existing target
+                Files.move(source, target);
+                moved.add(rebase(node, target));
+                detach(node);
+                listener.onProgress(result.markCompleted(), result.getTotal(), target);
+            } catch (DirectoryNotEmptyException e) {
+                // Rename failed between mounts of one device and the folder is not empty
+                crossDevice.add(node);
+            } catch (FileAlreadyExistsException e) {
+                result.addFailure(source, e);
+                logger.warn("Failed to move: " + source + " (target exists: " + target + ")");
+            } catch (IOException e) {
+                result.addFailure(source, e);
+                logger.warn("Failed to move: " + source + " (" + e + ")");
+            }
+        }
+
+        if (!crossDevice.isEmpty() && !token.isCancelled()) {
+            logger.info("Moving " + crossDevice.size() + " element(s) across file systems");
+            OperationResult copyResult = new OperationResult();
+            List<FileNode> copies = copy(sourcePaths(crossDevice), targetDir, true, copyResult, listener, token);
+            moved.addAll(copies);
+            merge(copyResult, result);
+
+            List<FileNode> copied = new ArrayList<>();
+            for (FileNode node : crossDevice) {
+                if (!hasFailureUnder(copyResult, node.getPath()) && !token.isCancelled()) {
+                    copied.add(node);
+                }
+            }
+            if (!copied.isEmpty()) {
+                OperationResult deleteResult = new DeleteEngine(parallelism).deleteNodes(copied,
+                        ProgressListener.NONE, token);
+                merge(deleteResult, result);
+            }
+        }
+
+        attach(moved, targetNode);
+        result.setCancelled(token.isCancelled());
+        logger.info("Move finished: " + result);
+        return result;
+    }
+
+    /**
+     * Copies paths into target folder.
+     *
+     * @param keepOwner true to also copy owner and group, as far as permitted
+     * @return roots of the copied subtrees
+     */
+    private List<FileNode> copy(List<Path> sources, Path targetDir, boolean keepOwner, OperationResult result,
+                                ProgressListener listener, CancellationToken token) {
+        String owner = readOwner(targetDir);
+        List<Plan> plans = new ArrayList<>();
+        for (Path source : sources) {
+            Path target = targetDir.resolve(source.getFileName());
+            try {
+                checkTarget(source, target);
+                if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+                    throw new FileAlreadyExistsException(target.toString());
+                }
+                Plan plan = new Plan(source, target, owner, keepOwner);
+                plan.collect(result);
+                plans.add(plan);
+                result.addTotal(plan.entries.size());
+            } catch (IOException e) {
+                result.addFailure(source, e);
+                logger.warn("Failed to copy: " + source + " (" + e + ")");
+            }
+        }
+
+        // Folders first, in pre-order, then file contents in parallel
+        List<List<Entry>> batches = new ArrayList<>();
+        List<Entry> batch = new ArrayList<>();
+        long batchBytes = 0;
+        for (Plan plan : plans) {
+            for (Entry entry : plan.entries) {
+                if (token.isCancelled()) {
+                    break;
+                }
+                if (entry.directory) {
+                    try {
+                        Files.createDirectory(entry.target);
+                        entry.done = true;
+                        listener.onProgress(result.markCompleted(), result.getTotal(), entry.target);
+                    } catch (IOException e) {
+                        result.addFailure(entry.source, e);
+                    }
+                    continue;
+                }
+                batch.add(entry);
+                batchBytes += entry.size;
+                if (batch.size() >= BATCH_SIZE || batchBytes >= BATCH_BYTES) {
+                    batches.add(batch);
+                    batch = new ArrayList<>();
+                    batchBytes = 0;
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                new NamedThreadFactory("fsapp-copy"));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Entry> entries : batches) {
+                futures.add(executor.submit(() -> copyBatch(entries, result, listener, token, throttle)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    token.cancel();
+                    break;
+                } catch (ExecutionException e) {
+                    logger.error("Copy worker failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Folder attributes last: copying the content changed their times,
+        // and a read-only folder has to stay writable until it is filled
+        for (Plan plan : plans) {
+            for (int i = plan.entries.size() - 1; i >= 0; i--) {
+                Entry entry = plan.entries.get(i);
+                if (entry.directory && entry.done) {
+                    try {
+                        copyAttributes(entry);
+                    } catch (IOException e) {
+                        result.addFailure(entry.source, e);
+                        logger.warn("Failed to copy attributes: " + entry.source + " (" + e + ")");
+                    }
+                }
+            }
+        }
+
+        List<FileNode> roots = new ArrayList<>();
+        for (Plan plan : plans) {
+            FileNode root = plan.finish();
+            if (root != null) {
+                roots.add(root);
+            }
+        }
+        return roots;
+    }
+
+    private static void copyBatch(List<Entry> entries, OperationResult result,
+                                  ProgressListener listener, CancellationToken token, IoThrottle throttle) {
+        for (Entry entry : entries) {
+            if (token.isCancelled()) {
+                return;
+            }
+            if (entry.parent != null && !entry.parent.done) {
+                // Parent folder failed or was skipped
+                continue;
+            }
+            try {
+                if (entry.symbolicLink) {
+                    Files.copy(entry.source, entry.target, LinkOption.NOFOLLOW_LINKS,
+                            StandardCopyOption.COPY_ATTRIBUTES);
+                } else {
+                    long bytes = copyFile(entry, token, throttle);
+                    if (!token.isCancelled()) {
+                        copyAttributes(entry);
+                    }
+                    result.addBytes(bytes);
+                }
+                entry.done = !token.isCancelled();
+                listener.onProgress(result.markCompleted(), result.getTotal(), entry.target);
+            } catch (IOException e) {
+                result.addFailure(entry.source, e);
+                logger.warn("Failed to copy: " + entry.source + " (" + e + ")");
+            }
+        }
+    }
+
+    /**
+     * Copies file content through channel transfer.
+     * A partially written file is removed when the copy is cancelled.
+     *
+     * @return number of copied bytes
+     */
+    private static long copyFile(Entry entry, CancellationToken token, IoThrottle throttle) throws IOException {
+        long position = 0;
+        try (FileChannel in = FileChannel.open(entry.source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(entry.target, StandardOpenOption.CREATE_NEW,
+                     StandardOpenOption.WRITE)) {
+            long size = in.size();
+            while (position < size) {
+                if (token.isCancelled()) {
+                    break;
+                }
+                long chunk = Math.min(throttle.chunkSize(TRANSFER_CHUNK), size - position);
+                throttle.acquireBytes(chunk, null);
+                long transferred = in.transferTo(position, chunk, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+        if (token.isCancelled()) {
+            Files.deleteIfExists(entry.target);
+            return 0;
+        }
+        return position;
+    }
+
+    /**
+     * Copies times, permissions and, if the entry keeps its owner, owner and
+     * group of the source to the copy. An owner that the process may not
+     * set is left to the copying user.
+     */
+    private static void copyAttributes(Entry entry) throws IOException {
+        if (entry.posix != null) {
+            PosixFileAttributeView view = Files.getFileAttributeView(entry.target, PosixFileAttributeView.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            if (entry.keepOwner) {
+                try {
+                    view.setOwner(entry.posix.owner());
+                    view.setGroup(entry.posix.group());
+                } catch (IOException e) {
+                    entry.node.setOwner(readOwner(entry.target));
+                    logger.debug("Owner not kept: " + entry.target + " (" + e + ")");
+                }
+            }
+            // After the owner: changing the owner clears the set-user-ID bit
+            view.setPermissions(entry.posix.permissions());
+        }
+        Files.getFileAttributeView(entry.target, BasicFileAttributeView.class, LinkOption.NOFOLLOW_LINKS)
+                .setTimes(entry.attrs.lastModifiedTime(), entry.attrs.lastAccessTime(), null);
+    }
+
+    private static void checkTarget(Path source, Path target) throws IOException {
+        if (target.toAbsolutePath().normalize().startsWith(source.toAbsolutePath().normalize())) {
+            throw new IOException("Cannot copy or move folder into itself: " + source);
+        }
+    }
+
+    /**
+     * Reads permissions, owner and group to copy with a file.
+     *
+     * @return attributes, or null without POSIX support or if they cannot be read
+     */
+    private static PosixFileAttributes readPosix(Path path) {
+        if (!POSIX) {
+            return null;
+        }
+        try {
+            return Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String readOwner(Path dir) {
+        try {
+            return Files.getOwner(dir).getName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * Creates copy of the node subtree located at the new path, keeping all
+     * attributes of the renamed nodes.
+     */
+    private static FileNode rebase(FileNode node, Path target) {
+        FileNode copy = new FileNode(node, target.toFile());
+        for (FileNode child : node.getChildren()) {
+            copy.addChild(rebase(child, target.resolve(child.getName())));
+        }
+        return copy;
+    }
+
+    private static void detach(FileNode node) {
+        FileNode parent = node.getParent();
+        if (parent != null) {
+            parent.removeChild(node);
+        }
+    }
+
+    private static void attach(List<FileNode> nodes, FileNode targetNode) {
+        if (targetNode == null) {
+            return;
+        }
+        for (FileNode node : nodes) {
+            targetNode.addChild(node);
+        }
+    }
+
+    private static List<Path> sourcePaths(List<FileNode> nodes) {
+        List<Path> paths = new ArrayList<>(nodes.size());
+        for (FileNode node : nodes) {
+            paths.add(node.getPath());
+        }
+        return paths;
+    }
+
+    private static boolean hasFailureUnder(OperationResult result, Path root) {
+        for (Path failed : result.getFailures().keySet()) {
+            if (failed.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void merge(OperationResult from, OperationResult into) {
+        into.addTotal(from.getTotal());
+        into.addBytes(from.getBytes());
+        into.addCompleted(from.getCompleted());
+        for (Map.Entry<Path, IOException> failure : from.getFailures().entrySet()) {
+            into.addFailure(failure.getKey(), failure.getValue());
+        }
+    }
+
+    /**
+     * Element of a copy plan.
+     */
+    private static class Entry {
+        private final Path source;
+        private final Path target;
+        private final boolean directory;
+        private final boolean symbolicLink;
+        private final long size;
+        private final BasicFileAttributes attrs;
+        private final PosixFileAttributes posix;
+        private final boolean keepOwner;
+        private final FileNode node;
+        private final Entry parent;
+        private volatile boolean done;
+
+        Entry(Path source, Path target, BasicFileAttributes attrs, String owner, boolean keepOwner, Entry parent) {
+            this.source = source;
+            this.parent = parent;
+            this.target = target;
+            this.directory = attrs.isDirectory();
+            this.symbolicLink = attrs.isSymbolicLink();
+            this.size = attrs.size();
+            this.attrs = attrs;
+            this.posix = symbolicLink ? null : readPosix(source);
+            this.keepOwner = keepOwner;
+            String nodeOwner = keepOwner && posix != null ? posix.owner().getName() : owner;
+            this.node = new FileNode(target.toFile(), directory, size, nodeOwner,
+                    attrs.lastModifiedTime().toMillis());
+        }
+    }
+
+    /**
+     * Copy plan of one source subtree, folders before their content.
+     */
+    private static class Plan {
+        private final Path source;
+        private final Path target;
+        private final String owner;
+        private final boolean keepOwner;
+        private final List<Entry> entries = new ArrayList<>();
+
+        Plan(Path source, Path target, String owner, boolean keepOwner) {
+            this.source = source;
+            this.target = target;
+            this.owner = owner;
+            this.keepOwner = keepOwner;
+        }
+
+        void collect(OperationResult result) throws IOException {
+            Map<Path, Entry> folders = new HashMap<>();
+            Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    Entry entry = add(dir, attrs, folders);
+                    folders.put(dir, entry);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    add(file, attrs, folders);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    result.addFailure(file, exc);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        private Entry add(Path path, BasicFileAttributes attrs, Map<Path, Entry> folders) {
+            Entry parent = path.equals(source) ? null : folders.get(path.getParent());
+            Entry entry = new Entry(path, target.resolve(source.relativize(path).toString()), attrs, owner,
+                    keepOwner, parent);
+            if (parent != null) {
+                parent.node.addChild(entry.node);
+            }
+            entries.add(entry);
+            return entry;
+        }
+
+        /**
+         * Removes nodes of elements that were not copied.
+         *
+         * @return root node, or null if the root was not copied
+         */
+        FileNode finish() {
+            if (entries.isEmpty() || !entries.get(0).done) {
+                return null;
+            }
+            List<Entry> reversed = new ArrayList<>(entries);
+            Collections.reverse(reversed);
+            for (Entry entry : reversed) {
+                if (!entry.done && entry.node.getParent() != null) {
+                    entry.node.getParent().removeChild(entry.node);
+                }
+            }
+            return entries.get(0).node;
+        }
+    }
+}
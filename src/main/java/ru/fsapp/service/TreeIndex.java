@@ -0,0 +1,327 @@
+package ru.fsapp.service;
+
+import ru.fsapp.model.FileNode;
+import ru.fsapp.util.IndexSorter;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Read-only indexes over a scanned tree for fast queries.
+ *
+ * Nodes are numbered in depth-first order with children in name order, so
+ * the subtree of a node is the range of numbers from the node to its end.
+ * Children of every folder are kept in one flat array and found by binary
+ * search over names; files and folders are kept sorted by size once, so
+ * the largest elements of the tree are a prefix of those arrays. Names are
+ * kept in lower case for search. After building, the index is never changed
+ * and can be read by any number of threads.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class TreeIndex {
+
+    private final FileNode[] nodes;
+    private final String[] lowerNames;
+    private final int[] ends;
+    private final int[] parents;
+    private final int[] childOffsets;
+    private final int[] children;
+    private final long[] fileCounts;
+    private final long[] folderCounts;
+    private final int[] filesBySize;
+    private final int[] foldersBySize;
+
+    private TreeIndex(FileNode root) {
+        int size = countNodes(root);
+        nodes = new FileNode[size];
+        lowerNames = new String[size];
+        ends = new int[size];
+        parents = new int[size];
+        childOffsets = new int[size + 1];
+        children = new int[Math.max(0, size - 1)];
+        fileCounts = new long[size];
+        folderCounts = new long[size];
+        number(root);
+
+        List<Integer> files = new ArrayList<>();
+        List<Integer> folders = new ArrayList<>();
+        for (int id = 1; id < size; id++) {
+            (nodes[id].isDirectory() ? folders : files).add(id);
+        }
+        filesBySize = toArray(files);
+        foldersBySize = toArray(folders);
+        IndexSorter.sort(filesBySize, (a, b) -> Long.compare(nodes[b].getSize(), nodes[a].getSize()));
+        IndexSorter.sort(foldersBySize, (a, b) -> Long.compare(nodes[b].getTotalSize(), nodes[a].getTotalSize()));
+    }
+
+    /**
+     * Builds index of a tree with computed totals.
+     *
+     * @param root root node
+     * @return index
+     */
+    public static TreeIndex build(FileNode root) {
+        return new TreeIndex(root);
+    }
+
+    private static int countNodes(FileNode root) {
+        int count = 0;
+        Deque<FileNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            FileNode node = stack.pop();
+            count++;
+            for (FileNode child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Numbers nodes depth first without recursion, reserves child lists on
+     * the way down and fills them with subtree ends and counts on the way up.
+     */
+    private void number(FileNode root) {
+        int next = 0;
+        int childCount = 0;
+        Deque<Integer> open = new ArrayDeque<>();
+        Deque<FileNode> pending = new ArrayDeque<>();
+        Deque<Integer> pendingParents = new ArrayDeque<>();
+        pending.push(root);
+        pendingParents.push(-1);
+        while (!pending.isEmpty()) {
+            FileNode node = pending.pop();
+            int parent = pendingParents.pop();
+            // Close folders whose subtrees are done
+            while (!open.isEmpty() && open.peek() != parent) {
+                close(open.pop(), next);
+            }
+            int id = next++;
+            nodes[id] = node;
+            lowerNames[id] = node.getName().toLowerCase(Locale.ROOT);
+            parents[id] = parent;
+            if (!node.isDirectory()) {
+                ends[id] = id + 1;
+                fileCounts[id] = 1;
+                continue;
+            }
+            List<FileNode> sorted = new ArrayList<>(node.getChildren());
+            sorted.sort((a, b) -> a.getName().compareTo(b.getName()));
+            childOffsets[id] = childCount;
+            // Child numbers are known only when visited, reserve their slots
+            childCount += sorted.size();
+            childOffsets[id + 1] = childCount;
+            open.push(id);
+            for (int i = sorted.size() - 1; i >= 0; i--) {
+                pending.push(sorted.get(i));
+                pendingParents.push(id);
+            }
+        }
+        while (!open.isEmpty()) {
+            close(open.pop(), next);
+        }
+    }
+
+    private void close(int id, int end) {
+        ends[id] = end;
+        // Children are the nodes between the folder and its end whose parent is the folder
+        int slot = childOffsets[id];
+        for (int child = id + 1; child < end; child = ends[child]) {
+            children[slot++] = child;
+            fileCounts[id] += fileCounts[child];
+            folderCounts[id] += folderCounts[child] + (nodes[child].isDirectory() ? 1 : 0);
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Returns number of indexed nodes.
+     *
+     * @return node count, including the root
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns node by number.
+     *
+     * @param id node number, 0 for the root
+     * @return node
+     */
+    public FileNode getNode(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * Finds node by path relative to the root.
+     *
+     * @param relativePath path with {@code /} or the platform separator, empty for the root
+     * @return node number, or -1 if there is no such element
+     */
+    public int find(String relativePath) {
+        int id = 0;
+        for (String name : relativePath.replace(File.separatorChar, '/').split("/")) {
+            if (name.isEmpty() || ".".equals(name)) {
+                continue;
+            }
+            if (!nodes[id].isDirectory()) {
+                return -1;
+            }
+            int low = childOffsets[id];
+            int high = childOffsets[id + 1] - 1;
+            id = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = nodes[children[mid]].getName().compareTo(name);
+                if (cmp == 0) {
+                    id = children[mid];
+                    break;
+                }
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (id < 0) {
+                return -1;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Returns path of a node relative to the root, with {@code /} separators.
+     *
+     * @param id node number
+     * @return relative path, empty for the root
+     */
+    public String getRelativePath(int id) {
+        StringBuilder sb = new StringBuilder();
+        for (int node = id; node > 0; node = parents[node]) {
+            sb.insert(0, nodes[node].getName());
+            if (parents[node] > 0) {
+                sb.insert(0, '/');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns children of a folder in name order.
+     *
+     * @param id folder number
+     * @return child numbers
+     */
+    public int[] getChildren(int id) {
+        if (!nodes[id].isDirectory()) {
+            return new int[0];
+        }
+        return Arrays.copyOfRange(children, childOffsets[id], childOffsets[id + 1]);
+    }
+
+    /**
+     * Returns number of files in the subtree of a node.
+     *
+     * @param id node number
+     * @return file count, 1 for a file
+     */
+    public long getFileCount(int id) {
+        return fileCounts[id];
+    }
+
+    /**
+     * Returns number of folders below a node.
+     *
+     * @param id node number
+     * @return folder count, without the node itself
+     */
+    public long getFolderCount(int id) {
+        return folderCounts[id];
+    }
+
+    /**
+     * Returns largest files or folders in the subtree of a node. The sorted
+     * arrays are filtered when the subtree is a large part of the tree,
+     * otherwise the subtree is scanned with a bounded heap.
+     *
+     * @param id node number
+     * @param folders true for folders by total size, false for files by size
+     * @param limit maximum number of results
+     * @return node numbers, largest first
+     */
+    public int[] getLargest(int id, boolean folders, int limit) {
+        int[] sorted = folders ? foldersBySize : filesBySize;
+        int end = ends[id];
+        int count = Math.max(0, Math.min(limit, sorted.length));
+        if ((end - id) * 8L >= nodes.length) {
+            int[] result = new int[count];
+            int found = 0;
+            for (int i = 0; i < sorted.length && found < count; i++) {
+                if (sorted[i] > id && sorted[i] < end) {
+                    result[found++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(result, found);
+        }
+        PriorityQueue<Integer> heap = new PriorityQueue<>((a, b) -> Long.compare(sizeOf(a), sizeOf(b)));
+        for (int i = id + 1; i < end && count > 0; i++) {
+            if (nodes[i].isDirectory() != folders) {
+                continue;
+            }
+            if (heap.size() < count) {
+                heap.add(i);
+            } else if (sizeOf(heap.peek()) < sizeOf(i)) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        int[] result = new int[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = heap.poll();
+        }
+        return result;
+    }
+
+    private long sizeOf(int id) {
+        return nodes[id].isDirectory() ? nodes[id].getTotalSize() : nodes[id].getSize();
+    }
+
+    /**
+     * Finds elements whose name contains a text, ignoring case.
+     *
+     * @param id number of the folder to search in
+     * @param text text to find
+     * @param limit maximum number of results
+     * @return node numbers in tree order
+     */
+    public int[] search(int id, String text, int limit) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        int[] result = new int[Math.max(0, Math.min(limit, ends[id] - id))];
+        int found = 0;
+        for (int i = id + 1; i < ends[id] && found < result.length; i++) {
+            if (lowerNames[i].contains(lower)) {
+                result[found++] = i;
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.fsapp.service;
+
+import ru.fsapp.model.FileNode;
+
+import java.io.IOException;
+
+/**
+ * Visitor of file tree nodes in depth-first order.
+ * Used to stream nodes while scanning or from an existing tree.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public interface TreeVisitor {
+
+    /**
+     * Called before children of a folder are visited.
+     *
+     * @param dir folder node
+     * @param depth depth of the folder, root has depth 0
+     * @throws IOException if visitor fails
+     */
+    void enterDirectory(FileNode dir, int depth) throws IOException;
+
+    /**
+     * Called for every element that is not a folder.
+     *
+     * @param file file node
+     * @param depth depth of the file
+     * @throws IOException if visitor fails
+     */
+    void visitFile(FileNode file, int depth) throws IOException;
+
+    /**
+     * Called after all children of a folder were visited.
+     *
+     * @param dir folder node
+     * @param depth depth of the folder
+     * @throws IOException if visitor fails
+     */
+    void exitDirectory(FileNode dir, int depth) throws IOException;
+}
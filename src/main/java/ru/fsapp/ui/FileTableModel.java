@@ -0,0 +1,262 @@
+package ru.fsapp.ui;
+
+import ru.fsapp.model.FileNode;
+import ru.fsapp.util.FormatUtils;
+import ru.fsapp.util.IndexSorter;
+
+import javax.swing.table.AbstractTableModel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flat table of all files of a scanned tree.
+ *
+ * Rows keep only the node and primitive size and modification time,
+ * cell text is formatted when a row becomes visible and kept in a small
+ * direct-mapped cache. Sorting reorders an int index array, the rows
+ * themselves never move; text columns are sorted by int ranks computed
+ * once per sort, so comparisons do not allocate.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public class FileTableModel extends AbstractTableModel {
+
+    public static final int COLUMN_PATH = 0;
+    public static final int COLUMN_SIZE = 1;
+    public static final int COLUMN_MODIFIED = 2;
+    public static final int COLUMN_OWNER = 3;
+    public static final int COLUMN_EXTENSION = 4;
+
+    private static final String[] COLUMNS = {"Path", "Size", "Modified", "Owner", "Extension"};
+    private static final int CACHE_SLOTS = 512;
+
+    private final Path root;
+    private final FileNode[] nodes;
+    private final long[] sizes;
+    private final long[] modified;
+    private int[] view;
+
+    private int sortColumn = -1;
+    private boolean ascending = true;
+
+    private final int[] cacheRows = new int[CACHE_SLOTS];
+    private final String[][] cacheValues = new String[CACHE_SLOTS][COLUMNS.length];
+
+    /**
+     * Creates empty table.
+     */
+    public FileTableModel() {
+        this(null, new FileNode[0]);
+    }
+
+    private FileTableModel(Path root, FileNode[] nodes) {
+        this.root = root;
+        this.nodes = nodes;
+        this.sizes = new long[nodes.length];
+        this.modified = new long[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            sizes[i] = nodes[i].getSize();
+            modified[i] = nodes[i].getLastModified();
+        }
+        this.view = IndexSorter.identity(nodes.length);
+        clearCache();
+    }
+
+    /**
+     * Collects all files of a tree into a table.
+     * Can be called outside of the event dispatch thread.
+     *
+     * @param rootNode root of the tree
+     * @return table model
+     */
+    public static FileTableModel fromTree(FileNode rootNode) {
+        List<FileNode> files = new ArrayList<>();
+        List<FileNode> stack = new ArrayList<>();
+        stack.add(rootNode);
+        while (!stack.isEmpty()) {
+            FileNode node = stack.remove(stack.size() - 1);
+            if (node.isDirectory()) {
+                stack.addAll(node.getChildren());
+            } else {
+                files.add(node);
+            }
+        }
+        return new FileTableModel(rootNode.getPath(), files.toArray(new FileNode[0]));
+    }
+
+    @Override
+    public int getRowCount() {
+        return nodes.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    /**
+     * Returns column name with sort direction mark for the sorted column.
+     */
+    @Override
+    public String getColumnName(int column) {
+        if (column != sortColumn) {
+            return COLUMNS[column];
+        }
+        return COLUMNS[column] + (ascending ? " ▲" : " ▼");
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int slot = row & (CACHE_SLOTS - 1);
+        String[] values = cacheValues[slot];
+        if (cacheRows[slot] != row) {
+            cacheRows[slot] = row;
+            Arrays.fill(values, null);
+        }
+        String value = values[column];
+        if (value == null) {
+            value = format(view[row], column);
+            values[column] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Returns node shown in a row.
+     *
+     * @param row row in the current order
+     * @return file node
+     */
+    public FileNode getNode(int row) {
+        return nodes[view[row]];
+    }
+
+    /**
+     * Returns sorted column or -1 if the table is in scan order.
+     *
+     * @return column index
+     */
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    /**
+     * Returns direction of the current sort.
+     *
+     * @return true if ascending
+     */
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Sorts by column. Sorting by the same column again reverses the order.
+     *
+     * @param column column index
+     */
+    public void toggleSort(int column) {
+        sortBy(column, column == sortColumn ? !ascending : true);
+    }
+
+    /**
+     * Sorts by column in given direction.
+     *
+     * @param column column index
+     * @param ascending true for ascending order
+     */
+    public void sortBy(int column, boolean ascending) {
+        if (column < 0 || column >= COLUMNS.length) {
+            return;
+        }
+        IndexSorter.IndexComparator comparator = comparator(column);
+        IndexSorter.IndexComparator ordered = ascending
+                ? comparator
+                : (left, right) -> comparator.compare(right, left);
+        int[] sorted = IndexSorter.identity(nodes.length);
+        IndexSorter.sort(sorted, ordered);
+
+        this.view = sorted;
+        this.sortColumn = column;
+        this.ascending = ascending;
+        clearCache();
+        fireTableDataChanged();
+    }
+
+    private IndexSorter.IndexComparator comparator(int column) {
+        switch (column) {
+            case COLUMN_SIZE:
+                return (left, right) -> Long.compare(sizes[left], sizes[right]);
+            case COLUMN_MODIFIED:
+                return (left, right) -> Long.compare(modified[left], modified[right]);
+            case COLUMN_OWNER:
+            case COLUMN_EXTENSION:
+                int[] ranks = ranks(column);
+                return (left, right) -> Integer.compare(ranks[left], ranks[right]);
+            default:
+                return (left, right) -> nodes[left].getPath().compareTo(nodes[right].getPath());
+        }
+    }
+
+    /**
+     * Reads the text of a column once for every row and replaces it with
+     * the rank of the text among the distinct values of the column.
+     *
+     * @return rank per row, rows with equal text have equal ranks
+     */
+    private int[] ranks(int column) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        int[] keys = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            String value = column == COLUMN_OWNER ? nodes[i].getOwner() : nodes[i].getExtension();
+            if (value == null) {
+                value = "";
+            }
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            keys[i] = id;
+        }
+        String[] distinct = values.toArray(new String[0]);
+        int[] order = IndexSorter.identity(distinct.length);
+        IndexSorter.sort(order, (left, right) -> distinct[left].compareTo(distinct[right]));
+        int[] rank = new int[distinct.length];
+        for (int i = 0; i < order.length; i++) {
+            rank[order[i]] = i;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = rank[keys[i]];
+        }
+        return keys;
+    }
+
+    private String format(int index, int column) {
+        FileNode node = nodes[index];
+        switch (column) {
+            case COLUMN_SIZE:
+                return FormatUtils.formatSize(sizes[index]);
+            case COLUMN_MODIFIED:
+                return FormatUtils.formatDate(modified[index]);
+            case COLUMN_OWNER:
+                return node.getOwner();
+            case COLUMN_EXTENSION:
+                return node.getExtension();
+            default:
+                Path path = node.getPath();
+                return root != null && path.startsWith(root) ? root.relativize(path).toString() : path.toString();
+        }
+    }
+
+    private void clearCache() {
+        Arrays.fill(cacheRows, -1);
+    }
+}
@@ -2,18 +2,41 @@ package ru.fsapp.ui;
 
 import org.apache.log4j.Logger;
 import ru.fsapp.model.FileNode;
+import ru.fsapp.service.CancellationToken;
 import ru.fsapp.service.FileSystemService;
+import ru.fsapp.service.LazyScanner;
+import ru.fsapp.service.LogAnalyzer;
+import ru.fsapp.service.OffHeapTree;
+import ru.fsapp.service.OperationResult;
+import ru.fsapp.service.ProgressListener;
+import ru.fsapp.service.ScanCache;
+import ru.fsapp.service.ScanMetrics;
+import ru.fsapp.service.ScanOptions;
+import ru.fsapp.service.ScanScheduler;
+import ru.fsapp.service.SpillStore;
+import ru.fsapp.util.DirectoryStats;
 import ru.fsapp.util.FormatUtils;
 
 import javax.swing.*;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
 import java.awt.*;
 import java.awt.datatransfer.StringSelection;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Main window of file system analysis application.
@@ -28,14 +51,28 @@ public class MainFrame extends JFrame {
 
     private static final Logger logger = Logger.getLogger(MainFrame.class);
 
+    /** Children of a folder shown at once, the rest follow page by page. */
+    private static final int TREE_PAGE_SIZE = 1000;
+
+    /** Threads counting the selected folder on disk. */
+    private static final int STATS_PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
     // Top panel
     private JTextField pathField;
     private JButton browseBtn;
     private JButton analyzeBtn;
+    private JButton cancelBtn;
+    private JCheckBox lazyBox;
+    private JCheckBox offHeapBox;
+    private JCheckBox spillBox;
 
     // Tree
     private JTree tree;
 
+    // Flat file table
+    private JTable fileTable;
+    private FileTableModel fileTableModel;
+
     // Properties panel
     private JLabel nameLabel;
     private JLabel pathLabel;
@@ -58,11 +95,27 @@ public class MainFrame extends JFrame {
     private JButton copyBtn;
     private JButton openBtn;
     private JButton deleteBtn;
+    private JButton copyToBtn;
+    private JButton moveToBtn;
     private JButton createFileBtn;
 
     // Status
     private JLabel statusLabel;
 
+    // Running file operation
+    private CancellationToken operationToken;
+
+    // Background listing and measuring of a lazy scan
+    private LazyScanner lazyScanner;
+    private OffHeapTree offHeapTree;
+    private SpillStore spillStore;
+
+    // Count of the selected folder
+    private SwingWorker<DirectoryStats, Void> countWorker;
+
+    // Line counts of selected log files
+    private final LogAnalyzer logAnalyzer = new LogAnalyzer(LogAnalyzer.DEFAULT_PARALLELISM);
+
     public MainFrame() {
         logger.info("Initializing main application window");
 
@@ -100,9 +153,31 @@ public class MainFrame extends JFrame {
         browseBtn.addActionListener(e -> browse());
         analyzeBtn = FlatUITheme.createButton("Analyze");
         analyzeBtn.addActionListener(e -> analyze());
-
+        cancelBtn = FlatUITheme.createButton("Cancel");
+        cancelBtn.addActionListener(e -> cancelOperation());
+        cancelBtn.setEnabled(false);
+        lazyBox = new JCheckBox("Lazy");
+        lazyBox.setToolTipText("List folders when they are expanded, measure sizes in background");
+        lazyBox.setBackground(FlatUITheme.BG_PRIMARY);
+        lazyBox.setForeground(FlatUITheme.TEXT_PRIMARY);
+
+        offHeapBox = new JCheckBox("Off-heap");
+        offHeapBox.setToolTipText("Keep the scanned tree outside the Java heap, for huge folders; read-only view");
+        offHeapBox.setBackground(FlatUITheme.BG_PRIMARY);
+        offHeapBox.setForeground(FlatUITheme.TEXT_PRIMARY);
+
+        spillBox = new JCheckBox("Limit memory");
+        spillBox.setToolTipText("Write finished folders to a temporary file when the tree takes a quarter of the heap; "
+                + "they are read back on expansion");
+        spillBox.setBackground(FlatUITheme.BG_PRIMARY);
+        spillBox.setForeground(FlatUITheme.TEXT_PRIMARY);
+
+        buttonsPanel.add(lazyBox);
+        buttonsPanel.add(offHeapBox);
+        buttonsPanel.add(spillBox);
         buttonsPanel.add(browseBtn);
         buttonsPanel.add(analyzeBtn);
+        buttonsPanel.add(cancelBtn);
 
         topPanel.add(pathLabelTitle, BorderLayout.WEST);
         topPanel.add(pathField, BorderLayout.CENTER);
@@ -127,7 +202,22 @@ public class MainFrame extends JFrame {
         tree.setBackground(FlatUITheme.BG_SECONDARY);
         tree.setForeground(FlatUITheme.TEXT_PRIMARY);
         tree.setCellRenderer(new SimpleTreeCellRenderer());
-        tree.addTreeSelectionListener(e -> updateDetails());
+        tree.addTreeSelectionListener(e -> {
+            showNextPage();
+            loadSpilled(e.getNewLeadSelectionPath());
+            updateDetails();
+        });
+        tree.addTreeWillExpandListener(new TreeWillExpandListener() {
+            @Override
+            public void treeWillExpand(TreeExpansionEvent event) {
+                expandLazy(event.getPath());
+                loadSpilled(event.getPath());
+            }
+
+            @Override
+            public void treeWillCollapse(TreeExpansionEvent event) {
+            }
+        });
 
         JScrollPane treeScroll = new JScrollPane(tree);
         treeScroll.setBorder(BorderFactory.createLineBorder(FlatUITheme.BORDER));
@@ -214,6 +304,12 @@ public class MainFrame extends JFrame {
         deleteBtn = FlatUITheme.createButton("Delete");
         deleteBtn.addActionListener(e -> deleteSelected());
 
+        copyToBtn = FlatUITheme.createButton("Copy To...");
+        copyToBtn.addActionListener(e -> transferSelected(false));
+
+        moveToBtn = FlatUITheme.createButton("Move To...");
+        moveToBtn.addActionListener(e -> transferSelected(true));
+
         createFileBtn = FlatUITheme.createButton("Create File");
         createFileBtn.addActionListener(e -> createNewFile());
 
@@ -221,6 +317,8 @@ public class MainFrame extends JFrame {
         actionsPanel.add(openBtn);
         actionsPanel.add(renameBtn);
         actionsPanel.add(deleteBtn);
+        actionsPanel.add(copyToBtn);
+        actionsPanel.add(moveToBtn);
         actionsPanel.add(createFileBtn);
 
         JPanel rightContent = new JPanel(new BorderLayout());
@@ -234,6 +332,38 @@ public class MainFrame extends JFrame {
         splitPane.setLeftComponent(leftPanel);
         splitPane.setRightComponent(rightPanel);
 
+        // Flat file table
+        fileTableModel = new FileTableModel();
+        fileTable = new JTable(fileTableModel);
+        fileTable.setAutoCreateColumnsFromModel(false);
+        fileTable.setFillsViewportHeight(true);
+        fileTable.setBackground(FlatUITheme.BG_SECONDARY);
+        fileTable.setForeground(FlatUITheme.TEXT_PRIMARY);
+        fileTable.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        fileTable.getColumnModel().getColumn(FileTableModel.COLUMN_PATH).setPreferredWidth(520);
+        fileTable.getTableHeader().setReorderingAllowed(false);
+        fileTable.getTableHeader().addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent e) {
+                int column = fileTable.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    fileTableModel.toggleSort(fileTable.convertColumnIndexToModel(column));
+                    updateTableHeader();
+                }
+            }
+        });
+
+        JScrollPane tableScroll = new JScrollPane(fileTable);
+        tableScroll.setBorder(BorderFactory.createLineBorder(FlatUITheme.BORDER));
+        JPanel tablePanel = new JPanel(new BorderLayout());
+        tablePanel.setBackground(FlatUITheme.BG_PRIMARY);
+        tablePanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
+        tablePanel.add(tableScroll, BorderLayout.CENTER);
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Tree", splitPane);
+        tabs.addTab("Files", tablePanel);
+
         // Status bar
         statusLabel = new JLabel("Ready");
         statusLabel.setForeground(FlatUITheme.SUCCESS);
@@ -248,7 +378,7 @@ public class MainFrame extends JFrame {
         // Assemble window
         getContentPane().setLayout(new BorderLayout());
         getContentPane().add(topPanel, BorderLayout.NORTH);
-        getContentPane().add(splitPane, BorderLayout.CENTER);
+        getContentPane().add(tabs, BorderLayout.CENTER);
         getContentPane().add(statusPanel, BorderLayout.SOUTH);
 
         logger.debug("Interface built successfully");
@@ -295,24 +425,169 @@ public class MainFrame extends JFrame {
         statusLabel.setForeground(FlatUITheme.INFO);
         browseBtn.setEnabled(false);
         analyzeBtn.setEnabled(false);
+        closeLazyScanner();
+        closeOffHeapTree();
+        closeSpillStore();
+
+        ScanOptions options = new ScanOptions();
+        options.setIgnoreFileName(ScanOptions.DEFAULT_IGNORE_FILE);
+        if (lazyBox.isSelected()) {
+            analyzeLazy(path, options);
+            return;
+        }
+        if (offHeapBox.isSelected()) {
+            analyzeOffHeap(path, options);
+            return;
+        }
+        ScanMetrics metrics = new ScanMetrics();
+        options.setMetrics(metrics);
+        // Re-analyzing a root, its parent or a subfolder reuses unchanged folders
+        options.setCache(ScanCache.getShared());
+        SpillStore spill = null;
+        if (spillBox.isSelected()) {
+            try {
+                spill = new SpillStore(null, Runtime.getRuntime().maxMemory() / 4);
+            } catch (IOException ex) {
+                logger.error("Cannot create spill file", ex);
+            }
+            options.setSpillStore(spill);
+        }
+        SpillStore analysisSpill = spill;
+        Timer progressTimer = new Timer(500, e -> {
+            String status = "Analyzing... " + metrics.getEntries() + " elements";
+            if (FileSystemService.getThrottle().isActive()) {
+                status += ", throttled " + metrics.getThrottledMillis() + " ms ("
+                        + FileSystemService.getThrottle() + ")";
+            }
+            statusLabel.setText(status);
+        });
+        progressTimer.start();
 
         new SwingWorker<FileNode, Void>() {
+            private FileTableModel tableModel;
+
             @Override
             protected FileNode doInBackground() throws Exception {
-                return FileSystemService.buildTree(path);
+                if (analysisSpill != null) {
+                    // Spilling needs to know when a subtree is complete, the scheduler does not tell
+                    FileNode root = FileSystemService.buildTree(path, options);
+                    // The flat table would show only the folders still in memory
+                    tableModel = analysisSpill.getSpilledFolders() == 0 ? FileTableModel.fromTree(root) : null;
+                    return root;
+                }
+                // Shared scheduler: several analyses interleave instead of each taking its own threads
+                FileNode root = ScanScheduler.getShared().submit(path, options).get();
+                tableModel = FileTableModel.fromTree(root);
+                return root;
             }
 
             @Override
             protected void done() {
+                progressTimer.stop();
                 try {
                     FileNode root = get();
                     DefaultMutableTreeNode treeRoot = toTreeNode(root);
-                    tree.setModel(new DefaultTreeModel(treeRoot));
+                    spillStore = analysisSpill;
+                    // Written folders have no children until expanded
+                    tree.setModel(new DefaultTreeModel(treeRoot, analysisSpill != null));
                     tree.expandRow(0);
-                    statusLabel.setText("Analysis completed");
+                    setFileTableModel(tableModel);
+                    statusLabel.setText("Analysis completed: " + metrics.getEntries() + " elements");
                     statusLabel.setForeground(FlatUITheme.SUCCESS);
                     clearProps();
                     logger.info("Analysis completed successfully");
+                } catch (Exception ex) {
+                    if (analysisSpill != null) {
+                        analysisSpill.close();
+                    }
+                    statusLabel.setText("Analysis error");
+                    statusLabel.setForeground(FlatUITheme.ERROR);
+                    logger.error("Error during analysis", ex);
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Analysis error: " + ex.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                } finally {
+                    browseBtn.setEnabled(true);
+                    analyzeBtn.setEnabled(true);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Opens the root with a lazy scan: the first levels are shown at once,
+     * deeper folders are listed on expansion and their sizes arrive later.
+     */
+    private void analyzeLazy(String path, ScanOptions options) {
+        LazyScanner scanner = new LazyScanner(options, LazyScanner.DEFAULT_LEVELS, new LazyScanner.Listener() {
+            @Override
+            public void listed(FileNode dir) {
+                SwingUtilities.invokeLater(() -> lazyListed(dir));
+            }
+
+            @Override
+            public void measured(FileNode dir) {
+                SwingUtilities.invokeLater(() -> lazyMeasured(dir));
+            }
+        });
+        lazyScanner = scanner;
+
+        new SwingWorker<FileNode, Void>() {
+            @Override
+            protected FileNode doInBackground() {
+                return scanner.open(path);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    FileNode root = get();
+                    tree.setModel(new DefaultTreeModel(toTreeNode(root), true));
+                    tree.expandRow(0);
+                    setFileTableModel(FileTableModel.fromTree(root));
+                    clearProps();
+                    updateLazyStatus();
+                    logger.info("Lazy analysis opened: " + path);
+                } catch (Exception ex) {
+                    closeLazyScanner();
+                    statusLabel.setText("Analysis error");
+                    statusLabel.setForeground(FlatUITheme.ERROR);
+                    logger.error("Error during analysis", ex);
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Analysis error: " + ex.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                } finally {
+                    browseBtn.setEnabled(true);
+                    analyzeBtn.setEnabled(true);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Scans the root into off-heap storage. The tree shows nodes created on expansion;
+     * file operations and the flat table are not available for such a tree.
+     */
+    private void analyzeOffHeap(String path, ScanOptions options) {
+        new SwingWorker<OffHeapTree, Void>() {
+            @Override
+            protected OffHeapTree doInBackground() throws Exception {
+                return OffHeapTree.build(path, options);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    OffHeapTree store = get();
+                    offHeapTree = store;
+                    tree.setModel(new DefaultTreeModel(new OffHeapTreeNode(store, store.getRoot()), true));
+                    tree.expandRow(0);
+                    setFileTableModel(null);
+                    clearProps();
+                    statusLabel.setText("Analysis completed: " + store.size() + " elements, "
+                            + FormatUtils.formatSize(store.getOffHeapBytes()) + " off-heap (read-only)");
+                    statusLabel.setForeground(FlatUITheme.SUCCESS);
+                    logger.info("Off-heap analysis completed: " + path);
                 } catch (Exception ex) {
                     statusLabel.setText("Analysis error");
                     statusLabel.setForeground(FlatUITheme.ERROR);
@@ -328,20 +603,191 @@ public class MainFrame extends JFrame {
         }.execute();
     }
 
+    private void closeOffHeapTree() {
+        if (offHeapTree != null) {
+            // The shown nodes read from the store, so they go first
+            tree.setModel(new DefaultTreeModel(new DefaultMutableTreeNode("No data")));
+            offHeapTree.close();
+            offHeapTree = null;
+        }
+    }
+
+    private void closeSpillStore() {
+        if (spillStore != null) {
+            // Shown folders may be handles that read from the file
+            tree.setModel(new DefaultTreeModel(new DefaultMutableTreeNode("No data")));
+            spillStore.close();
+            spillStore = null;
+        }
+    }
+
+    /**
+     * Reads children of a folder that was written to the spill file
+     * when it is expanded or selected.
+     */
+    private void loadSpilled(TreePath treePath) {
+        if (spillStore == null || treePath == null) {
+            return;
+        }
+        DefaultMutableTreeNode treeNode = (DefaultMutableTreeNode) treePath.getLastPathComponent();
+        if (!(treeNode.getUserObject() instanceof FileNode)) {
+            return;
+        }
+        FileNode fn = (FileNode) treeNode.getUserObject();
+        try {
+            if (spillStore.load(fn)) {
+                treeNode.removeAllChildren();
+                addChildNodes(treeNode, fn, 0);
+                ((DefaultTreeModel) tree.getModel()).nodeStructureChanged(treeNode);
+            }
+        } catch (IOException ex) {
+            logger.error("Cannot read spilled folder: " + fn.getPath(), ex);
+            statusLabel.setText("Cannot read folder from the spill file");
+            statusLabel.setForeground(FlatUITheme.ERROR);
+        }
+    }
+
+    private void expandLazy(TreePath treePath) {
+        if (lazyScanner == null) {
+            return;
+        }
+        DefaultMutableTreeNode treeNode = (DefaultMutableTreeNode) treePath.getLastPathComponent();
+        if (!(treeNode.getUserObject() instanceof FileNode)) {
+            return;
+        }
+        FileNode fn = (FileNode) treeNode.getUserObject();
+        if (!fn.isListed()) {
+            lazyScanner.expand(fn);
+            updateLazyStatus();
+        }
+        // Folders that become visible are measured before the rest of the queue
+        for (FileNode child : fn.getChildren()) {
+            if (child.isDirectory() && !child.isTotalsKnown()) {
+                lazyScanner.requestMeasure(child);
+            }
+        }
+    }
+
+    private void lazyListed(FileNode dir) {
+        DefaultMutableTreeNode treeNode = findTreeNode(dir.getPath());
+        if (treeNode == null || treeNode.getUserObject() != dir) {
+            return;
+        }
+        treeNode.removeAllChildren();
+        addChildNodes(treeNode, dir, 0);
+        ((DefaultTreeModel) tree.getModel()).nodeStructureChanged(treeNode);
+        tree.expandPath(new TreePath(treeNode.getPath()));
+        lazyMeasured(dir);
+    }
+
+    private void lazyMeasured(FileNode dir) {
+        DefaultTreeModel model = (DefaultTreeModel) tree.getModel();
+        DefaultMutableTreeNode treeNode = findTreeNode(dir.getPath());
+        if (treeNode == null || treeNode.getUserObject() != dir) {
+            return;
+        }
+        for (DefaultMutableTreeNode node = treeNode; node != null; node = (DefaultMutableTreeNode) node.getParent()) {
+            model.nodeChanged(node);
+        }
+        if (getSelectedFileNode() == dir) {
+            updateDetails();
+        }
+        updateLazyStatus();
+    }
+
+    private void updateLazyStatus() {
+        if (lazyScanner == null || operationToken != null) {
+            return;
+        }
+        int pending = lazyScanner.getPending();
+        if (pending > 0) {
+            statusLabel.setText("Browsing, measuring " + pending + " folders...");
+            statusLabel.setForeground(FlatUITheme.INFO);
+        } else {
+            statusLabel.setText("Browsing, sizes up to date");
+            statusLabel.setForeground(FlatUITheme.SUCCESS);
+        }
+    }
+
+    private void closeLazyScanner() {
+        if (lazyScanner != null) {
+            lazyScanner.close();
+            lazyScanner = null;
+        }
+    }
+
     private DefaultMutableTreeNode toTreeNode(FileNode node) {
-        DefaultMutableTreeNode treeNode = new DefaultMutableTreeNode(node);
+        DefaultMutableTreeNode treeNode = new DefaultMutableTreeNode(node, node.isDirectory());
         if (node.isDirectory()) {
-            for (FileNode child : node.getChildren()) {
-                treeNode.add(toTreeNode(child));
-            }
+            addChildNodes(treeNode, node, 0);
         }
         return treeNode;
     }
 
+    /**
+     * Adds one page of the children of a folder; if more are left, a node
+     * that shows the next page when selected is added after them.
+     */
+    private void addChildNodes(DefaultMutableTreeNode treeNode, FileNode dir, int from) {
+        List<FileNode> children = dir.getChildren();
+        int to = Math.min(children.size(), from + TREE_PAGE_SIZE);
+        for (int i = from; i < to; i++) {
+            treeNode.add(toTreeNode(children.get(i)));
+        }
+        if (to < children.size()) {
+            treeNode.add(new MoreTreeNode(dir, to));
+        }
+    }
+
+    /**
+     * Replaces the selected "more" node with the next page of its folder
+     * and selects the first element of that page.
+     */
+    private void showNextPage() {
+        Object sel = tree.getLastSelectedPathComponent();
+        if (!(sel instanceof MoreTreeNode)) {
+            return;
+        }
+        MoreTreeNode more = (MoreTreeNode) sel;
+        DefaultMutableTreeNode parent = (DefaultMutableTreeNode) more.getParent();
+        int index = showPage(more);
+        if (index < parent.getChildCount()) {
+            TreePath first = new TreePath(((DefaultMutableTreeNode) parent.getChildAt(index)).getPath());
+            // The selection is changed after the current selection event is handled
+            SwingUtilities.invokeLater(() -> {
+                tree.setSelectionPath(first);
+                tree.scrollPathToVisible(first);
+            });
+        }
+    }
+
+    /**
+     * Replaces a "more" node with the next page of its folder.
+     *
+     * @return index of the first node of the page
+     */
+    private int showPage(MoreTreeNode more) {
+        DefaultMutableTreeNode parent = (DefaultMutableTreeNode) more.getParent();
+        DefaultTreeModel model = (DefaultTreeModel) tree.getModel();
+        int index = parent.getIndex(more);
+        model.removeNodeFromParent(more);
+        addChildNodes(parent, more.getDir(), more.getOffset());
+        int[] added = new int[parent.getChildCount() - index];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = index + i;
+        }
+        model.nodesWereInserted(parent, added);
+        return index;
+    }
+
     private FileNode getSelectedFileNode() {
         Object sel = tree.getLastSelectedPathComponent();
         if (sel == null) return null;
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) sel;
+        if (node instanceof OffHeapTreeNode) {
+            // Children give the element count of the folder
+            ((OffHeapTreeNode) node).load();
+        }
         Object obj = node.getUserObject();
         if (obj instanceof FileNode) {
             return (FileNode) obj;
@@ -365,26 +811,34 @@ public class MainFrame extends JFrame {
         parentLabel.setText("Parent folder: " + (parent != null ? parent.toAbsolutePath() : "(none)"));
         typeLabel.setText("Type: " + (fn.isDirectory() ? "Folder" : "File"));
 
-        if (fn.isDirectory()) {
-            sizeLabel.setText("Size: " + fn.getChildren().size() + " elements");
+        if (fn.isDirectory() && !fn.isListed()) {
+            sizeLabel.setText("Size: not listed yet, "
+                    + (fn.isTotalsKnown() ? FormatUtils.formatSize(fn.getTotalSize()) : "measuring..."));
+        } else if (fn.isDirectory()) {
+            sizeLabel.setText("Size: " + fn.getChildren().size() + " elements, "
+                    + FormatUtils.formatSize(fn.getTotalSize())
+                    + (fn.isTotalsKnown() ? "" : " so far"));
         } else {
             sizeLabel.setText("Size: " + FormatUtils.formatSize(fn.getSize()));
         }
 
+        // Allocated size comes from the scan, hard links are counted once in the unique size
+        String diskSize = "Disk size: " + FormatUtils.formatSize(fn.getTotalAllocated());
+        if (fn.isDirectory()) {
+            diskSize += ", unique " + FormatUtils.formatSize(fn.getUniqueSize());
+        } else if (fn.getLinkCount() > 1) {
+            diskSize += ", " + fn.getLinkCount() + " hard links";
+        }
+        diskSizeLabel.setText(diskSize);
+
         try {
             BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
             createdLabel.setText("Created: " + FormatUtils.formatDate(attrs.creationTime()));
             modifiedLabel.setText("Modified: " + FormatUtils.formatDate(attrs.lastModifiedTime()));
-
-            long logicalSize = attrs.size();
-            long block = 4096;
-            long diskSize = ((logicalSize + block - 1) / block) * block;
-            diskSizeLabel.setText("Disk size: " + FormatUtils.formatSize(diskSize));
         } catch (Exception ex) {
             logger.warn("Error reading file attributes", ex);
             createdLabel.setText("Created: (read error)");
             modifiedLabel.setText("Modified: (read error)");
-            diskSizeLabel.setText("Disk size: (read error)");
         }
 
         ownerLabel.setText("Owner: " + fn.getOwner());
@@ -420,16 +874,94 @@ public class MainFrame extends JFrame {
         }
 
         if (fn.isDirectory()) {
-            long files = FormatUtils.countFiles(p);
-            long dirs = FormatUtils.countDirectories(p);
-            long totalSize = FormatUtils.calculateTotalSize(p);
-            statsLabel.setText("Statistics: " + files + " files, " + dirs +
-                    " folders, " + FormatUtils.formatSize(totalSize));
+            statsLabel.setText("Statistics: counting...");
+            countDirectory(fn);
+        } else if (LogAnalyzer.isLogFile(fn.getName())) {
+            statsLabel.setText("Statistics: reading log...");
+            analyzeLog(fn);
         } else {
             statsLabel.setText("Statistics: single file");
         }
     }
 
+    /**
+     * Counts files, folders and size on disk in one parallel pass in the
+     * background and shows them, if the folder is still selected when done.
+     * The count of the previously selected folder is cancelled.
+     */
+    private void countDirectory(FileNode fn) {
+        if (countWorker != null) {
+            countWorker.cancel(false);
+        }
+        countWorker = new SwingWorker<DirectoryStats, Void>() {
+            @Override
+            protected DirectoryStats doInBackground() {
+                return FormatUtils.directoryStats(fn.getPath(), STATS_PARALLELISM, this::isCancelled);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                FileNode selected = getSelectedFileNode();
+                if (selected == null || !selected.getPath().equals(fn.getPath())) {
+                    return;
+                }
+                try {
+                    DirectoryStats stats = get();
+                    statsLabel.setText("Statistics: " + stats.getFiles() + " files, " + stats.getDirectories()
+                            + " folders, " + FormatUtils.formatSize(stats.getTotalSize()));
+                } catch (Exception ex) {
+                    logger.warn("Error counting folder: " + fn.getPath(), ex);
+                    statsLabel.setText("Statistics: (read error)");
+                }
+            }
+        };
+        countWorker.execute();
+    }
+
+    /**
+     * Counts lines of a log in the background and shows them with the time
+     * range, if the file is still selected when done.
+     */
+    private void analyzeLog(FileNode fn) {
+        new SwingWorker<LogAnalyzer.LogStats, Void>() {
+            @Override
+            protected LogAnalyzer.LogStats doInBackground() throws Exception {
+                return logAnalyzer.analyze(fn.getPath());
+            }
+
+            @Override
+            protected void done() {
+                FileNode selected = getSelectedFileNode();
+                if (selected == null || !selected.getPath().equals(fn.getPath())) {
+                    return;
+                }
+                try {
+                    LogAnalyzer.LogStats stats = get();
+                    StringBuilder sb = new StringBuilder("Statistics: " + stats.getLines() + " lines");
+                    if (stats.getFirst() != null && stats.getLast() != null) {
+                        sb.append(", ").append(formatTimestamp(stats.getFirst()))
+                                .append(" to ").append(formatTimestamp(stats.getLast()));
+                    }
+                    if (stats.getBytesPerDay() >= 0) {
+                        sb.append(", ").append(FormatUtils.formatSize((long) stats.getBytesPerDay())).append("/day")
+                                .append(" (").append((long) stats.getLinesPerDay()).append(" lines)");
+                    }
+                    statsLabel.setText(sb.toString());
+                } catch (Exception ex) {
+                    logger.warn("Error reading log: " + fn.getPath(), ex);
+                    statsLabel.setText("Statistics: (log read error)");
+                }
+            }
+        }.execute();
+    }
+
+    private static String formatTimestamp(LocalDateTime time) {
+        return FormatUtils.formatDate(time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
 
     private void clearProps() {
         nameLabel.setText("Name: (not selected)");
@@ -490,19 +1022,22 @@ public class MainFrame extends JFrame {
     }
 
     private void deleteSelected() {
-        logger.debug("Deleting selected file/folder");
+        logger.debug("Deleting selected files/folders");
 
-        FileNode fn = getSelectedFileNode();
-        if (fn == null) {
+        List<DefaultMutableTreeNode> treeNodes = getSelectedTreeNodes();
+        List<FileNode> nodes = toFileNodes(treeNodes);
+
+        if (nodes.isEmpty()) {
             logger.warn("Attempted deletion without selected element");
             JOptionPane.showMessageDialog(this, "Select a file or folder to delete.",
                     "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        logger.info("Delete confirmation requested: " + fn.getName());
+        String what = nodes.size() == 1 ? "\"" + nodes.get(0).getName() + "\"" : nodes.size() + " elements";
+        logger.info("Delete confirmation requested: " + what);
         int res = JOptionPane.showConfirmDialog(this,
-                "Delete \"" + fn.getName() + "\"?\nThis action cannot be undone.",
+                "Delete " + what + "?\nThis action cannot be undone.",
                 "Delete Confirmation",
                 JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
         if (res != JOptionPane.YES_OPTION) {
@@ -510,32 +1045,331 @@ public class MainFrame extends JFrame {
             return;
         }
 
-        try {
-            Path p = fn.getPath();
-            if (fn.isDirectory()) {
-                try (var stream = Files.walk(p)) {
-                    stream.sorted((a, b) -> b.compareTo(a))
-                            .forEach(path -> {
-                                try {
-                                    Files.delete(path);
-                                } catch (Exception ignored) {}
-                            });
+        FileNode root = getRootFileNode();
+        CancellationToken token = startOperation("Deleting...");
+        new SwingWorker<OperationResult, String>() {
+            private FileTableModel tableModel;
+
+            @Override
+            protected OperationResult doInBackground() {
+                OperationResult result = FileSystemService.deleteNodes(nodes, (completed, total, current) ->
+                        publish("Deleting... " + completed + " / " + total), token);
+                tableModel = refreshTotals(root);
+                return result;
+            }
+
+            @Override
+            protected void process(List<String> chunks) {
+                statusLabel.setText(chunks.get(chunks.size() - 1));
+            }
+
+            @Override
+            protected void done() {
+                finishOperation();
+                try {
+                    OperationResult result = get();
+                    syncTreeNodes(treeNodes);
+                    setFileTableModel(tableModel);
+                    clearProps();
+                    reportResult("Delete", result);
+                } catch (Exception ex) {
+                    statusLabel.setText("Delete error");
+                    statusLabel.setForeground(FlatUITheme.ERROR);
+                    logger.error("Error deleting files", ex);
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Delete error: " + ex.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
                 }
-            } else {
-                Files.delete(p);
             }
-            analyze();
-            statusLabel.setText("Delete completed");
+        }.execute();
+    }
+
+    private void transferSelected(boolean move) {
+        String operation = move ? "Move" : "Copy";
+        logger.debug(operation + " of selected files/folders");
+
+        List<DefaultMutableTreeNode> treeNodes = getSelectedTreeNodes();
+        List<FileNode> nodes = toFileNodes(treeNodes);
+        if (nodes.isEmpty()) {
+            logger.warn("Attempted " + operation.toLowerCase() + " without selected element");
+            JOptionPane.showMessageDialog(this, "Select a file or folder to " + operation.toLowerCase() + ".",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        chooser.setDialogTitle(operation + " To");
+        if (chooser.showDialog(this, operation) != JFileChooser.APPROVE_OPTION) {
+            logger.debug(operation + " cancelled by user");
+            return;
+        }
+
+        Path targetDir = chooser.getSelectedFile().toPath().toAbsolutePath();
+        // The target may be past the pages shown so far, they are loaded to find it
+        DefaultMutableTreeNode targetTreeNode = findTreeNode(targetDir, true);
+        FileNode targetNode = targetTreeNode != null ? (FileNode) targetTreeNode.getUserObject() : null;
+        logger.info(operation + " of " + nodes.size() + " element(s) to " + targetDir);
+
+        FileNode root = getRootFileNode();
+        CancellationToken token = startOperation(operation + "...");
+        new SwingWorker<OperationResult, String>() {
+            private FileTableModel tableModel;
+
+            @Override
+            protected OperationResult doInBackground() {
+                ProgressListener listener = (completed, total, current) ->
+                        publish(operation + "... " + completed + " / " + total);
+                OperationResult result = move
+                        ? FileSystemService.moveNodes(nodes, targetDir, targetNode, listener, token)
+                        : FileSystemService.copyNodes(nodes, targetDir, targetNode, listener, token);
+                tableModel = refreshTotals(root);
+                return result;
+            }
+
+            @Override
+            protected void process(List<String> chunks) {
+                statusLabel.setText(chunks.get(chunks.size() - 1));
+            }
+
+            @Override
+            protected void done() {
+                finishOperation();
+                try {
+                    OperationResult result = get();
+                    if (move) {
+                        syncTreeNodes(treeNodes);
+                    }
+                    if (targetTreeNode != null) {
+                        syncTreeNodes(Collections.singletonList(targetTreeNode));
+                    }
+                    setFileTableModel(tableModel);
+                    reportResult(operation, result);
+                } catch (Exception ex) {
+                    statusLabel.setText(operation + " error");
+                    statusLabel.setForeground(FlatUITheme.ERROR);
+                    logger.error("Error during " + operation.toLowerCase(), ex);
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            operation + " error: " + ex.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Recalculates folder sizes after the tree was changed and builds new file table.
+     * Runs in the background thread of an operation.
+     */
+    private static FileTableModel refreshTotals(FileNode root) {
+        if (root == null) {
+            return null;
+        }
+        root.updateTotals();
+        return FileTableModel.fromTree(root);
+    }
+
+    private FileNode getRootFileNode() {
+        Object root = ((DefaultMutableTreeNode) tree.getModel().getRoot()).getUserObject();
+        return root instanceof FileNode ? (FileNode) root : null;
+    }
+
+    /**
+     * Shows new file table, keeping the sort order of the previous one.
+     */
+    private void setFileTableModel(FileTableModel model) {
+        if (model == null) {
+            model = new FileTableModel();
+        }
+        if (fileTableModel.getSortColumn() >= 0) {
+            model.sortBy(fileTableModel.getSortColumn(), fileTableModel.isAscending());
+        }
+        fileTableModel = model;
+        fileTable.setModel(model);
+        updateTableHeader();
+    }
+
+    private void updateTableHeader() {
+        for (int i = 0; i < fileTable.getColumnCount(); i++) {
+            int column = fileTable.convertColumnIndexToModel(i);
+            fileTable.getColumnModel().getColumn(i).setHeaderValue(fileTableModel.getColumnName(column));
+        }
+        fileTable.getTableHeader().repaint();
+    }
+
+    private List<DefaultMutableTreeNode> getSelectedTreeNodes() {
+        List<DefaultMutableTreeNode> treeNodes = new ArrayList<>();
+        TreePath[] selection = tree.getSelectionPaths();
+        if (selection != null) {
+            for (TreePath treePath : selection) {
+                DefaultMutableTreeNode treeNode = (DefaultMutableTreeNode) treePath.getLastPathComponent();
+                // Off-heap trees are read-only
+                if (treeNode.getUserObject() instanceof FileNode && !(treeNode instanceof OffHeapTreeNode)) {
+                    treeNodes.add(treeNode);
+                }
+            }
+        }
+        return treeNodes;
+    }
+
+    private static List<FileNode> toFileNodes(List<DefaultMutableTreeNode> treeNodes) {
+        List<FileNode> nodes = new ArrayList<>(treeNodes.size());
+        for (DefaultMutableTreeNode treeNode : treeNodes) {
+            nodes.add((FileNode) treeNode.getUserObject());
+        }
+        return nodes;
+    }
+
+    /**
+     * Finds tree node of a folder by walking down from the root.
+     *
+     * @return tree node or null if the folder is not part of the tree
+     *         or is not on a page shown so far
+     */
+    private DefaultMutableTreeNode findTreeNode(Path dir) {
+        return findTreeNode(dir, false);
+    }
+
+    /**
+     * Finds tree node of a folder by walking down from the root.
+     *
+     * @param showPages whether the pages of large folders are shown until the folder is found
+     * @return tree node or null if the folder is not part of the tree
+     */
+    private DefaultMutableTreeNode findTreeNode(Path dir, boolean showPages) {
+        DefaultMutableTreeNode current = (DefaultMutableTreeNode) tree.getModel().getRoot();
+        if (!(current.getUserObject() instanceof FileNode)) {
+            return null;
+        }
+        Path rootPath = ((FileNode) current.getUserObject()).getPath().toAbsolutePath();
+        if (!dir.startsWith(rootPath)) {
+            return null;
+        }
+        for (Path name : rootPath.relativize(dir)) {
+            if (name.toString().isEmpty()) {
+                continue;
+            }
+            DefaultMutableTreeNode next = findChild(current, name.toString(), 0);
+            if (next == null && showPages && hasChild((FileNode) current.getUserObject(), name.toString())) {
+                while (next == null && current.getChildCount() > 0
+                        && current.getLastChild() instanceof MoreTreeNode) {
+                    next = findChild(current, name.toString(), showPage((MoreTreeNode) current.getLastChild()));
+                }
+            }
+            if (next == null) {
+                return null;
+            }
+            current = next;
+        }
+        return ((FileNode) current.getUserObject()).isDirectory() ? current : null;
+    }
+
+    private static DefaultMutableTreeNode findChild(DefaultMutableTreeNode treeNode, String name, int from) {
+        for (int i = from; i < treeNode.getChildCount(); i++) {
+            DefaultMutableTreeNode child = (DefaultMutableTreeNode) treeNode.getChildAt(i);
+            if (child.getUserObject() instanceof FileNode
+                    && ((FileNode) child.getUserObject()).getName().equals(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasChild(FileNode dir, String name) {
+        for (FileNode child : dir.getChildren()) {
+            if (child.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updates tree view after the model was changed in place:
+     * removes nodes that no longer exist and rebuilds the others.
+     */
+    private void syncTreeNodes(List<DefaultMutableTreeNode> treeNodes) {
+        DefaultTreeModel model = (DefaultTreeModel) tree.getModel();
+        for (DefaultMutableTreeNode treeNode : treeNodes) {
+            FileNode fn = (FileNode) treeNode.getUserObject();
+            if (Files.notExists(fn.getPath(), LinkOption.NOFOLLOW_LINKS)) {
+                if (treeNode.getParent() != null) {
+                    model.removeNodeFromParent(treeNode);
+                } else {
+                    tree.setModel(new DefaultTreeModel(new DefaultMutableTreeNode("No data")));
+                    return;
+                }
+            } else if (fn.isDirectory()) {
+                treeNode.removeAllChildren();
+                addChildNodes(treeNode, fn, 0);
+                model.nodeStructureChanged(treeNode);
+            }
+        }
+    }
+
+    private CancellationToken startOperation(String status) {
+        // File operations change the tree, background listing and measuring must not race with them
+        if (lazyScanner != null) {
+            lazyScanner.pause();
+        }
+        operationToken = new CancellationToken();
+        statusLabel.setText(status);
+        statusLabel.setForeground(FlatUITheme.INFO);
+        analyzeBtn.setEnabled(false);
+        deleteBtn.setEnabled(false);
+        copyToBtn.setEnabled(false);
+        moveToBtn.setEnabled(false);
+        cancelBtn.setEnabled(true);
+        return operationToken;
+    }
+
+    private void finishOperation() {
+        operationToken = null;
+        FileNode root = getRootFileNode();
+        if (lazyScanner != null && root != null) {
+            lazyScanner.resume(root);
+        }
+        analyzeBtn.setEnabled(true);
+        deleteBtn.setEnabled(true);
+        copyToBtn.setEnabled(true);
+        moveToBtn.setEnabled(true);
+        cancelBtn.setEnabled(false);
+    }
+
+    private void cancelOperation() {
+        if (operationToken != null) {
+            logger.info("Cancelling running operation");
+            operationToken.cancel();
+            statusLabel.setText("Cancelling...");
+        }
+    }
+
+    private void reportResult(String operation, OperationResult result) {
+        Map<Path, IOException> failures = result.getFailures();
+        if (result.isSuccessful()) {
+            statusLabel.setText(operation + " completed: " + result.getCompleted() + " elements");
             statusLabel.setForeground(FlatUITheme.SUCCESS);
-            logger.info("Deleted: " + p);
-        } catch (Exception ex) {
-            statusLabel.setText("Delete error");
+        } else if (result.isCancelled() && failures.isEmpty()) {
+            statusLabel.setText(operation + " cancelled: " + result.getCompleted() + " of "
+                    + result.getTotal() + " elements");
+            statusLabel.setForeground(FlatUITheme.WARNING);
+        } else {
+            statusLabel.setText(operation + " finished with " + failures.size() + " error(s)");
             statusLabel.setForeground(FlatUITheme.ERROR);
-            logger.error("Error deleting file", ex);
-            JOptionPane.showMessageDialog(this,
-                    "Delete error: " + ex.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
+
+            StringBuilder sb = new StringBuilder();
+            int shown = 0;
+            for (Map.Entry<Path, IOException> entry : failures.entrySet()) {
+                if (shown++ == 10) {
+                    sb.append("... and ").append(failures.size() - 10).append(" more");
+                    break;
+                }
+                sb.append(entry.getKey()).append(": ").append(entry.getValue().getMessage()).append('\n');
+            }
+            JOptionPane.showMessageDialog(this, sb.toString(),
+                    operation + " Errors", JOptionPane.ERROR_MESSAGE);
         }
+        logger.info(operation + " result: " + result);
     }
 
     private void renameFile() {
@@ -718,7 +1552,8 @@ public class MainFrame extends JFrame {
                 if (obj instanceof FileNode) {
                     FileNode fn = (FileNode) obj;
                     String prefix = fn.isDirectory() ? "[D] " : "[F] ";
-                    setText(prefix + fn.getName());
+                    String size = fn.isTotalsKnown() ? FormatUtils.formatSize(fn.getTotalSize()) : "...";
+                    setText(prefix + fn.getName() + "  (" + size + ")");
                 }
             }
             setFont(new Font("Segoe UI", Font.PLAIN, 11));
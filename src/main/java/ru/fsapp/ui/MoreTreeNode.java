@@ -0,0 +1,39 @@
+package ru.fsapp.ui;
+
+import ru.fsapp.model.FileNode;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+
+/**
+ * Last node of a page of a large folder, standing for the elements that
+ * are not shown yet. Selecting it shows the next page in its place.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+class MoreTreeNode extends DefaultMutableTreeNode {
+
+    private final transient FileNode dir;
+    private final int offset;
+
+    /**
+     * Creates node.
+     *
+     * @param dir folder being shown
+     * @param offset index of the first child not shown yet
+     */
+    MoreTreeNode(FileNode dir, int offset) {
+        super("... " + (dir.getChildren().size() - offset) + " more elements, select to show", false);
+        this.dir = dir;
+        this.offset = offset;
+    }
+
+    FileNode getDir() {
+        return dir;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.fsapp.ui;
+
+import ru.fsapp.model.FileNode;
+import ru.fsapp.service.OffHeapTree;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreeNode;
+import java.util.Enumeration;
+
+/**
+ * Tree node showing one element of an {@link OffHeapTree}.
+ * Children are created when the tree asks for them, usually on expansion,
+ * so the heap holds only the nodes of expanded folders.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+class OffHeapTreeNode extends DefaultMutableTreeNode {
+
+    private final transient OffHeapTree store;
+    private final int id;
+    private boolean loaded;
+
+    /**
+     * Creates node.
+     *
+     * @param store off-heap tree
+     * @param id node id in the store
+     */
+    OffHeapTreeNode(OffHeapTree store, int id) {
+        super(store.toFileNode(id), store.isDirectory(id));
+        this.store = store;
+        this.id = id;
+    }
+
+    /**
+     * Creates child nodes if they were not created yet.
+     */
+    void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        FileNode node = (FileNode) getUserObject();
+        int count = store.getChildCount(id);
+        for (int i = 0; i < count; i++) {
+            OffHeapTreeNode child = new OffHeapTreeNode(store, store.getChild(id, i));
+            add(child);
+            node.addChild((FileNode) child.getUserObject());
+        }
+    }
+
+    @Override
+    public int getChildCount() {
+        load();
+        return super.getChildCount();
+    }
+
+    @Override
+    public TreeNode getChildAt(int index) {
+        load();
+        return super.getChildAt(index);
+    }
+
+    @Override
+    public int getIndex(TreeNode child) {
+        load();
+        return super.getIndex(child);
+    }
+
+    @Override
+    public Enumeration<TreeNode> children() {
+        load();
+        return super.children();
+    }
+}
@@ -0,0 +1,245 @@
+package ru.fsapp.util;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+
+/**
+ * File count, folder count and total file size of a folder, read in one
+ * pass over the tree.
+ *
+ * The attributes the walk reads for every element are used for all three
+ * numbers, so each element costs one file system call. Links are not
+ * followed into folders; a link to a file counts as a file of the size of
+ * its target, a link to a folder as a folder. A link given as the folder
+ * to count is followed. Elements that cannot be read are skipped.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public final class DirectoryStats {
+
+    /** Pools by parallelism, shared by all walks; their threads are daemons. */
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private long files;
+    private long directories;
+    private long totalSize;
+
+    private DirectoryStats() {
+    }
+
+    /**
+     * Walks a folder on the calling thread.
+     *
+     * @param dir folder to count
+     * @return statistics, all zero if the folder cannot be read
+     */
+    public static DirectoryStats of(Path dir) {
+        return walk(start(dir));
+    }
+
+    private static DirectoryStats walk(Path dir) {
+        DirectoryStats stats = new DirectoryStats();
+        if (dir == null) {
+            return stats;
+        }
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
+                    if (!d.equals(dir)) {
+                        stats.directories++;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    stats.add(file, attrs);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    // A folder that cannot be listed still counts as a folder
+                    if (!file.equals(dir) && Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+                        stats.directories++;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            // Not thrown by this visitor
+        }
+        return stats;
+    }
+
+    /**
+     * Walks a folder with a shared fork-join pool, one task per subfolder.
+     *
+     * @param dir folder to count
+     * @param parallelism number of threads
+     * @return statistics, all zero if the folder cannot be read
+     */
+    public static DirectoryStats parallel(Path dir, int parallelism) {
+        return parallel(dir, parallelism, () -> false);
+    }
+
+    /**
+     * Walks a folder with a fork-join pool, one task per subfolder, until
+     * the walk is cancelled. Pools are shared, so a walk that is no longer
+     * needed should be cancelled to free the threads for the next one.
+     *
+     * @param dir folder to count
+     * @param parallelism number of threads
+     * @param cancelled checked before each folder is listed
+     * @return statistics, of what was counted before the walk was cancelled
+     */
+    public static DirectoryStats parallel(Path dir, int parallelism, BooleanSupplier cancelled) {
+        Path start = start(dir);
+        if (parallelism <= 1 || start == null || !Files.isDirectory(start, LinkOption.NOFOLLOW_LINKS)) {
+            return walk(start);
+        }
+        ForkJoinPool pool = POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+        return pool.invoke(new CountTask(start, cancelled));
+    }
+
+    /**
+     * Returns the folder a walk starts from: the target if the folder is
+     * given as a link, which the walk would otherwise count as one element.
+     *
+     * @return folder, or null if it is a broken link
+     */
+    private static Path start(Path dir) {
+        if (!Files.isSymbolicLink(dir)) {
+            return dir;
+        }
+        try {
+            return dir.toRealPath();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Counts one element that is not a folder of the walk.
+     */
+    private void add(Path file, BasicFileAttributes attrs) {
+        if (attrs.isRegularFile()) {
+            files++;
+            totalSize += attrs.size();
+        } else if (attrs.isSymbolicLink()) {
+            // Only links need a second call, to read their target
+            try {
+                BasicFileAttributes target = Files.readAttributes(file, BasicFileAttributes.class);
+                if (target.isRegularFile()) {
+                    files++;
+                    totalSize += target.size();
+                } else if (target.isDirectory()) {
+                    directories++;
+                }
+            } catch (IOException e) {
+                // Broken link
+            }
+        }
+    }
+
+    private void merge(DirectoryStats other) {
+        files += other.files;
+        directories += other.directories;
+        totalSize += other.totalSize;
+    }
+
+    /**
+     * Returns number of files, links to files included.
+     *
+     * @return file count
+     */
+    public long getFiles() {
+        return files;
+    }
+
+    /**
+     * Returns number of folders below the folder, without the folder itself.
+     *
+     * @return folder count
+     */
+    public long getDirectories() {
+        return directories;
+    }
+
+    /**
+     * Returns sum of file sizes.
+     *
+     * @return size in bytes
+     */
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    @Override
+    public String toString() {
+        return files + " files, " + directories + " folders, " + totalSize + " bytes";
+    }
+
+    /**
+     * Lists one folder and forks a task for each subfolder.
+     */
+    private static class CountTask extends RecursiveTask<DirectoryStats> {
+        private final Path dir;
+        private final BooleanSupplier cancelled;
+
+        CountTask(Path dir, BooleanSupplier cancelled) {
+            this.dir = dir;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected DirectoryStats compute() {
+            DirectoryStats stats = new DirectoryStats();
+            if (cancelled.getAsBoolean()) {
+                return stats;
+            }
+            List<CountTask> tasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        stats.directories++;
+                        CountTask task = new CountTask(entry, cancelled);
+                        task.fork();
+                        tasks.add(task);
+                    } else {
+                        stats.add(entry, attrs);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // Not readable, or failed while listing: count what was read
+            }
+            for (CountTask task : tasks) {
+                stats.merge(task.join());
+            }
+            return stats;
+        }
+    }
+}
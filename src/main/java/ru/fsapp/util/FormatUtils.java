@@ -3,10 +3,12 @@ package ru.fsapp.util;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 /**
@@ -17,27 +19,48 @@ import java.util.stream.Collectors;
  * Uses Stream API for filtering, searching and collecting files.
  *
  * @author Student
- * @version 1.1
+ * @version 1.2
  * @since 2025-12-05
  */
 public class FormatUtils {
 
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd.MM.yyyy HH:mm:ss");
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private static final String[] UNITS = {"B", "KB", "MB", "GB", "TB"};
 
     /**
      * Formats file size in readable view (B, KB, MB, GB, TB).
      *
      * Converts number of bytes to human-readable format with units.
-     * Uses decimal logarithmic scale to determine the unit.
+     * The unit is found from the highest set bit, the value is rounded
+     * to two decimals and written into one small char array, so the
+     * method is thread-safe and creates only the resulting string.
      *
      * @param bytes number of bytes to format
      * @return formatted string like "123.45 MB"
      */
     public static String formatSize(long bytes) {
         if (bytes <= 0) return "0 B";
-        final String[] units = new String[]{"B", "KB", "MB", "GB", "TB"};
-        int digitGroups = (int) (Math.log10(bytes) / Math.log10(1024));
-        return String.format("%.2f %s", bytes / Math.pow(1024, digitGroups), units[digitGroups]);
+        int digitGroups = Math.min(UNITS.length - 1, (63 - Long.numberOfLeadingZeros(bytes)) / 10);
+        long hundredths = Math.round(bytes * 100.0 / (1L << (10 * digitGroups)));
+        String unit = UNITS[digitGroups];
+
+        char[] buf = new char[24];
+        int pos = buf.length;
+        for (int i = unit.length() - 1; i >= 0; i--) {
+            buf[--pos] = unit.charAt(i);
+        }
+        buf[--pos] = ' ';
+        buf[--pos] = (char) ('0' + hundredths % 10);
+        buf[--pos] = (char) ('0' + hundredths / 10 % 10);
+        buf[--pos] = '.';
+        long whole = hundredths / 100;
+        do {
+            buf[--pos] = (char) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole != 0);
+        return new String(buf, pos, buf.length - pos);
     }
 
     /**
@@ -58,64 +81,101 @@ public class FormatUtils {
     public static String formatDate(Object time) {
         if (time instanceof java.nio.file.attribute.FileTime) {
             java.nio.file.attribute.FileTime fileTime = (java.nio.file.attribute.FileTime) time;
-            return DATE_FORMAT.format(new Date(fileTime.toMillis()));
+            return DATE_FORMAT.format(fileTime.toInstant());
         } else if (time instanceof Long) {
-            return DATE_FORMAT.format(new Date((Long) time));
+            return formatDate(((Long) time).longValue());
         }
         return "—";
     }
 
     /**
-     * Counts number of files in directory recursively using Stream API.
+     * Formats milliseconds since 1970 without boxing.
+     * Uses immutable {@link DateTimeFormatter}, safe to call from any thread.
+     *
+     * @param millis number of milliseconds since 1970
+     * @return formatted date string dd.MM.yyyy HH:mm:ss
+     */
+    public static String formatDate(long millis) {
+        return DATE_FORMAT.format(Instant.ofEpochMilli(millis));
+    }
+
+    /**
+     * Counts files, folders and total size of a directory in one pass.
+     *
+     * Callers that need more than one of the numbers should use this
+     * instead of the separate methods, each of which walks the tree.
+     *
+     * @param dir path to directory for counting
+     * @return statistics, all zero if error
+     *
+     * @see DirectoryStats
+     */
+    public static DirectoryStats directoryStats(Path dir) {
+        return DirectoryStats.of(dir);
+    }
+
+    /**
+     * Counts files, folders and total size of a directory in one pass
+     * on a fork-join pool, for large trees.
+     *
+     * @param dir path to directory for counting
+     * @param parallelism number of threads
+     * @return statistics, all zero if error
+     *
+     * @see #directoryStats(Path)
+     */
+    public static DirectoryStats directoryStats(Path dir, int parallelism) {
+        return DirectoryStats.parallel(dir, parallelism);
+    }
+
+    /**
+     * Counts files, folders and total size of a directory in one pass
+     * on a shared fork-join pool, stopping early when cancelled.
+     *
+     * @param dir path to directory for counting
+     * @param parallelism number of threads
+     * @param cancelled checked before each folder is listed
+     * @return statistics of what was counted
      *
-     * Walks through entire folder tree and counts only regular files,
-     * excluding folders. Uses Stream API for filtering.
+     * @see #directoryStats(Path, int)
+     */
+    public static DirectoryStats directoryStats(Path dir, int parallelism, BooleanSupplier cancelled) {
+        return DirectoryStats.parallel(dir, parallelism, cancelled);
+    }
+
+    /**
+     * Counts number of files in directory recursively.
+     *
+     * Walks through entire folder tree and counts regular files
+     * and links to them, excluding folders.
      * Ignores access errors.
      *
      * @param dir path to directory for counting
      * @return number of found files, 0 if error or folder is empty
      *
-     * @see #countDirectories(Path)
-     * @see #calculateTotalSize(Path)
+     * @see #directoryStats(Path)
      */
     public static long countFiles(Path dir) {
-        try {
-            return Files.walk(dir)
-                    .filter(Files::isRegularFile)
-                    .count();
-        } catch (Exception e) {
-            return 0;
-        }
+        return directoryStats(dir).getFiles();
     }
 
     /**
-     * Counts number of directories in directory recursively using Stream API.
-     *
-     * Walks through entire folder tree and counts only subdirectories,
-     * excluding the root folder itself (hence "-1" at the end).
-     * Uses Stream API for filtering.
+     * Counts number of directories in directory recursively,
+     * excluding the root folder itself.
      * Ignores access errors.
      *
      * @param dir path to directory for counting
      * @return number of found subdirectories (minus the folder itself), 0 if error
      *
-     * @see #countFiles(Path)
-     * @see #calculateTotalSize(Path)
+     * @see #directoryStats(Path)
      */
     public static long countDirectories(Path dir) {
-        try {
-            return Files.walk(dir)
-                    .filter(Files::isDirectory)
-                    .count() - 1;
-        } catch (Exception e) {
-            return 0;
-        }
+        return directoryStats(dir).getDirectories();
     }
 
     /**
-     * Calculates total size of all files in directory recursively using Stream API.
+     * Calculates total size of all files in directory recursively.
      *
-     * Sums sizes of all files in all subdirectories using mapToLong and sum operations.
      * Files that cannot be accessed are ignored (do not cause error).
      * Folder sizes are not counted.
      *
@@ -123,23 +183,10 @@ public class FormatUtils {
      * @return total size of all files in bytes, 0 if error
      *
      * @see #formatSize(long) for converting to readable format
-     * @see #countFiles(Path)
+     * @see #directoryStats(Path)
      */
     public static long calculateTotalSize(Path dir) {
-        try {
-            return Files.walk(dir)
-                    .filter(Files::isRegularFile)
-                    .mapToLong(path -> {
-                        try {
-                            return Files.size(path);
-                        } catch (Exception e) {
-                            return 0;
-                        }
-                    })
-                    .sum();
-        } catch (Exception e) {
-            return 0;
-        }
+        return directoryStats(dir).getTotalSize();
     }
 
     /**
@@ -0,0 +1,371 @@
+package ru.fsapp.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact immutable list of sorted names.
+ *
+ * Names are split into blocks. The first name of a block is stored in full,
+ * every following name as the length of the prefix shared with the previous
+ * name plus the rest, so {@code part-00001.parquet}, {@code part-00002.parquet}
+ * cost a few bytes each. The coded rest of a block is deflated when that makes
+ * it smaller. Block offsets form the index: a name is found by binary search
+ * over the uncompressed first names and decoding one block.
+ * The last decoded block is kept, so reading names in order decodes each block once.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public final class FrontCodedNames extends AbstractList<String> {
+
+    /**
+     * Default number of names per block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    /** Coded rests shorter than this are not worth deflating. */
+    private static final int MIN_DEFLATE_LENGTH = 64;
+
+    private static final int RAW = 0;
+    private static final int DEFLATED = 1;
+
+    private final int size;
+    private final int blockSize;
+    private final byte[] data;
+    private final int[] offsets;
+    private volatile DecodedBlock last;
+
+    private FrontCodedNames(int size, int blockSize, byte[] data, int[] offsets) {
+        this.size = size;
+        this.blockSize = blockSize;
+        this.data = data;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Encodes names in sorted order.
+     *
+     * @param names names in any order
+     * @return encoded names
+     */
+    public static FrontCodedNames of(Collection<String> names) {
+        List<String> sorted = new ArrayList<>(names);
+        Collections.sort(sorted);
+        return ofSorted(sorted, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Encodes names that are already sorted.
+     *
+     * @param sorted names in {@link String#compareTo} order
+     * @param blockSize number of names per block
+     * @return encoded names
+     * @throws IllegalArgumentException if names are not sorted or block size is not positive
+     */
+    public static FrontCodedNames ofSorted(List<String> sorted, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        int size = sorted.size();
+        int[] offsets = new int[(size + blockSize - 1) / blockSize];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream rest = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] deflated = new byte[256];
+        try {
+            String previousName = null;
+            byte[] previous = null;
+            for (int i = 0; i < size; i++) {
+                String name = sorted.get(i);
+                if (previousName != null && previousName.compareTo(name) > 0) {
+                    throw new IllegalArgumentException("Names are not sorted: " + previousName + ", " + name);
+                }
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                if (i % blockSize == 0) {
+                    if (i > 0) {
+                        deflated = writeRest(out, rest, deflater, deflated);
+                    }
+                    offsets[i / blockSize] = out.size();
+                    VarInts.write(out, bytes.length);
+                    out.write(bytes);
+                } else {
+                    int shared = sharedPrefix(previous, bytes);
+                    VarInts.write(rest, shared);
+                    VarInts.write(rest, bytes.length - shared);
+                    rest.write(bytes, shared, bytes.length - shared);
+                }
+                previousName = name;
+                previous = bytes;
+            }
+            if (size > 0) {
+                writeRest(out, rest, deflater, deflated);
+            }
+        } catch (IOException e) {
+            // Byte array streams do not fail
+            throw new IllegalStateException(e);
+        } finally {
+            deflater.end();
+        }
+        return new FrontCodedNames(size, blockSize, out.toByteArray(), offsets);
+    }
+
+    private static byte[] writeRest(ByteArrayOutputStream out, ByteArrayOutputStream rest,
+                                    Deflater deflater, byte[] buffer) throws IOException {
+        byte[] raw = rest.toByteArray();
+        rest.reset();
+        int length = 0;
+        if (raw.length >= MIN_DEFLATE_LENGTH) {
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            while (!deflater.finished() && length < raw.length) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+        }
+        if (length > 0 && deflater.finished() && length < raw.length) {
+            out.write(DEFLATED);
+            VarInts.write(out, raw.length);
+            VarInts.write(out, length);
+            out.write(buffer, 0, length);
+        } else {
+            out.write(RAW);
+            VarInts.write(out, raw.length);
+            out.write(raw);
+        }
+        return buffer;
+    }
+
+    private static int sharedPrefix(byte[] a, byte[] b) {
+        int max = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < max && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return decode(index / blockSize)[index % blockSize];
+    }
+
+    /**
+     * Finds position of a name by binary search.
+     *
+     * @param o name to find
+     * @return index of the name, or -1 if it is not in the list
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof String)) {
+            return -1;
+        }
+        String name = (String) o;
+        int low = 0;
+        int high = offsets.length - 1;
+        int block = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = head(mid).compareTo(name);
+            if (cmp == 0) {
+                return mid * blockSize;
+            }
+            if (cmp < 0) {
+                block = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (block < 0) {
+            return -1;
+        }
+        String[] names = decode(block);
+        int found = Arrays.binarySearch(names, name);
+        return found >= 0 ? block * blockSize + found : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Returns number of names per block.
+     *
+     * @return block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns size of the encoded names.
+     *
+     * @return bytes of names and block index
+     */
+    public long getByteSize() {
+        return data.length + 4L * offsets.length;
+    }
+
+    /**
+     * Writes encoded names. Block offsets are not written, they are found again on reading.
+     *
+     * @param out target stream
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        VarInts.write(out, size);
+        if (size == 0) {
+            return;
+        }
+        VarInts.write(out, blockSize);
+        VarInts.write(out, data.length);
+        out.write(data);
+    }
+
+    /**
+     * Reads names written by {@link #writeTo}.
+     *
+     * @param in source stream
+     * @return encoded names
+     * @throws IOException if reading fails or the data is malformed
+     */
+    public static FrontCodedNames readFrom(InputStream in) throws IOException {
+        int size = VarInts.readInt(in);
+        if (size == 0) {
+            return new FrontCodedNames(0, DEFAULT_BLOCK_SIZE, new byte[0], new int[0]);
+        }
+        int blockSize = VarInts.readInt(in);
+        byte[] data = VarInts.readBytes(in, VarInts.readInt(in));
+        if (blockSize < 1) {
+            throw new IOException("Invalid block size: " + blockSize);
+        }
+        int[] offsets = new int[(size + blockSize - 1) / blockSize];
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            for (int block = 0; block < offsets.length; block++) {
+                offsets[block] = buffer.position();
+                skip(buffer, (int) VarInts.read(buffer));
+                int mode = buffer.get();
+                int length = (int) VarInts.read(buffer);
+                skip(buffer, mode == DEFLATED ? (int) VarInts.read(buffer) : length);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed names: " + e.getMessage(), e);
+        }
+        return new FrontCodedNames(size, blockSize, data, offsets);
+    }
+
+    private static void skip(ByteBuffer buffer, int length) {
+        buffer.position(buffer.position() + length);
+    }
+
+    private String head(int block) {
+        ByteBuffer buffer = ByteBuffer.wrap(data, offsets[block], data.length - offsets[block]);
+        int length = (int) VarInts.read(buffer);
+        return new String(data, buffer.position(), length, StandardCharsets.UTF_8);
+    }
+
+    private String[] decode(int block) {
+        DecodedBlock cached = last;
+        if (cached != null && cached.block == block) {
+            return cached.names;
+        }
+        int count = Math.min(blockSize, size - block * blockSize);
+        String[] names = new String[count];
+
+        ByteBuffer buffer = ByteBuffer.wrap(data, offsets[block], data.length - offsets[block]);
+        int headLength = (int) VarInts.read(buffer);
+        byte[] previous = new byte[Math.max(headLength, 64)];
+        buffer.get(previous, 0, headLength);
+        int previousLength = headLength;
+        names[0] = new String(previous, 0, headLength, StandardCharsets.UTF_8);
+
+        ByteBuffer rest = rest(buffer);
+        for (int i = 1; i < count; i++) {
+            int shared = (int) VarInts.read(rest);
+            int suffix = (int) VarInts.read(rest);
+            if (shared > previousLength) {
+                throw new IllegalStateException("Malformed block " + block);
+            }
+            if (shared + suffix > previous.length) {
+                previous = Arrays.copyOf(previous, Math.max(shared + suffix, previous.length * 2));
+            }
+            rest.get(previous, shared, suffix);
+            previousLength = shared + suffix;
+            names[i] = new String(previous, 0, previousLength, StandardCharsets.UTF_8);
+        }
+        last = new DecodedBlock(block, names);
+        return names;
+    }
+
+    private static ByteBuffer rest(ByteBuffer buffer) {
+        int mode = buffer.get();
+        int length = (int) VarInts.read(buffer);
+        if (mode == RAW) {
+            return ByteBuffer.wrap(buffer.array(), buffer.position(), length);
+        }
+        int stored = (int) VarInts.read(buffer);
+        byte[] raw = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.array(), buffer.position(), stored);
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IllegalStateException("Truncated block: " + read + " of " + length + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt block: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    /**
+     * Names of the last decoded block.
+     */
+    private static class DecodedBlock {
+        private final int block;
+        private final String[] names;
+
+        DecodedBlock(int block, String[] names) {
+            this.block = block;
+            this.names = names;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.fsapp.util;
+
+/**
+ * Stable sort of primitive int index arrays.
+ *
+ * Sorts row indexes by a comparator over indexes, so large tables can be
+ * ordered without boxing every row into an {@code Integer}.
+ * Merge sort with insertion sort for short runs.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public final class IndexSorter {
+
+    private static final int INSERTION_THRESHOLD = 32;
+
+    private IndexSorter() {
+    }
+
+    /**
+     * Comparator of two indexes.
+     */
+    @FunctionalInterface
+    public interface IndexComparator {
+
+        /**
+         * Compares elements at two indexes.
+         *
+         * @param left first index
+         * @param right second index
+         * @return negative, zero or positive as in {@link java.util.Comparator}
+         */
+        int compare(int left, int right);
+    }
+
+    /**
+     * Creates array 0, 1, ..., size - 1.
+     *
+     * @param size array size
+     * @return identity index array
+     */
+    public static int[] identity(int size) {
+        int[] index = new int[size];
+        for (int i = 0; i < size; i++) {
+            index[i] = i;
+        }
+        return index;
+    }
+
+    /**
+     * Sorts index array in place, keeping order of equal elements.
+     *
+     * @param index indexes to sort
+     * @param comparator comparator of indexes
+     */
+    public static void sort(int[] index, IndexComparator comparator) {
+        int[] buffer = index.clone();
+        mergeSort(buffer, index, 0, index.length, comparator);
+    }
+
+    /**
+     * Sorts src[from..to) into dst[from..to); both arrays start with the same content.
+     */
+    private static void mergeSort(int[] src, int[] dst, int from, int to, IndexComparator comparator) {
+        int length = to - from;
+        if (length <= INSERTION_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int value = dst[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(dst[j], value) > 0) {
+                    dst[j + 1] = dst[j];
+                    j--;
+                }
+                dst[j + 1] = value;
+            }
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        mergeSort(dst, src, from, mid, comparator);
+        mergeSort(dst, src, mid, to, comparator);
+
+        if (comparator.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, from, dst, from, length);
+            return;
+        }
+        for (int i = from, p = from, q = mid; i < to; i++) {
+            if (q >= to || (p < mid && comparator.compare(src[p], src[q]) <= 0)) {
+                dst[i] = src[p++];
+            } else {
+                dst[i] = src[q++];
+            }
+        }
+    }
+}
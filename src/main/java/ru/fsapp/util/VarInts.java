@@ -0,0 +1,117 @@
+package ru.fsapp.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Variable length encoding of non-negative numbers: seven bits per byte,
+ * the high bit marks that more bytes follow. Small numbers take one byte.
+ *
+ * @author Ahmed
+ * @version 1.0
+ * @since 2026-10-19
+ */
+public final class VarInts {
+
+    private VarInts() {
+    }
+
+    /**
+     * Writes number.
+     *
+     * @param out target stream
+     * @param value non-negative number
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the number is negative
+     */
+    public static void write(OutputStream out, long value) throws IOException {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Reads number.
+     *
+     * @param in source stream
+     * @return number
+     * @throws IOException if reading fails or the stream ends inside the number
+     */
+    public static long read(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated number");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number");
+    }
+
+    /**
+     * Reads number from a buffer.
+     *
+     * @param buffer source buffer, its position is advanced
+     * @return number
+     * @throws IllegalArgumentException if the number is malformed
+     */
+    public static long read(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed number");
+    }
+
+    /**
+     * Reads number that must fit an int.
+     *
+     * @param in source stream
+     * @return number
+     * @throws IOException if reading fails or the number is too large
+     */
+    public static int readInt(InputStream in) throws IOException {
+        long value = read(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Number too large: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads exactly the given number of bytes.
+     *
+     * @param in source stream
+     * @param length number of bytes
+     * @return bytes
+     * @throws IOException if reading fails or the stream ends early
+     */
+    public static byte[] readBytes(InputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(bytes, read, length - read);
+            if (n < 0) {
+                throw new EOFException("Expected " + length + " bytes, got " + read);
+            }
+            read += n;
+        }
+        return bytes;
+    }
+}
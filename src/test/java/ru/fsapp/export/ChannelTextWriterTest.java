@@ -0,0 +1,41 @@
+package ru.fsapp.export;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ChannelTextWriterTest {
+
+    @Test
+    public void testEscaping() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ChannelTextWriter writer = new ChannelTextWriter(Channels.newChannel(bytes))) {
+            writer.writeJsonString("a\"b\\c\nd\u0001");
+            writer.write(' ');
+            writer.writeCsvField("x,\"y\"");
+            writer.write(' ');
+            writer.writeLong(-1234567890123L);
+        }
+        assertEquals("\"a\\\"b\\\\c\\nd\\u0001\" \"x,\"\"y\"\"\" -1234567890123",
+                new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLargeOutputAcrossBuffers() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+        try (ChannelTextWriter writer = new ChannelTextWriter(Channels.newChannel(bytes))) {
+            for (int i = 0; i < 50_000; i++) {
+                writer.write("файл-");
+                writer.writeLong(i);
+                writer.write('\n');
+                expected.append("файл-").append(i).append('\n');
+            }
+        }
+        assertEquals(expected.toString(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,66 @@
+package ru.fsapp.export;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+import ru.fsapp.service.FileSystemService;
+import ru.fsapp.service.ScanOptions;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+public class SnapshotTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testStreamedSnapshotMatchesTree() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Path data = Files.createDirectories(root.resolve("data/2026"));
+        for (int i = 0; i < 150; i++) {
+            Files.write(data.resolve(String.format("part-%05d.parquet", i)), new byte[i]);
+        }
+        Files.createDirectories(root.resolve("empty"));
+        Files.write(root.resolve("readme.txt"), new byte[42]);
+        Files.createLink(root.resolve("link.txt"), root.resolve("readme.txt"));
+
+        Path file = temp.newFile("tree.fsnap").toPath();
+        try (SnapshotWriter writer = new SnapshotWriter(FileChannel.open(file, StandardOpenOption.WRITE))) {
+            writer.begin();
+            FileSystemService.streamTree(root.toString(), new ScanOptions(), writer);
+            writer.end();
+        }
+
+        FileNode scanned = FileSystemService.buildTree(root.toString());
+        Snapshot snapshot = Snapshot.read(file);
+        assertEquals(root.toString(), snapshot.getRootPath());
+        assertEquals(156, snapshot.getEntries());
+
+        FileNode tree = snapshot.toTree();
+        assertEquals(scanned.getTotalSize(), tree.getTotalSize());
+        assertEquals(scanned.getTotalAllocated(), tree.getTotalAllocated());
+        assertEquals(scanned.getUniqueSize(), tree.getUniqueSize());
+        assertEquals(4, tree.getChildren().size());
+        assertEquals("data", tree.getChildren().get(0).getName());
+
+        FileNode part = snapshot.find("data/2026/part-00100.parquet");
+        assertNotNull(part);
+        assertEquals(100, part.getSize());
+        assertEquals(data.resolve("part-00100.parquet").toFile(), part.getFile());
+        assertEquals(scanned.getChildren().get(0).getOwner(), part.getOwner());
+
+        FileNode year = snapshot.find("data/2026");
+        assertEquals(150, year.getChildren().size());
+        assertEquals(149 * 150 / 2, year.getTotalSize());
+        assertNotNull(snapshot.find("empty"));
+        assertNull(snapshot.find("data/2025"));
+        assertNull(snapshot.find("readme.txt/x"));
+        assertEquals(tree.getTotalSize(), snapshot.find("").getTotalSize());
+    }
+}
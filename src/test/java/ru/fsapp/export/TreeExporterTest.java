@@ -0,0 +1,83 @@
+package ru.fsapp.export;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+import ru.fsapp.service.FileSystemService;
+import ru.fsapp.service.ScanOptions;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class TreeExporterTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path createTree() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Files.write(root.resolve("a.bin"), new byte[100]);
+        Path deep = Files.createDirectories(root.resolve("sub/deep"));
+        Files.write(root.resolve("sub/b.bin"), new byte[50]);
+        Files.write(deep.resolve("c.bin"), new byte[25]);
+        return root;
+    }
+
+    private static String export(ExportFormat format, FileNode tree, Path root) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TreeExporter exporter = format.create(Channels.newChannel(bytes))) {
+            exporter.begin();
+            if (tree != null) {
+                FileSystemService.walkTree(tree, exporter);
+            } else {
+                FileSystemService.streamTree(root.toString(), new ScanOptions(), exporter);
+            }
+            exporter.end();
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testStreamedCsvHasFolderTotals() throws Exception {
+        Path root = createTree();
+        String[] rows = export(ExportFormat.CSV, null, root).split("\n");
+        assertEquals(7, rows.length);
+        assertEquals("path,name,type,depth,size,allocated,links,owner", rows[0]);
+        // Folders come after their content
+        assertTrue(rows[rows.length - 1].startsWith(root + ",root,directory,0,175,"));
+        boolean subFound = false;
+        for (String row : rows) {
+            if (row.startsWith(root.resolve("sub") + ",")) {
+                assertTrue(row, row.contains(",directory,1,75,"));
+                subFound = true;
+            }
+        }
+        assertTrue(subFound);
+    }
+
+    @Test
+    public void testJsonFolderSizesAreTotals() throws Exception {
+        Path root = createTree();
+        FileNode tree = FileSystemService.buildTree(root.toString());
+        String streamed = export(ExportFormat.JSON, null, root);
+        assertEquals(streamed, export(ExportFormat.JSON, tree, root));
+        assertTrue(streamed.trim().endsWith("],\"size\":175,\"allocated\":" + tree.getTotalAllocated() + "}"));
+        assertTrue(streamed.contains("\"name\":\"deep\""));
+        assertTrue(streamed.contains("],\"size\":25,"));
+    }
+
+    @Test
+    public void testNdjsonFolderSizesAreTotals() throws Exception {
+        Path root = createTree();
+        String[] lines = export(ExportFormat.NDJSON, null, root).split("\n");
+        assertEquals(6, lines.length);
+        assertTrue(lines[5].contains("\"name\":\"root\""));
+        assertTrue(lines[5].contains("\"size\":175,"));
+    }
+}
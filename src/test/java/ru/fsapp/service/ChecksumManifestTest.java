@@ -0,0 +1,106 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ChecksumManifestTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path createTree() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Files.createDirectories(root.resolve("sub"));
+        Files.write(root.resolve("abc.txt"), "abc".getBytes(StandardCharsets.US_ASCII));
+        Files.write(root.resolve("empty"), new byte[0]);
+        byte[] large = new byte[(int) ChecksumManifest.MAP_THRESHOLD + 12_345];
+        new Random(1).nextBytes(large);
+        Files.write(root.resolve("sub/large.bin"), large);
+        return root;
+    }
+
+    private static OperationResult write(Path root, Writer out, ChecksumManifest manifest) throws Exception {
+        FileNode tree = FileSystemService.buildTree(root.toString(), new ScanOptions());
+        return manifest.write(tree, out, new CancellationToken());
+    }
+
+    @Test
+    public void testManifestLinesInPathOrder() throws Exception {
+        Path root = createTree();
+        StringWriter out = new StringWriter();
+        ChecksumCache cache = new ChecksumCache();
+        OperationResult result = write(root, out,
+                new ChecksumManifest(ChecksumAlgorithm.SHA256, 2, cache));
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad  abc.txt", lines[0]);
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855  empty", lines[1]);
+        assertTrue(lines[2].endsWith("  sub/large.bin"));
+        assertTrue(result.isSuccessful());
+        assertEquals(3, result.getCompleted());
+        assertEquals(ChecksumManifest.MAP_THRESHOLD + 12_345 + 3, result.getBytes());
+    }
+
+    @Test
+    public void testSavedCacheSkipsUnchangedFiles() throws Exception {
+        Path root = createTree();
+        Path cacheFile = temp.getRoot().toPath().resolve("cache/checksums.cache");
+        ChecksumCache cache = ChecksumCache.load(cacheFile);
+        ChecksumManifest first = new ChecksumManifest(ChecksumAlgorithm.XXH64, 2, cache);
+        StringWriter firstOut = new StringWriter();
+        write(root, firstOut, first);
+        assertEquals(3, first.getHashedFiles());
+        assertTrue(firstOut.toString().startsWith("44bc2cf5ad770999  abc.txt\n"));
+        cache.save();
+
+        cache = ChecksumCache.load(cacheFile);
+        assertEquals(3, cache.size());
+        ChecksumManifest second = new ChecksumManifest(ChecksumAlgorithm.XXH64, 2, cache);
+        StringWriter secondOut = new StringWriter();
+        OperationResult result = write(root, secondOut, second);
+        assertEquals(0, second.getHashedFiles());
+        assertEquals(0, result.getBytes());
+        assertEquals(firstOut.toString(), secondOut.toString());
+
+        Files.write(root.resolve("abc.txt"), "abcd".getBytes(StandardCharsets.US_ASCII));
+        write(root, new StringWriter(), second);
+        assertEquals("only the changed file is hashed", 1, second.getHashedFiles());
+    }
+
+    @Test
+    public void testVerifyReportsChangedAndMissingFiles() throws Exception {
+        Path root = createTree();
+        Files.write(root.resolve("back\\slash"), "x".getBytes(StandardCharsets.US_ASCII));
+        Path manifest = temp.getRoot().toPath().resolve("tree.sha256");
+        try (Writer out = Files.newBufferedWriter(manifest)) {
+            ChecksumCache cache = new ChecksumCache();
+            write(root, out, new ChecksumManifest(ChecksumAlgorithm.SHA256, 2, cache));
+        }
+        assertTrue(new String(Files.readAllBytes(manifest), StandardCharsets.UTF_8).contains("\n\\"));
+
+        OperationResult result = ChecksumManifest.verify(manifest, root, 2, new CancellationToken());
+        assertTrue(result.getFailures().toString(), result.isSuccessful());
+        assertEquals(4, result.getCompleted());
+
+        Files.write(root.resolve("abc.txt"), "abd".getBytes(StandardCharsets.US_ASCII));
+        Files.delete(root.resolve("sub/large.bin"));
+        result = ChecksumManifest.verify(manifest, root, 2, new CancellationToken());
+        assertEquals(4, result.getTotal());
+        assertEquals(2, result.getCompleted());
+        assertTrue(result.getFailures().get(root.resolve("abc.txt")).getMessage().startsWith("Checksum mismatch"));
+        assertTrue(result.getFailures().get(root.resolve("sub/large.bin")) instanceof NoSuchFileException);
+    }
+}
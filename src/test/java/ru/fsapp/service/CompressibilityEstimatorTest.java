@@ -0,0 +1,72 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompressibilityEstimatorTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static FileNode child(FileNode parent, String name) {
+        for (FileNode child : parent.getChildren()) {
+            if (child.getName().equals(name)) {
+                return child;
+            }
+        }
+        throw new AssertionError("No child " + name);
+    }
+
+    @Test
+    public void testEstimateRollsUpPerFolder() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Files.createDirectories(root.resolve("zeros"));
+        Files.createDirectories(root.resolve("random"));
+        Files.write(root.resolve("zeros/a.bin"), new byte[4 * 1024 * 1024]);
+        Files.write(root.resolve("zeros/empty"), new byte[0]);
+        byte[] random = new byte[4 * 1024 * 1024];
+        new Random(3).nextBytes(random);
+        Files.write(root.resolve("random/b.bin"), random);
+        Files.write(root.resolve("notes.txt"), "to be or not to be, ".repeat(100).getBytes(StandardCharsets.US_ASCII));
+
+        FileNode tree = FileSystemService.buildTree(root.toString(), new ScanOptions());
+        CompressibilityEstimator.Estimate estimate = new CompressibilityEstimator(2).estimate(tree, new CancellationToken());
+
+        FileNode zeros = child(tree, "zeros");
+        FileNode randomDir = child(tree, "random");
+        assertEquals(4 * 1024 * 1024, estimate.getSize(zeros));
+        assertTrue(estimate.getRatio(zeros) < 0.01);
+        assertEquals("random data is stored as is", 1.0, estimate.getRatio(randomDir), 0.0);
+        assertEquals(estimate.getSize(zeros) + estimate.getSize(randomDir) + 2000, estimate.getSize(tree));
+        long notes = estimate.getCompressedSize(tree) - estimate.getCompressedSize(zeros)
+                - estimate.getCompressedSize(randomDir);
+        assertTrue("repeated text compresses: " + notes, notes > 0 && notes < 200);
+        assertEquals(tree, estimate.getTopSavings(2).get(0));
+        assertEquals(zeros, estimate.getTopSavings(2).get(1));
+
+        // One 64 KB block of each large file and the small file whole
+        assertEquals(2 * CompressibilityEstimator.BLOCK_SIZE + 2000, estimate.getSampledBytes());
+    }
+
+    @Test
+    public void testSamplesAreBoundedPerFile() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Files.write(root.resolve("large.bin"), new byte[2 * 1024 * 1024]);
+
+        FileNode tree = FileSystemService.buildTree(root.toString(), new ScanOptions());
+        CompressibilityEstimator.Estimate estimate = new CompressibilityEstimator(1, 0.5, 3, 1)
+                .estimate(tree, new CancellationToken());
+
+        assertEquals(3 * CompressibilityEstimator.BLOCK_SIZE, estimate.getSampledBytes());
+        assertTrue(estimate.getRatio(tree) < 0.01);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ContentTypeDetectorTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static String classify(int... bytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+        for (int b : bytes) {
+            buffer.put((byte) b);
+        }
+        buffer.flip();
+        return ContentTypeDetector.classify(buffer);
+    }
+
+    @Test
+    public void testClassify() {
+        assertEquals("png", classify(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0));
+        assertEquals("pdf", classify('%', 'P', 'D', 'F', '-', '1', '.', '7'));
+        assertEquals("elf", classify(0x7F, 'E', 'L', 'F', 2, 1, 1));
+        assertEquals("mp4", classify(0, 0, 0, 0x18, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm'));
+        assertEquals("webp", classify('R', 'I', 'F', 'F', 1, 2, 3, 4, 'W', 'E', 'B', 'P'));
+        assertEquals(ContentTypeDetector.TEXT, classify('h', 'e', 'l', 'l', 'o', '\n'));
+        assertEquals(ContentTypeDetector.BINARY, classify('h', 0, 'i', 0));
+        assertEquals(ContentTypeDetector.EMPTY, classify());
+    }
+
+    @Test
+    public void testBreakdownUsesCacheForUnchangedFiles() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Files.createDirectories(root.resolve("sub"));
+        Files.write(root.resolve("readme.md"), "# Notes\nplain text\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("sub/noext"), "another text file".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("sub/data.bin"), new byte[10_000]);
+        Files.write(root.resolve("empty.txt"), new byte[0]);
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(root.resolve("sub/logs.txt")))) {
+            out.write(new byte[5_000]);
+        }
+
+        ContentTypeDetector detector = new ContentTypeDetector(2, 100);
+        FileNode tree = FileSystemService.buildTree(root.toString(), new ScanOptions());
+        Map<String, long[]> types = detector.breakdown(tree, new CancellationToken());
+
+        assertEquals(2, types.get(ContentTypeDetector.TEXT)[0]);
+        assertEquals(1, types.get("gzip")[0]);
+        assertEquals(Files.size(root.resolve("sub/logs.txt")), types.get("gzip")[1]);
+        assertEquals(1, types.get(ContentTypeDetector.BINARY)[0]);
+        assertEquals(10_000, types.get(ContentTypeDetector.BINARY)[1]);
+        assertEquals(1, types.get(ContentTypeDetector.EMPTY)[0]);
+        assertEquals("largest types first", ContentTypeDetector.BINARY, types.keySet().iterator().next());
+        assertEquals(4, detector.getReads());
+
+        tree = FileSystemService.buildTree(root.toString(), new ScanOptions());
+        assertEquals(types.keySet(), detector.breakdown(tree, new CancellationToken()).keySet());
+        assertEquals("unchanged files are not read again", 4, detector.getReads());
+        assertEquals(4, detector.getCacheHits());
+
+        Files.write(root.resolve("sub/data.bin"), "now it is text".getBytes(StandardCharsets.UTF_8));
+        tree = FileSystemService.buildTree(root.toString(), new ScanOptions());
+        types = detector.breakdown(tree, new CancellationToken());
+        assertEquals(5, detector.getReads());
+        assertEquals(3, types.get(ContentTypeDetector.TEXT)[0]);
+        assertNull(types.get(ContentTypeDetector.BINARY));
+    }
+}
@@ -0,0 +1,66 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class DeleteEngineTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testDeleteSubtreeAndPrune() throws Exception {
+        Path root = temp.getRoot().toPath();
+        Path dir = Files.createDirectories(root.resolve("a/b/c"));
+        for (int i = 0; i < 600; i++) {
+            Files.createFile(dir.resolve("f" + i));
+        }
+        Files.createFile(root.resolve("keep.txt"));
+
+        FileNode tree = FileSystemService.buildTree(root.toString());
+        FileNode a = findChild(tree, "a");
+        AtomicLong progress = new AtomicLong();
+
+        OperationResult result = new DeleteEngine(4).deleteNodes(Collections.singletonList(a),
+                (completed, total, current) -> progress.incrementAndGet(), new CancellationToken());
+
+        assertTrue(result.isSuccessful());
+        assertEquals(603, result.getTotal());
+        assertEquals(603, progress.get());
+        assertFalse(Files.exists(root.resolve("a")));
+        assertNull(findChild(tree, "a"));
+        assertNotNull(findChild(tree, "keep.txt"));
+    }
+
+    @Test
+    public void testCancelledBeforeStart() throws Exception {
+        Path root = temp.getRoot().toPath();
+        Files.createFile(root.resolve("x"));
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+
+        OperationResult result = new DeleteEngine(2).delete(Collections.singletonList(root), ProgressListener.NONE, token);
+
+        assertTrue(result.isCancelled());
+        assertEquals(0, result.getCompleted());
+        assertTrue(Files.exists(root.resolve("x")));
+    }
+
+    private static FileNode findChild(FileNode node, String name) {
+        for (FileNode child : node.getChildren()) {
+            if (child.getName().equals(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+}
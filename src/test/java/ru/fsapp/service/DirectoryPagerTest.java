@@ -0,0 +1,90 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class DirectoryPagerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testPagesCoverFolderOnce() throws Exception {
+        Path dir = temp.newFolder("dir").toPath();
+        for (int i = 0; i < 10; i++) {
+            Files.write(dir.resolve("file" + i), new byte[i]);
+        }
+        Set<String> names = new HashSet<>();
+        try (DirectoryPager pager = new DirectoryPager(dir, 3)) {
+            int[] sizes = new int[4];
+            for (int i = 0; i < 4; i++) {
+                assertTrue(pager.hasNext());
+                File[] page = pager.next();
+                sizes[i] = page.length;
+                for (File file : page) {
+                    assertTrue(names.add(file.getName()));
+                }
+            }
+            assertArrayEquals(new int[]{3, 3, 3, 1}, sizes);
+            assertFalse(pager.hasNext());
+            assertNull(pager.next());
+            assertEquals(10, pager.getCount());
+        }
+        assertEquals(10, names.size());
+    }
+
+    @Test
+    public void testEmptyFolderHasNoPages() throws Exception {
+        try (DirectoryPager pager = new DirectoryPager(temp.newFolder("empty").toPath(), 3)) {
+            assertNull(pager.next());
+            assertEquals(0, pager.getCount());
+        }
+    }
+
+    @Test
+    public void testListFilesPage() throws Exception {
+        Path dir = temp.newFolder("dir").toPath();
+        for (int i = 0; i < 10; i++) {
+            Files.createFile(dir.resolve("file" + i));
+        }
+        List<File> all = FileSystemService.listFiles(dir.toString());
+        assertEquals(10, all.size());
+        assertEquals(all.subList(4, 7), FileSystemService.listFiles(dir.toString(), 4, 3));
+        assertEquals(all.subList(8, 10), FileSystemService.listFiles(dir.toString(), 8, 5));
+        assertTrue(FileSystemService.listFiles(dir.toString(), 10, 5).isEmpty());
+    }
+
+    @Test
+    public void testScanOfFolderLargerThanPage() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Path big = Files.createDirectory(root.resolve("big"));
+        int count = DirectoryPager.DEFAULT_PAGE_SIZE + 100;
+        for (int i = 0; i < count; i++) {
+            Files.write(big.resolve((i % 2 == 0 ? "keep" : "drop") + i + (i % 2 == 0 ? ".dat" : ".skip")), new byte[1]);
+        }
+        Files.createDirectory(big.resolve("sub"));
+        Files.write(big.resolve("sub/inner.dat"), new byte[5]);
+        // The ignore file may come in any page of the listing
+        Files.write(big.resolve(ScanOptions.DEFAULT_IGNORE_FILE), "*.skip\n".getBytes(StandardCharsets.UTF_8));
+
+        ScanOptions options = new ScanOptions();
+        options.setIgnoreFileName(ScanOptions.DEFAULT_IGNORE_FILE);
+        FileNode tree = FileSystemService.buildTree(root.toString(), options);
+        FileNode bigNode = tree.getChildren().get(0);
+        // Kept files, the subfolder and the ignore file itself
+        assertEquals(count / 2 + 2, bigNode.getChildren().size());
+        assertEquals(count / 2 + 5 + 7, tree.getTotalSize());
+    }
+}
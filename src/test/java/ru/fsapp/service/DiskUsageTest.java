@@ -0,0 +1,84 @@
+package ru.fsapp.service;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class DiskUsageTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testHardLinksCountedOnce() throws Exception {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("unix"));
+        Path root = temp.getRoot().toPath();
+        Path data = Files.write(root.resolve("data.bin"), new byte[100_000]);
+        Path snapshots = Files.createDirectories(root.resolve("snapshots"));
+        for (int i = 0; i < 3; i++) {
+            Files.createLink(snapshots.resolve("data" + i + ".bin"), data);
+        }
+
+        ScanOptions options = new ScanOptions();
+        options.setParallelism(4);
+        FileNode tree = FileSystemService.buildTree(root.toString(), options);
+
+        long allocated = new FileNode(data.toFile()).getAllocatedSize();
+        assertTrue(allocated >= 100_000);
+        assertEquals(400_000, tree.getTotalSize());
+        assertTrue(tree.getTotalAllocated() >= 4 * allocated);
+        assertEquals(tree.getTotalAllocated() - 3 * allocated, tree.getUniqueSize());
+    }
+
+    @Test
+    public void testSymbolicLinksCountedAsLinks() throws Exception {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("unix"));
+        Path root = temp.getRoot().toPath();
+        Path data = Files.write(root.resolve("data.bin"), new byte[1024 * 1024]);
+        Path links = Files.createDirectories(root.resolve("links"));
+        Path first = Files.createSymbolicLink(links.resolve("first"), data);
+        Path second = Files.createSymbolicLink(links.resolve("second"), data);
+        // A linked folder is not scanned again
+        Path folder = Files.createSymbolicLink(links.resolve("folder"), root);
+
+        for (int parallelism : new int[]{1, 4}) {
+            ScanOptions options = new ScanOptions();
+            options.setParallelism(parallelism);
+            FileNode tree = FileSystemService.buildTree(root.toString(), options);
+
+            long expectedSize = data.toFile().length();
+            long expectedUnique = tree.getAllocatedSize() + new FileNode(links.toFile()).getAllocatedSize()
+                    + new FileNode(data.toFile()).getAllocatedSize();
+            for (Path link : new Path[]{first, second, folder}) {
+                FileNode node = new FileNode(link.toFile(), false);
+                assertFalse(node.isDirectory());
+                expectedSize += node.getSize();
+                expectedUnique += node.getAllocatedSize();
+            }
+            assertEquals(expectedSize, tree.getTotalSize());
+            assertEquals(expectedUnique, tree.getUniqueSize());
+            assertEquals(tree.getTotalAllocated(), tree.getUniqueSize());
+        }
+    }
+
+    @Test
+    public void testInodeSetGrows() {
+        InodeSet set = new InodeSet();
+        for (long i = 0; i < 10_000; i++) {
+            assertTrue(set.add(i & 3, i));
+        }
+        for (long i = 0; i < 10_000; i++) {
+            assertFalse(set.add(i & 3, i));
+        }
+        assertTrue(set.add(7, 1));
+        assertEquals(10_001, set.size());
+    }
+}
@@ -0,0 +1,78 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class ExclusionRulesTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testRulesAndIgnoreFiles() throws Exception {
+        Path root = temp.getRoot().toPath();
+        Files.createDirectories(root.resolve("app/node_modules/lib"));
+        Files.createFile(root.resolve("app/node_modules/lib/index.js"));
+        Files.createDirectories(root.resolve("app/.git/objects/ab"));
+        Files.createFile(root.resolve("app/.git/config"));
+        Files.createFile(root.resolve("app/main.js"));
+        Files.createFile(root.resolve("app/main.tmp"));
+        Files.createDirectories(root.resolve("logs/2026"));
+        Files.createFile(root.resolve("logs/2026/day.log"));
+        Files.createFile(root.resolve("logs/keep.txt"));
+        Files.write(root.resolve("logs/.fsignore"), Arrays.asList("# archive", "/2026", "regex:.*\\.bak"),
+                StandardCharsets.UTF_8);
+        Files.createFile(root.resolve("logs/old.bak"));
+        Files.createFile(root.resolve("old.bak"));
+
+        ScanOptions options = new ScanOptions();
+        options.addExclude("node_modules");
+        options.addExclude("*.tmp");
+        options.addExclude("app/.git/objects");
+        options.setIgnoreFileName(ScanOptions.DEFAULT_IGNORE_FILE);
+        ScanMetrics metrics = new ScanMetrics();
+        options.setMetrics(metrics);
+
+        FileNode tree = FileSystemService.buildTree(root.toString(), options);
+
+        TreeSet<String> paths = new TreeSet<>();
+        collect(tree, root, paths);
+        assertEquals(new TreeSet<>(Arrays.asList("app", "app/.git", "app/.git/config", "app/main.js",
+                "logs", "logs/.fsignore", "logs/keep.txt", "old.bak")), paths);
+        assertEquals(5, metrics.getExcluded());
+    }
+
+    @Test
+    public void testRegexOption() throws Exception {
+        Path root = temp.getRoot().toPath();
+        Files.createDirectories(root.resolve("a/cache"));
+        Files.createFile(root.resolve("a/cache/x"));
+        Files.createFile(root.resolve("a/y"));
+
+        ScanOptions options = new ScanOptions();
+        options.addExcludeRegex("(.*/)?cache");
+        options.setParallelism(2);
+        FileNode tree = FileSystemService.buildTree(root.toString(), options);
+
+        TreeSet<String> paths = new TreeSet<>();
+        collect(tree, root, paths);
+        assertEquals(new TreeSet<>(Arrays.asList("a", "a/y")), paths);
+    }
+
+    private static void collect(FileNode node, Path root, TreeSet<String> paths) {
+        for (FileNode child : node.getChildren()) {
+            paths.add(root.relativize(child.getPath()).toString().replace('\\', '/'));
+            collect(child, root, paths);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class IoThrottleTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testStatRateLimitsScan() throws Exception {
+        Path root = temp.getRoot().toPath();
+        for (int i = 0; i < 160; i++) {
+            Files.createFile(root.resolve("f" + i));
+        }
+        ScanOptions options = new ScanOptions();
+        options.setThrottle(new IoThrottle(100, 0));
+        ScanMetrics metrics = new ScanMetrics();
+        options.setMetrics(metrics);
+
+        long start = System.nanoTime();
+        FileSystemService.buildTree(root.toString(), options);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        // 161 calls at 100/s with at most one second of burst take at least 600 ms
+        assertTrue("Scan took " + millis + " ms", millis >= 500);
+        assertTrue(metrics.getThrottledMillis() > 0);
+    }
+
+    @Test
+    public void testRateChangeAtRuntime() {
+        IoThrottle throttle = new IoThrottle(0, 0);
+        assertFalse(throttle.isActive());
+        long start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            throttle.acquireStat(null);
+        }
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+
+        throttle.setBytesPerSecond(1_000_000);
+        assertTrue(throttle.isActive());
+        assertEquals(250_000, throttle.chunkSize(64L * 1024 * 1024));
+        start = System.nanoTime();
+        throttle.acquireBytes(100_000, null);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue("Waited " + millis + " ms", millis >= 80);
+        assertEquals(0, throttle.getStatsPerSecond());
+    }
+}
@@ -0,0 +1,118 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LazyScannerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testSizesConvergeToFullScan() throws Exception {
+        Path root = temp.getRoot().toPath();
+        for (int a = 0; a < 3; a++) {
+            for (int b = 0; b < 3; b++) {
+                Path dir = Files.createDirectories(root.resolve("a" + a + "/b" + b + "/c"));
+                Files.write(dir.resolve("data"), new byte[1000 * (a + 1) + b]);
+                Files.write(dir.getParent().resolve("top"), new byte[10]);
+            }
+        }
+        FileNode full = FileSystemService.buildTree(root.toString());
+
+        CountDownLatch listed = new CountDownLatch(1);
+        try (LazyScanner scanner = new LazyScanner(new ScanOptions(), 2, new LazyScanner.Listener() {
+            @Override
+            public void listed(FileNode dir) {
+                listed.countDown();
+            }
+
+            @Override
+            public void measured(FileNode dir) {
+            }
+        })) {
+            FileNode lazy = scanner.open(root.toString());
+            FileNode a0 = child(lazy, "a0");
+            FileNode b0 = child(a0, "b0");
+            assertTrue(a0.isListed());
+            assertFalse(b0.isListed());
+            assertTrue(b0.getChildren().isEmpty());
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!lazy.isTotalsKnown() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(lazy.isTotalsKnown());
+            assertEquals(full.getTotalSize(), lazy.getTotalSize());
+            assertEquals(full.getTotalAllocated(), lazy.getTotalAllocated());
+
+            scanner.expand(b0);
+            assertTrue(listed.await(10, TimeUnit.SECONDS));
+            assertTrue(b0.isListed());
+            assertNotNull(child(b0, "c"));
+            assertEquals(full.getTotalSize(), lazy.getTotalSize());
+        }
+    }
+
+    @Test
+    public void testExpandAfterDeleteWhilePaused() throws Exception {
+        Path root = temp.getRoot().toPath();
+        for (int a = 0; a < 3; a++) {
+            Path dir = Files.createDirectories(root.resolve("a" + a + "/b/c"));
+            Files.write(dir.resolve("data"), new byte[1000 * (a + 1)]);
+        }
+
+        CountDownLatch listed = new CountDownLatch(1);
+        try (LazyScanner scanner = new LazyScanner(new ScanOptions(), 2, new LazyScanner.Listener() {
+            @Override
+            public void listed(FileNode dir) {
+                listed.countDown();
+            }
+
+            @Override
+            public void measured(FileNode dir) {
+            }
+        })) {
+            FileNode lazy = scanner.open(root.toString());
+            scanner.pause();
+            OperationResult result = new DeleteEngine(2).deleteNodes(Collections.singletonList(child(lazy, "a1")),
+                    ProgressListener.NONE, new CancellationToken());
+            assertTrue(result.isSuccessful());
+            lazy.updateTotals();
+            scanner.resume(lazy);
+
+            FileNode b = child(child(lazy, "a2"), "b");
+            assertFalse(b.isListed());
+            scanner.expand(b);
+            assertTrue(listed.await(10, TimeUnit.SECONDS));
+            assertTrue(b.isListed());
+            assertNotNull(child(b, "c"));
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!lazy.isTotalsKnown() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(lazy.isTotalsKnown());
+            assertEquals(FileSystemService.buildTree(root.toString()).getTotalSize(), lazy.getTotalSize());
+        }
+    }
+
+    private static FileNode child(FileNode node, String name) {
+        for (FileNode child : node.getChildren()) {
+            if (child.getName().equals(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+}
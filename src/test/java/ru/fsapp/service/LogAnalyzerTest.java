@@ -0,0 +1,105 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LogAnalyzerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testCountNewlinesMatchesByteLoop() {
+        Random random = new Random(11);
+        for (int size : new int[]{0, 1, 7, 8, 9, 63, 1000}) {
+            byte[] data = new byte[size];
+            for (int i = 0; i < size; i++) {
+                // Bytes near the line feed and with the high bit set
+                int pick = random.nextInt(6);
+                data[i] = (byte) (pick == 0 ? '\n' : pick == 1 ? 0x0B : pick == 2 ? 0x8A : pick == 3 ? 0 : random.nextInt());
+            }
+            long expected = 0;
+            for (byte b : data) {
+                if (b == '\n') {
+                    expected++;
+                }
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            assertEquals("size " + size, expected, LogAnalyzer.countNewlines(buffer));
+            buffer.position(Math.min(size, 3));
+            assertEquals(expected - countIn(data, 0, buffer.position()), LogAnalyzer.countNewlines(buffer));
+        }
+    }
+
+    private static long countIn(byte[] data, int from, int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            if (data[i] == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testLinesAndTimeRangeAcrossChunks() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("application.log");
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        LocalDateTime start = LocalDateTime.of(2026, 10, 17, 8, 0, 0);
+        try (BufferedWriter out = Files.newBufferedWriter(log, StandardCharsets.UTF_8)) {
+            out.write("starting without a timestamp\n");
+            for (int i = 0; i < 20_000; i++) {
+                out.write(format.format(start.plusSeconds(i * 9L)) + " [INFO ] Scanner - scanned folder " + i + "\n");
+            }
+            out.write("    at stack.trace.Line(Unknown Source)");
+        }
+
+        LogAnalyzer.LogStats stats = new LogAnalyzer(3, 64 * 1024).analyze(log);
+
+        assertEquals(20_002, stats.getLines());
+        assertEquals(Files.size(log), stats.getSize());
+        assertEquals(start, stats.getFirst());
+        assertEquals(start.plusSeconds(19_999 * 9L), stats.getLast());
+        double days = 19_999 * 9.0 / 86_400;
+        assertEquals(stats.getSize() / days, stats.getBytesPerDay(), 1);
+        assertEquals(20_002 / days, stats.getLinesPerDay(), 0.01);
+    }
+
+    @Test
+    public void testTimestampFormats() {
+        assertEquals(LocalDateTime.of(2026, 10, 19, 12, 30, 5),
+                LogAnalyzer.parseTimestamp("2026-10-19T12:30:05.123Z level=info", 2000));
+        assertEquals(LocalDateTime.of(2026, 10, 19, 12, 30, 5),
+                LogAnalyzer.parseTimestamp("127.0.0.1 - - [19/Oct/2026:12:30:05 +0000] \"GET / HTTP/1.1\" 200", 2000));
+        assertEquals(LocalDateTime.of(2025, 1, 2, 3, 4, 5),
+                LogAnalyzer.parseTimestamp("Jan  2 03:04:05 host sshd[42]: accepted", 2025));
+        assertNull(LogAnalyzer.parseTimestamp("2026-13-45 99:00:00 not a date", 2026));
+        assertNull(LogAnalyzer.parseTimestamp("plain line", 2026));
+    }
+
+    @Test
+    public void testEmptyLogAndNames() throws Exception {
+        Path log = temp.getRoot().toPath().resolve("empty.log");
+        Files.write(log, new byte[0]);
+        LogAnalyzer.LogStats stats = new LogAnalyzer(1).analyze(log);
+        assertEquals(0, stats.getLines());
+        assertNull(stats.getSpan());
+        assertEquals(-1, stats.getBytesPerDay(), 0);
+
+        assertTrue(LogAnalyzer.isLogFile("application.log"));
+        assertTrue(LogAnalyzer.isLogFile("syslog.LOG.3"));
+        assertFalse(LogAnalyzer.isLogFile("catalog.txt"));
+    }
+}
@@ -0,0 +1,92 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+import ru.fsapp.testutil.SyntheticTreeGenerator;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class OffHeapTreeTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testMatchesHeapTree() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        new SyntheticTreeGenerator()
+                .seed(41)
+                .fanOut(3)
+                .depth(3)
+                .filesPerDirectory(5)
+                .fileSizes(0, 10_000)
+                .generate(root);
+        Files.write(root.resolve("data.txt"), new byte[7]);
+        Files.createLink(root.resolve("link.txt"), root.resolve("data.txt"));
+
+        FileNode heap = FileSystemService.buildTree(root.toString());
+        try (OffHeapTree tree = OffHeapTree.build(root.toString(), new ScanOptions())) {
+            assertEquals(count(heap), tree.size());
+            assertEquals(heap.getTotalSize(), tree.getTotalSize(tree.getRoot()));
+            assertEquals(heap.getTotalAllocated(), tree.getTotalAllocated(tree.getRoot()));
+            assertEquals(heap.getUniqueSize(), tree.getUniqueSize(tree.getRoot()));
+            assertEquals(-1, tree.getParent(tree.getRoot()));
+            assertTrue(tree.getOffHeapBytes() >= (long) tree.size() * OffHeapTree.RECORD_SIZE);
+            compare(heap, tree, tree.getRoot());
+        }
+    }
+
+    @Test
+    public void testMappedScratchFileIsDeleted() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Files.createDirectories(root.resolve("a/b"));
+        Files.write(root.resolve("a/b/c.txt"), new byte[123]);
+        Path scratch = temp.newFolder("scratch").toPath();
+
+        OffHeapTree tree = OffHeapTree.build(root.toString(), new ScanOptions(), scratch);
+        assertEquals(4, tree.size());
+        int a = tree.getChild(0, 0);
+        int c = tree.getChild(tree.getChild(a, 0), 0);
+        assertEquals("c.txt", tree.getName(c));
+        assertEquals(root.resolve("a/b/c.txt").toString(), tree.getPath(c));
+        assertEquals(123, tree.getTotalSize(a));
+
+        FileNode node = tree.toFileNode(a);
+        assertTrue(node.isDirectory());
+        assertEquals(123, node.getTotalSize());
+        assertEquals(new File(root.toFile(), "a"), node.getFile());
+        tree.close();
+        assertEquals(0, Files.list(scratch).count());
+        assertEquals(0, tree.size());
+    }
+
+    private static void compare(FileNode node, OffHeapTree tree, int id) {
+        assertEquals(node.getPath().toString(), tree.getPath(id));
+        assertEquals(node.isDirectory(), tree.isDirectory(id));
+        assertEquals(node.getTotalSize(), tree.getTotalSize(id));
+        assertEquals(node.getLastModified(), tree.getLastModified(id));
+        assertEquals(node.getOwner(), tree.getOwner(id));
+        assertEquals(node.getChildren().size(), tree.getChildCount(id));
+        for (int i = 0; i < node.getChildren().size(); i++) {
+            FileNode child = node.getChildren().get(i);
+            int childId = tree.getChild(id, i);
+            assertEquals(id, tree.getParent(childId));
+            assertEquals(child.getName(), tree.getName(childId));
+            compare(child, tree, childId);
+        }
+    }
+
+    private static long count(FileNode node) {
+        long count = 1;
+        for (FileNode child : node.getChildren()) {
+            count += count(child);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,144 @@
+package ru.fsapp.service;
+
+import org.apache.log4j.Logger;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ru.fsapp.model.FileNode;
+import ru.fsapp.testutil.SyntheticTreeGenerator;
+import ru.fsapp.util.FormatUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Time and heap budgets of scans on a generated tree.
+ * Runs on a small tree by default; mvn test -Pscale runs it on 1M entries.
+ *
+ * System properties: fsapp.scale.entries, fsapp.scale.maxNanosPerEntry,
+ * fsapp.scale.maxHeapBytesPerEntry.
+ *
+ * Default budgets are the measured baselines plus about 50% for time and 30% for heap:
+ * the scan took 44-53 us/entry on 20K entries and 18 us/entry on 1M entries,
+ * the tree held 305-438 heap bytes/entry. Stats take about half of the scan time.
+ */
+public class ScaleRegressionTest {
+
+    private static final Logger logger = Logger.getLogger(ScaleRegressionTest.class);
+
+    private static final long ENTRIES = Long.getLong("fsapp.scale.entries", 20_000);
+    private static final long MAX_NANOS_PER_ENTRY = Long.getLong("fsapp.scale.maxNanosPerEntry", 80_000);
+    private static final long MAX_HEAP_BYTES_PER_ENTRY = Long.getLong("fsapp.scale.maxHeapBytesPerEntry", 576);
+
+    /** Root reads every folder, so nothing in the tree is hidden. */
+    private static final boolean IS_ROOT = "root".equals(System.getProperty("user.name"));
+
+    private static Path root;
+    private static SyntheticTreeGenerator.Summary summary;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        root = Files.createTempDirectory("fsapp-scale");
+        int depth = ENTRIES > 100_000 ? 5 : 3;
+        summary = new SyntheticTreeGenerator()
+                .seed(2026)
+                .fanOut(10)
+                .depth(depth)
+                .filesPerDirectory(24)
+                .fileSizes(0, 64L * 1024 * 1024)
+                .symlinkRatio(0.01)
+                .unreadableRatio(0.02)
+                .hugeDirectoryEntries((int) Math.min(ENTRIES / 10, 1_000_000))
+                .maxEntries(ENTRIES)
+                .generate(root);
+    }
+
+    @AfterClass
+    public static void cleanUp() throws Exception {
+        SyntheticTreeGenerator.delete(root);
+    }
+
+    @Test
+    public void testBuildTreeWithinBudgets() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = usedHeap(memory);
+
+        long start = System.nanoTime();
+        FileNode tree = FileSystemService.buildTree(root.toString());
+        long nanos = System.nanoTime() - start;
+
+        long heap = usedHeap(memory) - heapBefore;
+        long nodes = count(tree) - 1;
+
+        assertEquals(visible().entries(), nodes);
+        long nanosPerEntry = nanos / nodes;
+        long heapPerEntry = heap / nodes;
+        logger.info("Scale: " + nodes + " entries, " + nanosPerEntry + " ns/entry, "
+                + heapPerEntry + " heap bytes/entry");
+        assertTrue("Scan too slow: " + nanosPerEntry + " ns/entry", nanosPerEntry <= MAX_NANOS_PER_ENTRY);
+        assertTrue("Tree too large: " + heapPerEntry + " bytes/entry", heapPerEntry <= MAX_HEAP_BYTES_PER_ENTRY);
+    }
+
+    @Test
+    public void testFormatUtilsStatsMatchGenerator() {
+        SyntheticTreeGenerator.Summary expected = visible();
+        long start = System.nanoTime();
+        assertEquals(expected.files + expected.symlinks, FormatUtils.countFiles(root));
+        assertEquals(expected.directories, FormatUtils.countDirectories(root));
+        assertEquals(expected.totalBytes + expected.symlinkTargetBytes, FormatUtils.calculateTotalSize(root));
+        long nanosPerEntry = (System.nanoTime() - start) / expected.entries();
+        assertTrue("Stats too slow: " + nanosPerEntry + " ns/entry", nanosPerEntry <= MAX_NANOS_PER_ENTRY);
+    }
+
+    @Test
+    public void testUnreadableFoldersAreEmpty() {
+        Assume.assumeFalse("Root can read every folder", IS_ROOT);
+        assertTrue(summary.unreadableDirectories > 0);
+
+        List<FileNode> unreadable = new ArrayList<>();
+        collectUnreadable(FileSystemService.buildTree(root.toString()), unreadable);
+        assertFalse(unreadable.isEmpty());
+        // Nested unreadable folders are hidden by their parents
+        assertTrue(unreadable.size() <= summary.unreadableDirectories);
+        for (FileNode node : unreadable) {
+            assertTrue(node.isDirectory());
+            assertTrue(node.getFile().getPath(), node.getChildren().isEmpty());
+        }
+    }
+
+    private static SyntheticTreeGenerator.Summary visible() {
+        return IS_ROOT ? summary : summary.readable();
+    }
+
+    private static void collectUnreadable(FileNode node, List<FileNode> unreadable) {
+        for (FileNode child : node.getChildren()) {
+            if (child.isDirectory() && !Files.isReadable(child.getFile().toPath())) {
+                unreadable.add(child);
+            } else {
+                collectUnreadable(child, unreadable);
+            }
+        }
+    }
+
+    private static long count(FileNode node) {
+        long count = 1;
+        for (FileNode child : node.getChildren()) {
+            count += count(child);
+        }
+        return count;
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
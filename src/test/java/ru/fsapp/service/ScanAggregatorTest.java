@@ -0,0 +1,92 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+import ru.fsapp.testutil.SyntheticTreeGenerator;
+import ru.fsapp.util.FormatUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ScanAggregatorTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path createTree() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        new SyntheticTreeGenerator()
+                .seed(42)
+                .fanOut(4)
+                .depth(3)
+                .filesPerDirectory(6)
+                .fileSizes(0, 20_000)
+                .generate(root);
+        Files.write(root.resolve("notes.TXT"), new byte[300]);
+        Files.write(root.resolve("archive.tar.gz"), new byte[30_000]);
+        return root;
+    }
+
+    @Test
+    public void testParallelScanMatchesWalks() throws Exception {
+        Path root = createTree();
+        ResultAggregator<long[]> totals = Aggregators.totals();
+        ResultAggregator<Map<String, long[]>> extensions = Aggregators.byExtension();
+        ResultAggregator<List<FileNode>> large = Aggregators.filesAtLeast(10_000);
+        ScanOptions options = new ScanOptions();
+        options.setParallelism(4);
+        options.addAggregator(totals);
+        options.addAggregator(extensions);
+        options.addAggregator(large);
+
+        FileSystemService.buildTree(root.toString(), options);
+
+        assertEquals(FormatUtils.countFiles(root), totals.getResult()[Aggregators.FILES]);
+        assertEquals(FormatUtils.countDirectories(root), totals.getResult()[Aggregators.DIRECTORIES]);
+        assertEquals(FormatUtils.calculateTotalSize(root), totals.getResult()[Aggregators.SIZE]);
+        for (String ext : new String[]{"txt", "gz"}) {
+            long[] stats = extensions.getResult().getOrDefault(ext, new long[2]);
+            assertEquals(FormatUtils.countFilesByExtension(root, ext), stats[0]);
+            assertEquals(FormatUtils.calculateSizeByExtension(root, ext), stats[1]);
+        }
+        assertEquals(FormatUtils.filterFilesBySize(root, 10_000).size(), large.getResult().size());
+    }
+
+    @Test
+    public void testSchedulerAndStreamingScans() throws Exception {
+        Path root = createTree();
+        long files = FormatUtils.countFiles(root);
+
+        ResultAggregator<long[]> scheduled = Aggregators.totals();
+        ScanOptions options = new ScanOptions();
+        options.addAggregator(scheduled);
+        try (ScanScheduler scheduler = new ScanScheduler(4, 4, 4)) {
+            scheduler.submit(root.toString(), options).get();
+        }
+        assertEquals(files, scheduled.getResult()[Aggregators.FILES]);
+
+        ResultAggregator<long[]> streamed = Aggregators.totals();
+        ScanOptions streamOptions = new ScanOptions();
+        streamOptions.addAggregator(streamed);
+        FileSystemService.streamTree(root.toString(), streamOptions, new TreeVisitor() {
+            @Override
+            public void enterDirectory(FileNode dir, int depth) {
+            }
+
+            @Override
+            public void visitFile(FileNode file, int depth) {
+            }
+
+            @Override
+            public void exitDirectory(FileNode dir, int depth) {
+            }
+        });
+        assertEquals(files, streamed.getResult()[Aggregators.FILES]);
+    }
+}
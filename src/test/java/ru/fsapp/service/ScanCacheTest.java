@@ -0,0 +1,103 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.*;
+
+public class ScanCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private FileNode scan(Path root, ScanCache cache, ScanMetrics metrics) {
+        ScanOptions options = new ScanOptions();
+        options.setCache(cache);
+        options.setMetrics(metrics);
+        return FileSystemService.buildTree(root.toString(), options);
+    }
+
+    private Path createTree() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Path sub = Files.createDirectories(root.resolve("a/b"));
+        Files.write(root.resolve("top.txt"), new byte[10]);
+        Files.write(sub.resolve("deep.txt"), new byte[100]);
+        Files.write(root.resolve("a/mid.txt"), new byte[1000]);
+        return root;
+    }
+
+    @Test
+    public void testSecondScanReusesUnchangedFolders() throws Exception {
+        Path root = createTree();
+        ScanCache cache = new ScanCache(1000);
+        FileNode first = scan(root, cache, new ScanMetrics());
+
+        ScanMetrics metrics = new ScanMetrics();
+        FileNode second = scan(root, cache, metrics);
+        assertEquals(3, metrics.getReused());
+        assertEquals(0, metrics.getListings());
+        assertEquals(first.getTotalSize(), second.getTotalSize());
+        assertEquals(1110, second.getTotalSize());
+        assertNotSame(first.getChildren().get(0), second.getChildren().get(0));
+    }
+
+    @Test
+    public void testModifiedFolderIsListedAgain() throws Exception {
+        Path root = createTree();
+        ScanCache cache = new ScanCache(1000);
+        scan(root, cache, new ScanMetrics());
+
+        Path sub = root.resolve("a/b");
+        Files.write(sub.resolve("new.txt"), new byte[5]);
+        // Folder times can be coarse, make the change visible
+        Files.setLastModifiedTime(sub, FileTime.fromMillis(Files.getLastModifiedTime(sub).toMillis() + 2000));
+
+        ScanMetrics metrics = new ScanMetrics();
+        FileNode second = scan(root, cache, metrics);
+        assertEquals(1115, second.getTotalSize());
+        assertEquals(1, metrics.getListings());
+        assertEquals(2, metrics.getReused());
+    }
+
+    @Test
+    public void testParentScanReusesSubfolderTree() throws Exception {
+        Path root = createTree();
+        ScanCache cache = new ScanCache(1000);
+        scan(root.resolve("a"), cache, new ScanMetrics());
+
+        ScanMetrics metrics = new ScanMetrics();
+        FileNode tree = scan(root, cache, metrics);
+        assertEquals(1110, tree.getTotalSize());
+        assertEquals(2, metrics.getReused());
+        assertEquals(1, cache.getTrees());
+
+        ScanMetrics subMetrics = new ScanMetrics();
+        FileNode sub = scan(root.resolve("a/b"), cache, subMetrics);
+        assertEquals(100, sub.getTotalSize());
+        assertEquals(1, subMetrics.getReused());
+    }
+
+    @Test
+    public void testEvictionAndInvalidation() throws Exception {
+        Path root = createTree();
+        ScanCache cache = new ScanCache(6);
+        scan(root.resolve("a"), cache, new ScanMetrics());
+        assertEquals(4, cache.getEntries());
+        scan(root, cache, new ScanMetrics());
+        // The whole tree has 6 nodes and replaces the tree of its subfolder
+        assertEquals(6, cache.getEntries());
+        assertEquals(1, cache.getTrees());
+
+        cache.invalidate(root.resolve("a"));
+        assertEquals(1, cache.getTrees());
+        cache.invalidate(root);
+        assertEquals(0, cache.getTrees());
+        assertEquals(0, cache.getEntries());
+    }
+}
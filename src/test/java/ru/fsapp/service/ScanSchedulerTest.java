@@ -0,0 +1,55 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ScanSchedulerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testConcurrentRootsMatchSequentialScan() throws Exception {
+        List<Path> roots = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Path root = temp.newFolder("root" + r).toPath();
+            for (int d = 0; d < 5 + r * 5; d++) {
+                Path dir = Files.createDirectories(root.resolve("d" + d + "/sub"));
+                Files.write(dir.resolve("f"), new byte[d + 1]);
+            }
+            roots.add(root);
+        }
+
+        try (ScanScheduler scheduler = new ScanScheduler(3, 2, 2)) {
+            List<CompletableFuture<FileNode>> futures = new ArrayList<>();
+            for (Path root : roots) {
+                futures.add(scheduler.submit(root.toString(), new ScanOptions()));
+            }
+            for (int r = 0; r < roots.size(); r++) {
+                FileNode scheduled = futures.get(r).get(30, TimeUnit.SECONDS);
+                FileNode sequential = FileSystemService.buildTree(roots.get(r).toString());
+                assertEquals(sequential.getTotalSize(), scheduled.getTotalSize());
+                assertEquals(sequential.getChildren().size(), scheduled.getChildren().size());
+            }
+            assertEquals(0, scheduler.getActiveScans());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosedSchedulerRejectsScans() throws Exception {
+        ScanScheduler scheduler = new ScanScheduler(1, 1, 1);
+        scheduler.close();
+        scheduler.submit(temp.getRoot().toString(), new ScanOptions());
+    }
+}
@@ -0,0 +1,128 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class SpillStoreTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path createTree() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 3; b++) {
+                Path dir = Files.createDirectories(root.resolve("a" + a).resolve("b" + b));
+                for (int f = 0; f < 5; f++) {
+                    Files.write(dir.resolve("file" + f + ".dat"), new byte[a * 100 + b * 10 + f]);
+                }
+            }
+            Files.write(root.resolve("a" + a).resolve("top.txt"), new byte[1000 + a]);
+        }
+        Files.createDirectories(root.resolve("empty"));
+        return root;
+    }
+
+    /**
+     * Collects sizes of all elements, reading written folders back and dropping them again.
+     */
+    private static void collect(FileNode node, SpillStore store, String prefix, Map<String, Long> sizes)
+            throws Exception {
+        sizes.put(prefix + node.getName(), node.getTotalSize());
+        boolean loaded = store != null && store.load(node);
+        for (FileNode child : node.getChildren()) {
+            collect(child, store, prefix + node.getName() + "/", sizes);
+        }
+        if (loaded) {
+            assertTrue(store.release(node));
+        }
+    }
+
+    @Test
+    public void testTotalsAndContentsStayExact() throws Exception {
+        Path root = createTree();
+        FileNode full = FileSystemService.buildTree(root.toString(), new ScanOptions());
+        Map<String, Long> expected = new TreeMap<>();
+        collect(full, null, "", expected);
+
+        for (int parallelism : new int[]{1, 3}) {
+            try (SpillStore store = new SpillStore(temp.getRoot().toPath(), 5 * SpillStore.NODE_BYTES)) {
+                ScanOptions options = new ScanOptions();
+                options.setParallelism(parallelism);
+                options.setSpillStore(store);
+                FileNode tree = FileSystemService.buildTree(root.toString(), options);
+
+                assertTrue(store.getSpilledFolders() > 0);
+                assertTrue(store.getFileSize() > 0);
+                assertEquals(full.getTotalSize(), tree.getTotalSize());
+                assertEquals(full.getTotalAllocated(), tree.getTotalAllocated());
+                assertEquals(full.getUniqueSize(), tree.getUniqueSize());
+
+                long live = store.getLiveNodes();
+                Map<String, Long> actual = new TreeMap<>();
+                collect(tree, store, "", actual);
+                assertEquals(expected, actual);
+                // Everything read back was dropped again
+                assertEquals(live, store.getLiveNodes());
+            }
+        }
+    }
+
+    @Test
+    public void testLoadRestoresHandleOneLevel() throws Exception {
+        Path root = createTree();
+        try (SpillStore store = new SpillStore(temp.getRoot().toPath(), Long.MAX_VALUE)) {
+            ScanOptions options = new ScanOptions();
+            options.setSpillStore(store);
+            FileNode tree = FileSystemService.buildTree(root.toString(), options);
+            assertEquals(0, store.getSpilledFolders());
+
+            FileNode a1 = null;
+            for (FileNode child : tree.getChildren()) {
+                if ("a1".equals(child.getName())) {
+                    a1 = child;
+                }
+            }
+            assertNotNull(a1);
+            long size = a1.getTotalSize();
+            store.spill(a1);
+            assertTrue(store.isSpilled(a1));
+            assertFalse(a1.isListed());
+            assertTrue(a1.getChildren().isEmpty());
+            assertEquals(size, a1.getTotalSize());
+            tree.updateTotals();
+            assertEquals(size, a1.getTotalSize());
+            assertFalse(store.release(a1));
+
+            assertTrue(store.load(a1));
+            assertFalse(store.load(a1));
+            assertEquals(4, a1.getChildren().size());
+            for (FileNode child : a1.getChildren()) {
+                assertEquals(child.getPath(), root.resolve("a1").resolve(child.getName()));
+                if (child.isDirectory()) {
+                    assertTrue(store.isSpilled(child));
+                    assertTrue(store.load(child));
+                    assertEquals(5, child.getChildren().size());
+                } else {
+                    assertEquals(1001, child.getSize());
+                }
+            }
+            tree.updateTotals();
+            assertEquals(size, a1.getTotalSize());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBudgetMustBePositive() throws Exception {
+        new SpillStore(temp.getRoot().toPath(), 0);
+    }
+}
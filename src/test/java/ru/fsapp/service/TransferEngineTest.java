@@ -0,0 +1,176 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class TransferEngineTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testCopySubtreeUpdatesTree() throws Exception {
+        Path root = temp.getRoot().toPath();
+        Path src = Files.createDirectories(root.resolve("src/nested"));
+        for (int i = 0; i < 100; i++) {
+            Files.write(src.resolve("f" + i), new byte[i * 10]);
+        }
+        Files.createDirectories(root.resolve("dst"));
+
+        FileNode tree = FileSystemService.buildTree(root.toString());
+        FileNode srcNode = findChild(tree, "src");
+        FileNode dstNode = findChild(tree, "dst");
+
+        OperationResult result = new TransferEngine(4).copyNodes(Collections.singletonList(srcNode),
+                root.resolve("dst"), dstNode, ProgressListener.NONE, new CancellationToken());
+
+        assertTrue(result.isSuccessful());
+        assertEquals(102, result.getCompleted());
+        assertEquals(49500, result.getBytes());
+        assertEquals(990, Files.size(root.resolve("dst/src/nested/f99")));
+        FileNode copy = findChild(dstNode, "src");
+        assertNotNull(copy);
+        assertEquals(100, findChild(copy, "nested").getChildren().size());
+        assertNotNull(findChild(tree, "src"));
+    }
+
+    @Test
+    public void testMoveRenamesAndReattaches() throws Exception {
+        Path root = temp.getRoot().toPath();
+        Files.createDirectories(root.resolve("a/b"));
+        Files.createFile(root.resolve("a/b/file.txt"));
+        Files.createDirectories(root.resolve("target"));
+
+        FileNode tree = FileSystemService.buildTree(root.toString());
+        FileNode a = findChild(tree, "a");
+        FileNode target = findChild(tree, "target");
+
+        OperationResult result = new TransferEngine(2).moveNodes(Collections.singletonList(a),
+                root.resolve("target"), target, ProgressListener.NONE, new CancellationToken());
+
+        assertTrue(result.isSuccessful());
+        assertTrue(Files.exists(root.resolve("target/a/b/file.txt")));
+        assertNull(findChild(tree, "a"));
+        FileNode moved = findChild(target, "a");
+        assertEquals(root.resolve("target/a/b"), findChild(moved, "b").getPath());
+    }
+
+    @Test
+    public void testCopyKeepsPermissionsAndFolderTimes() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path root = temp.getRoot().toPath();
+        Path tool = Files.createDirectories(root.resolve("src/bin")).resolve("tool.sh");
+        Files.write(tool, "#!/bin/sh\n".getBytes());
+        Files.setPosixFilePermissions(tool, PosixFilePermissions.fromString("rwxr-x---"));
+        FileTime time = FileTime.fromMillis(1500000000000L);
+        Files.setLastModifiedTime(tool, time);
+        Files.setLastModifiedTime(root.resolve("src/bin"), time);
+        Files.setLastModifiedTime(root.resolve("src"), time);
+        Files.createDirectories(root.resolve("dst"));
+
+        FileNode tree = FileSystemService.buildTree(root.toString());
+        OperationResult result = new TransferEngine(2).copyNodes(Collections.singletonList(findChild(tree, "src")),
+                root.resolve("dst"), findChild(tree, "dst"), ProgressListener.NONE, new CancellationToken());
+
+        assertTrue(result.isSuccessful());
+        Path copy = root.resolve("dst/src/bin/tool.sh");
+        assertEquals("rwxr-x---", PosixFilePermissions.toString(Files.getPosixFilePermissions(copy)));
+        assertEquals(time, Files.getLastModifiedTime(copy));
+        assertEquals(time, Files.getLastModifiedTime(root.resolve("dst/src/bin")));
+        assertEquals(time, Files.getLastModifiedTime(root.resolve("dst/src")));
+    }
+
+    @Test
+    public void testMoveKeepsDiskUsageAttributes() throws Exception {
+        Path root = temp.getRoot().toPath();
+        Path dir = Files.createDirectories(root.resolve("a"));
+        Files.write(dir.resolve("data"), new byte[10000]);
+        Files.createLink(dir.resolve("link"), dir.resolve("data"));
+        Files.createDirectories(root.resolve("target"));
+
+        FileNode tree = FileSystemService.buildTree(root.toString());
+        FileNode a = findChild(tree, "a");
+        long allocated = a.getTotalAllocated();
+        long unique = a.getUniqueSize();
+        FileNode link = findChild(a, "link");
+        FileNode data = findChild(a, "data");
+
+        OperationResult result = new TransferEngine(2).moveNodes(Collections.singletonList(a),
+                root.resolve("target"), findChild(tree, "target"), ProgressListener.NONE, new CancellationToken());
+
+        assertTrue(result.isSuccessful());
+        FileNode moved = findChild(findChild(tree, "target"), "a");
+        for (FileNode original : new FileNode[]{link, data}) {
+            FileNode node = findChild(moved, original.getName());
+            assertEquals(root.resolve("target/a").resolve(original.getName()), node.getPath());
+            assertEquals(original.getAllocatedSize(), node.getAllocatedSize());
+            assertEquals(original.getInode(), node.getInode());
+            assertEquals(original.getLinkCount(), node.getLinkCount());
+            assertEquals(original.isDuplicateLink(), node.isDuplicateLink());
+        }
+        tree.updateTotals();
+        assertEquals(allocated, moved.getTotalAllocated());
+        assertEquals(unique, moved.getUniqueSize());
+    }
+
+    @Test
+    public void testMoveOfNestedSelection() throws Exception {
+        Path root = temp.getRoot().toPath();
+        Files.createDirectories(root.resolve("a/b"));
+        Files.createFile(root.resolve("a/b/file.txt"));
+        Files.createDirectories(root.resolve("target"));
+
+        FileNode tree = FileSystemService.buildTree(root.toString());
+        FileNode a = findChild(tree, "a");
+        FileNode file = findChild(findChild(a, "b"), "file.txt");
+
+        OperationResult result = new TransferEngine(2).moveNodes(Arrays.asList(file, a),
+                root.resolve("target"), findChild(tree, "target"), ProgressListener.NONE, new CancellationToken());
+
+        assertTrue(result.isSuccessful());
+        assertEquals(1, result.getCompleted());
+        assertTrue(Files.exists(root.resolve("target/a/b/file.txt")));
+        assertFalse(Files.exists(root.resolve("target/file.txt")));
+        assertEquals(1, findChild(tree, "target").getChildren().size());
+    }
+
+    @Test
+    public void testMoveRefusesExistingTarget() throws Exception {
+        Path root = temp.getRoot().toPath();
+        Files.write(Files.createDirectories(root.resolve("src")).resolve("file.txt"), new byte[]{1});
+        Files.write(Files.createDirectories(root.resolve("target")).resolve("file.txt"), new byte[]{2, 2});
+
+        FileNode tree = FileSystemService.buildTree(root.toString());
+        FileNode file = findChild(findChild(tree, "src"), "file.txt");
+
+        OperationResult result = new TransferEngine(2).moveNodes(Collections.singletonList(file),
+                root.resolve("target"), findChild(tree, "target"), ProgressListener.NONE, new CancellationToken());
+
+        assertFalse(result.isSuccessful());
+        assertTrue(Files.exists(root.resolve("src/file.txt")));
+        assertEquals(2, Files.size(root.resolve("target/file.txt")));
+        assertSame(file, findChild(findChild(tree, "src"), "file.txt"));
+    }
+
+    private static FileNode findChild(FileNode node, String name) {
+        for (FileNode child : node.getChildren()) {
+            if (child.getName().equals(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+}
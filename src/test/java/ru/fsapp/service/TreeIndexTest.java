@@ -0,0 +1,104 @@
+package ru.fsapp.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.fsapp.model.FileNode;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class TreeIndexTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private TreeIndex buildIndex() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Files.createDirectories(root.resolve("b/deep/deeper"));
+        Files.createDirectories(root.resolve("a"));
+        Files.createDirectories(root.resolve("c"));
+        Files.write(root.resolve("a/small.txt"), new byte[10]);
+        Files.write(root.resolve("a/Report.TXT"), new byte[300]);
+        Files.write(root.resolve("b/big.bin"), new byte[5000]);
+        Files.write(root.resolve("b/deep/middle.bin"), new byte[2000]);
+        Files.write(root.resolve("b/deep/deeper/report.log"), new byte[700]);
+        Files.write(root.resolve("top.txt"), new byte[50]);
+        FileNode tree = FileSystemService.buildTree(root.toString(), new ScanOptions());
+        return TreeIndex.build(tree);
+    }
+
+    @Test
+    public void testFindAndPaths() throws Exception {
+        TreeIndex index = buildIndex();
+        assertEquals(12, index.size());
+        assertEquals(0, index.find(""));
+        int deep = index.find("b/deep");
+        assertTrue(deep > 0);
+        assertEquals("deep", index.getNode(deep).getName());
+        assertEquals("b/deep", index.getRelativePath(deep));
+        assertEquals("b/deep/deeper/report.log", index.getRelativePath(index.find("b/deep/deeper/report.log")));
+        assertEquals(-1, index.find("b/missing"));
+        assertEquals(-1, index.find("top.txt/child"));
+        assertEquals(-1, index.find("B"));
+    }
+
+    @Test
+    public void testChildrenInNameOrderAndCounts() throws Exception {
+        TreeIndex index = buildIndex();
+        int[] children = index.getChildren(0);
+        String[] names = new String[children.length];
+        for (int i = 0; i < children.length; i++) {
+            names[i] = index.getNode(children[i]).getName();
+        }
+        assertArrayEquals(new String[]{"a", "b", "c", "top.txt"}, names);
+        assertEquals(0, index.getChildren(index.find("top.txt")).length);
+        assertEquals(0, index.getChildren(index.find("c")).length);
+
+        assertEquals(6, index.getFileCount(0));
+        assertEquals(5, index.getFolderCount(0));
+        int b = index.find("b");
+        assertEquals(3, index.getFileCount(b));
+        assertEquals(2, index.getFolderCount(b));
+        assertEquals(1, index.getFileCount(index.find("top.txt")));
+    }
+
+    @Test
+    public void testLargestWholeTreeAndSubtree() throws Exception {
+        TreeIndex index = buildIndex();
+        int[] files = index.getLargest(0, false, 3);
+        assertEquals(3, files.length);
+        assertEquals("big.bin", index.getNode(files[0]).getName());
+        assertEquals("middle.bin", index.getNode(files[1]).getName());
+        assertEquals("report.log", index.getNode(files[2]).getName());
+
+        int[] folders = index.getLargest(0, true, 10);
+        assertEquals(5, folders.length);
+        assertEquals("b", index.getNode(folders[0]).getName());
+        assertEquals("deep", index.getNode(folders[1]).getName());
+
+        // A small subtree takes the heap path and must give the same order
+        int deep = index.find("b/deep");
+        int[] deepFiles = index.getLargest(deep, false, 5);
+        assertEquals(2, deepFiles.length);
+        assertEquals("middle.bin", index.getNode(deepFiles[0]).getName());
+        assertEquals("report.log", index.getNode(deepFiles[1]).getName());
+        assertEquals(0, index.getLargest(index.find("top.txt"), false, 5).length);
+        assertEquals(0, index.getLargest(0, false, 0).length);
+    }
+
+    @Test
+    public void testSearchIgnoresCaseAndStaysInSubtree() throws Exception {
+        TreeIndex index = buildIndex();
+        int[] all = index.search(0, "REPORT", 10);
+        assertEquals(2, all.length);
+        assertEquals("a/Report.TXT", index.getRelativePath(all[0]));
+        assertEquals("b/deep/deeper/report.log", index.getRelativePath(all[1]));
+
+        assertEquals(1, index.search(index.find("b"), "report", 10).length);
+        assertEquals(1, index.search(0, "report", 1).length);
+        assertEquals(0, index.search(0, "nothing", 10).length);
+    }
+}
@@ -0,0 +1,252 @@
+package ru.fsapp.testutil;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of synthetic file trees for tests and benchmarks.
+ *
+ * The same seed and settings always produce the same names, sizes and
+ * structure. File contents are sparse, so trees with millions of entries
+ * and large apparent sizes need little disk space.
+ */
+public class SyntheticTreeGenerator {
+
+    private static final String[] EXTENSIONS = {"txt", "log", "dat", "parquet", "java", "jpg", "zip", ""};
+
+    private long seed = 42;
+    private int fanOut = 8;
+    private int depth = 3;
+    private int filesPerDirectory = 16;
+    private long minFileSize = 0;
+    private long maxFileSize = 1024 * 1024;
+    private double symlinkRatio;
+    private double unreadableRatio;
+    private int hugeDirectoryEntries;
+    private long maxEntries = Long.MAX_VALUE;
+
+    private SplittableRandom random;
+    private Summary summary;
+    private List<Path> createdFiles;
+
+    public SyntheticTreeGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public SyntheticTreeGenerator fanOut(int fanOut) {
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    public SyntheticTreeGenerator depth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    public SyntheticTreeGenerator filesPerDirectory(int filesPerDirectory) {
+        this.filesPerDirectory = filesPerDirectory;
+        return this;
+    }
+
+    /**
+     * File sizes are distributed log-uniformly between min and max,
+     * giving many small files and a long tail of large ones.
+     */
+    public SyntheticTreeGenerator fileSizes(long minFileSize, long maxFileSize) {
+        this.minFileSize = minFileSize;
+        this.maxFileSize = maxFileSize;
+        return this;
+    }
+
+    public SyntheticTreeGenerator symlinkRatio(double symlinkRatio) {
+        this.symlinkRatio = symlinkRatio;
+        return this;
+    }
+
+    /**
+     * Share of folders that are made unreadable (permissions 000).
+     * What they contain is counted in {@link Summary#hidden} as well.
+     * Has no effect when tests run as root.
+     */
+    public SyntheticTreeGenerator unreadableRatio(double unreadableRatio) {
+        this.unreadableRatio = unreadableRatio;
+        return this;
+    }
+
+    /**
+     * Adds folder "huge" under the root with the given number of empty files.
+     */
+    public SyntheticTreeGenerator hugeDirectoryEntries(int hugeDirectoryEntries) {
+        this.hugeDirectoryEntries = hugeDirectoryEntries;
+        return this;
+    }
+
+    /**
+     * Stops generation once this many entries were created.
+     */
+    public SyntheticTreeGenerator maxEntries(long maxEntries) {
+        this.maxEntries = maxEntries;
+        return this;
+    }
+
+    /**
+     * Generates tree inside an existing empty folder.
+     *
+     * @param root root folder
+     * @return what was created
+     */
+    public Summary generate(Path root) throws IOException {
+        random = new SplittableRandom(seed);
+        summary = new Summary();
+        summary.hidden = new Summary();
+        createdFiles = new ArrayList<>();
+        if (hugeDirectoryEntries > 0) {
+            Path huge = createDirectory(root.resolve("huge"));
+            for (int i = 0; i < hugeDirectoryEntries && !full(); i++) {
+                Files.createFile(huge.resolve(String.format("part-%08d.parquet", i)));
+                summary.files++;
+            }
+        }
+        generate(root, 0);
+        return summary;
+    }
+
+    private void generate(Path dir, int level) throws IOException {
+        for (int i = 0; i < filesPerDirectory && !full(); i++) {
+            String ext = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            Path file = dir.resolve("file-" + level + "-" + i + (ext.isEmpty() ? "" : "." + ext));
+            if (!createdFiles.isEmpty() && random.nextDouble() < symlinkRatio) {
+                Path target = createdFiles.get(random.nextInt(createdFiles.size()));
+                Files.createSymbolicLink(file, target);
+                summary.symlinks++;
+                summary.symlinkTargetBytes += Files.size(target);
+                continue;
+            }
+            long size = nextSize();
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(size);
+            }
+            createdFiles.add(file);
+            summary.files++;
+            summary.totalBytes += size;
+        }
+
+        if (level < depth) {
+            for (int i = 0; i < fanOut && !full(); i++) {
+                Path child = createDirectory(dir.resolve("dir-" + level + "-" + i));
+                Summary before = summary.counts();
+                Summary hiddenBefore = summary.hidden;
+                int filesBefore = createdFiles.size();
+                generate(child, level + 1);
+                if (random.nextDouble() < unreadableRatio) {
+                    Files.setPosixFilePermissions(child, PosixFilePermissions.fromString("---------"));
+                    summary.unreadableDirectories++;
+                    // Everything below is hidden, including what nested unreadable folders hid
+                    summary.hidden = hiddenBefore.combine(summary.combine(before, -1), 1);
+                    // Later links must not point into the folder
+                    createdFiles.subList(filesBefore, createdFiles.size()).clear();
+                }
+            }
+        }
+    }
+
+    private Path createDirectory(Path dir) throws IOException {
+        summary.directories++;
+        return Files.createDirectory(dir);
+    }
+
+    private long nextSize() {
+        if (maxFileSize <= minFileSize) {
+            return minFileSize;
+        }
+        double low = Math.log(minFileSize + 1);
+        double high = Math.log(maxFileSize + 1);
+        return Math.min(maxFileSize, (long) Math.exp(low + random.nextDouble() * (high - low)) - 1);
+    }
+
+    private boolean full() {
+        return summary.entries() >= maxEntries;
+    }
+
+    /**
+     * Deletes generated tree, restoring permissions of unreadable folders first.
+     */
+    public static void delete(Path root) throws IOException {
+        restorePermissions(root);
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void restorePermissions(Path dir) throws IOException {
+        Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwx------"));
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    restorePermissions(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts of generated elements.
+     */
+    public static class Summary {
+        public long files;
+        public long directories;
+        public long symlinks;
+        public long unreadableDirectories;
+        public long totalBytes;
+        public long symlinkTargetBytes;
+        /** Counts of the elements inside unreadable folders, the folders themselves not included. */
+        public Summary hidden;
+
+        public long entries() {
+            return files + directories + symlinks;
+        }
+
+        /**
+         * Returns counts of what can be read without root permissions.
+         */
+        public Summary readable() {
+            return combine(hidden, -1);
+        }
+
+        private Summary counts() {
+            return combine(new Summary(), 1);
+        }
+
+        private Summary combine(Summary other, int sign) {
+            Summary result = new Summary();
+            result.files = files + sign * other.files;
+            result.directories = directories + sign * other.directories;
+            result.symlinks = symlinks + sign * other.symlinks;
+            result.totalBytes = totalBytes + sign * other.totalBytes;
+            result.symlinkTargetBytes = symlinkTargetBytes + sign * other.symlinkTargetBytes;
+            return result;
+        }
+    }
+}
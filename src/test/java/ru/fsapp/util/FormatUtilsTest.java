@@ -1,14 +1,28 @@
 package ru.fsapp.util;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import static org.junit.Assert.*;
 
 public class FormatUtilsTest {
 
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
     @Test
     public void testFormatSize() {
         assertEquals("0 B", FormatUtils.formatSize(0));
         assertEquals("1.00 KB", FormatUtils.formatSize(1024));
+        assertEquals("1023.00 B", FormatUtils.formatSize(1023));
+        assertEquals("1.50 KB", FormatUtils.formatSize(1536));
+        assertEquals("1024.00 KB", FormatUtils.formatSize(1024L * 1024 - 1));
+        assertEquals("2.00 GB", FormatUtils.formatSize(2L * 1024 * 1024 * 1024));
+        assertEquals("8388608.00 TB", FormatUtils.formatSize(Long.MAX_VALUE));
     }
 
     @Test
@@ -16,4 +30,56 @@ public class FormatUtilsTest {
         String result = FormatUtils.formatDate(System.currentTimeMillis());
         assertNotNull(result);
     }
+
+    @Test
+    public void testDirectoryStatsOnePassAndParallel() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Path deep = Files.createDirectories(root.resolve("a/b/c"));
+        Files.createDirectories(root.resolve("empty"));
+        Files.write(root.resolve("top.bin"), new byte[100]);
+        Files.write(root.resolve("a/one.bin"), new byte[20]);
+        Files.write(deep.resolve("two.bin"), new byte[3]);
+        // A link to a file counts with the size of its target, a broken link not at all
+        Files.createSymbolicLink(root.resolve("link.bin"), root.resolve("top.bin"));
+        Files.createSymbolicLink(root.resolve("broken.bin"), root.resolve("missing"));
+
+        DirectoryStats stats = FormatUtils.directoryStats(root);
+        assertEquals(4, stats.getFiles());
+        assertEquals(4, stats.getDirectories());
+        assertEquals(223, stats.getTotalSize());
+
+        DirectoryStats parallel = FormatUtils.directoryStats(root, 3);
+        assertEquals(stats.getFiles(), parallel.getFiles());
+        assertEquals(stats.getDirectories(), parallel.getDirectories());
+        assertEquals(stats.getTotalSize(), parallel.getTotalSize());
+
+        assertEquals(4, FormatUtils.countFiles(root));
+        assertEquals(4, FormatUtils.countDirectories(root));
+        assertEquals(223, FormatUtils.calculateTotalSize(root));
+    }
+
+    @Test
+    public void testDirectoryStatsOfLinkedFolder() throws Exception {
+        Path root = temp.newFolder("root").toPath();
+        Files.createDirectories(root.resolve("sub"));
+        Files.write(root.resolve("top.bin"), new byte[100]);
+        Files.write(root.resolve("sub/one.bin"), new byte[20]);
+        Path link = Files.createSymbolicLink(temp.getRoot().toPath().resolve("link"), root);
+
+        for (DirectoryStats stats : new DirectoryStats[] {
+                FormatUtils.directoryStats(link), FormatUtils.directoryStats(link, 3)}) {
+            assertEquals(2, stats.getFiles());
+            assertEquals(1, stats.getDirectories());
+            assertEquals(120, stats.getTotalSize());
+        }
+        assertEquals(0, FormatUtils.directoryStats(root, 3, () -> true).getFiles());
+    }
+
+    @Test
+    public void testDirectoryStatsOfMissingFolder() {
+        Path missing = temp.getRoot().toPath().resolve("missing");
+        assertEquals(0, FormatUtils.directoryStats(missing).getFiles());
+        assertEquals(0, FormatUtils.countDirectories(missing));
+        assertEquals(0, FormatUtils.directoryStats(missing, 3).getTotalSize());
+    }
 }
@@ -0,0 +1,70 @@
+package ru.fsapp.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrontCodedNamesTest {
+
+    @Test
+    public void testLookupAndRoundTrip() throws Exception {
+        List<String> names = new ArrayList<>();
+        long rawBytes = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String name = String.format("part-%05d.parquet", i);
+            names.add(name);
+            rawBytes += name.getBytes(StandardCharsets.UTF_8).length;
+        }
+        names.add("файл.txt");
+        names.add("a");
+        Collections.shuffle(names);
+
+        FrontCodedNames coded = FrontCodedNames.of(names);
+        assertEquals(names.size(), coded.size());
+        assertTrue("Encoded " + coded.getByteSize() + " of " + rawBytes + " bytes",
+                coded.getByteSize() * 4 < rawBytes);
+
+        Collections.sort(names);
+        assertEquals(names, new ArrayList<>(coded));
+        assertEquals(0, coded.indexOf("a"));
+        assertEquals(names.indexOf("part-04097.parquet"), coded.indexOf("part-04097.parquet"));
+        assertEquals(names.size() - 1, coded.indexOf("файл.txt"));
+        assertEquals(-1, coded.indexOf("part-1.parquet"));
+        assertEquals(-1, coded.indexOf("zzz"));
+        assertFalse(coded.contains(""));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        coded.writeTo(out);
+        FrontCodedNames read = FrontCodedNames.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(names, new ArrayList<>(read));
+        assertEquals(coded.indexOf("part-09999.parquet"), read.indexOf("part-09999.parquet"));
+    }
+
+    @Test
+    public void testSmallAndEmpty() throws Exception {
+        FrontCodedNames empty = FrontCodedNames.of(Collections.emptyList());
+        assertEquals(0, empty.size());
+        assertEquals(-1, empty.indexOf("x"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        empty.writeTo(out);
+        assertEquals(0, FrontCodedNames.readFrom(new ByteArrayInputStream(out.toByteArray())).size());
+
+        FrontCodedNames small = FrontCodedNames.ofSorted(Arrays.asList("ab", "abc", "b"), 2);
+        assertEquals(Arrays.asList("ab", "abc", "b"), small);
+        assertEquals(1, small.indexOf("abc"));
+        assertEquals(2, small.indexOf("b"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsortedNamesRejected() {
+        FrontCodedNames.ofSorted(Arrays.asList("b", "a"), 16);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.fsapp.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IndexSorterTest {
+
+    @Test
+    public void testSortIsStable() {
+        long[] keys = new long[10_000];
+        Random random = new Random(42);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(100);
+        }
+        int[] index = IndexSorter.identity(keys.length);
+        IndexSorter.sort(index, (left, right) -> Long.compare(keys[left], keys[right]));
+
+        for (int i = 1; i < index.length; i++) {
+            long previous = keys[index[i - 1]];
+            long current = keys[index[i]];
+            assertTrue(previous <= current);
+            if (previous == current) {
+                assertTrue(index[i - 1] < index[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyAndSingle() {
+        int[] empty = IndexSorter.identity(0);
+        IndexSorter.sort(empty, (left, right) -> 0);
+        assertEquals(0, empty.length);
+
+        int[] single = IndexSorter.identity(1);
+        IndexSorter.sort(single, (left, right) -> 0);
+        assertArrayEquals(new int[]{0}, single);
+    }
+}
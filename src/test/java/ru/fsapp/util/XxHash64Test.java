@@ -0,0 +1,50 @@
+package ru.fsapp.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class XxHash64Test {
+
+    private static long hash(String s) {
+        XxHash64 hash = new XxHash64();
+        byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+        hash.update(bytes, 0, bytes.length);
+        return hash.getValue();
+    }
+
+    @Test
+    public void testReferenceValues() {
+        assertEquals(0xEF46DB3751D8E999L, hash(""));
+        assertEquals(0xD24EC4F1A98C6E5BL, hash("a"));
+        assertEquals(0x44BC2CF5AD770999L, hash("abc"));
+        assertEquals(0xFBCEA83C8A378BF1L, hash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void testSplitUpdatesGiveSameValue() {
+        byte[] data = new byte[10_000];
+        new Random(7).nextBytes(data);
+        XxHash64 whole = new XxHash64();
+        whole.update(data, 0, data.length);
+
+        XxHash64 parts = new XxHash64();
+        int position = 0;
+        for (int step = 1; position < data.length; step = step * 3 % 101 + 1) {
+            int count = Math.min(step, data.length - position);
+            ByteBuffer direct = ByteBuffer.allocateDirect(count);
+            direct.put(data, position, count).flip();
+            parts.update(direct);
+            assertFalse(direct.hasRemaining());
+            position += count;
+        }
+        assertEquals(whole.getValue(), parts.getValue());
+
+        whole.reset();
+        assertEquals(0xEF46DB3751D8E999L, whole.getValue());
+    }
+}